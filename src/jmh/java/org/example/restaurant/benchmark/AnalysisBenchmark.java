@@ -0,0 +1,52 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+import org.example.restaurant.service.BusinessHoursService;
+import org.example.restaurant.service.InputValidator;
+import org.example.restaurant.service.PriceAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog-wide analysis and per-record validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnalysisBenchmark {
+
+    /** A Friday evening, when split shifts and night-market hours overlap. */
+    private static final LocalDateTime FRIDAY_EVENING = LocalDateTime.of(2025, 1, 3, 19, 30);
+
+    private final PriceAnalyzer priceAnalyzer = new PriceAnalyzer();
+    private final BusinessHoursService businessHoursService = new BusinessHoursService();
+    private final InputValidator validator = new InputValidator();
+    private int nextReview;
+
+    @Benchmark
+    public PriceAnalyzer.PriceStatistics calculatePriceStatistics(CatalogState catalog) {
+        return priceAnalyzer.calculatePriceStatistics(catalog.restaurants);
+    }
+
+    @Benchmark
+    public List<Restaurant> findOpenRestaurants(CatalogState catalog) {
+        return businessHoursService.findOpenRestaurants(catalog.restaurants, FRIDAY_EVENING);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Review validateReview(CatalogState catalog) {
+        Review review = catalog.reviews[nextReview++ % catalog.reviews.length];
+        validator.validateReview(review);
+        return review;
+    }
+}
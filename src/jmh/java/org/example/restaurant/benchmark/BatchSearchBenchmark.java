@@ -0,0 +1,81 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.SearchCriteria;
+import org.example.restaurant.service.RestaurantSearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A batch of {@code batchSize} distinct criteria searches, run one by one and
+ * as one shared scan with {@link RestaurantSearchService#searchAll}. Each
+ * query combines a city or cuisine with a rating or price range and a
+ * feature, so the batch mixes selective and broad queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchSearchBenchmark {
+
+    private static final String[] CITIES = { "台北市", "新北市", "台中市", "高雄市", "桃園市", "台南市" };
+    private static final CuisineType[] CUISINES = {
+            CuisineType.TAIWANESE, CuisineType.JAPANESE, CuisineType.CAFE, CuisineType.KOREAN,
+            CuisineType.HOT_POT, CuisineType.ITALIAN,
+    };
+
+    @Param({ "16", "64" })
+    public int batchSize;
+
+    private RestaurantSearchService searchService;
+    private List<SearchCriteria> batch;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+        searchService = new RestaurantSearchService(catalog.repository);
+        batch = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            SearchCriteria criteria = new SearchCriteria();
+            if (i % 2 == 0) {
+                criteria.setCity(CITIES[i / 2 % CITIES.length]);
+                criteria.setMinRating(3.0 + i % 3 * 0.5);
+                criteria.setSortBy(SearchCriteria.SortType.RATING);
+                criteria.setAscending(false);
+            } else {
+                criteria.setCuisineType(CUISINES[i / 2 % CUISINES.length]);
+                criteria.setMinPrice(100.0 + i * 10);
+                criteria.setMaxPrice(600.0 + i * 10);
+                criteria.setSortBy(SearchCriteria.SortType.PRICE);
+            }
+            if (i % 3 == 0) {
+                criteria.setHasDelivery(true);
+            }
+            batch.add(criteria);
+        }
+    }
+
+    @Benchmark
+    public List<List<Restaurant>> oneByOne() {
+        List<List<Restaurant>> results = new ArrayList<>(batch.size());
+        for (SearchCriteria criteria : batch) {
+            results.add(searchService.searchByMultipleCriteria(criteria));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<List<Restaurant>> sharedScan() {
+        return searchService.searchAll(batch);
+    }
+}
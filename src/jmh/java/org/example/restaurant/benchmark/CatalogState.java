@@ -0,0 +1,41 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Shared benchmark fixture: a synthetic catalog of {@code catalogSize}
+ * restaurants, generated once per trial with the default seed so that every
+ * run and every commit measures the same data.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param({ "1000", "10000", "100000" })
+    public int catalogSize;
+
+    /** Taipei Main Station, inside the densest generated city. */
+    public final Location userLocation = new Location(25.0478, 121.5170, "北平西路3號", "台北市");
+
+    public RestaurantRepository repository;
+    public List<Restaurant> restaurants;
+    public Review[] reviews;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new RestaurantRepository();
+        new SyntheticDataGenerator().populate(repository, catalogSize);
+        restaurants = repository.findAll();
+        reviews = restaurants.stream().flatMap(r -> r.getReviews().stream()).limit(1024).toArray(Review[]::new);
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.service.RecommendationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distance-based queries of RecommendationService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeoBenchmark {
+
+    private final RecommendationService recommendationService = new RecommendationService();
+
+    @Benchmark
+    public List<Restaurant> findNearby(CatalogState catalog) {
+        return recommendationService.findNearby(catalog.userLocation, catalog.restaurants, 3.0);
+    }
+
+    @Benchmark
+    public List<Restaurant> sortByDistance(CatalogState catalog) {
+        return recommendationService.sortByDistance(catalog.userLocation, catalog.restaurants);
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.SearchCriteria;
+import org.example.restaurant.repository.PersistentRestaurantRepository;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.example.restaurant.service.RestaurantSearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same catalog in the HashMap-backed {@link RestaurantRepository} and in
+ * {@link PersistentRestaurantRepository}: a full scan through
+ * {@code findAll()}, a criteria search that falls back to it, and a save that
+ * replaces one restaurant. Run with {@code -prof gc} to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistentRepositoryBenchmark {
+
+    @Param({ "hashmap", "persistent" })
+    public String storage;
+
+    @Param({ "10000" })
+    public int catalogSize;
+
+    private RestaurantRepository repository;
+    private RestaurantSearchService searchService;
+    private SearchCriteria criteria;
+    private List<Restaurant> restaurants;
+    private Restaurant[] replacements;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = "persistent".equals(storage) ? new PersistentRestaurantRepository() : new RestaurantRepository();
+        new SyntheticDataGenerator().populate(repository, catalogSize);
+        restaurants = List.copyOf(repository.findAll());
+        // Saving the stored object again changes nothing in the trie, so alternate with a copy
+        replacements = new Restaurant[restaurants.size()];
+        for (int i = 0; i < replacements.length; i++) {
+            Restaurant original = restaurants.get(i);
+            replacements[i] = new Restaurant(original.getId(), original.getName(), original.getCuisineType(),
+                    original.getLocation());
+        }
+        searchService = new RestaurantSearchService(repository);
+        criteria = new SearchCriteria().minRating(4.0).sortBy(SearchCriteria.SortType.RATING);
+    }
+
+    @Benchmark
+    public int scanAll() {
+        int active = 0;
+        for (Restaurant restaurant : repository.findAll()) {
+            if (restaurant.isActive()) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    @Benchmark
+    public List<Restaurant> search() {
+        return searchService.searchByMultipleCriteria(criteria);
+    }
+
+    @Benchmark
+    public Restaurant save() {
+        int i = next++;
+        int slot = i % replacements.length;
+        return repository.save(i / replacements.length % 2 == 0 ? replacements[slot] : restaurants.get(slot));
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.UserPreferences;
+import org.example.restaurant.service.RatingService;
+import org.example.restaurant.service.RecommendationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranking paths: preference and similarity recommendations and the top-rated list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecommendationBenchmark {
+
+    private final RatingService ratingService = new RatingService();
+    private final RecommendationService recommendationService = new RecommendationService();
+    private final UserPreferences preferences = new UserPreferences();
+
+    public RecommendationBenchmark() {
+        preferences.setFavoriteCuisines(EnumSet.of(CuisineType.JAPANESE, CuisineType.TAIWANESE));
+        preferences.setDislikedCuisines(EnumSet.of(CuisineType.FAST_FOOD));
+        preferences.setMaxPriceLevel(3);
+        preferences.setMinAcceptableRating(3.5);
+        preferences.setPreferDelivery(true);
+    }
+
+    @Benchmark
+    public List<Restaurant> recommendByPreferences(CatalogState catalog) {
+        return recommendationService.recommendByPreferences(preferences, catalog.restaurants, 10);
+    }
+
+    @Benchmark
+    public List<Restaurant> recommendSimilar(CatalogState catalog) {
+        return recommendationService.recommendSimilar(catalog.restaurants.get(0), catalog.restaurants);
+    }
+
+    @Benchmark
+    public List<Restaurant> getTopRatedRestaurants(CatalogState catalog) {
+        return ratingService.getTopRatedRestaurants(catalog.restaurants, 10);
+    }
+}
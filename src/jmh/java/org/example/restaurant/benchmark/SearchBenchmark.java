@@ -0,0 +1,93 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.SearchCriteria;
+import org.example.restaurant.service.RestaurantSearchService;
+import org.example.restaurant.service.SearchResultCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RestaurantSearchService multi-criteria search. Criteria mixes cover the main
+ * filter shapes: attribute matches, numeric ranges, a geo radius sorted by
+ * distance, and boolean features sorted by rating. The cached variants go
+ * through a {@link SearchResultCache}: one repeats the same criteria, as skewed
+ * traffic does, the other pages through the first five pages of a query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    @Param({ "CITY_AND_CUISINE", "PRICE_AND_RATING", "NEARBY_BY_DISTANCE", "FEATURES_BY_RATING" })
+    public String criteriaMix;
+
+    private RestaurantSearchService searchService;
+    private RestaurantSearchService cachedSearchService;
+    private SearchCriteria criteria;
+    private SearchCriteria pageCriteria;
+    private int page;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+        searchService = new RestaurantSearchService(catalog.repository);
+        cachedSearchService = new RestaurantSearchService(catalog.repository);
+        cachedSearchService.setResultCache(SearchResultCache.attach(catalog.repository));
+        criteria = new SearchCriteria();
+        switch (criteriaMix) {
+            case "CITY_AND_CUISINE":
+                criteria.setCity("台北市");
+                criteria.setCuisineType(CuisineType.TAIWANESE);
+                break;
+            case "PRICE_AND_RATING":
+                criteria.setMinPrice(150.0);
+                criteria.setMaxPrice(600.0);
+                criteria.setMinRating(3.5);
+                criteria.setSortBy(SearchCriteria.SortType.PRICE);
+                break;
+            case "NEARBY_BY_DISTANCE":
+                criteria.setLatitude(catalog.userLocation.getLatitude());
+                criteria.setLongitude(catalog.userLocation.getLongitude());
+                criteria.setRadiusKm(3.0);
+                criteria.setSortBy(SearchCriteria.SortType.DISTANCE);
+                break;
+            case "FEATURES_BY_RATING":
+                criteria.setHasDelivery(true);
+                criteria.setHasParking(true);
+                criteria.setSortBy(SearchCriteria.SortType.RATING);
+                criteria.setAscending(false);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown criteria mix: " + criteriaMix);
+        }
+        pageCriteria = criteria.normalized();
+    }
+
+    @Benchmark
+    public List<Restaurant> searchByMultipleCriteria() {
+        return searchService.searchByMultipleCriteria(criteria);
+    }
+
+    @Benchmark
+    public List<Restaurant> searchByMultipleCriteriaCached() {
+        return cachedSearchService.searchByMultipleCriteria(criteria);
+    }
+
+    @Benchmark
+    public List<Restaurant> pageThroughCached() {
+        page = (page + 1) % 5;
+        pageCriteria.setOffset(page * pageCriteria.getLimit());
+        return cachedSearchService.searchByMultipleCriteria(pageCriteria);
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.service.SimilarityLshIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Similar restaurants by SimHash LSH probing {@code probes} of its tables,
+ * over rotating references; {@link RecommendationBenchmark#recommendSimilar}
+ * is the exact baseline. The recall of each probe count is checked by
+ * {@code SimilarityLshIndexTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimilarityBenchmark {
+
+    @Param({ "1", "8", "24" })
+    public int probes;
+
+    private SimilarityLshIndex lsh;
+    private List<Restaurant> restaurants;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+        restaurants = catalog.restaurants;
+        lsh = SimilarityLshIndex.build(restaurants);
+    }
+
+    private Restaurant nextReference() {
+        return restaurants.get(next++ % restaurants.size());
+    }
+
+    @Benchmark
+    public List<Restaurant> lsh() {
+        return lsh.recommendSimilar(nextReference(), probes);
+    }
+}
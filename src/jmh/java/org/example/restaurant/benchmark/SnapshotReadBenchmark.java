@@ -0,0 +1,106 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+import org.example.restaurant.repository.PinnedRestaurantRepository;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.example.restaurant.repository.VersionedRestaurantStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Consistent reads under concurrent review writes: three readers each scan
+ * one city, the kind of pass a report makes, while one writer adds reviews.
+ * The {@code snapshot} group reads pinned {@link VersionedRestaurantStore}
+ * snapshots and never blocks the writer; the {@code locked} group guards a
+ * plain repository with a global read-write lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SnapshotReadBenchmark {
+
+    @Param({ "10000" })
+    public int catalogSize;
+
+    private RestaurantRepository versionedRepository;
+    private VersionedRestaurantStore store;
+    private RestaurantRepository lockedRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private List<Restaurant> restaurants;
+    private int nextReview;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        versionedRepository = new RestaurantRepository();
+        new SyntheticDataGenerator().populate(versionedRepository, catalogSize);
+        store = VersionedRestaurantStore.attach(versionedRepository);
+        lockedRepository = new RestaurantRepository();
+        new SyntheticDataGenerator().populate(lockedRepository, catalogSize);
+        restaurants = lockedRepository.findAll();
+    }
+
+    private Review nextReview() {
+        String restaurantId = restaurants.get(nextReview % restaurants.size()).getId();
+        Review review = new Review("bench-" + nextReview, restaurantId, 1 + nextReview % 5, "Benchmark");
+        nextReview++;
+        return review;
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public int snapshotRead() {
+        try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+            return snapshot.findByCity("台北市").size();
+        }
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public Restaurant snapshotWrite() {
+        Review review = nextReview();
+        return versionedRepository.addReview(review.getRestaurantId(), review);
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(3)
+    public int lockedRead() {
+        lock.readLock().lock();
+        try {
+            return lockedRepository.findByCity("台北市").size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(1)
+    public Restaurant lockedWrite() {
+        lock.writeLock().lock();
+        try {
+            Review review = nextReview();
+            return lockedRepository.addReview(review.getRestaurantId(), review);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
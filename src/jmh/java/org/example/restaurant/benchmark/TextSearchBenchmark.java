@@ -0,0 +1,42 @@
+package org.example.restaurant.benchmark;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.service.RestaurantSearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RestaurantSearchService keyword searches: fuzzy name matching and the
+ * global search over names, descriptions and menus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TextSearchBenchmark {
+
+    private RestaurantSearchService searchService;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+        searchService = new RestaurantSearchService(catalog.repository);
+    }
+
+    @Benchmark
+    public List<Restaurant> searchByNameFuzzy() {
+        return searchService.searchByNameFuzzy("老記");
+    }
+
+    @Benchmark
+    public List<Restaurant> searchGlobal() {
+        return searchService.searchGlobal("牛肉麵");
+    }
+}
@@ -1,8 +1,11 @@
 package org.example.restaurant;
 
 import org.example.restaurant.data.SampleDataLoader;
+import org.example.restaurant.metrics.InProcessMetricsRegistry;
+import org.example.restaurant.metrics.Metrics;
 import org.example.restaurant.model.*;
 import org.example.restaurant.repository.RestaurantRepository;
+import org.example.restaurant.repository.ReviewIndex;
 import org.example.restaurant.service.*;
 
 import java.util.List;
@@ -16,12 +19,18 @@ import java.util.HashSet;
  */
 public class Main {
 
+    static final String METRICS_PROPERTY = "restaurant.metrics";
+
     private final RestaurantRepository repository;
     private final RestaurantSearchService searchService;
     private final RecommendationService recommendationService;
     private final RatingService ratingService;
     private final BusinessHoursService businessHoursService;
     private final PriceAnalyzer priceAnalyzer;
+    private final PopularityLeaderboard popularity;
+    private final ReviewIndex reviewIndex;
+    private final SimilarRestaurantIndex similarIndex;
+    private final RestaurantColumnStore columnStore;
     private final Scanner scanner;
     private final UserPreferences userPreferences; // 新增使用者偏好設定
 
@@ -35,18 +44,48 @@ public class Main {
         this.recommendationService = new RecommendationService(ratingService, priceAnalyzer);
         this.scanner = new Scanner(System.in);
         this.userPreferences = new UserPreferences(); // 初始化偏好
+        this.reviewIndex = ReviewIndex.attach(repository); // 評論彙總與分頁索引
 
         // 載入示範資料
         SampleDataLoader dataLoader = new SampleDataLoader(repository);
         dataLoader.loadSampleData();
+        this.popularity = PopularityLeaderboard.attach(repository, ratingService); // 跟隨評論更新排行
+        recommendationService.setPopularityLeaderboard(popularity);
+        recommendationService.setCollaborativeModel(ItemCooccurrenceModel.attach(repository));
+        recommendationService.setFeatureIndex(RestaurantFeatureIndex.attach(repository, ratingService, priceAnalyzer));
+        // 儲存庫不是執行緒安全的，相似清單在查詢前於同一執行緒更新
+        this.similarIndex = new SimilarRestaurantIndex(repository);
+        similarIndex.refresh();
+        recommendationService.setSimilarIndex(similarIndex);
+        // 統計分析改由欄位式儲存掃描，不必逐一走訪餐廳物件
+        this.columnStore = new RestaurantColumnStore(repository, ratingService, priceAnalyzer);
+        priceAnalyzer.setColumnStore(columnStore);
+        ratingService.setColumnStore(columnStore);
+        searchService.setColumnStore(columnStore);
     }
 
     public static void main(String[] args) {
+        // -Drestaurant.metrics=true 時記錄各服務延遲，結束時印出統計
+        boolean metrics = Boolean.getBoolean(METRICS_PROPERTY);
+        if (metrics) {
+            Metrics.install(new InProcessMetricsRegistry());
+        }
         Main app = new Main();
         app.run();
+        if (metrics) {
+            System.out.print(Metrics.registry().snapshot().format());
+        }
     }
 
     public void run() {
+        try {
+            runMenu();
+        } finally {
+            similarIndex.close();
+        }
+    }
+
+    private void runMenu() {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("      餐廳搜尋推薦系統 Demo");
         System.out.println("=".repeat(50));
@@ -88,6 +127,12 @@ public class Main {
                 case "10":
                     advancedSearch(); // 進階組合搜尋
                     break;
+                case "11":
+                    browseReviews(); // 分頁瀏覽評論
+                    break;
+                case "12":
+                    showStatistics(); // 價格與評分統計
+                    break;
                 case "0":
                     running = false;
                     System.out.println("\n感謝使用，再見！");
@@ -111,6 +156,8 @@ public class Main {
         System.out.println("  8. 新增餐廳評論");
         System.out.println("  9. 查詢下次營業時間");
         System.out.println("  10. 進階組合搜尋");
+        System.out.println("  11. 瀏覽餐廳評論");
+        System.out.println("  12. 餐廳統計分析");
         System.out.println("  0. 離開系統");
         System.out.print("\n請輸入選項: ");
     }
@@ -174,6 +221,7 @@ public class Main {
             int index = Integer.parseInt(scanner.nextLine().trim()) - 1;
             if (index >= 0 && index < allRestaurants.size()) {
                 Restaurant reference = allRestaurants.get(index);
+                similarIndex.refresh(); // 只重算上次之後變更的餐廳
                 List<Restaurant> similar = recommendationService.recommendSimilar(reference, allRestaurants);
 
                 System.out.println("\n與「" + reference.getName() + "」相似的餐廳:");
@@ -318,10 +366,7 @@ public class Main {
                     comment);
             review.setUserName(userName);
 
-            restaurant.addReview(review);
-            // In a real DB app, we would call repository.save(restaurant) or
-            // reviewRepository.save(review)
-            // Here it's in-memory object reference
+            repository.addReview(restaurant.getId(), review);
 
             System.out.println(
                     "評論已新增！目前平均評分: " + String.format("%.1f", ratingService.calculateAverageRating(restaurant)));
@@ -484,8 +529,7 @@ public class Main {
     }
 
     private void showPopularRestaurants() {
-        List<Restaurant> allRestaurants = searchService.getAllRestaurants();
-        List<Restaurant> popular = recommendationService.getPopularRestaurants(allRestaurants, 5);
+        List<Restaurant> popular = popularity.top(5);
 
         System.out.println("\n人氣 TOP 5 餐廳:");
         printRestaurantList(popular);
@@ -545,17 +589,125 @@ public class Main {
         }
     }
 
+    private void showStatistics() {
+        List<Restaurant> all = searchService.getAllRestaurants();
+        PriceAnalyzer.PriceStatistics prices = priceAnalyzer.calculatePriceStatistics(all);
+        System.out.println("\n--- 餐廳統計分析 ---");
+        System.out.println(String.format("價格: %d 家有價格資料, 最低 $%.0f, 最高 $%.0f, 平均 $%.0f, 中位數 $%.0f",
+                prices.count, prices.min, prices.max, prices.average, prices.median));
+
+        int[] levels = columnStore.priceLevelHistogram();
+        System.out.println("價格等級分布:");
+        for (int level = 1; level < levels.length; level++) {
+            System.out.println("  " + "$".repeat(level) + ": " + levels[level] + " 家");
+        }
+
+        int[] ratings = columnStore.ratingDistribution();
+        System.out.println("平均評分分布 (取整數星等):");
+        for (int stars = 1; stars <= ratings.length; stars++) {
+            System.out.println("  " + stars + " 星: " + ratings[stars - 1] + " 家");
+        }
+
+        System.out.println("提供外送: " + columnStore.findWithFeatures(RestaurantFeatureVectors.FEATURE_DELIVERY).size()
+                + " 家");
+        System.out.println("\n評分最高的餐廳:");
+        printRestaurantList(ratingService.getTopRatedRestaurants(all, 5));
+    }
+
+    private void browseReviews() {
+        System.out.println("\n--- 瀏覽餐廳評論 ---");
+        List<Restaurant> all = searchService.getAllRestaurants();
+        System.out.println("請選擇餐廳 (或輸入 0 取消):");
+        for (int i = 0; i < all.size(); i++) {
+            System.out.println((i + 1) + ". " + all.get(i).getName() + " ("
+                    + reviewIndex.reviewCount(all.get(i).getId()) + " 則評論)");
+        }
+        System.out.print("請輸入編號: ");
+
+        try {
+            String idxStr = scanner.nextLine().trim();
+            if (idxStr.equals("0") || idxStr.isEmpty())
+                return;
+
+            int index = Integer.parseInt(idxStr) - 1;
+            if (index < 0 || index >= all.size()) {
+                System.out.println("無效的編號");
+                return;
+            }
+            Restaurant restaurant = all.get(index);
+
+            System.out.println("排序方式:");
+            ReviewSort[] sorts = ReviewSort.values();
+            for (int i = 0; i < sorts.length; i++) {
+                System.out.println("  " + (i + 1) + ". " + sorts[i].getDisplayName());
+            }
+            System.out.print("請選擇 (預設 1): ");
+            String sortInput = scanner.nextLine().trim();
+            ReviewSort sort = ReviewSort.NEWEST;
+            if (!sortInput.isEmpty()) {
+                int sortIndex = Integer.parseInt(sortInput) - 1;
+                if (sortIndex >= 0 && sortIndex < sorts.length) {
+                    sort = sorts[sortIndex];
+                }
+            }
+
+            // 逐頁讀取，每次只複製該頁評論
+            int pageNumber = 0;
+            while (true) {
+                ReviewPage page = reviewIndex.page(restaurant.getId(), sort, pageNumber, 5);
+                if (page.getTotalReviews() == 0) {
+                    System.out.println("「" + restaurant.getName() + "」目前沒有評論");
+                    return;
+                }
+                printReviewPage(restaurant, page);
+                if (!page.hasNext() && !page.hasPrevious()) {
+                    return;
+                }
+                System.out.print("n: 下一頁, p: 上一頁, Enter: 返回: ");
+                String command = scanner.nextLine().trim();
+                if (command.equalsIgnoreCase("n") && page.hasNext()) {
+                    pageNumber++;
+                } else if (command.equalsIgnoreCase("p") && page.hasPrevious()) {
+                    pageNumber--;
+                } else if (command.isEmpty()) {
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("請輸入有效的數字");
+        }
+    }
+
+    private void printReviewPage(Restaurant restaurant, ReviewPage page) {
+        System.out.println("\n「" + restaurant.getName() + "」評論 第 " + (page.getPageNumber() + 1) + "/"
+                + page.getTotalPages() + " 頁 (共 " + page.getTotalReviews() + " 則)");
+        System.out.println("-".repeat(60));
+        for (Review review : page.getReviews()) {
+            System.out.println("  " + getStars(review.getRating()) + " "
+                    + (review.getUserName() != null ? review.getUserName() : "匿名")
+                    + (review.isVerified() ? " (已驗證)" : "")
+                    + "  有幫助: " + review.getHelpfulCount());
+            if (review.getComment() != null && !review.getComment().isEmpty()) {
+                System.out.println("     " + review.getComment());
+            }
+        }
+        System.out.println("-".repeat(60));
+    }
+
     private void printRestaurantList(List<Restaurant> restaurants) {
         System.out.println("-".repeat(60));
         for (Restaurant r : restaurants) {
-            double rating = ratingService.calculateAverageRating(r);
+            // 使用評論彙總，不需逐筆讀取評論
+            ReviewSummary summary = reviewIndex.summary(r.getId());
+            double rating = summary.getAverageRating();
             String stars = getStars(rating);
             String priceLevel = "$".repeat(Math.max(1, r.getPriceLevel()));
 
             System.out.println("  " + r.getName());
             System.out
                     .println("     菜系: " + (r.getCuisineType() != null ? r.getCuisineType().getDisplayName() : "未分類"));
-            System.out.println("     評分: " + stars + " (" + String.format("%.1f", rating) + ")");
+            System.out.println("     評分: " + stars + " (" + String.format("%.1f", rating) + ", "
+                    + summary.getReviewCount() + " 則評論)");
             System.out.println("     價位: " + priceLevel + " (平均 $" + r.getAveragePrice() + ")");
             if (r.getLocation() != null) {
                 System.out.println("     地址: " + r.getLocation().getAddress());
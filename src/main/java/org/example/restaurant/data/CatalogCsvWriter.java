@@ -0,0 +1,205 @@
+package org.example.restaurant.data;
+
+import org.example.restaurant.model.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes restaurants as the four CSV files read by {@link CatalogImporter}:
+ * restaurants, menu items, reviews and business hours.
+ */
+public final class CatalogCsvWriter implements AutoCloseable {
+
+    public static final String RESTAURANTS_FILE = "restaurants.csv";
+    public static final String MENU_ITEMS_FILE = "menu_items.csv";
+    public static final String REVIEWS_FILE = "reviews.csv";
+    public static final String HOURS_FILE = "hours.csv";
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final OutputStream restaurants;
+    private final OutputStream menuItems;
+    private final OutputStream reviews;
+    private final OutputStream hours;
+    private OutputStream out; // file of the current line
+    private byte[] line = new byte[512]; // UTF-8 bytes of the current line
+    private int length;
+    private int columns; // fields in the current line
+
+    /**
+     * Create or replace the four files in a directory and write their headers.
+     */
+    public CatalogCsvWriter(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        restaurants = open(directory.resolve(RESTAURANTS_FILE), "id,name,description,cuisineType,"
+                + "additionalCuisineTypes,latitude,longitude,address,city,district,postalCode,priceLevel,"
+                + "averagePrice,active,phoneNumber,website,capacity,hasDelivery,hasTakeout,hasParking,"
+                + "acceptsReservations");
+        menuItems = open(directory.resolve(MENU_ITEMS_FILE), "restaurantId,id,name,description,price,category,"
+                + "vegetarian,vegan,glutenFree,spicy,available,calories");
+        reviews = open(directory.resolve(REVIEWS_FILE), "restaurantId,id,userId,userName,rating,comment,"
+                + "createdAt,updatedAt,helpfulCount,verified,userLevel");
+        hours = open(directory.resolve(HOURS_FILE), "restaurantId,day,openTime,closeTime,closed");
+    }
+
+    private static OutputStream open(Path file, String header) throws IOException {
+        OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        stream.write(header.getBytes(StandardCharsets.UTF_8));
+        stream.write('\n');
+        return stream;
+    }
+
+    public void write(Restaurant restaurant) throws IOException {
+        String id = restaurant.getId();
+        Location location = restaurant.getLocation();
+        boolean located = location != null;
+        row(restaurants).field(id).field(restaurant.getName()).field(restaurant.getDescription()).field(restaurant.getCuisineType());
+        Set<CuisineType> additional = restaurant.getAdditionalCuisineTypes();
+        StringBuilder types = new StringBuilder();
+        if (additional != null) {
+            for (CuisineType type : additional) {
+                if (types.length() > 0) {
+                    types.append(ImportRow.LIST_SEPARATOR);
+                }
+                types.append(type.name());
+            }
+        }
+        field(types);
+        field(located ? location.getLatitude() : null).field(located ? location.getLongitude() : null)
+                .field(located ? location.getAddress() : null).field(located ? location.getCity() : null)
+                .field(located ? location.getDistrict() : null).field(located ? location.getPostalCode() : null)
+                .field(restaurant.getPriceLevel()).field(restaurant.getAveragePrice()).field(restaurant.isActive())
+                .field(restaurant.getPhoneNumber()).field(restaurant.getWebsite()).field(restaurant.getCapacity())
+                .field(restaurant.isHasDelivery()).field(restaurant.isHasTakeout()).field(restaurant.isHasParking())
+                .field(restaurant.isAcceptsReservations());
+        end();
+
+        if (restaurant.getMenu() != null) {
+            for (MenuItem item : restaurant.getMenu()) {
+                row(menuItems).field(id).field(item.getId()).field(item.getName()).field(item.getDescription())
+                        .field(item.getPrice()).field(item.getCategory()).field(item.isVegetarian())
+                        .field(item.isVegan()).field(item.isGlutenFree()).field(item.isSpicy())
+                        .field(item.isAvailable()).field(item.getCalories());
+                end();
+            }
+        }
+
+        if (restaurant.getReviews() != null) {
+            for (Review review : restaurant.getReviews()) {
+                if (review == null) {
+                    continue;
+                }
+                row(reviews).field(id).field(review.getId()).field(review.getUserId()).field(review.getUserName())
+                        .field(review.getRating()).field(review.getComment()).field(review.getCreatedAt())
+                        .field(review.getUpdatedAt()).field(review.getHelpfulCount()).field(review.isVerified())
+                        .field(review.getUserLevel());
+                end();
+            }
+        }
+
+        BusinessHours businessHours = restaurant.getBusinessHours();
+        if (businessHours != null) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                List<BusinessHours.TimeSlot> slots = businessHours.getTimeSlots(day);
+                if (slots.isEmpty()) {
+                    row(hours).field(id).field(day).field(null).field(null).field(true);
+                    end();
+                }
+                for (BusinessHours.TimeSlot slot : slots) {
+                    row(hours).field(id).field(day).field(slot.getOpenTime()).field(slot.getCloseTime()).field(false);
+                    end();
+                }
+            }
+        }
+    }
+
+    private CatalogCsvWriter row(OutputStream target) {
+        out = target;
+        length = 0;
+        columns = 0;
+        return this;
+    }
+
+    private CatalogCsvWriter field(Object value) {
+        if (columns++ > 0) {
+            append((byte) ',');
+        }
+        if (value == null) {
+            return this;
+        }
+        String text = value instanceof Double && (Double) value == Math.rint((Double) value)
+                ? Long.toString(((Double) value).longValue())
+                : value.toString();
+        boolean quote = false;
+        boolean ascii = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            quote |= c == ',' || c == '"' || c == '\n' || c == '\r';
+            ascii &= c < 0x80;
+        }
+        if (quote) {
+            append((byte) '"');
+            append(text.replace("\"", "\"\"").getBytes(StandardCharsets.UTF_8));
+            append((byte) '"');
+        } else if (ascii) {
+            // Most fields are ids, numbers and flags; skip the encoder for them
+            ensureCapacity(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                line[length++] = (byte) text.charAt(i);
+            }
+        } else {
+            append(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return this;
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        line[length++] = b;
+    }
+
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, line, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + extra));
+        }
+    }
+
+    private void end() throws IOException {
+        append((byte) '\n');
+        out.write(line, 0, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (OutputStream stream : new OutputStream[] { restaurants, menuItems, reviews, hours }) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
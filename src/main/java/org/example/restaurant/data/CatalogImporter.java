@@ -0,0 +1,505 @@
+package org.example.restaurant.data;
+
+import org.example.restaurant.exception.ValidationException;
+import org.example.restaurant.jfr.ImportBatchEvent;
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.example.restaurant.service.InputValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Streams restaurants, menu items, reviews and business hours from CSV or
+ * JSON Lines files into a repository.
+ * <p>
+ * The calling thread reads records in chunks and hands each chunk to a pool,
+ * where rows are parsed and checked with {@link InputValidator}; parsed chunks
+ * are applied back on the calling thread in file order, so at most a few
+ * chunks per worker are held in memory. Restaurant rows are saved one chunk
+ * at a time with {@link RestaurantRepository#saveAll}. Menu item, review and
+ * hours rows are attached to their restaurants as they arrive, and each
+ * touched restaurant is saved once when the file is done, so repository
+ * listeners re-index it once rather than per row. Derived indexes built from
+ * the whole catalog are best built after the import.
+ * <p>
+ * CSV files start with a header naming the columns; JSON Lines files hold one
+ * flat object per line. Field names are the model's property names, with
+ * {@code restaurantId} linking menu items, reviews and hours to a restaurant.
+ * List fields are separated by semicolons in CSV and may be arrays in JSON.
+ * Rows that fail to parse or validate are skipped and reported.
+ */
+public class CatalogImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    public enum Format {
+        CSV,
+        JSON_LINES;
+
+        /**
+         * Format implied by a file extension: .csv, or .jsonl / .ndjson.
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return JSON_LINES;
+            }
+            throw new IllegalArgumentException("Unknown import format: " + file.getFileName());
+        }
+    }
+
+    public enum RecordType {
+        RESTAURANTS,
+        MENU_ITEMS,
+        REVIEWS,
+        HOURS
+    }
+
+    private final RestaurantRepository repository;
+    private final InputValidator validator;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public CatalogImporter(RestaurantRepository repository) {
+        this(repository, new InputValidator(), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param pool pool used to parse chunks, or null to parse on the calling thread
+     */
+    public CatalogImporter(RestaurantRepository repository, InputValidator validator, ForkJoinPool pool,
+            int chunkSize) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        if (validator == null) {
+            throw new IllegalArgumentException("Validator cannot be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.repository = repository;
+        this.validator = validator;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReport importFile(Path file, RecordType type) throws IOException {
+        return importFile(file, Format.of(file), type);
+    }
+
+    public ImportReport importFile(Path file, Format format, RecordType type) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, format, type);
+        }
+    }
+
+    /**
+     * Import every record read from the reader. The reader is not closed.
+     */
+    public ImportReport importFrom(Reader input, Format format, RecordType type) throws IOException {
+        if (input == null || format == null || type == null) {
+            throw new IllegalArgumentException("Input, format and record type cannot be null");
+        }
+        long start = System.nanoTime();
+        RecordReader records = new RecordReader(input, format);
+        Run run = new Run(type);
+
+        String[] header = null;
+        if (format == Format.CSV) {
+            String headerRecord = records.next();
+            if (headerRecord == null) {
+                return run.report(start);
+            }
+            List<String> columns;
+            try {
+                columns = ImportRow.splitCsv(headerRecord);
+            } catch (ValidationException e) {
+                throw new IOException("Invalid CSV header: " + e.getMessage(), e);
+            }
+            header = new String[columns.size()];
+            for (int i = 0; i < header.length; i++) {
+                header[i] = columns.get(i).trim();
+            }
+        }
+
+        int window = pool != null ? pool.getParallelism() * 4 : 1;
+        Deque<ForkJoinTask<ParsedRow[]>> inFlight = new ArrayDeque<>();
+        while (true) {
+            String[] chunk = new String[chunkSize];
+            long[] lines = new long[chunkSize];
+            int count = 0;
+            String record;
+            while (count < chunkSize && (record = records.next()) != null) {
+                chunk[count] = record;
+                lines[count++] = records.line();
+            }
+            if (count == 0) {
+                break;
+            }
+            run.rowsRead += count;
+
+            int size = count;
+            String[] columns = header;
+            if (pool == null) {
+                run.apply(parseChunk(chunk, lines, size, columns, format, type));
+                continue;
+            }
+            inFlight.add(pool.submit(() -> parseChunk(chunk, lines, size, columns, format, type)));
+            if (inFlight.size() >= window) {
+                run.apply(inFlight.poll().join());
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            run.apply(inFlight.poll().join());
+        }
+        run.finish();
+        return run.report(start);
+    }
+
+    private ParsedRow[] parseChunk(String[] records, long[] lines, int count, String[] header, Format format,
+            RecordType type) {
+        ParsedRow[] parsed = new ParsedRow[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                ImportRow row = format == Format.CSV
+                        ? ImportRow.fromCsv(header, records[i])
+                        : ImportRow.fromJson(records[i]);
+                parsed[i] = new ParsedRow(lines[i], parse(row, type), null);
+            } catch (ValidationException e) {
+                parsed[i] = new ParsedRow(lines[i], null, new ImportReport.RowError(lines[i], e.getField(),
+                        e.getMessage()));
+            } catch (RuntimeException e) {
+                parsed[i] = new ParsedRow(lines[i], null, new ImportReport.RowError(lines[i], null,
+                        String.valueOf(e.getMessage())));
+            }
+        }
+        return parsed;
+    }
+
+    private Object parse(ImportRow row, RecordType type) {
+        switch (type) {
+            case RESTAURANTS:
+                return parseRestaurant(row);
+            case MENU_ITEMS:
+                return parseMenuItem(row);
+            case REVIEWS:
+                return parseReview(row);
+            default:
+                return parseHours(row);
+        }
+    }
+
+    private Restaurant parseRestaurant(ImportRow row) {
+        Restaurant restaurant = new Restaurant(row.text("id"), row.text("name"));
+        restaurant.setDescription(row.text("description"));
+        restaurant.setCuisineType(cuisine(row.text("cuisineType"), "cuisineType"));
+        for (String name : row.list("additionalCuisineTypes")) {
+            restaurant.addCuisineType(cuisine(name, "additionalCuisineTypes"));
+        }
+
+        if (row.text("latitude") != null || row.text("longitude") != null || row.text("address") != null
+                || row.text("city") != null || row.text("district") != null || row.text("postalCode") != null) {
+            Location location = new Location(row.decimal("latitude", 0), row.decimal("longitude", 0),
+                    row.text("address"), row.text("city"));
+            location.setDistrict(row.text("district"));
+            location.setPostalCode(row.text("postalCode"));
+            validator.validateLocation(location);
+            restaurant.setLocation(location);
+        }
+
+        restaurant.setPriceLevel(row.integer("priceLevel", 0));
+        restaurant.setAveragePrice(row.decimal("averagePrice", 0));
+        restaurant.setActive(row.bool("active", true));
+        restaurant.setPhoneNumber(row.text("phoneNumber"));
+        restaurant.setWebsite(row.text("website"));
+        restaurant.setCapacity(row.integer("capacity", 0));
+        restaurant.setHasDelivery(row.bool("hasDelivery", false));
+        restaurant.setHasTakeout(row.bool("hasTakeout", false));
+        restaurant.setHasParking(row.bool("hasParking", false));
+        restaurant.setAcceptsReservations(row.bool("acceptsReservations", false));
+        validator.validateRestaurant(restaurant);
+        return restaurant;
+    }
+
+    private Attached<MenuItem> parseMenuItem(ImportRow row) {
+        MenuItem item = new MenuItem(row.text("id"), row.text("name"), row.decimal("price", 0),
+                row.text("category"));
+        item.setDescription(row.text("description"));
+        item.setVegetarian(row.bool("vegetarian", false));
+        item.setVegan(row.bool("vegan", false));
+        item.setGlutenFree(row.bool("glutenFree", false));
+        item.setSpicy(row.bool("spicy", false));
+        item.setAvailable(row.bool("available", true));
+        item.setCalories(row.integer("calories", 0));
+        validator.validateMenuItem(item);
+        return new Attached<>(restaurantId(row), item);
+    }
+
+    private Review parseReview(ImportRow row) {
+        Review review = new Review(row.text("id"), row.text("restaurantId"), row.integer("rating", 0),
+                row.text("comment"));
+        review.setUserId(row.text("userId"));
+        review.setUserName(row.text("userName"));
+        LocalDateTime createdAt = row.dateTime("createdAt");
+        if (createdAt != null) {
+            review.setCreatedAt(createdAt);
+        }
+        review.setUpdatedAt(row.dateTime("updatedAt"));
+        review.setHelpfulCount(row.integer("helpfulCount", 0));
+        review.setVerified(row.bool("verified", false));
+        review.setUserLevel(row.integer("userLevel", 1));
+        validator.validateReview(review);
+        return review;
+    }
+
+    private Attached<HoursRow> parseHours(ImportRow row) {
+        String restaurantId = restaurantId(row);
+        DayOfWeek day = day(row.text("day"));
+        if (row.bool("closed", false)) {
+            return new Attached<>(restaurantId, new HoursRow(day, null, null));
+        }
+        LocalTime open = row.time("openTime");
+        LocalTime close = row.time("closeTime");
+        if (open == null) {
+            throw new ValidationException("Open time is required", "openTime");
+        }
+        if (close == null) {
+            throw new ValidationException("Close time is required", "closeTime");
+        }
+        return new Attached<>(restaurantId, new HoursRow(day, open, close));
+    }
+
+    private static String restaurantId(ImportRow row) {
+        String restaurantId = row.text("restaurantId");
+        if (restaurantId == null) {
+            throw new ValidationException("Restaurant ID is required", "restaurantId");
+        }
+        return restaurantId;
+    }
+
+    private static CuisineType cuisine(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return CuisineType.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            CuisineType type = CuisineType.fromDisplayName(value);
+            if (type == CuisineType.OTHER && !value.equals(CuisineType.OTHER.getDisplayName())) {
+                throw new ValidationException("Unknown cuisine type: '" + value + "'", field);
+            }
+            return type;
+        }
+    }
+
+    private static DayOfWeek day(String value) {
+        if (value == null) {
+            throw new ValidationException("Day is required", "day");
+        }
+        try {
+            if (Character.isDigit(value.charAt(0))) {
+                return DayOfWeek.of(Integer.parseInt(value));
+            }
+            return DayOfWeek.valueOf(value.toUpperCase());
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid value for day: '" + value + "'", "day");
+        }
+    }
+
+    /**
+     * Mutable state of one import, touched only by the calling thread.
+     */
+    private final class Run {
+        private final RecordType type;
+        private final Map<String, Restaurant> touched = new LinkedHashMap<>();
+        private final Set<String> hoursReplaced = new HashSet<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long rowsImported;
+        private long errorCount;
+
+        Run(RecordType type) {
+            this.type = type;
+        }
+
+        void apply(ParsedRow[] rows) {
+            ImportBatchEvent event = new ImportBatchEvent();
+            event.begin();
+            long imported = rowsImported;
+            long rejected = errorCount;
+            List<Restaurant> batch = new ArrayList<>(rows.length);
+            for (ParsedRow row : rows) {
+                if (row.error != null) {
+                    reject(row.error);
+                } else if (type == RecordType.RESTAURANTS) {
+                    batch.add((Restaurant) row.value);
+                } else {
+                    attach(row);
+                }
+            }
+            if (!batch.isEmpty()) {
+                repository.saveAll(batch);
+                rowsImported += batch.size();
+            }
+            event.emit(type.name(), rows.length, rowsImported - imported, errorCount - rejected);
+        }
+
+        private void attach(ParsedRow row) {
+            String restaurantId = row.value instanceof Review
+                    ? ((Review) row.value).getRestaurantId()
+                    : ((Attached<?>) row.value).restaurantId;
+            Restaurant restaurant = touched.get(restaurantId);
+            if (restaurant == null) {
+                Restaurant stored = repository.findById(restaurantId).orElse(null);
+                if (stored == null) {
+                    reject(new ImportReport.RowError(row.line, "restaurantId",
+                            "Restaurant not found: " + restaurantId));
+                    return;
+                }
+                // Rows go to a copy, which replaces the stored restaurant when saved
+                restaurant = stored.copy();
+                touched.put(restaurantId, restaurant);
+            }
+
+            if (type == RecordType.REVIEWS) {
+                restaurant.addReview((Review) row.value);
+            } else if (type == RecordType.MENU_ITEMS) {
+                restaurant.addMenuItem((MenuItem) ((Attached<?>) row.value).value);
+            } else {
+                // The first hours row of a restaurant replaces its previous hours
+                if (hoursReplaced.add(restaurantId) || restaurant.getBusinessHours() == null) {
+                    restaurant.setBusinessHours(new BusinessHours());
+                }
+                HoursRow hours = (HoursRow) ((Attached<?>) row.value).value;
+                if (hours.open == null) {
+                    restaurant.getBusinessHours().setClosed(hours.day);
+                } else {
+                    restaurant.getBusinessHours().addHours(hours.day, hours.open, hours.close);
+                }
+            }
+            rowsImported++;
+        }
+
+        private void reject(ImportReport.RowError error) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        void finish() {
+            if (!touched.isEmpty()) {
+                repository.saveAll(touched.values());
+            }
+        }
+
+        ImportReport report(long start) {
+            return new ImportReport(type, rowsRead, rowsImported, errorCount, errors, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reads non-blank records, joining CSV lines that continue a quoted field.
+     */
+    private static final class RecordReader {
+        private final BufferedReader reader;
+        private final Format format;
+        private long lineNumber;
+        private long recordLine;
+
+        RecordReader(Reader input, Format format) {
+            this.reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+            this.format = format;
+        }
+
+        String next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+            } while (line.trim().isEmpty());
+            recordLine = lineNumber;
+
+            if (format == Format.CSV && ImportRow.isOpenCsvRecord(line)) {
+                StringBuilder record = new StringBuilder(line);
+                String continuation;
+                while (ImportRow.isOpenCsvRecord(record) && (continuation = reader.readLine()) != null) {
+                    lineNumber++;
+                    record.append('\n').append(continuation);
+                }
+                return record.toString();
+            }
+            return line;
+        }
+
+        /**
+         * Line on which the last record returned by {@link #next()} starts.
+         */
+        long line() {
+            return recordLine;
+        }
+    }
+
+    private static final class ParsedRow {
+        final long line;
+        final Object value;
+        final ImportReport.RowError error;
+
+        ParsedRow(long line, Object value, ImportReport.RowError error) {
+            this.line = line;
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    private static final class Attached<T> {
+        final String restaurantId;
+        final T value;
+
+        Attached(String restaurantId, T value) {
+            this.restaurantId = restaurantId;
+            this.value = value;
+        }
+    }
+
+    private static final class HoursRow {
+        final DayOfWeek day;
+        final LocalTime open; // null when closed
+        final LocalTime close;
+
+        HoursRow(DayOfWeek day, LocalTime open, LocalTime close) {
+            this.day = day;
+            this.open = open;
+            this.close = close;
+        }
+    }
+}
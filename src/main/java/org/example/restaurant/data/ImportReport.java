@@ -0,0 +1,110 @@
+package org.example.restaurant.data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one {@link CatalogImporter} run: row counts, throughput and the
+ * location of rejected rows.
+ */
+public class ImportReport {
+
+    private final CatalogImporter.RecordType recordType;
+    private final long rowsRead;
+    private final long rowsImported;
+    private final long errorCount;
+    private final List<RowError> errors;
+    private final long elapsedNanos;
+
+    ImportReport(CatalogImporter.RecordType recordType, long rowsRead, long rowsImported, long errorCount,
+            List<RowError> errors, long elapsedNanos) {
+        this.recordType = recordType;
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.errorCount = errorCount;
+        this.errors = Collections.unmodifiableList(errors);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public CatalogImporter.RecordType getRecordType() {
+        return recordType;
+    }
+
+    /**
+     * Number of non-blank records read, including rejected ones.
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * The first rejected rows in file order; at most
+     * {@link CatalogImporter#MAX_REPORTED_ERRORS} are kept.
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rowsRead * 1_000_000_000.0 / elapsedNanos : 0.0;
+    }
+
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "recordType=" + recordType +
+                ", rowsRead=" + rowsRead +
+                ", rowsImported=" + rowsImported +
+                ", errorCount=" + errorCount +
+                ", rowsPerSecond=" + String.format("%.0f", getRowsPerSecond()) +
+                '}';
+    }
+
+    /**
+     * A rejected row: the line it starts on, the offending field if known, and why.
+     */
+    public static final class RowError {
+        private final long line;
+        private final String field;
+        private final String message;
+
+        RowError(long line, String field, String message) {
+            this.line = line;
+            this.field = field;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + (field != null ? " (" + field + ")" : "") + ": " + message;
+        }
+    }
+}
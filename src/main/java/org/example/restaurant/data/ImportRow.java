@@ -0,0 +1,336 @@
+package org.example.restaurant.data;
+
+import org.example.restaurant.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * One parsed import record: field values by column name, plus the CSV and
+ * JSON Lines parsers that produce them. Conversion failures are reported as
+ * {@link ValidationException}s naming the field.
+ */
+final class ImportRow {
+
+    static final String LIST_SEPARATOR = ";";
+    private static final Pattern JSON_NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    private final Map<String, String> values;
+
+    ImportRow(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Trimmed field value, or null when the field is missing or blank.
+     */
+    String text(String field) {
+        String value = values.get(field);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    int integer(String field, int defaultValue) {
+        String value = text(field);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw invalid(field, value);
+        }
+    }
+
+    double decimal(String field, double defaultValue) {
+        String value = text(field);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw invalid(field, value);
+        }
+    }
+
+    boolean bool(String field, boolean defaultValue) {
+        String value = text(field);
+        if (value == null) {
+            return defaultValue;
+        }
+        switch (value.toLowerCase()) {
+            case "true":
+            case "yes":
+            case "y":
+            case "1":
+                return true;
+            case "false":
+            case "no":
+            case "n":
+            case "0":
+                return false;
+            default:
+                throw invalid(field, value);
+        }
+    }
+
+    LocalTime time(String field) {
+        String value = text(field);
+        try {
+            return value != null ? LocalTime.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw invalid(field, value);
+        }
+    }
+
+    LocalDateTime dateTime(String field) {
+        String value = text(field);
+        try {
+            return value != null ? LocalDateTime.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw invalid(field, value);
+        }
+    }
+
+    List<String> list(String field) {
+        List<String> items = new ArrayList<>();
+        String value = text(field);
+        if (value != null) {
+            for (String item : value.split(LIST_SEPARATOR)) {
+                if (!item.trim().isEmpty()) {
+                    items.add(item.trim());
+                }
+            }
+        }
+        return items;
+    }
+
+    private static ValidationException invalid(String field, String value) {
+        return new ValidationException("Invalid value for " + field + ": '" + value + "'", field);
+    }
+
+    /**
+     * Whether a CSV record ends inside a quoted field and continues on the next line.
+     */
+    static boolean isOpenCsvRecord(CharSequence record) {
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quoted = !quoted;
+            }
+        }
+        return quoted;
+    }
+
+    /**
+     * Split a CSV record into fields. Fields may be quoted, with doubled quotes
+     * standing for a quote character.
+     */
+    static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new ValidationException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static ImportRow fromCsv(String[] header, String record) {
+        List<String> fields = splitCsv(record);
+        if (fields.size() != header.length) {
+            throw new ValidationException("Expected " + header.length + " columns but found " + fields.size());
+        }
+        Map<String, String> values = new HashMap<>(header.length * 2);
+        for (int i = 0; i < header.length; i++) {
+            values.put(header[i], fields.get(i));
+        }
+        return new ImportRow(values);
+    }
+
+    /**
+     * Parse a flat JSON object. Values may be strings, numbers, booleans, null,
+     * or arrays of those, which are joined with {@link #LIST_SEPARATOR}.
+     */
+    static ImportRow fromJson(String line) {
+        JsonReader reader = new JsonReader(line);
+        Map<String, String> values = new HashMap<>();
+        reader.expect('{');
+        if (!reader.consume('}')) {
+            do {
+                String key = reader.string();
+                reader.expect(':');
+                values.put(key, reader.value(true));
+            } while (reader.consume(','));
+            reader.expect('}');
+        }
+        reader.end();
+        return new ImportRow(values);
+    }
+
+    private static final class JsonReader {
+        private final String text;
+        private int position;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        String value(boolean allowArray) {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw error("Unexpected end of line");
+            }
+            char c = text.charAt(position);
+            if (c == '"') {
+                return string();
+            }
+            if (c == '[' && allowArray) {
+                position++;
+                StringBuilder joined = new StringBuilder();
+                if (!consume(']')) {
+                    do {
+                        String item = value(false);
+                        if (item != null) {
+                            if (joined.length() > 0) {
+                                joined.append(LIST_SEPARATOR);
+                            }
+                            joined.append(item);
+                        }
+                    } while (consume(','));
+                    expect(']');
+                }
+                return joined.toString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("Nested values are not supported");
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.isEmpty() || !(literal.equals("true") || literal.equals("false")
+                    || JSON_NUMBER.matcher(literal).matches())) {
+                throw error("Invalid value '" + literal + "'");
+            }
+            return literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Invalid unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        boolean consume(char expected) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char expected) {
+            if (!consume(expected)) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        void end() {
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("Unexpected text after object");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private ValidationException error(String message) {
+            return new ValidationException(message + " at column " + (position + 1));
+        }
+    }
+}
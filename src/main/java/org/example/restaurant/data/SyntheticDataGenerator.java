@@ -0,0 +1,498 @@
+package org.example.restaurant.data;
+
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 合成資料產生器 - 產生大量擬真的台灣餐廳資料，供負載與效能測試使用
+ * <p>
+ * Restaurant {@code i} depends only on the seed and {@code i}, so any
+ * restaurant can be generated on its own, in any order and on any thread, and
+ * the same seed always yields the same catalog. Nothing is kept between
+ * restaurants, so streaming a catalog of any size uses bounded memory.
+ * <p>
+ * Coordinates cluster around district centres of real cities, cuisines and
+ * price levels follow skewed weights, review counts follow a Zipf
+ * distribution, and business hours mix split shifts, overnight hours and
+ * closed days. Review dates are spread over the three years before the
+ * reference date rather than the current time, to keep runs reproducible.
+ * <p>
+ * As a command line tool it writes the CSV files read by {@link CatalogImporter}:
+ * {@code SyntheticDataGenerator <count> <directory> [seed]}.
+ */
+public class SyntheticDataGenerator {
+
+    public static final long DEFAULT_SEED = 20240101L;
+    public static final int DEFAULT_MAX_REVIEWS = 2000;
+    private static final int WRITE_CHUNK_SIZE = 4096;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final City[] CITIES = {
+            new City("台北市", 25.0375, 121.5637, 20, 100,
+                    "中正區", "大安區", "信義區", "中山區", "松山區", "萬華區", "大同區", "士林區", "北投區", "內湖區",
+                    "南港區", "文山區"),
+            new City("新北市", 25.0120, 121.4657, 18, 220,
+                    "板橋區", "三重區", "中和區", "永和區", "新莊區", "新店區", "土城區", "蘆洲區", "汐止區", "淡水區"),
+            new City("台中市", 24.1477, 120.6736, 16, 400,
+                    "西區", "西屯區", "北區", "南屯區", "中區", "東區", "南區", "北屯區", "豐原區", "大里區"),
+            new City("高雄市", 22.6273, 120.3014, 15, 800,
+                    "苓雅區", "新興區", "前金區", "鼓山區", "三民區", "左營區", "前鎮區", "鹽埕區", "楠梓區", "鳳山區"),
+            new City("桃園市", 24.9936, 121.3010, 11, 330,
+                    "桃園區", "中壢區", "平鎮區", "八德區", "龜山區", "蘆竹區"),
+            new City("台南市", 22.9908, 120.2133, 10, 700,
+                    "中西區", "東區", "北區", "安平區", "南區", "永康區", "安南區", "仁德區"),
+            new City("新竹市", 24.8039, 120.9647, 4, 300, "東區", "北區", "香山區"),
+            new City("基隆市", 25.1276, 121.7392, 3, 200, "仁愛區", "信義區", "中正區", "中山區"),
+            new City("嘉義市", 23.4801, 120.4491, 3, 600, "東區", "西區"),
+    };
+
+    private static final CuisineType[] CUISINES = {
+            CuisineType.TAIWANESE, CuisineType.CHINESE, CuisineType.JAPANESE, CuisineType.CAFE,
+            CuisineType.FAST_FOOD, CuisineType.DESSERT, CuisineType.KOREAN, CuisineType.HOT_POT,
+            CuisineType.ITALIAN, CuisineType.AMERICAN, CuisineType.THAI, CuisineType.BBQ, CuisineType.SEAFOOD,
+            CuisineType.VEGETARIAN, CuisineType.VIETNAMESE, CuisineType.INDIAN, CuisineType.BUFFET,
+            CuisineType.FRENCH, CuisineType.MEXICAN,
+    };
+    private static final double[] CUISINE_WEIGHTS = cumulative(
+            25, 12, 12, 8, 7, 6, 5, 5, 4, 4, 3, 3, 2, 2, 1.5, 1, 1, 1, 0.5);
+    private static final double[] CITY_WEIGHTS = cumulative(
+            Arrays.stream(CITIES).mapToDouble(city -> city.weight).toArray());
+    private static final double[] PRICE_LEVEL_WEIGHTS = cumulative(40, 35, 18, 7);
+    // Opening patterns: cafe, all day, lunch and dinner shifts, breakfast, night market, late night, around the clock
+    private static final LocalTime[][] HOURS_PATTERNS = {
+            times("09:00", "18:00"), times("11:00", "21:00"), times("11:30", "14:00", "17:00", "21:00"),
+            times("06:00", "12:30"), times("17:00", "00:30"), times("18:00", "02:00"), times("00:00", "23:59"),
+    };
+    private static final double[] HOURS_WEIGHTS = cumulative(3, 32, 25, 10, 12, 13, 5);
+    private static final int[][] PRICE_RANGES = { { 50, 150 }, { 150, 400 }, { 400, 1000 }, { 1000, 3000 } };
+
+    private static final String[] NAME_FIRST = { "老", "阿", "小", "大", "好", "金", "福", "鼎", "春", "興", "湘", "鮮",
+            "香", "味", "品", "御", "匠", "樂", "喜", "饗", "陳", "林", "黃", "王" };
+    private static final String[] NAME_SECOND = { "記", "家", "園", "軒", "坊", "屋", "亭", "堂", "樓", "莊", "院", "舍" };
+    private static final String[] STREETS = { "中山路", "中正路", "民生路", "復興路", "忠孝東路", "公園路", "自由路",
+            "建國路", "成功路", "大同街", "光復路", "和平東路" };
+    private static final String[] SECTIONS = { "", "一段", "二段", "三段" };
+    private static final String[] SURNAMES = { "陳", "林", "黃", "張", "李", "王", "吳", "劉", "蔡", "楊", "許", "鄭", "謝",
+            "郭", "洪" };
+    private static final String[] GIVEN_NAMES = { "小明", "美玲", "志豪", "淑芬", "家豪", "怡君", "建宏", "雅婷", "俊傑",
+            "佳穎", "冠宇", "欣怡" };
+    private static final String[] GOOD_COMMENTS = { "很好吃，會再來", "服務親切，環境乾淨", "份量很足，CP值高",
+            "朋友推薦來的，果然名不虛傳", "適合家庭聚餐", "招牌菜一定要點" };
+    private static final String[] AVERAGE_COMMENTS = { "等了有點久，但味道不錯", "普通，沒有特別驚艷", "口味偏鹹",
+            "價格偏高，但環境舒適" };
+    private static final String[] BAD_COMMENTS = { "服務態度不佳", "餐點冷掉了", "排隊太久，失望", "衛生需要加強" };
+
+    private final long seed;
+    private int maxReviews = DEFAULT_MAX_REVIEWS;
+    private double reviewExponent = 2.0;
+    private LocalDate referenceDate = LocalDate.of(2025, 1, 1);
+
+    public SyntheticDataGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public SyntheticDataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getMaxReviews() {
+        return maxReviews;
+    }
+
+    /**
+     * Upper bound of the Zipf-distributed review count per restaurant; 0 generates no reviews.
+     */
+    public void setMaxReviews(int maxReviews) {
+        if (maxReviews < 0) {
+            throw new IllegalArgumentException("Max reviews cannot be negative");
+        }
+        this.maxReviews = maxReviews;
+    }
+
+    public double getReviewExponent() {
+        return reviewExponent;
+    }
+
+    /**
+     * Zipf exponent of review counts; larger values make reviewed restaurants rarer.
+     */
+    public void setReviewExponent(double reviewExponent) {
+        if (!(reviewExponent > 0) || reviewExponent == 1.0) {
+            throw new IllegalArgumentException("Review exponent must be positive and not 1");
+        }
+        this.reviewExponent = reviewExponent;
+    }
+
+    public LocalDate getReferenceDate() {
+        return referenceDate;
+    }
+
+    public void setReferenceDate(LocalDate referenceDate) {
+        if (referenceDate == null) {
+            throw new IllegalArgumentException("Reference date cannot be null");
+        }
+        this.referenceDate = referenceDate;
+    }
+
+    /**
+     * Generate restaurant {@code index}, with menu, reviews and business hours.
+     */
+    public Restaurant restaurant(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Index cannot be negative");
+        }
+        SplittableRandom random = new SplittableRandom(mix(seed + index * GOLDEN_GAMMA));
+        String id = "syn-" + index;
+
+        CuisineType cuisine = CUISINES[pick(random, CUISINE_WEIGHTS)];
+        City city = CITIES[pick(random, CITY_WEIGHTS)];
+        int district = pickDistrict(random, city.districts.length);
+        Restaurant restaurant = new Restaurant(id, name(random, cuisine, city, district), cuisine,
+                location(random, city, district));
+        if (random.nextInt(5) == 0) {
+            CuisineType extra = CUISINES[pick(random, CUISINE_WEIGHTS)];
+            if (extra != cuisine) {
+                restaurant.addCuisineType(extra);
+            }
+        }
+
+        int priceLevel = pick(random, PRICE_LEVEL_WEIGHTS) + 1;
+        int[] range = PRICE_RANGES[priceLevel - 1];
+        restaurant.setPriceLevel(priceLevel);
+        restaurant.setAveragePrice(range[0] + random.nextInt(range[1] - range[0] + 1));
+        restaurant.setDescription(city.name + city.districts[district] + "的" + cuisine.getDisplayName()
+                + "，" + GOOD_COMMENTS[random.nextInt(GOOD_COMMENTS.length)]);
+        restaurant.setActive(random.nextInt(50) != 0);
+        restaurant.setPhoneNumber(String.format("0%d-%08d", 2 + random.nextInt(7), random.nextInt(100_000_000)));
+        if (random.nextInt(3) == 0) {
+            restaurant.setWebsite("https://example.com/r/" + index);
+        }
+        restaurant.setCapacity(10 + random.nextInt(20 * priceLevel + 40));
+        restaurant.setHasDelivery(random.nextInt(100) < 60);
+        restaurant.setHasTakeout(random.nextInt(100) < 85);
+        restaurant.setHasParking(random.nextInt(100) < 30);
+        restaurant.setAcceptsReservations(priceLevel >= 3 || random.nextInt(4) == 0);
+
+        restaurant.setBusinessHours(hours(random, cuisine));
+        addMenu(random, restaurant, id, cuisine, restaurant.getAveragePrice());
+        addReviews(random, restaurant, id);
+        return restaurant;
+    }
+
+    /**
+     * Lazily generate restaurants 0 to count - 1; the stream may be made parallel.
+     */
+    public Stream<Restaurant> restaurants(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+        return IntStream.range(0, count).mapToObj(this::restaurant);
+    }
+
+    /**
+     * Save restaurants 0 to count - 1 into a repository in batches.
+     */
+    public void populate(RestaurantRepository repository, int count) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        List<Restaurant> batch = new ArrayList<>(WRITE_CHUNK_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add(restaurant(i));
+            if (batch.size() == WRITE_CHUNK_SIZE) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            repository.saveAll(batch);
+        }
+    }
+
+    public void writeImportFiles(int count, Path directory) throws IOException {
+        writeImportFiles(count, directory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Write restaurants 0 to count - 1 as {@link CatalogImporter} CSV files.
+     * Restaurants are generated a chunk at a time, in parallel, and written in order.
+     *
+     * @param pool pool used to generate chunks, or null to generate sequentially
+     */
+    public void writeImportFiles(int count, Path directory, ForkJoinPool pool) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+        try (CatalogCsvWriter writer = new CatalogCsvWriter(directory)) {
+            for (int start = 0; start < count; start += WRITE_CHUNK_SIZE) {
+                int from = start;
+                int size = Math.min(WRITE_CHUNK_SIZE, count - start);
+                Restaurant[] chunk = new Restaurant[size];
+                if (pool == null) {
+                    for (int i = 0; i < size; i++) {
+                        chunk[i] = restaurant(from + i);
+                    }
+                } else {
+                    pool.submit(() -> IntStream.range(0, size).parallel()
+                            .forEach(i -> chunk[i] = restaurant(from + i))).join();
+                }
+                for (Restaurant restaurant : chunk) {
+                    writer.write(restaurant);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("用法: SyntheticDataGenerator <餐廳數量> <輸出目錄> [seed]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(
+                args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED);
+        long start = System.nanoTime();
+        generator.writeImportFiles(count, Path.of(args[1]));
+        System.out.printf("已產生 %d 家餐廳，耗時 %.1f 秒%n", count, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static String name(SplittableRandom random, CuisineType cuisine, City city, int district) {
+        String name = NAME_FIRST[random.nextInt(NAME_FIRST.length)] + NAME_SECOND[random.nextInt(NAME_SECOND.length)]
+                + pickOf(random, suffixes(cuisine));
+        // Some restaurants are branches of a chain
+        return random.nextInt(5) == 0 ? name + " " + city.districts[district] + "店" : name;
+    }
+
+    private static Location location(SplittableRandom random, City city, int district) {
+        // District centres lie on a spiral around the city centre; restaurants cluster around them
+        double angle = district * 2.39996;
+        double radius = 0.018 * Math.sqrt(district);
+        double latitude = city.latitude + radius * Math.sin(angle) + random.nextGaussian() * 0.006;
+        double longitude = city.longitude + radius * Math.cos(angle) + random.nextGaussian() * 0.006;
+        String address = city.name + city.districts[district] + STREETS[random.nextInt(STREETS.length)]
+                + SECTIONS[random.nextInt(SECTIONS.length)] + (1 + random.nextInt(300)) + "號";
+        Location location = new Location(round(latitude, 6), round(longitude, 6), address, city.name);
+        location.setDistrict(city.districts[district]);
+        location.setPostalCode(Integer.toString(city.postalBase + district));
+        return location;
+    }
+
+    private static BusinessHours hours(SplittableRandom random, CuisineType cuisine) {
+        LocalTime[] slots = cuisine == CuisineType.CAFE || cuisine == CuisineType.DESSERT
+                ? HOURS_PATTERNS[random.nextInt(2)]
+                : HOURS_PATTERNS[pick(random, HOURS_WEIGHTS)];
+        BusinessHours hours = new BusinessHours();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (int i = 0; i < slots.length; i += 2) {
+                hours.addHours(day, slots[i], slots[i + 1]);
+            }
+        }
+        int closedDays = random.nextInt(100);
+        if (closedDays < 45) {
+            DayOfWeek closed = random.nextBoolean() ? DayOfWeek.MONDAY : DayOfWeek.of(1 + random.nextInt(7));
+            hours.setClosed(closed);
+            if (closedDays < 10) {
+                hours.setClosed(closed.plus(1));
+            }
+        }
+        return hours;
+    }
+
+    private static void addMenu(SplittableRandom random, Restaurant restaurant, String id, CuisineType cuisine,
+            double averagePrice) {
+        String[] dishes = dishes(cuisine);
+        int items = 5 + random.nextInt(16);
+        for (int i = 0; i < items; i++) {
+            String dish = dishes[random.nextInt(dishes.length)];
+            String name = i < dishes.length ? dish : NAME_FIRST[random.nextInt(NAME_FIRST.length)] + "式" + dish;
+            double price = Math.max(20, Math.round(averagePrice * (0.4 + random.nextDouble() * 1.2) / 5) * 5.0);
+            MenuItem item = new MenuItem(id + "-m" + i, name, price, i < 3 ? "招牌" : "主餐");
+            item.setVegetarian(cuisine == CuisineType.VEGETARIAN || random.nextInt(10) == 0);
+            item.setVegan(cuisine == CuisineType.VEGETARIAN && random.nextBoolean());
+            item.setSpicy(random.nextInt(5) == 0);
+            item.setAvailable(random.nextInt(20) != 0);
+            item.setCalories(150 + random.nextInt(800));
+            restaurant.addMenuItem(item);
+        }
+    }
+
+    private void addReviews(SplittableRandom random, Restaurant restaurant, String id) {
+        int count = zipf(random, maxReviews, reviewExponent) - 1;
+        if (count <= 0) {
+            return;
+        }
+        double quality = Math.min(4.8, Math.max(1.5, 3.9 + random.nextGaussian() * 0.5));
+        LocalDateTime reference = referenceDate.atStartOfDay();
+        long windowMinutes = 3L * 365 * 24 * 60;
+        restaurant.setReviews(new ArrayList<>(count));
+        for (int i = 0; i < count; i++) {
+            int rating = (int) Math.min(5, Math.max(1, Math.round(quality + random.nextGaussian() * 0.9)));
+            String comment = pickOf(random, rating >= 4 ? GOOD_COMMENTS : rating == 3 ? AVERAGE_COMMENTS : BAD_COMMENTS);
+            Review review = new Review(id + "-v" + i, id, rating, comment);
+            int user = random.nextInt(1_000_000);
+            review.setUserId("u" + user);
+            review.setUserName(SURNAMES[user % SURNAMES.length] + GIVEN_NAMES[(user / SURNAMES.length)
+                    % GIVEN_NAMES.length]);
+            review.setCreatedAt(reference.minusMinutes(random.nextLong(windowMinutes)));
+            review.setUserLevel(Math.min(5, zipf(random, 5, 1.5) + random.nextInt(2)));
+            review.setHelpfulCount(zipf(random, 500, 2.0) - 1);
+            review.setVerified(random.nextInt(10) < 3);
+            restaurant.addReview(review);
+        }
+    }
+
+    private static String[] suffixes(CuisineType cuisine) {
+        switch (cuisine) {
+            case TAIWANESE:
+                return new String[] { "小吃", "牛肉麵", "滷肉飯", "食堂", "熱炒" };
+            case CHINESE:
+                return new String[] { "餐廳", "小館", "川菜館", "港式飲茶" };
+            case JAPANESE:
+                return new String[] { "壽司", "拉麵", "居酒屋", "丼飯" };
+            case KOREAN:
+                return new String[] { "韓式烤肉", "韓式料理", "豆腐鍋" };
+            case ITALIAN:
+                return new String[] { "義式廚房", "披薩", "義大利麵" };
+            case FRENCH:
+                return new String[] { "法式餐館", "小酒館" };
+            case AMERICAN:
+                return new String[] { "美式餐廳", "漢堡", "牛排館" };
+            case MEXICAN:
+                return new String[] { "墨西哥捲餅", "塔可" };
+            case THAI:
+                return new String[] { "泰式料理", "泰式小館" };
+            case VIETNAMESE:
+                return new String[] { "越南河粉", "越式小館" };
+            case INDIAN:
+                return new String[] { "咖哩屋", "印度料理" };
+            case SEAFOOD:
+                return new String[] { "海產", "海鮮餐廳" };
+            case VEGETARIAN:
+                return new String[] { "蔬食", "素食館" };
+            case FAST_FOOD:
+                return new String[] { "快餐", "炸雞" };
+            case CAFE:
+                return new String[] { "咖啡", "咖啡館" };
+            case DESSERT:
+                return new String[] { "甜品", "冰店", "豆花" };
+            case BBQ:
+                return new String[] { "燒肉", "燒烤" };
+            case HOT_POT:
+                return new String[] { "火鍋", "麻辣鍋", "涮涮鍋" };
+            case BUFFET:
+                return new String[] { "自助餐", "吃到飽" };
+            default:
+                return new String[] { "餐館" };
+        }
+    }
+
+    private static String[] dishes(CuisineType cuisine) {
+        switch (cuisine) {
+            case TAIWANESE:
+                return new String[] { "滷肉飯", "牛肉麵", "蚵仔煎", "鹽酥雞", "蘿蔔糕", "排骨便當" };
+            case JAPANESE:
+                return new String[] { "鮭魚握壽司", "豚骨拉麵", "炸豬排丼", "味噌湯", "烤鯖魚" };
+            case CAFE:
+            case DESSERT:
+                return new String[] { "拿鐵", "美式咖啡", "芒果冰", "豆花", "鬆餅", "起司蛋糕" };
+            case HOT_POT:
+                return new String[] { "麻辣鍋", "昆布鍋", "牛肉盤", "豬肉盤", "綜合蔬菜" };
+            case ITALIAN:
+                return new String[] { "瑪格麗特披薩", "青醬義大利麵", "燉飯", "提拉米蘇" };
+            default:
+                return new String[] { "招牌套餐", "炒飯", "湯麵", "沙拉", "主廚推薦", "小菜拼盤" };
+        }
+    }
+
+    // SplitMix64 finalizer, so that neighbouring indexes get unrelated streams
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Zipf sample in [1, n] by inverting the continuous distribution
+    private static int zipf(SplittableRandom random, int n, double exponent) {
+        if (n <= 1) {
+            return n;
+        }
+        double oneMinus = 1 - exponent;
+        double u = random.nextDouble();
+        double x = Math.pow((Math.pow(n + 1, oneMinus) - 1) * u + 1, 1 / oneMinus);
+        return (int) Math.min(n, Math.max(1, Math.floor(x)));
+    }
+
+    private static int pickDistrict(SplittableRandom random, int districts) {
+        // Central districts are busier
+        return zipf(random, districts, 0.8) - 1;
+    }
+
+    private static int pick(SplittableRandom random, double[] cumulativeWeights) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, target);
+        return Math.min(cumulativeWeights.length - 1, index >= 0 ? index + 1 : -index - 1);
+    }
+
+    private static String pickOf(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static double[] cumulative(double... weights) {
+        double[] result = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            result[i] = total;
+        }
+        return result;
+    }
+
+    private static LocalTime[] times(String... values) {
+        LocalTime[] times = new LocalTime[values.length];
+        for (int i = 0; i < values.length; i++) {
+            times[i] = LocalTime.parse(values[i]);
+        }
+        return times;
+    }
+
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    private static final class City {
+        final String name;
+        final double latitude;
+        final double longitude;
+        final double weight;
+        final int postalBase;
+        final String[] districts;
+
+        City(String name, double latitude, double longitude, double weight, int postalBase, String... districts) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.weight = weight;
+            this.postalBase = postalBase;
+            this.districts = districts;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.restaurant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One parsed chunk of an import applied to the repository, such as a batch of reviews.
+ */
+@Name("org.example.restaurant.ImportBatch")
+@Label("Import Batch")
+@Category({ "Restaurant", "Ingestion" })
+@Description("A chunk of imported rows applied to the repository")
+@Threshold("20 ms")
+@StackTrace(false)
+public final class ImportBatchEvent extends jdk.jfr.Event {
+
+    @Label("Record Type")
+    String recordType;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Imported")
+    long imported;
+
+    @Label("Rejected")
+    long rejected;
+
+    public void emit(String recordType, int rows, long imported, long rejected) {
+        if (shouldCommit()) {
+            this.recordType = recordType;
+            this.rows = rows;
+            this.imported = imported;
+            this.rejected = rejected;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.restaurant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A full build of an in-memory index from a catalog or review set.
+ */
+@Name("org.example.restaurant.IndexBuild")
+@Label("Index Build")
+@Category({ "Restaurant", "Index" })
+@Description("Bulk build of a search or recommendation index")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class IndexBuildEvent extends jdk.jfr.Event {
+
+    @Label("Index")
+    String index;
+
+    @Label("Entries")
+    @Description("Restaurants or reviews the index was built from")
+    int entries;
+
+    public void emit(String index, int entries) {
+        if (shouldCommit()) {
+            this.index = index;
+            this.entries = entries;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.restaurant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One {@code recommendByPreferences} call slower than the threshold.
+ */
+@Name("org.example.restaurant.Recommendation")
+@Label("Preference Recommendation")
+@Category({ "Restaurant", "Recommendation" })
+@Description("Preference-based restaurant recommendation")
+@Threshold("10 ms")
+@StackTrace(false)
+public final class RecommendationEvent extends jdk.jfr.Event {
+
+    @Label("Preferences")
+    String preferences;
+
+    @Label("Candidates")
+    int candidates;
+
+    @Label("Limit")
+    int limit;
+
+    @Label("Results")
+    int results;
+
+    public void emit(String preferences, int candidates, int limit, int results) {
+        if (shouldCommit()) {
+            this.preferences = preferences;
+            this.candidates = candidates;
+            this.limit = limit;
+            this.results = results;
+            commit();
+        }
+    }
+}
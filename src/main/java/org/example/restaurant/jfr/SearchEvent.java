@@ -0,0 +1,57 @@
+package org.example.restaurant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One {@code searchByMultipleCriteria} call. Only calls slower than the
+ * threshold are recorded; override it with the
+ * {@code org.example.restaurant.Search#threshold} setting.
+ */
+@Name("org.example.restaurant.Search")
+@Label("Restaurant Search")
+@Category({ "Restaurant", "Search" })
+@Description("Multi-criteria restaurant search")
+@Threshold("10 ms")
+@StackTrace(false)
+public final class SearchEvent extends jdk.jfr.Event {
+
+    @Label("Criteria")
+    String criteria;
+
+    @Label("Plan")
+    @Description("Candidate source, filter stages, sort and page")
+    String plan;
+
+    @Label("Candidates")
+    @Description("Restaurants in the starting candidate set")
+    int candidates;
+
+    @Label("Matches")
+    @Description("Restaurants matching every filter, before pagination")
+    int matches;
+
+    public void setCandidates(int candidates) {
+        this.candidates = candidates;
+    }
+
+    public void setMatches(int matches) {
+        this.matches = matches;
+    }
+
+    /**
+     * Commit with the given descriptions; check {@link #shouldCommit()} first
+     * to skip building them.
+     */
+    public void emit(String criteria, String plan) {
+        if (shouldCommit()) {
+            this.criteria = criteria;
+            this.plan = plan;
+            commit();
+        }
+    }
+}
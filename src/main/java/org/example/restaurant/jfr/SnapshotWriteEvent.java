@@ -0,0 +1,44 @@
+package org.example.restaurant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A catalog snapshot or segment file written to disk.
+ */
+@Name("org.example.restaurant.SnapshotWrite")
+@Label("Snapshot Write")
+@Category({ "Restaurant", "Persistence" })
+@Description("Catalog snapshot or segment file written to disk")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class SnapshotWriteEvent extends jdk.jfr.Event {
+
+    @Label("Format")
+    String format;
+
+    @Label("Path")
+    String path;
+
+    @Label("Restaurants")
+    int restaurants;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    public void emit(String format, String path, int restaurants, long bytes) {
+        if (shouldCommit()) {
+            this.format = format;
+            this.path = path;
+            this.restaurants = restaurants;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
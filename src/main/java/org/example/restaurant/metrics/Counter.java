@@ -0,0 +1,11 @@
+package org.example.restaurant.metrics;
+
+/**
+ * A monotonically increasing count, such as cache hits.
+ */
+public interface Counter {
+
+    void increment();
+
+    void add(long amount);
+}
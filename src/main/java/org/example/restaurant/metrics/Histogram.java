@@ -0,0 +1,12 @@
+package org.example.restaurant.metrics;
+
+/**
+ * Records the distribution of non-negative values, such as candidate counts.
+ */
+public interface Histogram {
+
+    /**
+     * Record one value; negative values are recorded as 0.
+     */
+    void record(long value);
+}
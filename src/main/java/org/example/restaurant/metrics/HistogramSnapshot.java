@@ -0,0 +1,90 @@
+package org.example.restaurant.metrics;
+
+/**
+ * Immutable copy of a {@link LatencyHistogram}. Percentiles and the maximum
+ * are reported as the highest value of their bucket, the minimum as the lowest.
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final double sum;
+
+    HistogramSnapshot(long[] counts) {
+        this.counts = counts;
+        long total = 0;
+        double bucketSum = 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                total += counts[i];
+                double midpoint = LatencyHistogram.lowestValueOf(i) / 2.0 + LatencyHistogram.highestValueOf(i) / 2.0;
+                bucketSum += counts[i] * midpoint;
+            }
+        }
+        this.count = total;
+        this.sum = bucketSum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Mean of the bucket midpoints, within 1/64 of the exact mean.
+     */
+    public double getMean() {
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    public long getMin() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                return LatencyHistogram.lowestValueOf(i);
+            }
+        }
+        return 0L;
+    }
+
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return LatencyHistogram.highestValueOf(i);
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Value at or below which the given percentage of recordings fall.
+     *
+     * @param percentile percentage between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return LatencyHistogram.highestValueOf(i);
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{" +
+                "count=" + count +
+                ", mean=" + String.format("%.1f", getMean()) +
+                ", p50=" + getValueAtPercentile(50) +
+                ", p99=" + getValueAtPercentile(99) +
+                ", max=" + getMax() +
+                '}';
+    }
+}
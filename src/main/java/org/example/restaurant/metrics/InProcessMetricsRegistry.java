@@ -0,0 +1,65 @@
+package org.example.restaurant.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry that keeps every instrument in memory for {@link #snapshot()}.
+ * Timers and histograms are {@link LatencyHistogram}s; counters are
+ * {@link LongAdder}s. All instruments are thread-safe.
+ */
+public class InProcessMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, AdderCounter> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(checkName(name), key -> new LatencyHistogram());
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(checkName(name), key -> new LatencyHistogram());
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(checkName(name), key -> new AdderCounter());
+    }
+
+    private static String checkName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Metric name cannot be null or empty");
+        }
+        return name;
+    }
+
+    @Override
+    public MetricsSnapshot snapshot() {
+        Map<String, HistogramSnapshot> timerSnapshots = new HashMap<>();
+        timers.forEach((name, timer) -> timerSnapshots.put(name, timer.snapshot()));
+        Map<String, HistogramSnapshot> histogramSnapshots = new HashMap<>();
+        histograms.forEach((name, histogram) -> histogramSnapshots.put(name, histogram.snapshot()));
+        Map<String, Long> counterValues = new HashMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.adder.sum()));
+        return new MetricsSnapshot(timerSnapshots, histogramSnapshots, counterValues);
+    }
+
+    private static final class AdderCounter implements Counter {
+        private final LongAdder adder = new LongAdder();
+
+        @Override
+        public void increment() {
+            adder.increment();
+        }
+
+        @Override
+        public void add(long amount) {
+            adder.add(amount);
+        }
+    }
+}
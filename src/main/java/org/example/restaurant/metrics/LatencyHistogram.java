@@ -0,0 +1,72 @@
+package org.example.restaurant.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram in the style of HdrHistogram: values below
+ * {@value #SUB_BUCKETS} have their own bucket, and every higher power-of-two
+ * range is split into {@value #SUB_BUCKETS}/2 equal buckets, so any recorded
+ * value is reported within 1/32 of its true magnitude. The bucket array has a
+ * fixed size that covers every long, and recording is a single atomic
+ * increment with no allocation.
+ */
+public final class LatencyHistogram implements Histogram, Timer {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    @Override
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        counts.incrementAndGet(bucketOf(v));
+    }
+
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stop(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int offset = bucket - SUB_BUCKETS;
+        int shift = offset / HALF + 1;
+        return (long) (offset % HALF + HALF) << shift;
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        return lowestValueOf(bucket + 1) - 1;
+    }
+
+    /**
+     * Copy of the current counts. Concurrent recordings may be partly included.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(copy);
+    }
+}
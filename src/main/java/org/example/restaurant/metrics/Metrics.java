@@ -0,0 +1,153 @@
+package org.example.restaurant.metrics;
+
+/**
+ * Process-wide registry used by the services. It defaults to
+ * {@link MetricsRegistry#noop()}. The instruments handed out here look up
+ * their name in whichever registry is installed when they are used, so
+ * services built before {@link #install} record into the new registry; a
+ * timing that straddles the switch is dropped.
+ */
+public final class Metrics {
+
+    private static volatile MetricsRegistry registry = MetricsRegistry.noop();
+
+    private Metrics() {
+    }
+
+    public static MetricsRegistry registry() {
+        return registry;
+    }
+
+    public static void install(MetricsRegistry newRegistry) {
+        if (newRegistry == null) {
+            throw new IllegalArgumentException("Registry cannot be null");
+        }
+        registry = newRegistry;
+    }
+
+    /**
+     * Restore the no-op registry.
+     */
+    public static void reset() {
+        registry = MetricsRegistry.noop();
+    }
+
+    public static Timer timer(String name) {
+        return new InstalledTimer(name);
+    }
+
+    public static Histogram histogram(String name) {
+        return new InstalledHistogram(name);
+    }
+
+    public static Counter counter(String name) {
+        return new InstalledCounter(name);
+    }
+
+    /**
+     * The instrument a name resolves to in the installed registry, looked up
+     * again only after another registry is installed.
+     */
+    private abstract static class Installed<T> {
+        private final String name;
+        private volatile Binding<T> binding;
+
+        Installed(String name) {
+            if (name == null || name.trim().isEmpty()) {
+                throw new IllegalArgumentException("Metric name cannot be null or empty");
+            }
+            this.name = name;
+        }
+
+        // Called by subclass constructors, so the installed registry lists the instrument before first use
+        final void bind() {
+            instrument();
+        }
+
+        abstract T lookup(MetricsRegistry registry, String name);
+
+        final T instrument() {
+            MetricsRegistry current = registry;
+            Binding<T> bound = binding;
+            if (bound == null || bound.registry != current) {
+                bound = new Binding<>(current, lookup(current, name));
+                binding = bound;
+            }
+            return bound.instrument;
+        }
+    }
+
+    private static final class Binding<T> {
+        final MetricsRegistry registry;
+        final T instrument;
+
+        Binding(MetricsRegistry registry, T instrument) {
+            this.registry = registry;
+            this.instrument = instrument;
+        }
+    }
+
+    private static final class InstalledTimer extends Installed<Timer> implements Timer {
+        InstalledTimer(String name) {
+            super(name);
+            bind();
+        }
+
+        @Override
+        Timer lookup(MetricsRegistry registry, String name) {
+            return registry.timer(name);
+        }
+
+        @Override
+        public long start() {
+            return instrument().start();
+        }
+
+        @Override
+        public void stop(long start) {
+            // 0 is the no-op timer's token: the timing began before a registry was installed
+            if (start != 0L) {
+                instrument().stop(start);
+            }
+        }
+    }
+
+    private static final class InstalledHistogram extends Installed<Histogram> implements Histogram {
+        InstalledHistogram(String name) {
+            super(name);
+            bind();
+        }
+
+        @Override
+        Histogram lookup(MetricsRegistry registry, String name) {
+            return registry.histogram(name);
+        }
+
+        @Override
+        public void record(long value) {
+            instrument().record(value);
+        }
+    }
+
+    private static final class InstalledCounter extends Installed<Counter> implements Counter {
+        InstalledCounter(String name) {
+            super(name);
+            bind();
+        }
+
+        @Override
+        Counter lookup(MetricsRegistry registry, String name) {
+            return registry.counter(name);
+        }
+
+        @Override
+        public void increment() {
+            instrument().increment();
+        }
+
+        @Override
+        public void add(long amount) {
+            instrument().add(amount);
+        }
+    }
+}
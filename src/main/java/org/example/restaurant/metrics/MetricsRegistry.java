@@ -0,0 +1,29 @@
+package org.example.restaurant.metrics;
+
+/**
+ * Source of named instruments. Instruments with the same name and kind are
+ * shared, so services look them up once and keep them in fields.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Latency timer recorded in nanoseconds.
+     */
+    Timer timer(String name);
+
+    Histogram histogram(String name);
+
+    Counter counter(String name);
+
+    /**
+     * Point-in-time copy of every instrument.
+     */
+    MetricsSnapshot snapshot();
+
+    /**
+     * Registry whose instruments do nothing and never read the clock.
+     */
+    static MetricsRegistry noop() {
+        return NoopMetricsRegistry.INSTANCE;
+    }
+}
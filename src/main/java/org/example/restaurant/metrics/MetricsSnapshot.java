@@ -0,0 +1,96 @@
+package org.example.restaurant.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Point-in-time copy of a registry: timers in nanoseconds, value histograms
+ * and counters, each sorted by name.
+ */
+public final class MetricsSnapshot {
+
+    /** Counter suffixes read by {@link #getHitRatio(String)}. */
+    public static final String HITS = ".hits";
+    public static final String MISSES = ".misses";
+
+    private final Map<String, HistogramSnapshot> timers;
+    private final Map<String, HistogramSnapshot> histograms;
+    private final Map<String, Long> counters;
+
+    MetricsSnapshot(Map<String, HistogramSnapshot> timers, Map<String, HistogramSnapshot> histograms,
+            Map<String, Long> counters) {
+        this.timers = Collections.unmodifiableMap(new TreeMap<>(timers));
+        this.histograms = Collections.unmodifiableMap(new TreeMap<>(histograms));
+        this.counters = Collections.unmodifiableMap(new TreeMap<>(counters));
+    }
+
+    public Map<String, HistogramSnapshot> getTimers() {
+        return timers;
+    }
+
+    public Map<String, HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public HistogramSnapshot getTimer(String name) {
+        return timers.get(name);
+    }
+
+    public HistogramSnapshot getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Counter value, or 0 if the counter was never created.
+     */
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Share of lookups that hit, from the counters {@code name + ".hits"} and
+     * {@code name + ".misses"}; 0 when neither has been incremented.
+     */
+    public double getHitRatio(String name) {
+        long hits = getCounter(name + HITS);
+        long total = hits + getCounter(name + MISSES);
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+
+    /**
+     * Human-readable table of every instrument, with timer percentiles in microseconds.
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        if (!timers.isEmpty()) {
+            out.append(String.format("%-48s %10s %10s %10s %10s %10s %10s%n",
+                    "timer (us)", "count", "mean", "p50", "p90", "p99", "max"));
+            timers.forEach((name, h) -> out.append(String.format("%-48s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    name, h.getCount(), h.getMean() / 1000.0, h.getValueAtPercentile(50) / 1000.0,
+                    h.getValueAtPercentile(90) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                    h.getMax() / 1000.0)));
+        }
+        if (!histograms.isEmpty()) {
+            out.append(String.format("%-48s %10s %10s %10s %10s %10s %10s%n",
+                    "histogram", "count", "mean", "p50", "p90", "p99", "max"));
+            histograms.forEach((name, h) -> out.append(String.format("%-48s %10d %10.1f %10d %10d %10d %10d%n",
+                    name, h.getCount(), h.getMean(), h.getValueAtPercentile(50), h.getValueAtPercentile(90),
+                    h.getValueAtPercentile(99), h.getMax())));
+        }
+        if (!counters.isEmpty()) {
+            out.append(String.format("%-48s %10s%n", "counter", "value"));
+            counters.forEach((name, value) -> out.append(String.format("%-48s %10d%n", name, value)));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
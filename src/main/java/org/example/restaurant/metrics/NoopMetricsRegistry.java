@@ -0,0 +1,55 @@
+package org.example.restaurant.metrics;
+
+import java.util.Collections;
+
+/**
+ * Disabled metrics: one shared instance serves as registry and every instrument.
+ */
+enum NoopMetricsRegistry implements MetricsRegistry, Timer, Histogram, Counter {
+    INSTANCE;
+
+    @Override
+    public Timer timer(String name) {
+        return this;
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        return this;
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return this;
+    }
+
+    @Override
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    @Override
+    public long start() {
+        return 0L;
+    }
+
+    @Override
+    public void stop(long start) {
+        // Disabled
+    }
+
+    @Override
+    public void record(long value) {
+        // Disabled
+    }
+
+    @Override
+    public void increment() {
+        // Disabled
+    }
+
+    @Override
+    public void add(long amount) {
+        // Disabled
+    }
+}
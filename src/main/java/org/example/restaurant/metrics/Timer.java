@@ -0,0 +1,18 @@
+package org.example.restaurant.metrics;
+
+/**
+ * Records elapsed times. Callers keep the start token on the stack:
+ * <pre>
+ * long start = timer.start();
+ * try { ... } finally { timer.stop(start); }
+ * </pre>
+ */
+public interface Timer {
+
+    /**
+     * Start token for {@link #stop(long)}; the no-op timer does not read the clock.
+     */
+    long start();
+
+    void stop(long start);
+}
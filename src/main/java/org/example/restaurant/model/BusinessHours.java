@@ -4,34 +4,107 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 /**
  * Represents the business hours of a restaurant.
+ * A day may hold several time slots (e.g. lunch and dinner shifts). The slots
+ * are kept per day as a sorted, merged short[] of minute offsets
+ * [open0, close0, open1, close1, ...] so lookups are a binary search.
+ * An overnight slot (e.g. 22:00 - 02:00) is stored as [0, 120] and [1320, 1440]
+ * on the same day, matching {@link TimeSlot#contains(LocalTime)}.
+ * The packed slots are the only storage; {@link #getHours(DayOfWeek)} and
+ * {@link #getWeeklyHours()} are derived from them.
  */
 public class BusinessHours {
-    private Map<DayOfWeek, TimeSlot> weeklyHours;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final short[] CLOSED = new short[0];
+
+    private final short[][] dailySlots;
     private boolean closedOnHolidays;
 
     public BusinessHours() {
-        this.weeklyHours = new EnumMap<>(DayOfWeek.class);
+        this.dailySlots = new short[7][];
         this.closedOnHolidays = false;
     }
 
     public void setHours(DayOfWeek day, LocalTime openTime, LocalTime closeTime) {
         if (openTime != null && closeTime != null) {
-            weeklyHours.put(day, new TimeSlot(openTime, closeTime));
+            dailySlots[day.ordinal()] = addInterval(CLOSED, openTime, closeTime);
+        }
+    }
+
+    /**
+     * Add another time slot to a day, keeping the existing ones (split shifts).
+     * Overlapping or touching slots are merged.
+     */
+    public void addHours(DayOfWeek day, LocalTime openTime, LocalTime closeTime) {
+        if (openTime == null || closeTime == null) {
+            return;
+        }
+        short[] current = dailySlots[day.ordinal()];
+        if (current == null) {
+            setHours(day, openTime, closeTime);
+            return;
         }
+        dailySlots[day.ordinal()] = addInterval(current, openTime, closeTime);
     }
 
     public void setClosed(DayOfWeek day) {
-        weeklyHours.put(day, null);
+        dailySlots[day.ordinal()] = null;
     }
 
+    /**
+     * Get the first time slot of a day in opening order, or null if the day is closed.
+     * The slot is a copy; changing it does not change these hours.
+     */
     public TimeSlot getHours(DayOfWeek day) {
-        return weeklyHours.get(day);
+        List<TimeSlot> slots = getTimeSlots(day);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    public boolean isOpenOn(DayOfWeek day) {
+        return day != null && dailySlots[day.ordinal()] != null;
+    }
+
+    /**
+     * Get all time slots of a day in opening order.
+     * An overnight slot is returned as a single slot whose close time is before its open time.
+     */
+    public List<TimeSlot> getTimeSlots(DayOfWeek day) {
+        List<TimeSlot> result = new ArrayList<>();
+        short[] slots = day != null ? dailySlots[day.ordinal()] : null;
+        if (slots == null) {
+            return result;
+        }
+
+        int from = 0;
+        int to = slots.length;
+        boolean overnight = isOvernight(slots);
+        if (overnight) {
+            from = 2;
+            to -= 2;
+        }
+        for (int i = from; i < to; i += 2) {
+            result.add(new TimeSlot(toTime(slots[i]), toTime(slots[i + 1])));
+        }
+        if (overnight) {
+            result.add(new TimeSlot(toTime(slots[slots.length - 2]), toTime(slots[1])));
+        }
+        return result;
+    }
+
+    /**
+     * Get the packed minute offsets of a day, or null if the day is closed.
+     * The returned array must not be modified.
+     */
+    public short[] getPackedSlots(DayOfWeek day) {
+        return day != null ? dailySlots[day.ordinal()] : null;
     }
 
     public boolean isClosedOnHolidays() {
@@ -42,12 +115,32 @@ public class BusinessHours {
         this.closedOnHolidays = closedOnHolidays;
     }
 
+    /**
+     * Get the first time slot of every open day, as in {@link #getHours(DayOfWeek)}.
+     * The map is a read-only copy; use the setters to change the hours.
+     */
     public Map<DayOfWeek, TimeSlot> getWeeklyHours() {
-        return weeklyHours;
+        Map<DayOfWeek, TimeSlot> weekly = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            TimeSlot slot = getHours(day);
+            if (slot != null) {
+                weekly.put(day, slot);
+            }
+        }
+        return Collections.unmodifiableMap(weekly);
     }
 
+    /**
+     * Replace the hours of every day with one slot per day; days without a
+     * complete slot, or all days for a null map, become closed.
+     */
     public void setWeeklyHours(Map<DayOfWeek, TimeSlot> weeklyHours) {
-        this.weeklyHours = weeklyHours;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            TimeSlot slot = weeklyHours != null ? weeklyHours.get(day) : null;
+            dailySlots[day.ordinal()] = slot != null && slot.getOpenTime() != null && slot.getCloseTime() != null
+                    ? addInterval(CLOSED, slot.getOpenTime(), slot.getCloseTime())
+                    : null;
+        }
     }
 
     public boolean isOpenAt(LocalDateTime dateTime) {
@@ -55,15 +148,117 @@ public class BusinessHours {
             return false;
         }
 
-        DayOfWeek day = dateTime.getDayOfWeek();
-        LocalTime time = dateTime.toLocalTime();
+        return contains(dateTime.getDayOfWeek(), dateTime.toLocalTime());
+    }
 
-        TimeSlot slot = weeklyHours.get(day);
-        if (slot == null) {
+    /**
+     * Check whether any slot of the given day contains the time.
+     * Close times are inclusive, as in {@link TimeSlot#contains(LocalTime)}.
+     */
+    public boolean contains(DayOfWeek day, LocalTime time) {
+        if (day == null || time == null) {
             return false;
         }
 
-        return slot.contains(time);
+        short[] slots = dailySlots[day.ordinal()];
+        if (slots == null || slots.length == 0) {
+            return false;
+        }
+
+        // Last slot opening at or before the given time
+        int second = time.toSecondOfDay();
+        int low = 0;
+        int high = slots.length / 2 - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (slots[2 * mid] * 60 <= second) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return found >= 0 && second <= slots[2 * found + 1] * 60;
+    }
+
+    /**
+     * Get the first opening time of a day strictly after the given time,
+     * or the first opening of the day when time is null.
+     * The early-morning part of an overnight slot does not count as an opening.
+     */
+    public LocalTime getNextOpeningAfter(DayOfWeek day, LocalTime time) {
+        if (day == null) {
+            return null;
+        }
+
+        short[] slots = dailySlots[day.ordinal()];
+        if (slots == null || slots.length == 0) {
+            return null;
+        }
+
+        int from = isOvernight(slots) ? 2 : 0;
+        for (int i = from; i < slots.length; i += 2) {
+            LocalTime open = toTime(slots[i]);
+            if (time == null || open.isAfter(time)) {
+                return open;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the close time of the slot containing the time, or null if the day
+     * has none. For the late part of an overnight slot this is the early
+     * morning close time.
+     */
+    public LocalTime getClosingTime(DayOfWeek day, LocalTime time) {
+        if (day == null || time == null) {
+            return null;
+        }
+
+        short[] slots = dailySlots[day.ordinal()];
+        if (slots == null) {
+            return null;
+        }
+
+        int second = time.toSecondOfDay();
+        for (int i = 0; i < slots.length; i += 2) {
+            if (slots[i] * 60 <= second && second <= slots[i + 1] * 60) {
+                boolean lateOvernight = isOvernight(slots) && i == slots.length - 2;
+                return toTime(lateOvernight ? slots[1] : slots[i + 1]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the last close time of a day, or null if the day is closed.
+     * A day ending in an overnight slot closes the next morning.
+     */
+    public LocalTime getLastClosingTime(DayOfWeek day) {
+        short[] slots = day != null ? dailySlots[day.ordinal()] : null;
+        if (slots == null) {
+            return null;
+        }
+        return toTime(isOvernight(slots) ? slots[1] : slots[slots.length - 1]);
+    }
+
+    /**
+     * Get the total open minutes of a day.
+     */
+    public int getOpenMinutes(DayOfWeek day) {
+        short[] slots = day != null ? dailySlots[day.ordinal()] : null;
+        if (slots == null) {
+            return 0;
+        }
+
+        int minutes = 0;
+        for (int i = 0; i < slots.length; i += 2) {
+            minutes += slots[i + 1] - slots[i];
+        }
+        return minutes;
     }
 
     public boolean isOpenNow() {
@@ -79,27 +274,85 @@ public class BusinessHours {
         for (int i = 0; i < 7; i++) {
             LocalDate date = from.toLocalDate().plusDays(i);
             DayOfWeek day = date.getDayOfWeek();
-            TimeSlot slot = weeklyHours.get(day);
 
-            if (slot != null) {
-                LocalDateTime openTime = LocalDateTime.of(date, slot.getOpenTime());
-                if (i == 0) {
-                    // Same day - check if it's still in the future
-                    if (openTime.isAfter(from)) {
-                        return openTime;
-                    }
-                    // Already open or past opening time
-                    if (slot.contains(from.toLocalTime())) {
-                        return from; // Already open
-                    }
-                } else {
-                    return openTime;
+            if (i == 0) {
+                // Already open
+                if (contains(day, from.toLocalTime())) {
+                    return from;
+                }
+                // Same day - a later slot still in the future
+                LocalTime open = getNextOpeningAfter(day, from.toLocalTime());
+                if (open != null) {
+                    return LocalDateTime.of(date, open);
+                }
+            } else {
+                LocalTime open = getNextOpeningAfter(day, null);
+                if (open != null) {
+                    return LocalDateTime.of(date, open);
                 }
             }
         }
         return null; // Never opens
     }
 
+    // Insert [open, close] into a packed day, merging overlapping slots
+    private static short[] addInterval(short[] slots, LocalTime openTime, LocalTime closeTime) {
+        int open = toMinute(openTime);
+        int close = toMinute(closeTime);
+        if (close < open) {
+            // Overnight - split into early morning and late night parts
+            return mergeInterval(mergeInterval(slots, 0, close), open, MINUTES_PER_DAY);
+        }
+        return mergeInterval(slots, open, close);
+    }
+
+    private static short[] mergeInterval(short[] slots, int open, int close) {
+        short[] merged = new short[slots.length + 2];
+        int size = 0;
+        int i = 0;
+
+        // Slots ending before the new one
+        while (i < slots.length && slots[i + 1] < open) {
+            merged[size++] = slots[i];
+            merged[size++] = slots[i + 1];
+            i += 2;
+        }
+        // Slots overlapping the new one
+        while (i < slots.length && slots[i] <= close) {
+            open = Math.min(open, slots[i]);
+            close = Math.max(close, slots[i + 1]);
+            i += 2;
+        }
+        merged[size++] = (short) open;
+        merged[size++] = (short) close;
+        // Slots starting after the new one
+        while (i < slots.length) {
+            merged[size++] = slots[i];
+            merged[size++] = slots[i + 1];
+            i += 2;
+        }
+
+        if (size == merged.length) {
+            return merged;
+        }
+        short[] trimmed = new short[size];
+        System.arraycopy(merged, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    // An overnight slot leaves a [0, x] part at the start and an [y, 1440] part at the end
+    private static boolean isOvernight(short[] slots) {
+        return slots.length >= 4 && slots[0] == 0 && slots[slots.length - 1] == MINUTES_PER_DAY;
+    }
+
+    private static int toMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static LocalTime toTime(int minute) {
+        return minute >= MINUTES_PER_DAY ? LocalTime.MAX : LocalTime.of(minute / 60, minute % 60);
+    }
+
     /**
      * Represents a time slot with open and close times.
      */
@@ -170,10 +423,15 @@ public class BusinessHours {
     public String toString() {
         StringBuilder sb = new StringBuilder("BusinessHours{\n");
         for (DayOfWeek day : DayOfWeek.values()) {
-            TimeSlot slot = weeklyHours.get(day);
+            List<TimeSlot> slots = getTimeSlots(day);
             sb.append("  ").append(day).append(": ");
-            if (slot != null) {
-                sb.append(slot);
+            if (!slots.isEmpty()) {
+                for (int i = 0; i < slots.size(); i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(slots.get(i));
+                }
             } else {
                 sb.append("Closed");
             }
@@ -302,6 +302,44 @@ public class Restaurant {
         return false;
     }
 
+    /**
+     * A copy with its own review and menu lists, so reviews and menu items
+     * can be added to it without changing this restaurant. Everything else,
+     * including the reviews, menu items, hours and location themselves, is
+     * shared with this restaurant.
+     */
+    public Restaurant copy() {
+        Restaurant copy = new Restaurant(id, name, cuisineType, location);
+        copy.description = description;
+        copy.additionalCuisineTypes = additionalCuisineTypes;
+        copy.menu = menu != null ? new ArrayList<>(menu) : new ArrayList<>();
+        copy.reviews = new ArrayList<>(reviews != null ? reviews.size() + 1 : 1);
+        if (reviews != null) {
+            copy.reviews.addAll(reviews);
+        }
+        copy.businessHours = businessHours;
+        copy.averagePrice = averagePrice;
+        copy.priceLevel = priceLevel;
+        copy.active = active;
+        copy.phoneNumber = phoneNumber;
+        copy.website = website;
+        copy.capacity = capacity;
+        copy.hasDelivery = hasDelivery;
+        copy.hasTakeout = hasTakeout;
+        copy.hasParking = hasParking;
+        copy.acceptsReservations = acceptsReservations;
+        return copy;
+    }
+
+    /**
+     * A {@link #copy()} with one more review.
+     */
+    public Restaurant withReview(Review review) {
+        Restaurant copy = copy();
+        copy.addReview(review);
+        return copy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -0,0 +1,53 @@
+package org.example.restaurant.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a restaurant's reviews.
+ */
+public class ReviewPage {
+    private final List<Review> reviews;
+    private final int pageNumber; // 0-based
+    private final int pageSize;
+    private final int totalReviews;
+
+    public ReviewPage(List<Review> reviews, int pageNumber, int pageSize, int totalReviews) {
+        this.reviews = reviews != null ? Collections.unmodifiableList(reviews) : Collections.emptyList();
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+        this.totalReviews = totalReviews;
+    }
+
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotalReviews() {
+        return totalReviews;
+    }
+
+    public int getTotalPages() {
+        return pageSize > 0 ? (totalReviews + pageSize - 1) / pageSize : 0;
+    }
+
+    public boolean hasNext() {
+        return pageNumber + 1 < getTotalPages();
+    }
+
+    public boolean hasPrevious() {
+        return pageNumber > 0;
+    }
+
+    public boolean isEmpty() {
+        return reviews.isEmpty();
+    }
+}
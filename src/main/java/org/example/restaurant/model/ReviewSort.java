@@ -0,0 +1,44 @@
+package org.example.restaurant.model;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Orders in which a restaurant's reviews can be listed.
+ * Reviews that compare equal are listed newest-added first.
+ */
+public enum ReviewSort {
+    NEWEST("最新"),
+    MOST_HELPFUL("最有幫助"),
+    HIGHEST_RATING("評分最高"),
+    LOWEST_RATING("評分最低");
+
+    private static final Comparator<Review> BY_RECENCY = Comparator.comparing(Review::getCreatedAt,
+            Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())).reversed();
+
+    private final String displayName;
+
+    ReviewSort(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Comparator placing reviews in this order; reviews without a creation time come last.
+     */
+    public Comparator<Review> comparator() {
+        switch (this) {
+            case MOST_HELPFUL:
+                return Comparator.comparingInt(Review::getHelpfulCount).reversed().thenComparing(BY_RECENCY);
+            case HIGHEST_RATING:
+                return Comparator.comparingInt(Review::getRating).reversed().thenComparing(BY_RECENCY);
+            case LOWEST_RATING:
+                return Comparator.comparingInt(Review::getRating).thenComparing(BY_RECENCY);
+            default:
+                return BY_RECENCY;
+        }
+    }
+}
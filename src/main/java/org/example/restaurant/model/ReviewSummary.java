@@ -0,0 +1,54 @@
+package org.example.restaurant.model;
+
+/**
+ * Review aggregates of a restaurant, available without its review bodies.
+ */
+public class ReviewSummary {
+    private final int reviewCount;
+    private final int[] distribution; // index 0 = 1 star
+
+    public ReviewSummary(int reviewCount, int[] distribution) {
+        this.reviewCount = reviewCount;
+        this.distribution = distribution != null ? distribution.clone() : new int[5];
+    }
+
+    public static ReviewSummary empty() {
+        return new ReviewSummary(0, null);
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    /**
+     * Number of reviews with a rating of 1-5.
+     */
+    public int getRatedCount() {
+        int count = 0;
+        for (int stars : distribution) {
+            count += stars;
+        }
+        return count;
+    }
+
+    /**
+     * Average of the 1-5 ratings rounded to one decimal, matching
+     * RatingService.calculateAverageRating; 0.0 without ratings.
+     */
+    public double getAverageRating() {
+        int count = 0;
+        double sum = 0;
+        for (int i = 0; i < distribution.length; i++) {
+            count += distribution[i];
+            sum += (i + 1) * (double) distribution[i];
+        }
+        return count > 0 ? Math.round((sum / count) * 10.0) / 10.0 : 0.0;
+    }
+
+    /**
+     * Rating counts, index 0 for 1 star through index 4 for 5 stars.
+     */
+    public int[] getDistribution() {
+        return distribution.clone();
+    }
+}
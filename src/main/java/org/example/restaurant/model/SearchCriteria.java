@@ -1,6 +1,7 @@
 package org.example.restaurant.model;
 
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -344,4 +345,126 @@ public class SearchCriteria {
                 && hasParking == null && acceptsReservations == null
                 && !hasLocationFilter();
     }
+
+    /**
+     * Copy in the form the search applies it: text filters trimmed and
+     * lower-cased, blank text and unset feature flags dropped, price bounds
+     * dropped when a price level overrides them, and the direction dropped
+     * when there is no sort. Criteria with equal normalized forms select the
+     * same page of restaurants, so the copy can serve as a cache key.
+     */
+    public SearchCriteria normalized() {
+        SearchCriteria copy = new SearchCriteria();
+        copy.keyword = normalizeText(keyword);
+        copy.city = normalizeText(city);
+        copy.district = normalizeText(district);
+        copy.cuisineType = cuisineType;
+        if (cuisineTypes != null) {
+            copy.cuisineTypes.addAll(cuisineTypes);
+        }
+        copy.minRating = minRating;
+        copy.maxRating = maxRating;
+        copy.priceLevel = priceLevel;
+        if (priceLevel == null) {
+            copy.minPrice = minPrice;
+            copy.maxPrice = maxPrice;
+        }
+        copy.openNow = trueOrNull(openNow);
+        copy.hasDelivery = trueOrNull(hasDelivery);
+        copy.hasTakeout = trueOrNull(hasTakeout);
+        copy.hasParking = trueOrNull(hasParking);
+        copy.acceptsReservations = trueOrNull(acceptsReservations);
+        copy.latitude = latitude;
+        copy.longitude = longitude;
+        copy.radiusKm = radiusKm;
+        copy.sortBy = sortBy;
+        copy.ascending = sortBy == null || ascending;
+        copy.limit = limit;
+        copy.offset = offset;
+        return copy;
+    }
+
+    /**
+     * {@link #normalized()} without offset and limit: the query whose sorted
+     * result every page of these criteria is cut from.
+     */
+    public SearchCriteria normalizedQuery() {
+        SearchCriteria query = normalized();
+        query.offset = 0;
+        query.limit = 0;
+        return query;
+    }
+
+    private static String normalizeText(String text) {
+        return text == null || text.trim().isEmpty() ? null : text.trim().toLowerCase();
+    }
+
+    private static Boolean trueOrNull(Boolean flag) {
+        return Boolean.TRUE.equals(flag) ? Boolean.TRUE : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        SearchCriteria that = (SearchCriteria) o;
+        return ascending == that.ascending && limit == that.limit && offset == that.offset
+                && Objects.equals(keyword, that.keyword) && Objects.equals(city, that.city)
+                && Objects.equals(district, that.district) && cuisineType == that.cuisineType
+                && Objects.equals(cuisineTypes, that.cuisineTypes)
+                && Objects.equals(minRating, that.minRating) && Objects.equals(maxRating, that.maxRating)
+                && Objects.equals(minPrice, that.minPrice) && Objects.equals(maxPrice, that.maxPrice)
+                && Objects.equals(priceLevel, that.priceLevel) && Objects.equals(openNow, that.openNow)
+                && Objects.equals(hasDelivery, that.hasDelivery) && Objects.equals(hasTakeout, that.hasTakeout)
+                && Objects.equals(hasParking, that.hasParking)
+                && Objects.equals(acceptsReservations, that.acceptsReservations)
+                && Objects.equals(latitude, that.latitude) && Objects.equals(longitude, that.longitude)
+                && Objects.equals(radiusKm, that.radiusKm) && sortBy == that.sortBy;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(keyword, city, district, cuisineType, cuisineTypes, minRating, maxRating, minPrice,
+                maxPrice, priceLevel, openNow, hasDelivery, hasTakeout, hasParking, acceptsReservations, latitude,
+                longitude, radiusKm, sortBy, ascending, limit, offset);
+    }
+
+    /**
+     * Lists only the filters that are set, followed by sorting and paging.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("SearchCriteria{");
+        append(text, "keyword", keyword);
+        append(text, "city", city);
+        append(text, "district", district);
+        append(text, "cuisineType", cuisineType);
+        append(text, "cuisineTypes", cuisineTypes == null || cuisineTypes.isEmpty() ? null : cuisineTypes);
+        append(text, "minRating", minRating);
+        append(text, "maxRating", maxRating);
+        append(text, "minPrice", minPrice);
+        append(text, "maxPrice", maxPrice);
+        append(text, "priceLevel", priceLevel);
+        append(text, "openNow", openNow);
+        append(text, "hasDelivery", hasDelivery);
+        append(text, "hasTakeout", hasTakeout);
+        append(text, "hasParking", hasParking);
+        append(text, "acceptsReservations", acceptsReservations);
+        append(text, "latitude", latitude);
+        append(text, "longitude", longitude);
+        append(text, "radiusKm", radiusKm);
+        append(text, "sortBy", sortBy);
+        return text.append("ascending=").append(ascending)
+                .append(", limit=").append(limit)
+                .append(", offset=").append(offset)
+                .append('}').toString();
+    }
+
+    private static void append(StringBuilder text, String name, Object value) {
+        if (value != null) {
+            text.append(name).append('=').append(value).append(", ");
+        }
+    }
 }
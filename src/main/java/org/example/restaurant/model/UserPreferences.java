@@ -19,6 +19,7 @@ public class UserPreferences {
     private boolean preferTakeout;
     private double maxDistanceKm;
     private Location userLocation;
+    private String userId; // optional, enables review-based recommendations
 
     public UserPreferences() {
         this.favoriteCuisines = new HashSet<>();
@@ -146,6 +147,14 @@ public class UserPreferences {
         this.userLocation = userLocation;
     }
 
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
     public boolean likesCuisine(CuisineType type) {
         if (type == null) {
             return false;
@@ -215,4 +224,17 @@ public class UserPreferences {
 
         return Math.max(0, Math.min(100, score));
     }
+
+    @Override
+    public String toString() {
+        return "UserPreferences{" +
+                "userId=" + userId +
+                ", favoriteCuisines=" + favoriteCuisines +
+                ", dislikedCuisines=" + dislikedCuisines +
+                ", maxPriceLevel=" + maxPriceLevel +
+                ", minAcceptableRating=" + minAcceptableRating +
+                ", maxDistanceKm=" + maxDistanceKm +
+                ", located=" + (userLocation != null) +
+                '}';
+    }
 }
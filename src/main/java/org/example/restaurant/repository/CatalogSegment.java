@@ -0,0 +1,416 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.jfr.SnapshotWriteEvent;
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.Restaurant;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Immutable, memory-mapped catalog file for read-only replicas.
+ * <p>
+ * The file holds each restaurant encoded with {@link RestaurantCodec}, a
+ * fixed-width summary per restaurant (flags, city and district codes, cuisine
+ * bits, coordinates) that filters scan without decoding, an open-addressing
+ * hash index from id to record, and the string dictionaries. Opening maps the
+ * file and reads only the header and dictionaries; the page cache holds the
+ * rest, and restaurants are decoded only when returned.
+ * <p>
+ * Restaurant bodies are mapped in overlapping windows, so catalogs larger than
+ * one mapping (2 GB) need no copying either.
+ */
+public final class CatalogSegment implements AutoCloseable {
+
+    private static final int MAGIC = 0x52534547; // "RSEG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SUMMARY_SIZE = 48;
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    // Summary flags
+    static final byte ACTIVE = 1;
+    static final byte DELIVERY = 1 << 1;
+    static final byte TAKEOUT = 1 << 2;
+    static final byte PARKING = 1 << 3;
+    static final byte RESERVATIONS = 1 << 4;
+    static final byte HAS_LOCATION = 1 << 5;
+
+    private final FileChannel channel;
+    private final int count;
+    private final ByteBuffer summaries;
+    private final ByteBuffer index;
+    private final int indexMask;
+    private final MappedByteBuffer[] windows;
+    private final RestaurantCodec.Terms terms;
+
+    private CatalogSegment(FileChannel channel, int count, ByteBuffer summaries, ByteBuffer index,
+            MappedByteBuffer[] windows, RestaurantCodec.Terms terms) {
+        this.channel = channel;
+        this.count = count;
+        this.summaries = summaries;
+        this.index = index;
+        this.indexMask = index.capacity() / INDEX_ENTRY_SIZE - 1;
+        this.windows = windows;
+        this.terms = terms;
+    }
+
+    /**
+     * Build a segment file from a set of restaurants, replacing the file atomically.
+     * Restaurants with a duplicate id keep the first occurrence.
+     *
+     * @return the number of restaurants written
+     */
+    public static int write(Collection<Restaurant> restaurants, Path file) throws IOException {
+        if (restaurants == null) {
+            throw new IllegalArgumentException("Restaurants cannot be null");
+        }
+        SnapshotWriteEvent event = new SnapshotWriteEvent();
+        event.begin();
+        RestaurantCodec.Terms terms = new RestaurantCodec.Terms();
+        for (Restaurant restaurant : restaurants) {
+            if (restaurant != null && restaurant.getId() != null) {
+                terms.collect(restaurant);
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, restaurants.size() * 2 - 1)) << 1;
+        ByteBuffer indexBuffer = ByteBuffer.allocate(capacity * INDEX_ENTRY_SIZE);
+        ByteArrayOutputStream summaryBytes = new ByteArrayOutputStream(restaurants.size() * SUMMARY_SIZE);
+        DataOutputStream summaryOut = new DataOutputStream(summaryBytes);
+        Set<String> seen = new HashSet<>();
+        int written = 0;
+        int maxRecordLength = 0;
+        long size;
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.position(HEADER_SIZE);
+            ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(1024);
+            DataOutputStream recordOut = new DataOutputStream(recordBytes);
+            for (Restaurant restaurant : restaurants) {
+                if (restaurant == null || restaurant.getId() == null || !seen.add(restaurant.getId())) {
+                    continue;
+                }
+                insertIndex(indexBuffer, capacity - 1, restaurant.getId(), written);
+                recordBytes.reset();
+                RestaurantCodec.writeRestaurant(recordOut, restaurant, restaurant.getReviews(), terms);
+                long offset = out.position();
+                writeFully(out, ByteBuffer.wrap(recordBytes.toByteArray()));
+                maxRecordLength = Math.max(maxRecordLength, recordBytes.size());
+                writeSummary(summaryOut, restaurant, offset, recordBytes.size(), terms);
+                written++;
+            }
+
+            long summaryOffset = out.position();
+            summaryOut.flush();
+            writeFully(out, ByteBuffer.wrap(summaryBytes.toByteArray()));
+            long indexOffset = out.position();
+            indexBuffer.clear();
+            writeFully(out, indexBuffer);
+            long termsOffset = out.position();
+            ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+            try (DataOutputStream termOut = new DataOutputStream(termBytes)) {
+                terms.write(termOut);
+            }
+            writeFully(out, ByteBuffer.wrap(termBytes.toByteArray()));
+            size = out.position();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putInt(written).putInt(maxRecordLength)
+                    .putLong(summaryOffset).putLong(indexOffset).putInt(capacity)
+                    .putLong(termsOffset).putInt(termBytes.size());
+            header.clear();
+            out.position(0);
+            writeFully(out, header);
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        event.emit("segment", file.toString(), written, size);
+        return written;
+    }
+
+    /**
+     * Map a segment file. Only the header and dictionaries are read.
+     */
+    public static CatalogSegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a catalog segment: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a catalog segment: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported catalog segment version: " + version);
+            }
+            int count = header.getInt();
+            int maxRecordLength = header.getInt();
+            long summaryOffset = header.getLong();
+            long indexOffset = header.getLong();
+            int indexSlots = header.getInt();
+            long termsOffset = header.getLong();
+            int termsLength = header.getInt();
+            if (count < 0 || maxRecordLength < 0 || Integer.bitCount(indexSlots) != 1
+                    || summaryOffset + (long) count * SUMMARY_SIZE != indexOffset
+                    || indexOffset + (long) indexSlots * INDEX_ENTRY_SIZE != termsOffset
+                    || termsOffset + termsLength != size) {
+                throw new IOException("Corrupt catalog segment header: " + file);
+            }
+
+            ByteBuffer summaries = channel.map(FileChannel.MapMode.READ_ONLY, summaryOffset,
+                    (long) count * SUMMARY_SIZE);
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset,
+                    (long) indexSlots * INDEX_ENTRY_SIZE);
+            RestaurantCodec.Terms terms = RestaurantCodec.Terms.read(
+                    new ByteBufferInput(channel.map(FileChannel.MapMode.READ_ONLY, termsOffset, termsLength)));
+
+            // Window i starts at i * WINDOW_SIZE and runs one record past the next window start
+            int windowCount = (int) ((summaryOffset + WINDOW_SIZE - 1) / WINDOW_SIZE);
+            MappedByteBuffer[] windows = new MappedByteBuffer[windowCount];
+            for (int i = 0; i < windowCount; i++) {
+                long start = i * WINDOW_SIZE;
+                long end = Math.min(summaryOffset, start + WINDOW_SIZE + maxRecordLength);
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+            return new CatalogSegment(channel, count, summaries, index, windows, terms);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Number of restaurants; records are numbered 0 to size() - 1.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Record number of a restaurant id, or -1 if the segment does not hold it.
+     * Compares the UTF-8 bytes of the id in place without decoding the record.
+     */
+    public int indexOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        for (int slot = hash & indexMask;; slot = (slot + 1) & indexMask) {
+            int entry = slot * INDEX_ENTRY_SIZE;
+            int record = index.getInt(entry + 4) - 1;
+            if (record < 0) {
+                return -1;
+            }
+            if (index.getInt(entry) == hash && idEquals(record, key)) {
+                return record;
+            }
+        }
+    }
+
+    /**
+     * Decode a record into a new Restaurant.
+     */
+    public Restaurant get(int record) {
+        checkRecord(record);
+        try {
+            return RestaurantCodec.readRestaurant(body(record), terms);
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt catalog segment record " + record, e);
+        }
+    }
+
+    /**
+     * Id of a record, decoded without the rest of the restaurant.
+     */
+    public String idOf(int record) {
+        checkRecord(record);
+        try {
+            return RestaurantCodec.readString(body(record));
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt catalog segment record " + record, e);
+        }
+    }
+
+    /**
+     * Name of a record; ids and names lead every record, so nothing else is decoded.
+     */
+    public String nameOf(int record) {
+        checkRecord(record);
+        try {
+            ByteBufferInput in = body(record);
+            in.skipBytes(Math.max(0, in.readInt()));
+            return RestaurantCodec.readString(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt catalog segment record " + record, e);
+        }
+    }
+
+    public boolean isActive(int record) {
+        return (flags(record) & ACTIVE) != 0;
+    }
+
+    byte flags(int record) {
+        checkRecord(record);
+        return summaries.get(record * SUMMARY_SIZE + 44);
+    }
+
+    /**
+     * Whether the restaurant's primary or additional cuisines include the type.
+     */
+    public boolean hasCuisineType(int record, CuisineType type) {
+        checkRecord(record);
+        return type != null && (summaries.getLong(record * SUMMARY_SIZE + 20) & (1L << type.ordinal())) != 0;
+    }
+
+    /**
+     * Records whose city matches; the predicate runs once per distinct city.
+     */
+    public IntPredicate cityMatcher(Predicate<String> predicate) {
+        boolean[] matches = matchTable(terms.cities, predicate);
+        return record -> matches[summaries.getInt(record * SUMMARY_SIZE + 12)];
+    }
+
+    /**
+     * Records whose district matches; the predicate runs once per distinct district.
+     */
+    public IntPredicate districtMatcher(Predicate<String> predicate) {
+        boolean[] matches = matchTable(terms.districts, predicate);
+        return record -> matches[summaries.getInt(record * SUMMARY_SIZE + 16)];
+    }
+
+    /**
+     * Whether the restaurant has a location within the latitude/longitude box.
+     */
+    public boolean isInBox(int record, double minLat, double minLon, double maxLat, double maxLon) {
+        if ((flags(record) & HAS_LOCATION) == 0) {
+            return false;
+        }
+        int base = record * SUMMARY_SIZE;
+        double latitude = summaries.getDouble(base + 28);
+        double longitude = summaries.getDouble(base + 36);
+        return latitude >= minLat && latitude <= maxLat && longitude >= minLon && longitude <= maxLon;
+    }
+
+    /**
+     * Closes the file; the mappings stay valid until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBufferInput body(int record) {
+        int base = record * SUMMARY_SIZE;
+        long offset = summaries.getLong(base);
+        int length = summaries.getInt(base + 8);
+        int window = (int) (offset / WINDOW_SIZE);
+        int start = (int) (offset - window * WINDOW_SIZE);
+        return new ByteBufferInput(windows[window].slice(start, length));
+    }
+
+    private boolean idEquals(int record, byte[] key) {
+        ByteBufferInput in = body(record);
+        try {
+            if (in.readInt() != key.length) {
+                return false;
+            }
+            byte[] stored = new byte[key.length];
+            in.readFully(stored);
+            return Arrays.equals(stored, key);
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt catalog segment record " + record, e);
+        }
+    }
+
+    private void checkRecord(int record) {
+        if (record < 0 || record >= count) {
+            throw new IndexOutOfBoundsException("Record " + record + " out of range for segment of " + count);
+        }
+    }
+
+    private static boolean[] matchTable(StringTable table, Predicate<String> predicate) {
+        boolean[] matches = new boolean[table.size() + 1];
+        for (int code = 1; code <= table.size(); code++) {
+            matches[code] = predicate.test(table.valueOf(code));
+        }
+        return matches;
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Entries are (id hash, record + 1); 0 marks an empty slot
+    private static void insertIndex(ByteBuffer index, int mask, String id, int record) {
+        int hash = hash(id);
+        int slot = hash & mask;
+        while (index.getInt(slot * INDEX_ENTRY_SIZE + 4) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putInt(slot * INDEX_ENTRY_SIZE, hash);
+        index.putInt(slot * INDEX_ENTRY_SIZE + 4, record + 1);
+    }
+
+    private static void writeSummary(DataOutputStream out, Restaurant restaurant, long offset, int length,
+            RestaurantCodec.Terms terms) throws IOException {
+        Location location = restaurant.getLocation();
+        long cuisineBits = 0;
+        if (restaurant.getCuisineType() != null) {
+            cuisineBits |= 1L << restaurant.getCuisineType().ordinal();
+        }
+        if (restaurant.getAdditionalCuisineTypes() != null) {
+            for (CuisineType type : restaurant.getAdditionalCuisineTypes()) {
+                if (type != null) {
+                    cuisineBits |= 1L << type.ordinal();
+                }
+            }
+        }
+        int flags = (restaurant.isActive() ? ACTIVE : 0)
+                | (restaurant.isHasDelivery() ? DELIVERY : 0)
+                | (restaurant.isHasTakeout() ? TAKEOUT : 0)
+                | (restaurant.isHasParking() ? PARKING : 0)
+                | (restaurant.isAcceptsReservations() ? RESERVATIONS : 0)
+                | (location != null ? HAS_LOCATION : 0);
+
+        out.writeLong(offset); // 0
+        out.writeInt(length); // 8
+        out.writeInt(location != null ? terms.cities.codeOf(location.getCity()) : 0); // 12
+        out.writeInt(location != null ? terms.districts.codeOf(location.getDistrict()) : 0); // 16
+        out.writeLong(cuisineBits); // 20
+        out.writeDouble(location != null ? location.getLatitude() : Double.NaN); // 28
+        out.writeDouble(location != null ? location.getLongitude() : Double.NaN); // 36
+        out.writeByte(flags); // 44
+        out.write(new byte[SUMMARY_SIZE - 45]);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+}
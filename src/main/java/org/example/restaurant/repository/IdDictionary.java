@@ -0,0 +1,167 @@
+package org.example.restaurant.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns dense int ordinals to string ids (restaurant ids, user ids), so that
+ * per-id data can live in primitive arrays indexed by ordinal.
+ * An ordinal stays bound to its id until the id is released; released ordinals
+ * are handed out again before the dictionary grows.
+ * Lookups in both directions are O(1) and take no lock, so that query paths
+ * can resolve ordinals while ids are being interned.
+ */
+public class IdDictionary {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile String[] ids = new String[16];
+    private int[] freeOrdinals = new int[0];
+    private int freeCount;
+    private volatile int capacity; // highest assigned ordinal + 1
+
+    /**
+     * Get the ordinal of an id, assigning one if the id is new.
+     */
+    public synchronized int intern(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+        Integer existing = ordinals.get(id);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Written in the order readers look: id, then ordinal, then capacity
+        int ordinal = freeCount > 0 ? freeOrdinals[--freeCount] : capacity;
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[ordinal] = id;
+        ordinals.put(id, ordinal);
+        if (ordinal == capacity) {
+            capacity = ordinal + 1;
+        }
+        return ordinal;
+    }
+
+    /**
+     * Get the ordinal of an id, or -1 if the id has none.
+     */
+    public int ordinalOf(String id) {
+        Integer ordinal = id != null ? ordinals.get(id) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Get the id bound to an ordinal, or null if the ordinal is free or out of range.
+     */
+    public String idOf(int ordinal) {
+        String[] current = ids;
+        return ordinal >= 0 && ordinal < current.length ? current[ordinal] : null;
+    }
+
+    /**
+     * Release the ordinal of an id so that it can be reused.
+     *
+     * @return the released ordinal, or -1 if the id had none
+     */
+    public synchronized int release(String id) {
+        Integer ordinal = id != null ? ordinals.remove(id) : null;
+        if (ordinal == null) {
+            return -1;
+        }
+        ids[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, Math.max(8, freeOrdinals.length * 2));
+        }
+        freeOrdinals[freeCount++] = ordinal;
+        return ordinal;
+    }
+
+    public synchronized void clear() {
+        ordinals.clear();
+        Arrays.fill(ids, 0, capacity, null);
+        freeCount = 0;
+        capacity = 0;
+    }
+
+    /**
+     * Number of ids currently bound.
+     */
+    public int size() {
+        return ordinals.size();
+    }
+
+    /**
+     * Upper bound (exclusive) of the ordinals handed out so far; arrays indexed
+     * by ordinal need at least this length.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Write the dictionary to a file. Free ordinals are written as gaps, so a
+     * loaded dictionary binds every id to the same ordinal.
+     */
+    public synchronized void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(capacity);
+            for (int ordinal = 0; ordinal < capacity; ordinal++) {
+                String id = ids[ordinal];
+                out.writeBoolean(id != null);
+                if (id != null) {
+                    out.writeUTF(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a dictionary written by {@link #save(Path)}.
+     */
+    public static IdDictionary load(Path file) throws IOException {
+        IdDictionary dictionary = new IdDictionary();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported id dictionary version: " + version);
+            }
+            int capacity = in.readInt();
+            if (capacity < 0) {
+                throw new IOException("Corrupt id dictionary: negative size");
+            }
+            dictionary.ids = new String[Math.max(16, capacity)];
+            dictionary.capacity = capacity;
+            // Gaps are pushed in reverse so that the lowest free ordinal is reused first
+            int[] gaps = new int[capacity];
+            int gapCount = 0;
+            for (int ordinal = 0; ordinal < capacity; ordinal++) {
+                if (in.readBoolean()) {
+                    String id = in.readUTF();
+                    dictionary.ids[ordinal] = id;
+                    dictionary.ordinals.put(id, ordinal);
+                } else {
+                    gaps[gapCount++] = ordinal;
+                }
+            }
+            dictionary.freeOrdinals = new int[gapCount];
+            for (int i = 0; i < gapCount; i++) {
+                dictionary.freeOrdinals[i] = gaps[gapCount - 1 - i];
+            }
+            dictionary.freeCount = gapCount;
+        }
+        return dictionary;
+    }
+}
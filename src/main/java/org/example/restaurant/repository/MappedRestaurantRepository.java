@@ -0,0 +1,167 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+
+/**
+ * Read-only repository served from a memory-mapped {@link CatalogSegment}.
+ * Lookups by id go through the segment's hash index, and the city, district
+ * and cuisine lookups scan its summaries; only matching restaurants are
+ * decoded. Every call returns freshly decoded objects, so changes made to them
+ * are not kept. Ordinals are segment record numbers.
+ */
+public class MappedRestaurantRepository extends RestaurantRepository {
+
+    private final CatalogSegment segment;
+    private IdDictionary dictionary; // built on first use
+
+    public MappedRestaurantRepository(CatalogSegment segment) {
+        if (segment == null) {
+            throw new IllegalArgumentException("Segment cannot be null");
+        }
+        this.segment = segment;
+    }
+
+    public CatalogSegment getSegment() {
+        return segment;
+    }
+
+    @Override
+    public Optional<Restaurant> findById(String id) {
+        int record = segment.indexOf(id);
+        return record >= 0 ? Optional.of(segment.get(record)) : Optional.empty();
+    }
+
+    @Override
+    public List<Restaurant> findAll() {
+        return collect(record -> true);
+    }
+
+    @Override
+    public List<Restaurant> findByName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        String lowerName = name.toLowerCase();
+        return collect(record -> {
+            String recordName = segment.nameOf(record);
+            return recordName != null && recordName.toLowerCase().contains(lowerName);
+        });
+    }
+
+    @Override
+    public List<Restaurant> findByCity(String city) {
+        if (city == null || city.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        String lowerCity = city.trim().toLowerCase();
+        return collect(segment.cityMatcher(value -> value != null && value.toLowerCase().contains(lowerCity)));
+    }
+
+    @Override
+    public List<Restaurant> findByDistrict(String district) {
+        if (district == null || district.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        String lowerDistrict = district.trim().toLowerCase();
+        return collect(segment.districtMatcher(
+                value -> value != null && value.toLowerCase().contains(lowerDistrict)));
+    }
+
+    @Override
+    public List<Restaurant> findByCuisineType(CuisineType cuisineType) {
+        if (cuisineType == null) {
+            return new ArrayList<>();
+        }
+        return collect(record -> segment.hasCuisineType(record, cuisineType));
+    }
+
+    /**
+     * Active restaurants within a latitude/longitude box, decided from the summaries.
+     */
+    public List<Restaurant> findInBox(double minLat, double minLon, double maxLat, double maxLon) {
+        return collect(record -> segment.isActive(record)
+                && segment.isInBox(record, minLat, minLon, maxLat, maxLon));
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return segment.indexOf(id) >= 0;
+    }
+
+    @Override
+    public long count() {
+        return segment.size();
+    }
+
+    @Override
+    public int ordinalOf(String id) {
+        return segment.indexOf(id);
+    }
+
+    @Override
+    public Optional<Restaurant> findByOrdinal(int ordinal) {
+        return ordinal >= 0 && ordinal < segment.size() ? Optional.of(segment.get(ordinal)) : Optional.empty();
+    }
+
+    /**
+     * Dictionary binding every id to its record number; decodes all ids on first call.
+     */
+    @Override
+    public synchronized IdDictionary getIdDictionary() {
+        if (dictionary == null) {
+            IdDictionary ids = new IdDictionary();
+            for (int record = 0; record < segment.size(); record++) {
+                ids.intern(segment.idOf(record));
+            }
+            dictionary = ids;
+        }
+        return dictionary;
+    }
+
+    @Override
+    public Restaurant save(Restaurant restaurant) {
+        throw readOnly();
+    }
+
+    @Override
+    public void saveAll(Collection<Restaurant> batch) {
+        throw readOnly();
+    }
+
+    @Override
+    public Restaurant addReview(String restaurantId, Review review) {
+        throw readOnly();
+    }
+
+    @Override
+    public void delete(String id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAll() {
+        throw readOnly();
+    }
+
+    private List<Restaurant> collect(IntPredicate matches) {
+        List<Restaurant> result = new ArrayList<>();
+        for (int record = 0; record < segment.size(); record++) {
+            if (matches.test(record)) {
+                result.add(segment.get(record));
+            }
+        }
+        return result;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Mapped catalog segments are read-only");
+    }
+}
@@ -0,0 +1,454 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only review storage outside the Java heap.
+ * <p>
+ * Each review is a 32-byte row in direct-buffer segments: rating, user level,
+ * verified flag and helpful count packed into one int, created and updated
+ * times as epoch seconds, a link to the restaurant's previous row, and a
+ * reference to its strings (id, user id, user name, comment) in a separate
+ * string arena. {@link Cursor} reads the packed fields without creating
+ * objects; {@link Review}s are rebuilt only on request.
+ * <p>
+ * Ratings and user levels outside 0-15 are stored as 0, helpful counts are
+ * capped at 2^23 - 1, and timestamps keep whole seconds.
+ * Used as a {@link RepositoryListener}, the store follows the reviews of the
+ * repository's restaurants. Once the rows of deleted or replaced restaurants
+ * make up half of all rows, the live rows are copied into new segments and the
+ * old ones are left to the cursors still reading them.
+ */
+public class OffHeapReviewStore implements RepositoryListener {
+
+    static final int ROW_SIZE = 32;
+    private static final int DEFAULT_ROWS_PER_SEGMENT = 1 << 15;
+    private static final int DEFAULT_ARENA_SEGMENT_SIZE = 1 << 20;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int MAX_HELPFUL = (1 << 23) - 1;
+
+    // Row layout
+    private static final int PREVIOUS = 0;
+    private static final int PACKED = 4;
+    private static final int CREATED = 8;
+    private static final int UPDATED = 16;
+    private static final int STRINGS = 24;
+
+    private final int rowsPerSegment;
+    private final int arenaSegmentSize;
+    private final IdDictionary restaurantIds = new IdDictionary();
+
+    // Guarded by this; segment arrays are replaced, never resized in place, so cursors can keep reading them
+    private ByteBuffer[] rowSegments = new ByteBuffer[0];
+    private ByteBuffer[] arenaSegments = new ByteBuffer[0];
+    private int rows;
+    private int deadRows; // rows no restaurant links to any more
+    private int[] heads = new int[0]; // last row per restaurant ordinal, -1 for none
+    private int[] counts = new int[0];
+
+    public OffHeapReviewStore() {
+        this(DEFAULT_ROWS_PER_SEGMENT, DEFAULT_ARENA_SEGMENT_SIZE);
+    }
+
+    OffHeapReviewStore(int rowsPerSegment, int arenaSegmentSize) {
+        if (rowsPerSegment <= 0 || arenaSegmentSize <= 0) {
+            throw new IllegalArgumentException("Segment sizes must be positive");
+        }
+        this.rowsPerSegment = rowsPerSegment;
+        this.arenaSegmentSize = arenaSegmentSize;
+    }
+
+    /**
+     * Append a review to its restaurant's rows.
+     *
+     * @return the row number of the review
+     */
+    public synchronized int add(Review review) {
+        if (review == null) {
+            throw new IllegalArgumentException("Review cannot be null");
+        }
+        if (review.getRestaurantId() == null) {
+            throw new IllegalArgumentException("Review restaurant ID cannot be null");
+        }
+        int restaurant = restaurantIds.intern(review.getRestaurantId());
+        ensureRestaurants(restaurant + 1);
+
+        int row = nextRow();
+        ByteBuffer segment = rowSegments[row / rowsPerSegment];
+        int base = (row % rowsPerSegment) * ROW_SIZE;
+        segment.putInt(base + PREVIOUS, heads[restaurant]);
+        segment.putInt(base + PACKED, pack(review));
+        segment.putLong(base + CREATED, toEpochSecond(review.getCreatedAt()));
+        segment.putLong(base + UPDATED, toEpochSecond(review.getUpdatedAt()));
+        segment.putLong(base + STRINGS, appendStrings(review));
+
+        heads[restaurant] = row;
+        counts[restaurant]++;
+        return row;
+    }
+
+    private int nextRow() {
+        int row = rows++;
+        if (row / rowsPerSegment == rowSegments.length) {
+            rowSegments = Arrays.copyOf(rowSegments, rowSegments.length + 1);
+            rowSegments[rowSegments.length - 1] = ByteBuffer.allocateDirect(rowsPerSegment * ROW_SIZE);
+        }
+        return row;
+    }
+
+    /**
+     * Number of reviews stored for a restaurant.
+     */
+    public synchronized int reviewCount(String restaurantId) {
+        int restaurant = restaurantIds.ordinalOf(restaurantId);
+        return restaurant >= 0 ? counts[restaurant] : 0;
+    }
+
+    /**
+     * Number of reviews stored.
+     */
+    public synchronized int size() {
+        return rows - deadRows;
+    }
+
+    /**
+     * Direct memory held by row segments and the string arena.
+     */
+    public synchronized long offHeapBytes() {
+        long total = (long) rowSegments.length * rowsPerSegment * ROW_SIZE;
+        for (ByteBuffer arena : arenaSegments) {
+            total += arena.capacity();
+        }
+        return total;
+    }
+
+    /**
+     * Cursor over a restaurant's reviews, newest first. Reviews added after the
+     * cursor was created are not visited.
+     */
+    public synchronized Cursor cursor(String restaurantId) {
+        int restaurant = restaurantIds.ordinalOf(restaurantId);
+        return new Cursor(restaurantId, rowSegments, arenaSegments, rowsPerSegment,
+                restaurant >= 0 ? heads[restaurant] : -1);
+    }
+
+    /**
+     * Rebuild a restaurant's reviews in the order they were added.
+     */
+    public List<Review> reviews(String restaurantId) {
+        List<Review> result = new ArrayList<>();
+        Cursor cursor = cursor(restaurantId);
+        while (cursor.next()) {
+            result.add(cursor.toReview());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Drop every review and release the segments.
+     */
+    public synchronized void clear() {
+        rowSegments = new ByteBuffer[0];
+        arenaSegments = new ByteBuffer[0];
+        rows = 0;
+        deadRows = 0;
+        restaurantIds.clear();
+        Arrays.fill(heads, -1);
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Store the reviews of a saved restaurant that are not stored yet. Reviews
+     * are append-only, so a list no shorter than the stored one only adds its
+     * tail; a shorter list replaces the restaurant's reviews.
+     */
+    @Override
+    public synchronized void onSave(Restaurant restaurant, int ordinal) {
+        List<Review> reviews = restaurant.getReviews() != null ? restaurant.getReviews() : List.of();
+        int stored = reviewCount(restaurant.getId());
+        int live = 0;
+        for (Review review : reviews) {
+            live += review != null ? 1 : 0;
+        }
+        if (live < stored) {
+            unlink(restaurant.getId());
+            stored = 0;
+        }
+        int seen = 0;
+        for (Review review : reviews) {
+            if (review != null && seen++ >= stored) {
+                add(withRestaurant(review, restaurant.getId()));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onReviewAdded(Restaurant restaurant, Review review, int ordinal) {
+        add(withRestaurant(review, restaurant.getId()));
+    }
+
+    @Override
+    public synchronized void onDelete(String id, int ordinal) {
+        unlink(id);
+    }
+
+    @Override
+    public void onClear() {
+        clear();
+    }
+
+    private void unlink(String restaurantId) {
+        int restaurant = restaurantIds.release(restaurantId);
+        if (restaurant >= 0) {
+            deadRows += counts[restaurant];
+            heads[restaurant] = -1;
+            counts[restaurant] = 0;
+            if (deadRows > 0 && deadRows * 2 >= rows) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Copy the live rows and their strings into new segments, oldest first per
+     * restaurant. Cursors created earlier keep the old segments.
+     */
+    private void compact() {
+        ByteBuffer[] oldRows = rowSegments;
+        ByteBuffer[] oldArena = arenaSegments;
+        rowSegments = new ByteBuffer[0];
+        arenaSegments = new ByteBuffer[0];
+        rows = 0;
+        deadRows = 0;
+        int[] chain = new int[16];
+        for (int restaurant = 0; restaurant < heads.length; restaurant++) {
+            int length = 0;
+            for (int row = heads[restaurant]; row >= 0; ) {
+                if (length == chain.length) {
+                    chain = Arrays.copyOf(chain, length * 2);
+                }
+                chain[length++] = row;
+                row = oldRows[row / rowsPerSegment].getInt((row % rowsPerSegment) * ROW_SIZE + PREVIOUS);
+            }
+            int previous = -1;
+            for (int i = length - 1; i >= 0; i--) {
+                previous = copyRow(oldRows, oldArena, chain[i], previous);
+            }
+            heads[restaurant] = previous;
+        }
+    }
+
+    private int copyRow(ByteBuffer[] oldRows, ByteBuffer[] oldArena, int from, int previous) {
+        ByteBuffer source = oldRows[from / rowsPerSegment];
+        int sourceBase = (from % rowsPerSegment) * ROW_SIZE;
+        long reference = source.getLong(sourceBase + STRINGS);
+        ByteBuffer strings = oldArena[(int) (reference >>> 32)];
+        int offset = (int) reference;
+        int end = offset;
+        for (int i = 0; i < 4; i++) {
+            int length = strings.getInt(end);
+            end += 4 + Math.max(0, length);
+        }
+        byte[] block = new byte[end - offset];
+        strings.get(offset, block);
+
+        int row = nextRow();
+        ByteBuffer target = rowSegments[row / rowsPerSegment];
+        int base = (row % rowsPerSegment) * ROW_SIZE;
+        target.putInt(base + PREVIOUS, previous);
+        target.putInt(base + PACKED, source.getInt(sourceBase + PACKED));
+        target.putLong(base + CREATED, source.getLong(sourceBase + CREATED));
+        target.putLong(base + UPDATED, source.getLong(sourceBase + UPDATED));
+        ByteBuffer arena = arenaWithRoom(block.length);
+        target.putLong(base + STRINGS, (long) (arenaSegments.length - 1) << 32 | arena.position());
+        arena.put(block);
+        return row;
+    }
+
+    private static Review withRestaurant(Review review, String restaurantId) {
+        if (restaurantId.equals(review.getRestaurantId())) {
+            return review;
+        }
+        Review copy = new Review(review.getId(), restaurantId, review.getRating(), review.getComment());
+        copy.setUserId(review.getUserId());
+        copy.setUserName(review.getUserName());
+        copy.setCreatedAt(review.getCreatedAt());
+        copy.setUpdatedAt(review.getUpdatedAt());
+        copy.setHelpfulCount(review.getHelpfulCount());
+        copy.setVerified(review.isVerified());
+        copy.setUserLevel(review.getUserLevel());
+        return copy;
+    }
+
+    // rating: bits 0-3, user level: bits 4-7, verified: bit 8, helpful count: bits 9-31
+    private static int pack(Review review) {
+        int rating = review.getRating() >= 0 && review.getRating() <= 15 ? review.getRating() : 0;
+        int level = review.getUserLevel() >= 0 && review.getUserLevel() <= 15 ? review.getUserLevel() : 0;
+        int helpful = Math.max(0, Math.min(MAX_HELPFUL, review.getHelpfulCount()));
+        return rating | level << 4 | (review.isVerified() ? 1 << 8 : 0) | helpful << 9;
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time != null ? time.toEpochSecond(ZoneOffset.UTC) : NO_TIME;
+    }
+
+    // Strings of one review stay together in one arena segment; the reference is (segment << 32) | offset
+    private long appendStrings(Review review) {
+        byte[][] strings = {
+                utf8(review.getId()), utf8(review.getUserId()), utf8(review.getUserName()), utf8(review.getComment())
+        };
+        int length = 0;
+        for (byte[] value : strings) {
+            length += 4 + (value != null ? value.length : 0);
+        }
+
+        ByteBuffer arena = arenaWithRoom(length);
+        long reference = (long) (arenaSegments.length - 1) << 32 | arena.position();
+        for (byte[] value : strings) {
+            arena.putInt(value != null ? value.length : -1);
+            if (value != null) {
+                arena.put(value);
+            }
+        }
+        return reference;
+    }
+
+    private ByteBuffer arenaWithRoom(int length) {
+        ByteBuffer arena = arenaSegments.length > 0 ? arenaSegments[arenaSegments.length - 1] : null;
+        if (arena == null || arena.remaining() < length) {
+            arenaSegments = Arrays.copyOf(arenaSegments, arenaSegments.length + 1);
+            arena = ByteBuffer.allocateDirect(Math.max(arenaSegmentSize, length));
+            arenaSegments[arenaSegments.length - 1] = arena;
+        }
+        return arena;
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private void ensureRestaurants(int needed) {
+        if (needed <= heads.length) {
+            return;
+        }
+        int capacity = Math.max(needed, Math.max(16, heads.length * 2));
+        int old = heads.length;
+        heads = Arrays.copyOf(heads, capacity);
+        Arrays.fill(heads, old, capacity, -1);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+
+    /**
+     * Forward-only view of one restaurant's rows. Not thread-safe; create one per reader.
+     */
+    public static final class Cursor {
+        private final String restaurantId;
+        private final ByteBuffer[] rowSegments;
+        private final ByteBuffer[] arenaSegments;
+        private final int rowsPerSegment;
+        private int next;
+        private ByteBuffer segment;
+        private int base;
+
+        private Cursor(String restaurantId, ByteBuffer[] rowSegments, ByteBuffer[] arenaSegments,
+                int rowsPerSegment, int head) {
+            this.restaurantId = restaurantId;
+            this.rowSegments = rowSegments;
+            this.arenaSegments = arenaSegments;
+            this.rowsPerSegment = rowsPerSegment;
+            this.next = head;
+        }
+
+        /**
+         * Move to the next row; false when there are no more.
+         */
+        public boolean next() {
+            if (next < 0) {
+                segment = null;
+                return false;
+            }
+            segment = rowSegments[next / rowsPerSegment];
+            base = (next % rowsPerSegment) * ROW_SIZE;
+            next = segment.getInt(base + PREVIOUS);
+            return true;
+        }
+
+        public int rating() {
+            return packed() & 0xF;
+        }
+
+        public int userLevel() {
+            return (packed() >>> 4) & 0xF;
+        }
+
+        public boolean isVerified() {
+            return (packed() & (1 << 8)) != 0;
+        }
+
+        public int helpfulCount() {
+            return packed() >>> 9;
+        }
+
+        /**
+         * Creation time in epoch seconds of the stored local time, or Long.MIN_VALUE if unknown.
+         */
+        public long createdAtEpochSecond() {
+            return segment.getLong(base + CREATED);
+        }
+
+        /**
+         * Rebuild the current row as a Review.
+         */
+        public Review toReview() {
+            long reference = segment.getLong(base + STRINGS);
+            // Absolute reads only: the writer may be appending to the same arena segment
+            ByteBuffer arena = arenaSegments[(int) (reference >>> 32)];
+            int[] offset = { (int) reference };
+
+            Review review = new Review();
+            review.setId(readString(arena, offset));
+            review.setRestaurantId(restaurantId);
+            review.setUserId(readString(arena, offset));
+            review.setUserName(readString(arena, offset));
+            review.setComment(readString(arena, offset));
+            review.setRating(rating());
+            review.setUserLevel(userLevel());
+            review.setVerified(isVerified());
+            review.setHelpfulCount(helpfulCount());
+            review.setCreatedAt(toDateTime(createdAtEpochSecond()));
+            review.setUpdatedAt(toDateTime(segment.getLong(base + UPDATED)));
+            return review;
+        }
+
+        private int packed() {
+            return segment.getInt(base + PACKED);
+        }
+
+        private static String readString(ByteBuffer arena, int[] offset) {
+            int length = arena.getInt(offset[0]);
+            offset[0] += 4;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            arena.get(offset[0], bytes);
+            offset[0] += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static LocalDateTime toDateTime(long epochSecond) {
+            return epochSecond != NO_TIME ? LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC) : null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.exception.RestaurantNotFoundException;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Repository storing restaurants in an immutable {@link RestaurantTrie}
+ * published through an atomic reference. Every write builds a new root in
+ * O(log32 n), sharing all untouched nodes with the previous one, and swaps it
+ * in; readers only load the current root. {@link #findAll()} is therefore a
+ * read-only view instead of a copy, and {@link #snapshot()} is free.
+ * <p>
+ * Restaurants are shared by every root holding them, so change a copy and save
+ * it rather than modifying one in place. {@link #addReview} stores a copy with
+ * the review added and returns it; restaurants read before keep their reviews.
+ * Ordinals and listeners work as in {@link RestaurantRepository}: writes are
+ * serialised there, so a root swap, its ordinal change and its notifications
+ * are never interleaved with another write's, while readers take no lock.
+ */
+public class PersistentRestaurantRepository extends RestaurantRepository {
+
+    private final AtomicReference<RestaurantTrie> root = new AtomicReference<>(RestaurantTrie.EMPTY);
+
+    /**
+     * Read-only repository over the current root. Later writes never change
+     * what it returns. Ordinals are positions in its {@link #findAll()}.
+     */
+    public RestaurantRepository snapshot() {
+        return new Snapshot(root.get());
+    }
+
+    @Override
+    protected void put(Restaurant restaurant) {
+        root.updateAndGet(trie -> trie.put(restaurant));
+    }
+
+    /**
+     * Publish the whole batch as one root, so readers see all of it or none.
+     */
+    @Override
+    protected void putAll(Collection<Restaurant> batch) {
+        root.updateAndGet(trie -> {
+            for (Restaurant restaurant : batch) {
+                trie = trie.put(restaurant);
+            }
+            return trie;
+        });
+    }
+
+    /**
+     * Called under the repository's write lock, so the stored restaurant cannot
+     * change between reading it and storing the reviewed copy.
+     */
+    @Override
+    protected Restaurant putReview(Restaurant restaurant, Review review) {
+        String id = restaurant.getId();
+        RestaurantTrie current = root.get();
+        Restaurant stored = current.get(id);
+        if (stored == null) {
+            throw new RestaurantNotFoundException("Restaurant not found with id: " + id, id);
+        }
+        Restaurant reviewed = stored.withReview(review);
+        root.set(current.put(reviewed));
+        return reviewed;
+    }
+
+    @Override
+    protected void remove(String id) {
+        root.updateAndGet(trie -> trie.remove(id));
+    }
+
+    @Override
+    protected void clear() {
+        root.set(RestaurantTrie.EMPTY);
+    }
+
+    @Override
+    public Optional<Restaurant> findById(String id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(root.get().get(id));
+    }
+
+    /**
+     * Read-only view of the restaurants at the time of the call.
+     */
+    @Override
+    public List<Restaurant> findAll() {
+        return root.get().values();
+    }
+
+    @Override
+    protected Collection<Restaurant> values() {
+        return root.get().values();
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public long count() {
+        return root.get().size();
+    }
+
+    private static final class Snapshot extends RestaurantRepository {
+
+        private final RestaurantTrie trie;
+        private IdDictionary dictionary; // built on first use
+
+        Snapshot(RestaurantTrie trie) {
+            super(true);
+            this.trie = trie;
+        }
+
+        @Override
+        public Optional<Restaurant> findById(String id) {
+            return id == null ? Optional.empty() : Optional.ofNullable(trie.get(id));
+        }
+
+        @Override
+        public List<Restaurant> findAll() {
+            return trie.values();
+        }
+
+        @Override
+        protected Collection<Restaurant> values() {
+            return trie.values();
+        }
+
+        @Override
+        public boolean exists(String id) {
+            return findById(id).isPresent();
+        }
+
+        @Override
+        public long count() {
+            return trie.size();
+        }
+
+        @Override
+        public int ordinalOf(String id) {
+            return id == null ? -1 : trie.indexOf(id);
+        }
+
+        @Override
+        public Optional<Restaurant> findByOrdinal(int ordinal) {
+            return ordinal >= 0 && ordinal < trie.size() ? Optional.of(trie.values().get(ordinal)) : Optional.empty();
+        }
+
+        /**
+         * Dictionary binding every id to its position; built on first call.
+         */
+        @Override
+        public synchronized IdDictionary getIdDictionary() {
+            if (dictionary == null) {
+                IdDictionary ids = new IdDictionary();
+                for (Restaurant restaurant : trie.values()) {
+                    ids.intern(restaurant.getId());
+                }
+                dictionary = ids;
+            }
+            return dictionary;
+        }
+
+        // Nothing is ever written, so listeners have nothing to hear
+        @Override
+        public void addListener(RepositoryListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Listener cannot be null");
+            }
+        }
+
+        @Override
+        public void removeListener(RepositoryListener listener) {
+        }
+
+        @Override
+        public Restaurant save(Restaurant restaurant) {
+            throw readOnly();
+        }
+
+        @Override
+        public void saveAll(Collection<Restaurant> batch) {
+            throw readOnly();
+        }
+
+        @Override
+        public Restaurant addReview(String restaurantId, Review review) {
+            throw readOnly();
+        }
+
+        @Override
+        public void delete(String id) {
+            throw readOnly();
+        }
+
+        @Override
+        public void deleteAll() {
+            throw readOnly();
+        }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Repository snapshots are read-only");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only repository showing a {@link VersionedRestaurantStore} as of one
+ * version, for as long as it stays open. Writes to the live repository never
+ * change what it returns. Restaurants are the store's frozen copies and must
+ * not be modified. Ordinals are positions in {@link #findAll()}, which lists
+ * restaurants in the order of their ordinals in the live repository.
+ */
+public class PinnedRestaurantRepository extends RestaurantRepository implements AutoCloseable {
+
+    private final VersionedRestaurantStore store;
+    private final long version;
+    private volatile boolean closed;
+    private List<Restaurant> contents; // built on first use
+    private IdDictionary dictionary; // built on first use
+
+    PinnedRestaurantRepository(VersionedRestaurantStore store, long version) {
+        this.store = store;
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public Optional<Restaurant> findById(String id) {
+        checkOpen();
+        return id == null ? Optional.empty() : Optional.ofNullable(store.find(id, version));
+    }
+
+    /**
+     * All restaurants of the version; collected once, then served from that list.
+     */
+    @Override
+    protected Collection<Restaurant> values() {
+        return contents();
+    }
+
+    private synchronized List<Restaurant> contents() {
+        checkOpen();
+        if (contents == null) {
+            contents = store.findAll(version);
+        }
+        return contents;
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public long count() {
+        return values().size();
+    }
+
+    @Override
+    public int ordinalOf(String id) {
+        return getIdDictionary().ordinalOf(id);
+    }
+
+    @Override
+    public Optional<Restaurant> findByOrdinal(int ordinal) {
+        List<Restaurant> all = contents();
+        return ordinal >= 0 && ordinal < all.size() ? Optional.of(all.get(ordinal)) : Optional.empty();
+    }
+
+    /**
+     * Dictionary binding every id to its position; collects all restaurants on first call.
+     */
+    @Override
+    public synchronized IdDictionary getIdDictionary() {
+        if (dictionary == null) {
+            IdDictionary ids = new IdDictionary();
+            for (Restaurant restaurant : values()) {
+                ids.intern(restaurant.getId());
+            }
+            dictionary = ids;
+        }
+        return dictionary;
+    }
+
+    @Override
+    public Restaurant save(Restaurant restaurant) {
+        throw readOnly();
+    }
+
+    @Override
+    public void saveAll(Collection<Restaurant> batch) {
+        throw readOnly();
+    }
+
+    @Override
+    public Restaurant addReview(String restaurantId, Review review) {
+        throw readOnly();
+    }
+
+    @Override
+    public void delete(String id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAll() {
+        throw readOnly();
+    }
+
+    /**
+     * Unpin the version; reads fail from now on.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            contents = null;
+        }
+        store.release(version);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Snapshot is closed");
+        }
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Repository snapshots are read-only");
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+/**
+ * Receives restaurant mutations from a {@link RestaurantRepository}, so that
+ * derived structures indexed by restaurant ordinal can stay in step.
+ */
+public interface RepositoryListener {
+
+    /**
+     * A restaurant was saved, either new or replacing the one with the same id.
+     */
+    void onSave(Restaurant restaurant, int ordinal);
+
+    /**
+     * A review was added to a saved restaurant through the repository.
+     * Defaults to treating the restaurant as saved again.
+     */
+    default void onReviewAdded(Restaurant restaurant, Review review, int ordinal) {
+        onSave(restaurant, ordinal);
+    }
+
+    /**
+     * A restaurant was deleted; its ordinal may be reused by a later save.
+     */
+    void onDelete(String id, int ordinal);
+
+    /**
+     * All restaurants were deleted.
+     */
+    void onClear();
+}
@@ -0,0 +1,440 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.BusinessHours;
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.MenuItem;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary encoding of restaurants and reviews for the write-ahead log and snapshots.
+ * Every field is written, including nulls, so a decoded restaurant equals the
+ * encoded one field by field. Collections are length-prefixed with -1 for null.
+ * With {@link Terms}, cities, districts, menu categories and cuisine types are
+ * written as dictionary codes instead of inline.
+ */
+public final class RestaurantCodec {
+
+    private static final CuisineType[] CUISINES = CuisineType.values();
+
+    private RestaurantCodec() {
+    }
+
+    /**
+     * Dictionaries of the low-cardinality strings of a set of restaurants.
+     */
+    static final class Terms {
+        final StringTable cities;
+        final StringTable districts;
+        final StringTable categories;
+        final StringTable cuisines;
+        private final CuisineType[] cuisineByCode;
+
+        Terms() {
+            this(new StringTable(), new StringTable(), new StringTable(), new StringTable());
+        }
+
+        private Terms(StringTable cities, StringTable districts, StringTable categories, StringTable cuisines) {
+            this.cities = cities;
+            this.districts = districts;
+            this.categories = categories;
+            this.cuisines = cuisines;
+            this.cuisineByCode = new CuisineType[cuisines.size() + 1];
+            for (int code = 1; code <= cuisines.size(); code++) {
+                cuisineByCode[code] = CuisineType.valueOf(cuisines.valueOf(code));
+            }
+        }
+
+        /**
+         * Add the strings of a restaurant; not thread-safe.
+         */
+        void collect(Restaurant restaurant) {
+            Location location = restaurant.getLocation();
+            if (location != null) {
+                cities.add(location.getCity());
+                districts.add(location.getDistrict());
+            }
+            if (restaurant.getCuisineType() != null) {
+                cuisines.add(restaurant.getCuisineType().name());
+            }
+            if (restaurant.getAdditionalCuisineTypes() != null) {
+                for (CuisineType type : restaurant.getAdditionalCuisineTypes()) {
+                    cuisines.add(type != null ? type.name() : null);
+                }
+            }
+            if (restaurant.getMenu() != null) {
+                for (MenuItem item : restaurant.getMenu()) {
+                    categories.add(item != null ? item.getCategory() : null);
+                }
+            }
+        }
+
+        void write(DataOutput out) throws IOException {
+            cities.write(out);
+            districts.write(out);
+            categories.write(out);
+            cuisines.write(out);
+        }
+
+        static Terms read(DataInput in) throws IOException {
+            StringTable cities = StringTable.read(in);
+            StringTable districts = StringTable.read(in);
+            StringTable categories = StringTable.read(in);
+            StringTable cuisines = StringTable.read(in);
+            try {
+                return new Terms(cities, districts, categories, cuisines);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown cuisine type in dictionary", e);
+            }
+        }
+    }
+
+    public static void writeRestaurant(DataOutput out, Restaurant restaurant) throws IOException {
+        writeRestaurant(out, restaurant, restaurant.getReviews(), null);
+    }
+
+    public static Restaurant readRestaurant(DataInput in) throws IOException {
+        return readRestaurant(in, null);
+    }
+
+    /**
+     * Write a restaurant with the given reviews in place of its own, using the
+     * dictionaries when terms is not null.
+     */
+    static void writeRestaurant(DataOutput out, Restaurant restaurant, List<Review> reviews, Terms terms)
+            throws IOException {
+        writeString(out, restaurant.getId());
+        writeString(out, restaurant.getName());
+        writeString(out, restaurant.getDescription());
+        writeLocation(out, restaurant.getLocation(), terms);
+        writeCuisine(out, restaurant.getCuisineType(), terms);
+
+        Set<CuisineType> additional = restaurant.getAdditionalCuisineTypes();
+        out.writeInt(additional != null ? additional.size() : -1);
+        if (additional != null) {
+            for (CuisineType type : additional) {
+                writeCuisine(out, type, terms);
+            }
+        }
+
+        List<MenuItem> menu = restaurant.getMenu();
+        out.writeInt(menu != null ? menu.size() : -1);
+        if (menu != null) {
+            for (MenuItem item : menu) {
+                writeMenuItem(out, item, terms);
+            }
+        }
+
+        // Indexed reads up to the size read once, so reviews appended concurrently are never touched
+        int reviewCount = reviews != null ? reviews.size() : -1;
+        out.writeInt(reviewCount);
+        if (reviews != null) {
+            for (int i = 0; i < reviewCount; i++) {
+                Review review = reviews.get(i);
+                out.writeBoolean(review != null);
+                if (review != null) {
+                    writeReview(out, review, restaurant.getId());
+                }
+            }
+        }
+
+        writeBusinessHours(out, restaurant.getBusinessHours());
+        out.writeDouble(restaurant.getAveragePrice());
+        out.writeInt(restaurant.getPriceLevel());
+        out.writeBoolean(restaurant.isActive());
+        writeString(out, restaurant.getPhoneNumber());
+        writeString(out, restaurant.getWebsite());
+        out.writeInt(restaurant.getCapacity());
+        out.writeBoolean(restaurant.isHasDelivery());
+        out.writeBoolean(restaurant.isHasTakeout());
+        out.writeBoolean(restaurant.isHasParking());
+        out.writeBoolean(restaurant.isAcceptsReservations());
+    }
+
+    static Restaurant readRestaurant(DataInput in, Terms terms) throws IOException {
+        Restaurant restaurant = new Restaurant(readString(in), readString(in));
+        restaurant.setDescription(readString(in));
+        restaurant.setLocation(readLocation(in, terms));
+        restaurant.setCuisineType(readCuisine(in, terms));
+
+        int additionalCount = in.readInt();
+        if (additionalCount < 0) {
+            restaurant.setAdditionalCuisineTypes(null);
+        } else {
+            Set<CuisineType> additional = new HashSet<>();
+            for (int i = 0; i < additionalCount; i++) {
+                additional.add(readCuisine(in, terms));
+            }
+            restaurant.setAdditionalCuisineTypes(additional);
+        }
+
+        int menuCount = in.readInt();
+        if (menuCount < 0) {
+            restaurant.setMenu(null);
+        } else {
+            List<MenuItem> menu = new ArrayList<>(menuCount);
+            for (int i = 0; i < menuCount; i++) {
+                menu.add(readMenuItem(in, terms));
+            }
+            restaurant.setMenu(menu);
+        }
+
+        int reviewCount = in.readInt();
+        if (reviewCount < 0) {
+            restaurant.setReviews(null);
+        } else {
+            List<Review> reviews = new ArrayList<>(reviewCount);
+            for (int i = 0; i < reviewCount; i++) {
+                reviews.add(in.readBoolean() ? readReview(in, restaurant.getId()) : null);
+            }
+            restaurant.setReviews(reviews);
+        }
+
+        restaurant.setBusinessHours(readBusinessHours(in));
+        restaurant.setAveragePrice(in.readDouble());
+        restaurant.setPriceLevel(in.readInt());
+        restaurant.setActive(in.readBoolean());
+        restaurant.setPhoneNumber(readString(in));
+        restaurant.setWebsite(readString(in));
+        restaurant.setCapacity(in.readInt());
+        restaurant.setHasDelivery(in.readBoolean());
+        restaurant.setHasTakeout(in.readBoolean());
+        restaurant.setHasParking(in.readBoolean());
+        restaurant.setAcceptsReservations(in.readBoolean());
+        return restaurant;
+    }
+
+    public static void writeReview(DataOutput out, Review review) throws IOException {
+        writeReview(out, review, null);
+    }
+
+    public static Review readReview(DataInput in) throws IOException {
+        return readReview(in, null);
+    }
+
+    // A restaurant id equal to the owner's is written as a flag and decoded to the owner's instance
+    private static void writeReview(DataOutput out, Review review, String ownerId) throws IOException {
+        writeString(out, review.getId());
+        boolean owned = ownerId != null && ownerId.equals(review.getRestaurantId());
+        out.writeBoolean(owned);
+        if (!owned) {
+            writeString(out, review.getRestaurantId());
+        }
+        writeString(out, review.getUserId());
+        writeString(out, review.getUserName());
+        out.writeInt(review.getRating());
+        writeString(out, review.getComment());
+        writeDateTime(out, review.getCreatedAt());
+        writeDateTime(out, review.getUpdatedAt());
+        out.writeInt(review.getHelpfulCount());
+        out.writeBoolean(review.isVerified());
+        out.writeInt(review.getUserLevel());
+    }
+
+    private static Review readReview(DataInput in, String ownerId) throws IOException {
+        Review review = new Review();
+        review.setId(readString(in));
+        review.setRestaurantId(in.readBoolean() ? ownerId : readString(in));
+        review.setUserId(readString(in));
+        review.setUserName(readString(in));
+        review.setRating(in.readInt());
+        review.setComment(readString(in));
+        review.setCreatedAt(readDateTime(in));
+        review.setUpdatedAt(readDateTime(in));
+        review.setHelpfulCount(in.readInt());
+        review.setVerified(in.readBoolean());
+        review.setUserLevel(in.readInt());
+        return review;
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (in instanceof ByteBufferInput) {
+            return ((ByteBufferInput) in).readUtf8(length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTerm(DataOutput out, String value, StringTable table) throws IOException {
+        if (table != null) {
+            table.writeCode(out, value);
+        } else {
+            writeString(out, value);
+        }
+    }
+
+    private static String readTerm(DataInput in, StringTable table) throws IOException {
+        return table != null ? table.readCode(in) : readString(in);
+    }
+
+    private static void writeLocation(DataOutput out, Location location, Terms terms) throws IOException {
+        out.writeBoolean(location != null);
+        if (location != null) {
+            out.writeDouble(location.getLatitude());
+            out.writeDouble(location.getLongitude());
+            writeString(out, location.getAddress());
+            writeTerm(out, location.getCity(), terms != null ? terms.cities : null);
+            writeTerm(out, location.getDistrict(), terms != null ? terms.districts : null);
+            writeString(out, location.getPostalCode());
+        }
+    }
+
+    private static Location readLocation(DataInput in, Terms terms) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Location location = new Location(in.readDouble(), in.readDouble());
+        location.setAddress(readString(in));
+        location.setCity(readTerm(in, terms != null ? terms.cities : null));
+        location.setDistrict(readTerm(in, terms != null ? terms.districts : null));
+        location.setPostalCode(readString(in));
+        return location;
+    }
+
+    private static void writeCuisine(DataOutput out, CuisineType type, Terms terms) throws IOException {
+        if (terms != null) {
+            terms.cuisines.writeCode(out, type != null ? type.name() : null);
+            return;
+        }
+        out.writeByte(type != null ? type.ordinal() : -1);
+    }
+
+    private static CuisineType readCuisine(DataInput in, Terms terms) throws IOException {
+        if (terms != null) {
+            int code = StringTable.readVarInt(in);
+            if (code >= terms.cuisineByCode.length) {
+                throw new IOException("Unknown cuisine type code: " + code);
+            }
+            return terms.cuisineByCode[code];
+        }
+        int ordinal = in.readByte();
+        if (ordinal >= CUISINES.length) {
+            throw new IOException("Unknown cuisine type ordinal: " + ordinal);
+        }
+        return ordinal >= 0 ? CUISINES[ordinal] : null;
+    }
+
+    private static void writeMenuItem(DataOutput out, MenuItem item, Terms terms) throws IOException {
+        out.writeBoolean(item != null);
+        if (item != null) {
+            writeString(out, item.getId());
+            writeString(out, item.getName());
+            writeString(out, item.getDescription());
+            out.writeDouble(item.getPrice());
+            writeTerm(out, item.getCategory(), terms != null ? terms.categories : null);
+            out.writeBoolean(item.isVegetarian());
+            out.writeBoolean(item.isVegan());
+            out.writeBoolean(item.isGlutenFree());
+            out.writeBoolean(item.isSpicy());
+            out.writeBoolean(item.isAvailable());
+            out.writeInt(item.getCalories());
+        }
+    }
+
+    private static MenuItem readMenuItem(DataInput in, Terms terms) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        MenuItem item = new MenuItem();
+        item.setId(readString(in));
+        item.setName(readString(in));
+        item.setDescription(readString(in));
+        item.setPrice(in.readDouble());
+        item.setCategory(readTerm(in, terms != null ? terms.categories : null));
+        item.setVegetarian(in.readBoolean());
+        item.setVegan(in.readBoolean());
+        item.setGlutenFree(in.readBoolean());
+        item.setSpicy(in.readBoolean());
+        item.setAvailable(in.readBoolean());
+        item.setCalories(in.readInt());
+        return item;
+    }
+
+    private static void writeDateTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static void writeTime(DataOutput out, LocalTime value) throws IOException {
+        out.writeLong(value != null ? value.toNanoOfDay() : -1);
+    }
+
+    private static LocalTime readTime(DataInput in) throws IOException {
+        long nanos = in.readLong();
+        return nanos >= 0 ? LocalTime.ofNanoOfDay(nanos) : null;
+    }
+
+    /**
+     * Per day: every slot of the day, which re-creates the same packed slots
+     * when added back.
+     */
+    private static void writeBusinessHours(DataOutput out, BusinessHours hours) throws IOException {
+        out.writeBoolean(hours != null);
+        if (hours == null) {
+            return;
+        }
+        out.writeBoolean(hours.isClosedOnHolidays());
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<BusinessHours.TimeSlot> slots = hours.getTimeSlots(day);
+            out.writeInt(slots.size());
+            for (BusinessHours.TimeSlot slot : slots) {
+                writeTime(out, slot.getOpenTime());
+                writeTime(out, slot.getCloseTime());
+            }
+        }
+    }
+
+    private static BusinessHours readBusinessHours(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        BusinessHours hours = new BusinessHours();
+        hours.setClosedOnHolidays(in.readBoolean());
+        for (DayOfWeek day : DayOfWeek.values()) {
+            int slotCount = in.readInt();
+            for (int i = 0; i < slotCount; i++) {
+                hours.addHours(day, readTime(in), readTime(in));
+            }
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,327 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Makes a {@link RestaurantRepository} durable by logging every save, delete,
+ * clear and review addition to a {@link WriteAheadLog}.
+ * Opening a journal replays the log into the repository before new mutations
+ * are logged, so a restarted process sees the state it had before.
+ * <p>
+ * With a snapshot file, {@link #checkpoint()} writes a {@link RestaurantSnapshot}
+ * and starts a new log, so startup restores the snapshot and replays only the
+ * mutations logged since. The log is switched at the moment the snapshot is
+ * captured; the previous log is kept as {@code <log>.prev} until the snapshot
+ * is complete, and is replayed on open if a checkpoint was interrupted.
+ * Opened without a snapshot file, such a journal copies the previous log's
+ * records ahead of the current log's into one log instead.
+ */
+public class RestaurantJournal implements RepositoryListener, AutoCloseable {
+
+    static final byte SAVE = 1;
+    static final byte DELETE = 2;
+    static final byte CLEAR = 3;
+    static final byte REVIEW = 4;
+
+    private final RestaurantRepository repository;
+    private final Path file; // null when attached to an opened log
+    private final Path snapshotFile;
+    private final ReadWriteLock rotation = new ReentrantReadWriteLock();
+    private volatile WriteAheadLog log;
+    private long replayedRecords;
+    private int restoredRestaurants;
+    private Map<String, Set<String>> replayedReviews; // review ids per restaurant, only during replay
+
+    private RestaurantJournal(WriteAheadLog log, RestaurantRepository repository, Path file, Path snapshotFile) {
+        this.log = log;
+        this.repository = repository;
+        this.file = file;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Open the log at the given path, replay it into the repository and start logging its mutations.
+     */
+    public static RestaurantJournal open(Path file, RestaurantRepository repository,
+            WriteAheadLog.Durability durability) throws IOException {
+        return open(file, null, repository, durability);
+    }
+
+    /**
+     * Restore the snapshot file if it exists, replay the log written since, and
+     * start logging the repository's mutations.
+     *
+     * @param snapshotFile file for {@link #checkpoint()}, or null for a log without snapshots
+     */
+    public static RestaurantJournal open(Path file, Path snapshotFile, RestaurantRepository repository,
+            WriteAheadLog.Durability durability) throws IOException {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        int restored = 0;
+        long replayed = 0;
+        Path previous = previousLog(file);
+        if (snapshotFile != null && Files.exists(snapshotFile)) {
+            restored = RestaurantSnapshot.restore(snapshotFile, repository);
+        }
+        if (Files.exists(previous) && snapshotFile != null) {
+            // Finish the interrupted checkpoint by folding both logs into a new snapshot
+            replayed += replayLog(previous, repository, durability);
+            replayed += replayLog(file, repository, durability);
+            RestaurantSnapshot.capture(repository).write(snapshotFile);
+            Files.delete(previous);
+            Files.deleteIfExists(file);
+        } else if (Files.exists(previous)) {
+            joinLogs(previous, file, durability);
+        }
+
+        RestaurantJournal journal = new RestaurantJournal(WriteAheadLog.open(file, durability), repository, file,
+                snapshotFile);
+        journal.replay();
+        journal.replayedRecords += replayed;
+        journal.restoredRestaurants = restored;
+        return journal;
+    }
+
+    /**
+     * Replay an opened log into the repository and start logging its mutations.
+     */
+    public static RestaurantJournal attach(WriteAheadLog log, RestaurantRepository repository) throws IOException {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        RestaurantJournal journal = new RestaurantJournal(log, repository, null, null);
+        journal.replay();
+        return journal;
+    }
+
+    private void replay() throws IOException {
+        replayedReviews = new HashMap<>();
+        try {
+            replayedRecords = log.replay(this::apply);
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        } finally {
+            replayedReviews = null;
+        }
+        repository.addListener(this);
+    }
+
+    /**
+     * Number of log records replayed on open.
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * Number of restaurants restored from the snapshot on open.
+     */
+    public int getRestoredRestaurants() {
+        return restoredRestaurants;
+    }
+
+    /**
+     * Write a snapshot of the repository and start a new log.
+     * Repository writes and appends are held only while the restaurants are
+     * captured and the log is switched; encoding and writing the snapshot runs
+     * alongside new mutations.
+     *
+     * @return the size of the snapshot file in bytes
+     */
+    public synchronized long checkpoint() throws IOException {
+        if (snapshotFile == null) {
+            throw new IllegalStateException("Journal has no snapshot file");
+        }
+        Path previous = previousLog(file);
+        if (Files.exists(previous)) {
+            throw new IllegalStateException("An earlier checkpoint did not finish; reopen the journal");
+        }
+
+        RestaurantSnapshot snapshot;
+        // Taken in the order writers take them: the repository's write lock, then the rotation lock
+        synchronized (repository.writeLock()) {
+            rotation.writeLock().lock();
+            try {
+                snapshot = RestaurantSnapshot.capture(repository);
+                WriteAheadLog.Durability durability = log.getDurability();
+                log.close();
+                Files.move(file, previous, StandardCopyOption.ATOMIC_MOVE);
+                log = WriteAheadLog.open(file, durability);
+            } finally {
+                rotation.writeLock().unlock();
+            }
+        }
+
+        long bytes = snapshot.write(snapshotFile);
+        Files.delete(previous);
+        return bytes;
+    }
+
+    /**
+     * Block until every mutation logged so far is on disk.
+     */
+    public void sync() {
+        rotation.readLock().lock();
+        try {
+            log.sync();
+        } finally {
+            rotation.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSave(Restaurant restaurant, int ordinal) {
+        append(SAVE, out -> RestaurantCodec.writeRestaurant(out, restaurant));
+    }
+
+    @Override
+    public void onReviewAdded(Restaurant restaurant, Review review, int ordinal) {
+        append(REVIEW, out -> {
+            RestaurantCodec.writeString(out, restaurant.getId());
+            RestaurantCodec.writeReview(out, review);
+        });
+    }
+
+    @Override
+    public void onDelete(String id, int ordinal) {
+        append(DELETE, out -> RestaurantCodec.writeString(out, id));
+    }
+
+    @Override
+    public void onClear() {
+        append(CLEAR, out -> {
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        repository.removeListener(this);
+        log.close();
+    }
+
+    private void apply(byte type, ByteBuffer payload) throws IOException {
+        ByteBufferInput in = new ByteBufferInput(payload);
+        switch (type) {
+            case SAVE:
+                Restaurant restaurant = RestaurantCodec.readRestaurant(in);
+                replayedReviews.remove(restaurant.getId());
+                repository.save(restaurant);
+                break;
+            case DELETE:
+                String id = RestaurantCodec.readString(in);
+                replayedReviews.remove(id);
+                repository.delete(id);
+                break;
+            case CLEAR:
+                replayedReviews.clear();
+                repository.deleteAll();
+                break;
+            case REVIEW:
+                String restaurantId = RestaurantCodec.readString(in);
+                Review review = RestaurantCodec.readReview(in);
+                // A checkpoint may capture a review whose record lands in the new log
+                if (repository.exists(restaurantId) && !hasReview(restaurantId, review)) {
+                    repository.addReview(restaurantId, review);
+                }
+                break;
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * Whether the stored restaurant already has the review, remembering the
+     * review as present; the ids of a restaurant's reviews are collected once
+     * per replay, on its first review record.
+     */
+    private boolean hasReview(String restaurantId, Review review) {
+        Set<String> ids = replayedReviews.computeIfAbsent(restaurantId, key -> {
+            Set<String> stored = new HashSet<>();
+            List<Review> reviews = repository.getById(key).getReviews();
+            if (reviews != null) {
+                for (Review existing : reviews) {
+                    stored.add(existing.getId());
+                }
+            }
+            return stored;
+        });
+        return review.getId() != null && !ids.add(review.getId());
+    }
+
+    private static long replayLog(Path file, RestaurantRepository repository, WriteAheadLog.Durability durability)
+            throws IOException {
+        try (RestaurantJournal journal = attach(WriteAheadLog.open(file, durability), repository)) {
+            return journal.replayedRecords;
+        }
+    }
+
+    /**
+     * Copy the records of the previous log and then of the current one into a
+     * new current log, and remove the previous log.
+     */
+    private static void joinLogs(Path previous, Path file, WriteAheadLog.Durability durability) throws IOException {
+        Path joined = file.resolveSibling(file.getFileName() + ".join");
+        Files.deleteIfExists(joined);
+        try (WriteAheadLog target = WriteAheadLog.open(joined, WriteAheadLog.Durability.BATCHED)) {
+            WriteAheadLog.RecordHandler copy = (type, payload) -> {
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                target.append(type, bytes);
+            };
+            try (WriteAheadLog source = WriteAheadLog.open(previous, durability)) {
+                source.replay(copy);
+            }
+            if (Files.exists(file)) {
+                try (WriteAheadLog source = WriteAheadLog.open(file, durability)) {
+                    source.replay(copy);
+                }
+            }
+            target.sync();
+        }
+        Files.move(joined, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(previous);
+    }
+
+    private static Path previousLog(Path file) {
+        return file.resolveSibling(file.getFileName() + ".prev");
+    }
+
+    private void append(byte type, Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            encoder.encode(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rotation.readLock().lock();
+        try {
+            log.append(type, bytes.toByteArray());
+        } finally {
+            rotation.readLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+        void encode(DataOutputStream out) throws IOException;
+    }
+}
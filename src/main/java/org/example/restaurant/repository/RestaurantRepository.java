@@ -1,22 +1,65 @@
 package org.example.restaurant.repository;
 
+import org.example.restaurant.model.CuisineType;
 import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
 import org.example.restaurant.exception.RestaurantNotFoundException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * In-memory repository for restaurants.
+ * <p>
+ * Writes are serialised: the storage update, the ordinal change and the
+ * listener notifications of one write all happen before the next write
+ * starts, so listeners see writes in the order they were stored. Reads take
+ * no lock; whether they may run alongside writes depends on the storage.
  */
 public class RestaurantRepository {
     private final Map<String, Restaurant> restaurants;
+    private final IdDictionary ordinals;
+    private final List<RepositoryListener> listeners;
+    private final Object writeLock = new Object();
 
     public RestaurantRepository() {
-        this.restaurants = new HashMap<>();
+        this(false);
+    }
+
+    /**
+     * @param readOnlyView true for views that override every read method and
+     *                     reject every write, which get no map, id dictionary
+     *                     or listener list
+     */
+    protected RestaurantRepository(boolean readOnlyView) {
+        this.restaurants = readOnlyView ? Collections.emptyMap() : new HashMap<>();
+        this.ordinals = readOnlyView ? null : new IdDictionary();
+        this.listeners = readOnlyView ? Collections.emptyList() : new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * The lock every write holds from the storage update through the listener
+     * notifications; holding it keeps writes out.
+     */
+    final Object writeLock() {
+        return writeLock;
+    }
+
+    public void addListener(RepositoryListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(RepositoryListener listener) {
+        listeners.remove(listener);
     }
 
     public Restaurant save(Restaurant restaurant) {
@@ -26,10 +69,99 @@ public class RestaurantRepository {
         if (restaurant.getId() == null || restaurant.getId().trim().isEmpty()) {
             throw new IllegalArgumentException("Restaurant ID cannot be null or empty");
         }
+        synchronized (writeLock) {
+            put(restaurant);
+            int ordinal = ordinals.intern(restaurant.getId());
+            for (RepositoryListener listener : listeners) {
+                listener.onSave(restaurant, ordinal);
+            }
+        }
+        return restaurant;
+    }
+
+    /**
+     * Save several restaurants, storing all of them before listeners are notified.
+     * The batch is rejected as a whole if any restaurant is null or has no id.
+     */
+    public void saveAll(Collection<Restaurant> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Restaurants cannot be null");
+        }
+        for (Restaurant restaurant : batch) {
+            if (restaurant == null) {
+                throw new IllegalArgumentException("Restaurant cannot be null");
+            }
+            if (restaurant.getId() == null || restaurant.getId().trim().isEmpty()) {
+                throw new IllegalArgumentException("Restaurant ID cannot be null or empty");
+            }
+        }
+        synchronized (writeLock) {
+            putAll(batch);
+            int[] saved = new int[batch.size()];
+            int i = 0;
+            for (Restaurant restaurant : batch) {
+                saved[i++] = ordinals.intern(restaurant.getId());
+            }
+            for (RepositoryListener listener : listeners) {
+                i = 0;
+                for (Restaurant restaurant : batch) {
+                    listener.onSave(restaurant, saved[i++]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a review to a saved restaurant and notify listeners.
+     */
+    public Restaurant addReview(String restaurantId, Review review) {
+        if (review == null) {
+            throw new IllegalArgumentException("Review cannot be null");
+        }
+        synchronized (writeLock) {
+            Restaurant restaurant = putReview(getById(restaurantId), review);
+            int ordinal = ordinals.intern(restaurantId);
+            for (RepositoryListener listener : listeners) {
+                listener.onReviewAdded(restaurant, review, ordinal);
+            }
+            return restaurant;
+        }
+    }
+
+    /*
+     * Storage hooks behind the write methods, which validate, assign ordinals
+     * and notify listeners around them; other storage overrides them together
+     * with the read methods.
+     */
+
+    protected void put(Restaurant restaurant) {
         restaurants.put(restaurant.getId(), restaurant);
+    }
+
+    protected void putAll(Collection<Restaurant> batch) {
+        for (Restaurant restaurant : batch) {
+            put(restaurant);
+        }
+    }
+
+    /**
+     * Store a saved restaurant with one more review.
+     *
+     * @return the restaurant now stored, which listeners and callers receive
+     */
+    protected Restaurant putReview(Restaurant restaurant, Review review) {
+        restaurant.addReview(review);
         return restaurant;
     }
 
+    protected void remove(String id) {
+        restaurants.remove(id);
+    }
+
+    protected void clear() {
+        restaurants.clear();
+    }
+
     public Optional<Restaurant> findById(String id) {
         if (id == null) {
             return Optional.empty();
@@ -43,7 +175,14 @@ public class RestaurantRepository {
     }
 
     public List<Restaurant> findAll() {
-        return new ArrayList<>(restaurants.values());
+        return new ArrayList<>(values());
+    }
+
+    /**
+     * The restaurants the finders scan; views over other storage override it.
+     */
+    protected Collection<Restaurant> values() {
+        return restaurants.values();
     }
 
     public List<Restaurant> findByName(String name) {
@@ -52,7 +191,7 @@ public class RestaurantRepository {
         }
         List<Restaurant> result = new ArrayList<>();
         String lowerName = name.toLowerCase();
-        for (Restaurant restaurant : restaurants.values()) {
+        for (Restaurant restaurant : values()) {
             if (restaurant.getName() != null &&
                     restaurant.getName().toLowerCase().contains(lowerName)) {
                 result.add(restaurant);
@@ -61,14 +200,101 @@ public class RestaurantRepository {
         return result;
     }
 
+    /**
+     * Restaurants whose city contains the given text, ignoring case.
+     */
+    public List<Restaurant> findByCity(String city) {
+        if (city == null || city.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        String lowerCity = city.trim().toLowerCase();
+        List<Restaurant> result = new ArrayList<>();
+        for (Restaurant restaurant : values()) {
+            if (restaurant.getLocation() != null && restaurant.getLocation().getCity() != null
+                    && restaurant.getLocation().getCity().toLowerCase().contains(lowerCity)) {
+                result.add(restaurant);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Restaurants whose district contains the given text, ignoring case.
+     */
+    public List<Restaurant> findByDistrict(String district) {
+        if (district == null || district.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        String lowerDistrict = district.trim().toLowerCase();
+        List<Restaurant> result = new ArrayList<>();
+        for (Restaurant restaurant : values()) {
+            if (restaurant.getLocation() != null && restaurant.getLocation().getDistrict() != null
+                    && restaurant.getLocation().getDistrict().toLowerCase().contains(lowerDistrict)) {
+                result.add(restaurant);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Restaurants serving the cuisine type as primary or additional cuisine.
+     */
+    public List<Restaurant> findByCuisineType(CuisineType cuisineType) {
+        List<Restaurant> result = new ArrayList<>();
+        if (cuisineType == null) {
+            return result;
+        }
+        for (Restaurant restaurant : values()) {
+            if (restaurant.hasCuisineType(cuisineType)) {
+                result.add(restaurant);
+            }
+        }
+        return result;
+    }
+
     public void delete(String id) {
-        if (id != null) {
-            restaurants.remove(id);
+        if (id == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            remove(id);
+            int ordinal = ordinals.release(id);
+            if (ordinal >= 0) {
+                for (RepositoryListener listener : listeners) {
+                    listener.onDelete(id, ordinal);
+                }
+            }
         }
     }
 
     public void deleteAll() {
-        restaurants.clear();
+        synchronized (writeLock) {
+            clear();
+            ordinals.clear();
+            for (RepositoryListener listener : listeners) {
+                listener.onClear();
+            }
+        }
+    }
+
+    /**
+     * Get the dense ordinal of a saved restaurant, or -1 if it has none.
+     * Ordinals of deleted restaurants are reused by later saves.
+     */
+    public int ordinalOf(String id) {
+        return ordinals.ordinalOf(id);
+    }
+
+    public Optional<Restaurant> findByOrdinal(int ordinal) {
+        return findById(ordinals.idOf(ordinal));
+    }
+
+    /**
+     * The id dictionary behind {@link #ordinalOf(String)}; arrays indexed by
+     * restaurant ordinal need a length of at least its capacity.
+     */
+    public IdDictionary getIdDictionary() {
+        return ordinals;
     }
 
     public boolean exists(String id) {
@@ -0,0 +1,318 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.jfr.SnapshotWriteEvent;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * Point-in-time copy of a restaurant catalog that can be written to a compact
+ * binary file and restored from it.
+ * <p>
+ * Capturing copies the restaurant references and their review lists, the
+ * part of a restaurant the repository changes in place, so writers are held
+ * up only for the copy; the encoding runs afterwards. Other fields change
+ * through saves, which replace the stored restaurant.
+ * <p>
+ * File layout: header, restaurants in independently encoded chunks, the
+ * string dictionaries, a chunk directory with a CRC32 per chunk, and a trailer
+ * with the offset and CRC32 of that metadata. Chunks are encoded and decoded
+ * in parallel.
+ */
+public final class RestaurantSnapshot {
+
+    private static final int MAGIC = 0x52534E50; // "RSNP"
+    private static final int TRAILER_MAGIC = 0x52534E45; // "RSNE"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int TRAILER_SIZE = 16;
+    private static final int DIRECTORY_ENTRY_SIZE = 16;
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private final Restaurant[] restaurants;
+    private final List<Review>[] reviews;
+
+    @SuppressWarnings("unchecked")
+    private RestaurantSnapshot(Restaurant[] restaurants) {
+        this.restaurants = restaurants;
+        this.reviews = (List<Review>[]) new List<?>[restaurants.length];
+        for (int i = 0; i < restaurants.length; i++) {
+            reviews[i] = copy(restaurants[i].getReviews());
+        }
+    }
+
+    // Indexed reads up to the size read once, as reviews may be appended meanwhile
+    private static List<Review> copy(List<Review> source) {
+        if (source == null) {
+            return null;
+        }
+        int size = source.size();
+        List<Review> copy = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(source.get(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Capture the restaurants currently in a repository.
+     */
+    public static RestaurantSnapshot capture(RestaurantRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        return of(repository.findAll());
+    }
+
+    public static RestaurantSnapshot of(Collection<Restaurant> restaurants) {
+        if (restaurants == null) {
+            throw new IllegalArgumentException("Restaurants cannot be null");
+        }
+        return new RestaurantSnapshot(restaurants.stream()
+                .filter(r -> r != null && r.getId() != null)
+                .toArray(Restaurant[]::new));
+    }
+
+    public int size() {
+        return restaurants.length;
+    }
+
+    public long write(Path file) throws IOException {
+        return write(file, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Write the snapshot to a temporary file, fsync it and move it over the
+     * target, so the target always holds a complete snapshot.
+     *
+     * @param pool pool used to encode chunks, or null to encode sequentially
+     * @return the size of the written file in bytes
+     */
+    public long write(Path file, ForkJoinPool pool, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        SnapshotWriteEvent event = new SnapshotWriteEvent();
+        event.begin();
+        RestaurantCodec.Terms terms = new RestaurantCodec.Terms();
+        for (Restaurant restaurant : restaurants) {
+            terms.collect(restaurant);
+        }
+
+        int chunks = (restaurants.length + chunkSize - 1) / chunkSize;
+        long[] offsets = new long[chunks];
+        int[] lengths = new int[chunks];
+        int[] checksums = new int[chunks];
+        // Encode a few chunks per worker at a time to bound the memory held
+        int wave = pool != null ? pool.getParallelism() * 2 : 1;
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+
+            for (int start = 0; start < chunks; start += wave) {
+                int first = start;
+                byte[][] encoded = new byte[Math.min(wave, chunks - start)][];
+                forEach(pool, encoded.length,
+                        i -> encoded[i] = encodeChunk((first + i) * chunkSize, chunkSize, terms));
+                for (int i = 0; i < encoded.length; i++) {
+                    offsets[first + i] = channel.position();
+                    lengths[first + i] = encoded[i].length;
+                    checksums[first + i] = checksum(encoded[i]);
+                    writeFully(channel, ByteBuffer.wrap(encoded[i]));
+                }
+            }
+
+            long metadataOffset = channel.position();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                terms.write(out);
+                out.writeInt(restaurants.length);
+                out.writeInt(chunks);
+                for (int i = 0; i < chunks; i++) {
+                    out.writeLong(offsets[i]);
+                    out.writeInt(lengths[i]);
+                    out.writeInt(checksums[i]);
+                }
+            }
+            byte[] metadata = bytes.toByteArray();
+            writeFully(channel, ByteBuffer.wrap(metadata));
+            writeFully(channel, ByteBuffer.allocate(TRAILER_SIZE).putLong(metadataOffset)
+                    .putInt(checksum(metadata)).putInt(TRAILER_MAGIC).flip());
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long size = Files.size(file);
+        event.emit("snapshot", file.toString(), restaurants.length, size);
+        return size;
+    }
+
+    public static int restore(Path file, RestaurantRepository repository) throws IOException {
+        return restore(file, repository, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Decode a snapshot file and save its restaurants into a repository,
+     * replacing restaurants with the same ids. Chunks are checked and decoded
+     * in parallel, then saved in file order.
+     *
+     * @param pool pool used to decode chunks, or null to decode sequentially
+     * @return the number of restaurants restored
+     */
+    public static int restore(Path file, RestaurantRepository repository, ForkJoinPool pool) throws IOException {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Not a restaurant snapshot: " + file);
+            }
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a restaurant snapshot: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long metadataOffset = trailer.getLong();
+            int metadataChecksum = trailer.getInt();
+            if (trailer.getInt() != TRAILER_MAGIC || metadataOffset < HEADER_SIZE
+                    || size - TRAILER_SIZE - metadataOffset > Integer.MAX_VALUE
+                    || metadataOffset > size - TRAILER_SIZE) {
+                throw new IOException("Truncated restaurant snapshot: " + file);
+            }
+
+            ByteBuffer metadata = readFully(channel, metadataOffset, (int) (size - TRAILER_SIZE - metadataOffset));
+            if (checksum(metadata.array()) != metadataChecksum) {
+                throw new IOException("Checksum mismatch in snapshot metadata: " + file);
+            }
+            ByteBufferInput in = new ByteBufferInput(metadata);
+            RestaurantCodec.Terms terms = RestaurantCodec.Terms.read(in);
+            int total = in.readInt();
+            int chunks = in.readInt();
+            // Checked before anything is sized by them
+            if (total < 0 || chunks < 0 || (long) chunks * DIRECTORY_ENTRY_SIZE != in.remaining()
+                    || total > metadataOffset - HEADER_SIZE) {
+                throw new IOException("Corrupt snapshot chunk directory: " + file);
+            }
+            long[] offsets = new long[chunks];
+            int[] lengths = new int[chunks];
+            int[] checksums = new int[chunks];
+            for (int i = 0; i < chunks; i++) {
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+                checksums[i] = in.readInt();
+                if (offsets[i] < HEADER_SIZE || lengths[i] < 0 || offsets[i] + lengths[i] > metadataOffset) {
+                    throw new IOException("Corrupt snapshot chunk directory: " + file);
+                }
+            }
+
+            Restaurant[][] decoded = new Restaurant[chunks][];
+            forEach(pool, chunks, i -> {
+                try {
+                    byte[] bytes = readFully(channel, offsets[i], lengths[i]).array();
+                    if (checksum(bytes) != checksums[i]) {
+                        throw new IOException("Checksum mismatch in snapshot chunk " + i + ": " + file);
+                    }
+                    decoded[i] = decodeChunk(bytes, terms);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            int restored = 0;
+            for (Restaurant[] chunk : decoded) {
+                for (Restaurant restaurant : chunk) {
+                    repository.save(restaurant);
+                }
+                restored += chunk.length;
+            }
+            if (restored != total) {
+                throw new IOException("Snapshot holds " + restored + " restaurants, expected " + total);
+            }
+            return restored;
+        }
+    }
+
+    private byte[] encodeChunk(int from, int chunkSize, RestaurantCodec.Terms terms) {
+        int to = Math.min(restaurants.length, from + chunkSize);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * (to - from));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(to - from);
+            for (int i = from; i < to; i++) {
+                RestaurantCodec.writeRestaurant(out, restaurants[i], reviews[i], terms);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Restaurant[] decodeChunk(byte[] bytes, RestaurantCodec.Terms terms) throws IOException {
+        ByteBufferInput in = new ByteBufferInput(bytes);
+        int count = in.readInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("Corrupt snapshot chunk: invalid restaurant count " + count);
+        }
+        Restaurant[] chunk = new Restaurant[count];
+        for (int i = 0; i < count; i++) {
+            chunk[i] = RestaurantCodec.readRestaurant(in, terms);
+        }
+        return chunk;
+    }
+
+    private static void forEach(ForkJoinPool pool, int count, IntConsumer action) throws IOException {
+        try {
+            if (pool == null) {
+                IntStream.range(0, count).forEach(action);
+            } else {
+                pool.submit(() -> IntStream.range(0, count).parallel().forEach(action)).join();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer target = ByteBuffer.allocate(length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+        }
+        return target.flip();
+    }
+}
@@ -0,0 +1,459 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.Restaurant;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable map from restaurant id to restaurant, stored as a hash array
+ * mapped trie. Each level consumes five bits of the id's hash and keeps only
+ * the slots in use, indexed through a 32-bit bitmap. Updates copy the path
+ * from the root to the changed slot, O(log32 n) nodes, and share every other
+ * node with the previous trie, so older tries stay valid and unchanged.
+ * <p>
+ * Every node also counts the restaurants below it, which gives the trie an
+ * iteration order with O(log32 n) access by position, see {@link #values()}.
+ */
+final class RestaurantTrie {
+
+    static final RestaurantTrie EMPTY = new RestaurantTrie(Branch.EMPTY);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_DEPTH = 8; // seven branch levels of a 32-bit hash, then a collision node
+
+    private final Node root;
+
+    private RestaurantTrie(Node root) {
+        this.root = root;
+    }
+
+    int size() {
+        return root.size();
+    }
+
+    /**
+     * The restaurant with an id, or null if it has none.
+     */
+    Restaurant get(String id) {
+        return root.find(id, hash(id), 0);
+    }
+
+    /**
+     * A trie binding the restaurant's id to it; this trie if it already does.
+     */
+    RestaurantTrie put(Restaurant restaurant) {
+        Node updated = root.put(new Entry(restaurant.getId(), hash(restaurant.getId()), restaurant), 0);
+        return updated == root ? this : new RestaurantTrie(updated);
+    }
+
+    /**
+     * A trie without the id; this trie if it has none.
+     */
+    RestaurantTrie remove(String id) {
+        Node updated = root.remove(id, hash(id), 0);
+        if (updated == root) {
+            return this;
+        }
+        return updated == null ? EMPTY : new RestaurantTrie(updated);
+    }
+
+    /**
+     * Position of an id in {@link #values()}, or -1 if it has none.
+     */
+    int indexOf(String id) {
+        return root.indexOf(id, hash(id), 0);
+    }
+
+    /**
+     * Read-only list over the restaurants, in hash order. It copies nothing
+     * and iterates in O(1) per element; {@code get} descends the trie.
+     */
+    List<Restaurant> values() {
+        return new Values(root);
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int fragment(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final int hash;
+        private final Restaurant restaurant;
+
+        Entry(String id, int hash, Restaurant restaurant) {
+            this.id = id;
+            this.hash = hash;
+            this.restaurant = restaurant;
+        }
+
+        boolean matches(String id, int hash) {
+            return this.hash == hash && this.id.equals(id);
+        }
+    }
+
+    private abstract static class Node {
+
+        abstract int size();
+
+        /**
+         * Slots in use, each an {@link Entry} or a child node.
+         */
+        abstract int width();
+
+        abstract Object slot(int i);
+
+        abstract Restaurant find(String id, int hash, int shift);
+
+        abstract Node put(Entry entry, int shift);
+
+        /**
+         * @return this node if it has no such id, null if the node becomes empty
+         */
+        abstract Node remove(String id, int hash, int shift);
+
+        abstract int indexOf(String id, int hash, int shift);
+
+        Restaurant at(int index) {
+            for (int i = 0; i < width(); i++) {
+                Object slot = slot(i);
+                if (slot instanceof Entry) {
+                    if (index == 0) {
+                        return ((Entry) slot).restaurant;
+                    }
+                    index--;
+                } else {
+                    Node child = (Node) slot;
+                    if (index < child.size()) {
+                        return child.at(index);
+                    }
+                    index -= child.size();
+                }
+            }
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+
+        // Restaurants in the slots before slot i
+        int sizeBefore(int i) {
+            int before = 0;
+            for (int j = 0; j < i; j++) {
+                Object slot = slot(j);
+                before += slot instanceof Entry ? 1 : ((Node) slot).size();
+            }
+            return before;
+        }
+    }
+
+    private static final class Branch extends Node {
+
+        static final Branch EMPTY = new Branch(0, new Object[0], 0);
+
+        private final int bitmap;
+        private final Object[] slots;
+        private final int size;
+
+        Branch(int bitmap, Object[] slots, int size) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+            this.size = size;
+        }
+
+        // Two entries of different ids, placed as deep as their hashes agree
+        static Node pair(Entry a, Entry b, int shift) {
+            if (a.hash == b.hash) {
+                return new Collision(a.hash, new Entry[] { a, b });
+            }
+            int fa = fragment(a.hash, shift);
+            int fb = fragment(b.hash, shift);
+            if (fa == fb) {
+                return new Branch(1 << fa, new Object[] { pair(a, b, shift + BITS) }, 2);
+            }
+            Object[] slots = fa < fb ? new Object[] { a, b } : new Object[] { b, a };
+            return new Branch((1 << fa) | (1 << fb), slots, 2);
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        int width() {
+            return slots.length;
+        }
+
+        @Override
+        Object slot(int i) {
+            return slots[i];
+        }
+
+        private int position(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Restaurant find(String id, int hash, int shift) {
+            int bit = 1 << fragment(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[position(bit)];
+            if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                return entry.matches(id, hash) ? entry.restaurant : null;
+            }
+            return ((Node) slot).find(id, hash, shift + BITS);
+        }
+
+        @Override
+        Node put(Entry entry, int shift) {
+            int bit = 1 << fragment(entry.hash, shift);
+            int i = position(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] inserted = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, inserted, 0, i);
+                inserted[i] = entry;
+                System.arraycopy(slots, i, inserted, i + 1, slots.length - i);
+                return new Branch(bitmap | bit, inserted, size + 1);
+            }
+            Object slot = slots[i];
+            if (slot instanceof Entry) {
+                Entry existing = (Entry) slot;
+                if (existing.matches(entry.id, entry.hash)) {
+                    return existing.restaurant == entry.restaurant ? this : replace(i, entry, size);
+                }
+                return replace(i, pair(existing, entry, shift + BITS), size + 1);
+            }
+            Node child = (Node) slot;
+            Node updated = child.put(entry, shift + BITS);
+            return updated == child ? this : replace(i, updated, size - child.size() + updated.size());
+        }
+
+        @Override
+        Node remove(String id, int hash, int shift) {
+            int bit = 1 << fragment(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = position(bit);
+            Object slot = slots[i];
+            if (slot instanceof Entry) {
+                return ((Entry) slot).matches(id, hash) ? without(i, bit) : this;
+            }
+            Node child = (Node) slot;
+            Node updated = child.remove(id, hash, shift + BITS);
+            if (updated == child) {
+                return this;
+            }
+            if (updated == null) {
+                return without(i, bit);
+            }
+            // A child left with one restaurant folds back into this node
+            Object replacement = updated.width() == 1 && updated.slot(0) instanceof Entry ? updated.slot(0) : updated;
+            return replace(i, replacement, size - 1);
+        }
+
+        private Branch replace(int i, Object slot, int newSize) {
+            Object[] replaced = slots.clone();
+            replaced[i] = slot;
+            return new Branch(bitmap, replaced, newSize);
+        }
+
+        private Branch without(int i, int bit) {
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] removed = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, removed, 0, i);
+            System.arraycopy(slots, i + 1, removed, i, slots.length - i - 1);
+            return new Branch(bitmap & ~bit, removed, size - 1);
+        }
+
+        @Override
+        int indexOf(String id, int hash, int shift) {
+            int bit = 1 << fragment(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return -1;
+            }
+            int i = position(bit);
+            Object slot = slots[i];
+            if (slot instanceof Entry) {
+                return ((Entry) slot).matches(id, hash) ? sizeBefore(i) : -1;
+            }
+            int index = ((Node) slot).indexOf(id, hash, shift + BITS);
+            return index >= 0 ? sizeBefore(i) + index : -1;
+        }
+    }
+
+    /**
+     * Ids whose hashes are equal in all 32 bits, kept in a plain array.
+     */
+    private static final class Collision extends Node {
+
+        private final int hash;
+        private final Entry[] entries;
+
+        Collision(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        @Override
+        int size() {
+            return entries.length;
+        }
+
+        @Override
+        int width() {
+            return entries.length;
+        }
+
+        @Override
+        Object slot(int i) {
+            return entries[i];
+        }
+
+        private int find(String id) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].id.equals(id)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Restaurant find(String id, int hash, int shift) {
+            int i = hash == this.hash ? find(id) : -1;
+            return i >= 0 ? entries[i].restaurant : null;
+        }
+
+        @Override
+        Node put(Entry entry, int shift) {
+            if (entry.hash != hash) {
+                // Branch at this level; the entry descends until the hashes differ
+                Branch branch = new Branch(1 << fragment(hash, shift), new Object[] { this }, entries.length);
+                return branch.put(entry, shift);
+            }
+            int i = find(entry.id);
+            if (i >= 0) {
+                if (entries[i].restaurant == entry.restaurant) {
+                    return this;
+                }
+                Entry[] replaced = entries.clone();
+                replaced[i] = entry;
+                return new Collision(hash, replaced);
+            }
+            Entry[] appended = new Entry[entries.length + 1];
+            System.arraycopy(entries, 0, appended, 0, entries.length);
+            appended[entries.length] = entry;
+            return new Collision(hash, appended);
+        }
+
+        @Override
+        Node remove(String id, int hash, int shift) {
+            int i = hash == this.hash ? find(id) : -1;
+            if (i < 0) {
+                return this;
+            }
+            if (entries.length == 1) {
+                return null;
+            }
+            Entry[] removed = new Entry[entries.length - 1];
+            System.arraycopy(entries, 0, removed, 0, i);
+            System.arraycopy(entries, i + 1, removed, i, entries.length - i - 1);
+            return new Collision(hash, removed);
+        }
+
+        @Override
+        int indexOf(String id, int hash, int shift) {
+            return hash == this.hash ? find(id) : -1;
+        }
+    }
+
+    private static final class Values extends AbstractList<Restaurant> {
+
+        private final Node root;
+
+        Values(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public Restaurant get(int index) {
+            if (index < 0 || index >= root.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + root.size());
+            }
+            return root.at(index);
+        }
+
+        @Override
+        public int size() {
+            return root.size();
+        }
+
+        @Override
+        public Iterator<Restaurant> iterator() {
+            return new Cursor(root);
+        }
+    }
+
+    // Depth-first walk keeping the slot position of every node on the path
+    private static final class Cursor implements Iterator<Restaurant> {
+
+        private final Node[] nodes = new Node[MAX_DEPTH + 1];
+        private final int[] positions = new int[MAX_DEPTH + 1];
+        private int depth;
+        private Restaurant next;
+
+        Cursor(Node root) {
+            nodes[0] = root;
+            advance();
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int position = positions[depth];
+                if (position == node.width()) {
+                    depth--;
+                    continue;
+                }
+                positions[depth]++;
+                Object slot = node.slot(position);
+                if (slot instanceof Entry) {
+                    next = ((Entry) slot).restaurant;
+                    return;
+                }
+                depth++;
+                nodes[depth] = (Node) slot;
+                positions[depth] = 0;
+            }
+            next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Restaurant next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Restaurant current = next;
+            advance();
+            return current;
+        }
+    }
+}
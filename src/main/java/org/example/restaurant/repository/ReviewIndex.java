@@ -0,0 +1,198 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.jfr.IndexBuildEvent;
+import org.example.restaurant.metrics.Counter;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.MetricsSnapshot;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+import org.example.restaurant.model.ReviewPage;
+import org.example.restaurant.model.ReviewSort;
+import org.example.restaurant.model.ReviewSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-restaurant review aggregates and sorted review orders, so listings can
+ * show ratings without walking review lists and review bodies can be read a
+ * page at a time.
+ * <p>
+ * Used as a {@link RepositoryListener}, the index follows the repository:
+ * aggregates are updated on every change, and each sort order, an array of
+ * positions into the restaurant's review list, is built on the first page
+ * requested in it and then kept sorted as reviews are added.
+ * Orders reflect review fields at the time the review was indexed; saving the
+ * restaurant again re-indexes its reviews.
+ */
+public class ReviewIndex implements RepositoryListener {
+
+    private static final ReviewSort[] SORTS = ReviewSort.values();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Counter orderHits = Metrics.counter("reviews.order" + MetricsSnapshot.HITS);
+    private final Counter orderMisses = Metrics.counter("reviews.order" + MetricsSnapshot.MISSES);
+
+    /**
+     * Index the reviews of every restaurant in a repository and follow its changes.
+     */
+    public static ReviewIndex attach(RestaurantRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        IndexBuildEvent event = new IndexBuildEvent();
+        event.begin();
+        ReviewIndex index = new ReviewIndex();
+        List<Restaurant> restaurants = repository.findAll();
+        for (Restaurant restaurant : restaurants) {
+            index.onSave(restaurant, -1);
+        }
+        repository.addListener(index);
+        event.emit("reviews", restaurants.size());
+        return index;
+    }
+
+    /**
+     * Review aggregates of a restaurant; empty for restaurants without reviews.
+     */
+    public synchronized ReviewSummary summary(String restaurantId) {
+        Entry entry = restaurantId != null ? entries.get(restaurantId) : null;
+        return entry != null ? new ReviewSummary(entry.reviews.size(), entry.distribution) : ReviewSummary.empty();
+    }
+
+    public synchronized int reviewCount(String restaurantId) {
+        Entry entry = restaurantId != null ? entries.get(restaurantId) : null;
+        return entry != null ? entry.reviews.size() : 0;
+    }
+
+    /**
+     * One page of a restaurant's reviews in the given order. Only the reviews
+     * on the page are copied.
+     *
+     * @param pageNumber 0-based page number; pages past the end are empty
+     */
+    public synchronized ReviewPage page(String restaurantId, ReviewSort sort, int pageNumber, int pageSize) {
+        if (sort == null) {
+            throw new IllegalArgumentException("Sort cannot be null");
+        }
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("Page number cannot be negative");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        Entry entry = restaurantId != null ? entries.get(restaurantId) : null;
+        if (entry == null) {
+            return new ReviewPage(new ArrayList<>(), pageNumber, pageSize, 0);
+        }
+        (entry.hasOrder(sort) ? orderHits : orderMisses).increment();
+        int[] order = entry.ordered(sort);
+        int total = entry.reviews.size();
+        long from = (long) pageNumber * pageSize;
+        List<Review> reviews = new ArrayList<>();
+        for (long i = from; i < Math.min(total, from + pageSize); i++) {
+            reviews.add(entry.reviews.get(order[(int) i]));
+        }
+        return new ReviewPage(reviews, pageNumber, pageSize, total);
+    }
+
+    @Override
+    public synchronized void onSave(Restaurant restaurant, int ordinal) {
+        Entry entry = new Entry();
+        if (restaurant.getReviews() != null) {
+            for (Review review : restaurant.getReviews()) {
+                entry.add(review);
+            }
+        }
+        entries.put(restaurant.getId(), entry);
+    }
+
+    @Override
+    public synchronized void onReviewAdded(Restaurant restaurant, Review review, int ordinal) {
+        entries.computeIfAbsent(restaurant.getId(), id -> new Entry()).add(review);
+    }
+
+    @Override
+    public synchronized void onDelete(String id, int ordinal) {
+        entries.remove(id);
+    }
+
+    @Override
+    public synchronized void onClear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        final List<Review> reviews = new ArrayList<>();
+        final int[] distribution = new int[5];
+        // Positions in reviews by ReviewSort ordinal, null until first requested;
+        // the first reviews.size() slots of each array are used
+        final int[][] orders = new int[SORTS.length][];
+
+        void add(Review review) {
+            if (review == null) {
+                return;
+            }
+            int position = reviews.size();
+            reviews.add(review);
+            if (review.getRating() >= 1 && review.getRating() <= 5) {
+                distribution[review.getRating() - 1]++;
+            }
+            for (ReviewSort sort : SORTS) {
+                int[] order = orders[sort.ordinal()];
+                if (order != null) {
+                    if (position == order.length) {
+                        order = Arrays.copyOf(order, Math.max(4, position * 2));
+                        orders[sort.ordinal()] = order;
+                    }
+                    int at = lowerBound(order, position, review, sort.comparator());
+                    System.arraycopy(order, at, order, at + 1, position - at);
+                    order[at] = position;
+                }
+            }
+        }
+
+        boolean hasOrder(ReviewSort sort) {
+            return orders[sort.ordinal()] != null;
+        }
+
+        int[] ordered(ReviewSort sort) {
+            int[] order = orders[sort.ordinal()];
+            if (order == null) {
+                // Newest-added first, then a stable sort keeps that order among equal reviews
+                int size = reviews.size();
+                Integer[] positions = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    positions[i] = size - 1 - i;
+                }
+                Comparator<Review> comparator = sort.comparator();
+                Arrays.sort(positions, (a, b) -> comparator.compare(reviews.get(a), reviews.get(b)));
+                order = new int[Math.max(4, size)];
+                for (int i = 0; i < size; i++) {
+                    order[i] = positions[i];
+                }
+                orders[sort.ordinal()] = order;
+            }
+            return order;
+        }
+
+        // First position in the order whose review does not sort before the given one
+        private int lowerBound(int[] order, int size, Review review, Comparator<Review> comparator) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(reviews.get(order[mid]), review) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
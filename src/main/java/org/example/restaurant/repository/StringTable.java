@@ -0,0 +1,109 @@
+package org.example.restaurant.repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary of distinct strings, written once so that each occurrence can be
+ * encoded as a small code. Code 0 stands for null.
+ * Not thread-safe while strings are added; lookups on a complete table are.
+ */
+final class StringTable {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    void add(String value) {
+        if (value != null && !codes.containsKey(value)) {
+            values.add(value);
+            codes.put(value, values.size());
+        }
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * The code of a string added to the table.
+     */
+    int codeOf(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            throw new IllegalStateException("String not in table: " + value);
+        }
+        return code;
+    }
+
+    void writeCode(DataOutput out, String value) throws IOException {
+        writeVarInt(out, codeOf(value));
+    }
+
+    String readCode(DataInput in) throws IOException {
+        int code = readVarInt(in);
+        if (code > values.size()) {
+            throw new IOException("Unknown string code: " + code);
+        }
+        return code == 0 ? null : values.get(code - 1);
+    }
+
+    /**
+     * The string for a code, which must be in range.
+     */
+    String valueOf(int code) {
+        return code == 0 ? null : values.get(code - 1);
+    }
+
+    void write(DataOutput out) throws IOException {
+        writeVarInt(out, values.size());
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static StringTable read(DataInput in) throws IOException {
+        StringTable table = new StringTable();
+        int size = readVarInt(in);
+        for (int i = 0; i < size; i++) {
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            table.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        if (table.size() != size) {
+            throw new IOException("Duplicate strings in table");
+        }
+        return table;
+    }
+
+    // Unsigned LEB128: 7 bits per byte, high bit set on all but the last
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length int");
+    }
+}
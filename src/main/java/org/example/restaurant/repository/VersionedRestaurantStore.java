@@ -0,0 +1,342 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.metrics.Counter;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Multi-version copy of a {@link RestaurantRepository}, for long-running
+ * readers such as reports and exports that need a consistent catalog while
+ * reviews and edits keep coming in. Every save, review addition, delete and
+ * clear seen as a {@link RepositoryListener} becomes a new catalog version
+ * holding frozen copies of the changed restaurants. {@link #snapshot()} pins
+ * the current version and returns a read-only repository that sees the
+ * catalog as it was then for as long as it is open, so services can run on it.
+ * <p>
+ * Readers never lock or wait for writers: each restaurant has a chain of
+ * versions, newest first, and a snapshot reads the first one not newer than its
+ * own. Writers only prepend to chains. Versions that no open snapshot can see
+ * any more are cut from a chain when its restaurant is written again; chains
+ * still holding versions for open snapshots are revisited a few per write.
+ * {@link #reclaim()} revisits them all.
+ * <p>
+ * Restaurants modified in place without saving them again are not seen.
+ * Frozen copies are shared by every snapshot that sees them and must not be modified.
+ */
+public class VersionedRestaurantStore implements RepositoryListener {
+
+    static final int RECLAIM_PER_WRITE = 4;
+
+    private final ConcurrentHashMap<String, Version> chains = new ConcurrentHashMap<>();
+    private final TreeMap<Long, Integer> pins = new TreeMap<>(); // open snapshots by version; guarded by itself
+    private final Set<String> retained = new LinkedHashSet<>(); // ids keeping versions for open snapshots, oldest first
+    private final Map<String, String> terms = new HashMap<>(); // one instance per city or district; writers only
+    private volatile long currentVersion;
+    private volatile int ordinalLimit; // highest ordinal written + 1
+    private long versionCount;
+
+    private final Counter versionsCreated = Metrics.counter("repository.versions.created");
+    private final Counter versionsReclaimed = Metrics.counter("repository.versions.reclaimed");
+    private final Counter snapshotsPinned = Metrics.counter("repository.snapshots.pinned");
+
+    private VersionedRestaurantStore() {
+    }
+
+    /**
+     * Create a store holding the repository's current restaurants as its first
+     * version, and follow the repository's changes.
+     */
+    public static VersionedRestaurantStore attach(RestaurantRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        VersionedRestaurantStore store = new VersionedRestaurantStore();
+        synchronized (store) {
+            for (Restaurant restaurant : repository.findAll()) {
+                store.prepend(restaurant.getId(), store.freeze(restaurant), repository.ordinalOf(restaurant.getId()),
+                        1);
+            }
+            store.currentVersion = 1;
+            repository.addListener(store);
+        }
+        return store;
+    }
+
+    /**
+     * Pin the current version. Close the snapshot when done so that the
+     * versions only it can see are reclaimed.
+     */
+    public PinnedRestaurantRepository snapshot() {
+        long version;
+        synchronized (pins) {
+            version = currentVersion;
+            pins.merge(version, 1, Integer::sum);
+        }
+        snapshotsPinned.increment();
+        return new PinnedRestaurantRepository(this, version);
+    }
+
+    void release(long version) {
+        synchronized (pins) {
+            if (pins.merge(version, -1, Integer::sum) == 0) {
+                pins.remove(version);
+            }
+        }
+    }
+
+    // Versions not newer than this stay visible to some snapshot, or become the current state
+    private long oldestVisible() {
+        synchronized (pins) {
+            return pins.isEmpty() ? currentVersion : pins.firstKey();
+        }
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * Snapshots pinned and not yet closed.
+     */
+    public int openSnapshots() {
+        synchronized (pins) {
+            int open = 0;
+            for (int count : pins.values()) {
+                open += count;
+            }
+            return open;
+        }
+    }
+
+    /**
+     * Restaurant versions held in all chains, including deletions.
+     */
+    public synchronized long versionCount() {
+        return versionCount;
+    }
+
+    @Override
+    public synchronized void onSave(Restaurant restaurant, int ordinal) {
+        write(restaurant.getId(), freeze(restaurant), ordinal);
+    }
+
+    /**
+     * Build the new version from the previous one plus the review, sharing its
+     * frozen parts instead of copying the whole restaurant again. Falls back to
+     * a full copy unless the review is the only change the repository reported.
+     */
+    @Override
+    public synchronized void onReviewAdded(Restaurant restaurant, Review review, int ordinal) {
+        Version head = chains.get(restaurant.getId());
+        List<Review> reviews = restaurant.getReviews();
+        if (review == null || head == null || head.restaurant == null || head.restaurant.getReviews() == null
+                || reviews == null || head.restaurant.getReviews().size() != reviews.size() - 1) {
+            onSave(restaurant, ordinal);
+            return;
+        }
+        write(restaurant.getId(), head.restaurant.withReview(freeze(review)), ordinal);
+    }
+
+    @Override
+    public synchronized void onDelete(String id, int ordinal) {
+        Version head = chains.get(id);
+        if (head != null && head.restaurant != null) {
+            write(id, null, ordinal);
+        }
+    }
+
+    @Override
+    public synchronized void onClear() {
+        long version = currentVersion + 1;
+        List<String> cleared = new ArrayList<>();
+        for (Map.Entry<String, Version> chain : chains.entrySet()) {
+            if (chain.getValue().restaurant != null) {
+                prepend(chain.getKey(), null, chain.getValue().ordinal, version);
+                cleared.add(chain.getKey());
+            }
+        }
+        currentVersion = version;
+        for (String id : cleared) {
+            prune(id);
+        }
+    }
+
+    private void write(String id, Restaurant frozen, int ordinal) {
+        long version = currentVersion + 1;
+        prepend(id, frozen, ordinal, version);
+        // Publish only after the chain holds the new version
+        currentVersion = version;
+        prune(id);
+        reclaim(RECLAIM_PER_WRITE);
+    }
+
+    private void prepend(String id, Restaurant frozen, int ordinal, long version) {
+        if (ordinal >= ordinalLimit) {
+            ordinalLimit = ordinal + 1;
+        }
+        chains.put(id, new Version(version, frozen, ordinal, chains.get(id)));
+        versionCount++;
+        versionsCreated.increment();
+    }
+
+    /**
+     * Cut the versions of a restaurant that no open snapshot can see: those
+     * older than the newest version not newer than the oldest pin.
+     */
+    private void prune(String id) {
+        Version head = chains.get(id);
+        if (head == null) {
+            return;
+        }
+        long oldest = oldestVisible();
+        Version keep = head;
+        while (keep.version > oldest && keep.previous != null) {
+            keep = keep.previous;
+        }
+        int cut = 0;
+        for (Version v = keep.previous; v != null; v = v.previous) {
+            cut++;
+        }
+        keep.previous = null;
+        if (keep == head && head.restaurant == null && head.version <= oldest) {
+            // Deleted for every snapshot
+            chains.remove(id, head);
+            cut++;
+        }
+        versionCount -= cut;
+        versionsReclaimed.add(cut);
+        // Requeue at the back while versions are still held for a snapshot
+        retained.remove(id);
+        if (keep != head) {
+            retained.add(id);
+        }
+    }
+
+    // Revisit the chains that have waited longest
+    private void reclaim(int limit) {
+        Iterator<String> oldest = retained.iterator();
+        List<String> due = new ArrayList<>(limit);
+        while (due.size() < limit && oldest.hasNext()) {
+            due.add(oldest.next());
+        }
+        for (String id : due) {
+            prune(id);
+        }
+    }
+
+    /**
+     * Cut every version that no open snapshot can see, e.g. once readers are
+     * done and no writes are coming to reclaim them gradually.
+     */
+    public synchronized void reclaim() {
+        reclaim(retained.size());
+    }
+
+    /**
+     * The restaurant with an id as of a version, or null if it did not exist then.
+     */
+    Restaurant find(String id, long version) {
+        Version visible = visible(chains.get(id), version);
+        return visible != null ? visible.restaurant : null;
+    }
+
+    /**
+     * Every restaurant existing as of a version, by repository ordinal.
+     */
+    List<Restaurant> findAll(long version) {
+        // Live restaurants of one version hold distinct ordinals, all below the limit
+        Restaurant[] byOrdinal = new Restaurant[ordinalLimit];
+        int count = 0;
+        for (Version head : chains.values()) {
+            Version visible = visible(head, version);
+            if (visible != null && visible.restaurant != null) {
+                byOrdinal[visible.ordinal] = visible.restaurant;
+                count++;
+            }
+        }
+        List<Restaurant> restaurants = new ArrayList<>(count);
+        for (Restaurant restaurant : byOrdinal) {
+            if (restaurant != null) {
+                restaurants.add(restaurant);
+            }
+        }
+        return restaurants;
+    }
+
+    private static Version visible(Version head, long version) {
+        Version v = head;
+        while (v != null && v.version > version) {
+            v = v.previous;
+        }
+        return v;
+    }
+
+    /**
+     * Deep copy through the codec. Cities and districts share one instance per
+     * value, as the codec's term tables do, so scans of many frozen copies
+     * compare the same few strings.
+     */
+    private Restaurant freeze(Restaurant restaurant) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        Restaurant frozen;
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            RestaurantCodec.writeRestaurant(out, restaurant);
+            out.flush();
+            frozen = RestaurantCodec.readRestaurant(new ByteBufferInput(bytes.toByteArray()), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Location location = frozen.getLocation();
+        if (location != null) {
+            location.setCity(term(location.getCity()));
+            location.setDistrict(term(location.getDistrict()));
+        }
+        return frozen;
+    }
+
+    private String term(String value) {
+        return value == null ? null : terms.computeIfAbsent(value, v -> v);
+    }
+
+    private static Review freeze(Review review) {
+        Review copy = new Review(review.getId(), review.getRestaurantId(), review.getRating(), review.getComment());
+        copy.setUserId(review.getUserId());
+        copy.setUserName(review.getUserName());
+        copy.setCreatedAt(review.getCreatedAt());
+        copy.setUpdatedAt(review.getUpdatedAt());
+        copy.setHelpfulCount(review.getHelpfulCount());
+        copy.setVerified(review.isVerified());
+        copy.setUserLevel(review.getUserLevel());
+        return copy;
+    }
+
+    private static final class Version {
+        private final long version;
+        private final Restaurant restaurant; // null for a deletion
+        private final int ordinal;
+        private volatile Version previous; // older version, cut when no snapshot can see it
+
+        Version(long version, Restaurant restaurant, int ordinal, Version previous) {
+            this.version = version;
+            this.restaurant = restaurant;
+            this.ordinal = ordinal;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package org.example.restaurant.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, checksummed log of binary records on a {@link FileChannel}.
+ * <p>
+ * Record layout: payload length (int), CRC32 of type and payload (int), type (byte), payload.
+ * Records are staged in an in-memory buffer and written in large chunks.
+ * Writers that need durability share fsyncs: the first writer to find no sync in
+ * progress forces the channel for every record staged so far, and the others wait
+ * for it (group commit).
+ * <p>
+ * Opening a log checks every record. A bad record that runs to the end of
+ * the file, or is followed only by zeros, is a tail torn by a crash mid-write
+ * and is truncated away; a bad record anywhere else fails the open, since
+ * dropping it would silently lose the records after it.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+
+    /**
+     * When an append is considered done.
+     */
+    public enum Durability {
+        /** Append returns once its record is fsynced; concurrent appends share one fsync. */
+        PER_WRITE,
+        /** Append returns once its record is written to the OS; fsync runs every flush interval. */
+        BATCHED,
+        /** Append returns once its record is buffered; write and fsync run every flush interval. */
+        ASYNC
+    }
+
+    /**
+     * Receives records in log order during replay.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void onRecord(byte type, ByteBuffer payload) throws IOException;
+    }
+
+    private static final int MAGIC = 0x5257414C; // "RWAL"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by lock
+    private final ByteBuffer buffer;
+    private long appendedSeq; // records staged
+    private long durableSeq; // records known to be fsynced
+    private boolean syncing;
+    private boolean closed;
+
+    private WriteAheadLog(FileChannel channel, Durability durability, int bufferSize, long flushIntervalMillis) {
+        this.channel = channel;
+        this.durability = durability;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        if (durability == Durability.PER_WRITE) {
+            this.flusher = null;
+        } else {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Open or create a log with a 1 MB staging buffer and the default flush interval.
+     */
+    public static WriteAheadLog open(Path file, Durability durability) throws IOException {
+        return open(file, durability, 1 << 20, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public static WriteAheadLog open(Path file, Durability durability, int bufferSize, long flushIntervalMillis)
+            throws IOException {
+        if (durability == null) {
+            throw new IllegalArgumentException("Durability cannot be null");
+        }
+        if (bufferSize < 4096) {
+            throw new IllegalArgumentException("Buffer size must be at least 4096 bytes");
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, channel.size());
+                }
+                channel.force(true);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+                readFully(channel, header, 0);
+                header.flip();
+                if (header.remaining() < FILE_HEADER_SIZE || header.getInt() != MAGIC) {
+                    throw new IOException("Not a write-ahead log: " + file);
+                }
+                int version = header.getInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported write-ahead log version: " + version);
+                }
+                long end = scan(channel, null);
+                if (end < channel.size()) {
+                    channel.truncate(end);
+                    channel.force(true);
+                }
+            }
+            channel.position(channel.size());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return new WriteAheadLog(channel, durability, bufferSize, flushIntervalMillis);
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Read every record in order, including those appended since the log was opened.
+     *
+     * @return the number of records replayed
+     */
+    public long replay(RecordHandler handler) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            drainBuffer();
+            long[] count = new long[1];
+            scan(channel, (type, payload) -> {
+                handler.onRecord(type, payload);
+                count[0]++;
+            });
+            return count[0];
+        }
+    }
+
+    /**
+     * Pass the records of a log to a handler, which may be null, up to a torn tail.
+     *
+     * @return the position after the last intact record
+     * @throws IOException if a bad record is followed by anything but zeros
+     */
+    private static long scan(FileChannel channel, RecordHandler handler) throws IOException {
+        long position = FILE_HEADER_SIZE;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        CRC32 check = new CRC32();
+        while (position + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            byte type = header.get();
+            long end = position + RECORD_HEADER_SIZE + length;
+            if (length < 0 || length > MAX_RECORD_SIZE) {
+                return tornTail(channel, position, position + RECORD_HEADER_SIZE, size);
+            }
+            if (end > size) {
+                return position; // Torn tail
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + RECORD_HEADER_SIZE);
+            payload.flip();
+            check.reset();
+            check.update(type);
+            check.update(payload.duplicate());
+            if ((int) check.getValue() != checksum) {
+                return tornTail(channel, position, end, size);
+            }
+            if (handler != null) {
+                handler.onRecord(type, payload);
+            }
+            position = end;
+        }
+        return position;
+    }
+
+    // A bad record at position is a torn tail only if nothing but zeros follows it
+    private static long tornTail(FileChannel channel, long position, long end, long size) throws IOException {
+        ByteBuffer rest = ByteBuffer.allocate(8192);
+        for (long offset = end; offset < size; offset += rest.limit()) {
+            rest.clear();
+            rest.limit((int) Math.min(rest.capacity(), size - offset));
+            readFully(channel, rest, offset);
+            for (int i = 0; i < rest.limit(); i++) {
+                if (rest.get(i) != 0) {
+                    throw new IOException("Corrupt write-ahead log record at offset " + position);
+                }
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Append a record; returns once the configured durability is reached.
+     */
+    public void append(byte type, byte[] payload) {
+        if (payload.length > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Record too large: " + payload.length + " bytes");
+        }
+        long seq;
+        synchronized (lock) {
+            ensureOpen();
+            crc.reset();
+            crc.update(type);
+            crc.update(payload);
+            int size = RECORD_HEADER_SIZE + payload.length;
+            try {
+                if (buffer.remaining() < size) {
+                    drainBuffer();
+                }
+                if (buffer.remaining() < size) {
+                    ByteBuffer record = ByteBuffer.allocate(size);
+                    putRecord(record, type, payload);
+                    record.flip();
+                    writeFully(record);
+                } else {
+                    putRecord(buffer, type, payload);
+                }
+                if (durability == Durability.BATCHED) {
+                    drainBuffer();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            seq = ++appendedSeq;
+        }
+        if (durability == Durability.PER_WRITE) {
+            awaitDurable(seq);
+        }
+    }
+
+    /**
+     * Write and fsync every record appended so far.
+     */
+    public void sync() {
+        long seq;
+        synchronized (lock) {
+            ensureOpen();
+            seq = appendedSeq;
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+        }
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            channel.close();
+        }
+    }
+
+    // Leader/follower group commit: one writer forces, the others wait for its result
+    private void awaitDurable(long seq) {
+        while (true) {
+            long target;
+            synchronized (lock) {
+                while (durableSeq < seq && syncing) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for log sync", e);
+                    }
+                }
+                if (durableSeq >= seq) {
+                    return;
+                }
+                ensureOpen();
+                syncing = true;
+                target = appendedSeq;
+                try {
+                    drainBuffer();
+                } catch (IOException e) {
+                    syncing = false;
+                    lock.notifyAll();
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            IOException failure = null;
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+            }
+            synchronized (lock) {
+                syncing = false;
+                if (failure == null) {
+                    durableSeq = Math.max(durableSeq, target);
+                }
+                lock.notifyAll();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            // Closed or failing disk; the next explicit sync reports it
+        }
+    }
+
+    private void putRecord(ByteBuffer target, byte type, byte[] payload) {
+        target.putInt(payload.length);
+        target.putInt((int) crc.getValue());
+        target.put(type);
+        target.put(payload);
+    }
+
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        try {
+            writeFully(buffer);
+        } finally {
+            // Keeps whatever a failed write left unwritten, ready for the next attempt
+            buffer.compact();
+        }
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                break;
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.restaurant.service;
 
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.Timer;
 import org.example.restaurant.model.BusinessHours;
 import org.example.restaurant.model.Restaurant;
 
@@ -44,6 +46,9 @@ public class BusinessHoursService {
         HOLIDAYS.add(LocalDate.of(2025, 2, 1));
     }
 
+    private final Timer findOpenRestaurantsTimer = Metrics.timer("hours.findOpenRestaurants");
+    private final Timer findClosingSoonTimer = Metrics.timer("hours.findClosingSoon");
+
     /**
      * Check if a restaurant is open now.
      * v(G) = ~8
@@ -76,16 +81,8 @@ public class BusinessHoursService {
             return false;
         }
 
-        // Check regular hours
-        DayOfWeek day = dateTime.getDayOfWeek();
-        BusinessHours.TimeSlot slot = hours.getHours(day);
-
-        if (slot == null) {
-            return false;
-        }
-
-        LocalTime time = dateTime.toLocalTime();
-        return slot.contains(time);
+        // Check regular hours (any time slot of the day)
+        return hours.contains(dateTime.getDayOfWeek(), dateTime.toLocalTime());
     }
 
     /**
@@ -123,6 +120,16 @@ public class BusinessHoursService {
      */
     public List<Restaurant> findOpenRestaurants(List<Restaurant> restaurants,
             LocalDateTime dateTime) {
+        long start = findOpenRestaurantsTimer.start();
+        try {
+            return doFindOpenRestaurants(restaurants, dateTime);
+        } finally {
+            findOpenRestaurantsTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doFindOpenRestaurants(List<Restaurant> restaurants,
+            LocalDateTime dateTime) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -183,21 +190,12 @@ public class BusinessHoursService {
             }
 
             DayOfWeek day = date.getDayOfWeek();
-            BusinessHours.TimeSlot slot = hours.getHours(day);
 
-            if (slot == null) {
-                continue;
-            }
+            // Same day - only slots opening in the future
+            LocalTime openTime = hours.getNextOpeningAfter(day, i == 0 ? from.toLocalTime() : null);
 
-            LocalDateTime openTime = LocalDateTime.of(date, slot.getOpenTime());
-
-            if (i == 0) {
-                // Same day - only if opening time is in the future
-                if (openTime.isAfter(from)) {
-                    return openTime;
-                }
-            } else {
-                return openTime;
+            if (openTime != null) {
+                return LocalDateTime.of(date, openTime);
             }
         }
 
@@ -205,8 +203,8 @@ public class BusinessHoursService {
     }
 
     /**
-     * Get closing time for today.
-     * v(G) = ~6
+     * Get the last closing time for today; for split shifts, the close of the last slot.
+     * v(G) = ~4
      */
     public LocalTime getClosingTimeToday(Restaurant restaurant) {
         if (restaurant == null) {
@@ -218,35 +216,36 @@ public class BusinessHoursService {
             return null;
         }
 
-        DayOfWeek today = LocalDate.now().getDayOfWeek();
-        BusinessHours.TimeSlot slot = hours.getHours(today);
-
-        if (slot == null) {
-            return null;
-        }
-
-        return slot.getCloseTime();
+        return hours.getLastClosingTime(LocalDate.now().getDayOfWeek());
     }
 
     /**
      * Check if restaurant is closing soon (within minutes).
-     * v(G) = ~8
      */
     public boolean isClosingSoon(Restaurant restaurant, int withinMinutes) {
-        if (restaurant == null || withinMinutes <= 0) {
+        return isClosingSoon(restaurant, withinMinutes, LocalDateTime.now());
+    }
+
+    /**
+     * Check if restaurant is closing within minutes of a time, measured to the
+     * close of the time slot it is open in.
+     * v(G) = ~8
+     */
+    public boolean isClosingSoon(Restaurant restaurant, int withinMinutes, LocalDateTime dateTime) {
+        if (restaurant == null || withinMinutes <= 0 || dateTime == null) {
             return false;
         }
 
-        if (!isOpenNow(restaurant)) {
+        if (!isOpenAt(restaurant, dateTime)) {
             return false;
         }
 
-        LocalTime closingTime = getClosingTimeToday(restaurant);
+        LocalTime now = dateTime.toLocalTime();
+        LocalTime closingTime = restaurant.getBusinessHours().getClosingTime(dateTime.getDayOfWeek(), now);
         if (closingTime == null) {
             return false;
         }
 
-        LocalTime now = LocalTime.now();
         LocalTime threshold = now.plusMinutes(withinMinutes);
 
         // Handle overnight closing (simplified for same-day checks)
@@ -273,6 +272,15 @@ public class BusinessHoursService {
      * v(G) = ~4
      */
     public List<Restaurant> findClosingSoon(List<Restaurant> restaurants, int withinMinutes) {
+        long start = findClosingSoonTimer.start();
+        try {
+            return doFindClosingSoon(restaurants, withinMinutes);
+        } finally {
+            findClosingSoonTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doFindClosingSoon(List<Restaurant> restaurants, int withinMinutes) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -299,7 +307,7 @@ public class BusinessHoursService {
 
         int count = 0;
         for (DayOfWeek day : DayOfWeek.values()) {
-            if (hours.getHours(day) != null) {
+            if (hours.isOpenOn(day)) {
                 count++;
             }
         }
@@ -335,8 +343,8 @@ public class BusinessHoursService {
     }
 
     /**
-     * Check if restaurant is open 24 hours on a day.
-     * v(G) = ~5
+     * Check if restaurant is open 24 hours on a day, in one slot or in touching ones.
+     * v(G) = ~4
      */
     public boolean is24Hours(Restaurant restaurant, DayOfWeek day) {
         if (restaurant == null || day == null) {
@@ -348,13 +356,8 @@ public class BusinessHoursService {
             return false;
         }
 
-        BusinessHours.TimeSlot slot = hours.getHours(day);
-        if (slot == null) {
-            return false;
-        }
-
-        return slot.getOpenTime().equals(LocalTime.MIDNIGHT)
-                && slot.getCloseTime().equals(LocalTime.of(23, 59));
+        // Open from 00:00 through 23:59; touching slots are merged when added
+        return hours.getOpenMinutes(day) >= 24 * 60 - 1;
     }
 
     /**
@@ -371,28 +374,13 @@ public class BusinessHoursService {
             return 0.0;
         }
 
-        double totalHours = 0.0;
+        // Sum all time slots; overnight slots are already split at midnight
+        int totalMinutes = 0;
 
         for (DayOfWeek day : DayOfWeek.values()) {
-            BusinessHours.TimeSlot slot = hours.getHours(day);
-            if (slot != null && slot.getOpenTime() != null && slot.getCloseTime() != null) {
-                LocalTime open = slot.getOpenTime();
-                LocalTime close = slot.getCloseTime();
-
-                // Calculate hours
-                double hoursOpen;
-                if (close.isBefore(open)) {
-                    // Overnight - e.g., 22:00 to 02:00
-                    hoursOpen = (24 - open.getHour()) + close.getHour();
-                } else {
-                    hoursOpen = close.getHour() - open.getHour();
-                    hoursOpen += (close.getMinute() - open.getMinute()) / 60.0;
-                }
-
-                totalHours += hoursOpen;
-            }
+            totalMinutes += hours.getOpenMinutes(day);
         }
 
-        return Math.round(totalHours * 10.0) / 10.0;
+        return Math.round(totalMinutes / 60.0 * 10.0) / 10.0;
     }
 }
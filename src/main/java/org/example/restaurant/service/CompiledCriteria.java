@@ -0,0 +1,255 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.SearchCriteria;
+
+import java.time.LocalDateTime;
+
+/**
+ * Search criteria compiled into a per-restaurant test. Both
+ * {@link RestaurantSearchService#searchByMultipleCriteria} and the shared scan
+ * of {@link RestaurantSearchService#searchAll} filter through it, so the
+ * filter rules live only here. Values derived from a restaurant are computed
+ * at most once per pass through {@link Row} and shared by every query tested
+ * against it.
+ */
+final class CompiledCriteria {
+
+    private final String keyword;
+    private final String city;
+    private final String district;
+    private final CuisineType cuisineType;
+    private final CuisineType[] cuisineTypes; // null without a cuisine set filter
+    private final boolean ratingFilter;
+    private final Double minRating;
+    private final Double maxRating;
+    private final int priceLevel; // 0 without a price level filter
+    private final boolean priceRangeFilter;
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final boolean openNow;
+    private final boolean delivery;
+    private final boolean takeout;
+    private final boolean parking;
+    private final boolean reservations;
+    private final Location userLocation; // null without a location filter
+    private final double radiusKm;
+
+    private CompiledCriteria(SearchCriteria criteria) {
+        this.keyword = lowerTrimmed(criteria.getKeyword());
+        this.city = lowerTrimmed(criteria.getCity());
+        this.district = lowerTrimmed(criteria.getDistrict());
+        this.cuisineType = criteria.getCuisineType();
+        this.cuisineTypes = criteria.getCuisineTypes() != null && !criteria.getCuisineTypes().isEmpty()
+                ? criteria.getCuisineTypes().toArray(new CuisineType[0])
+                : null;
+        this.ratingFilter = criteria.hasRatingFilter();
+        this.minRating = criteria.getMinRating();
+        this.maxRating = criteria.getMaxRating();
+        // Levels outside 1-4 filter nothing, as in PriceAnalyzer.filterByPriceLevel
+        Integer level = criteria.getPriceLevel();
+        this.priceLevel = level != null && level >= 1 && level <= 4 ? level : 0;
+        this.priceRangeFilter = level == null && criteria.hasPriceFilter();
+        this.minPrice = criteria.getMinPrice();
+        this.maxPrice = criteria.getMaxPrice();
+        this.openNow = Boolean.TRUE.equals(criteria.getOpenNow());
+        this.delivery = Boolean.TRUE.equals(criteria.getHasDelivery());
+        this.takeout = Boolean.TRUE.equals(criteria.getHasTakeout());
+        this.parking = Boolean.TRUE.equals(criteria.getHasParking());
+        this.reservations = Boolean.TRUE.equals(criteria.getAcceptsReservations());
+        this.userLocation = criteria.hasLocationFilter()
+                ? new Location(criteria.getLatitude(), criteria.getLongitude())
+                : null;
+        this.radiusKm = criteria.hasLocationFilter() ? criteria.getRadiusKm() : 0;
+    }
+
+    static CompiledCriteria compile(SearchCriteria criteria) {
+        if (criteria == null) {
+            throw new IllegalArgumentException("Criteria cannot be null");
+        }
+        return new CompiledCriteria(criteria);
+    }
+
+    private static String lowerTrimmed(String text) {
+        return text == null || text.trim().isEmpty() ? null : text.trim().toLowerCase();
+    }
+
+    boolean hasLocationFilter() {
+        return userLocation != null;
+    }
+
+    /**
+     * Test the current restaurant of a row.
+     */
+    boolean matches(Row row) {
+        return rejectedBy(row) == null;
+    }
+
+    /**
+     * The first stage, in pipeline order, that filters out the current
+     * restaurant of a row, or null if it matches.
+     * v(G) = ~24
+     */
+    FilterStage rejectedBy(Row row) {
+        Restaurant r = row.restaurant;
+        if (!r.isActive()) {
+            return FilterStage.ACTIVE;
+        }
+        if (keyword != null && !r.matchesKeyword(keyword)) {
+            return FilterStage.KEYWORD;
+        }
+        if (city != null && !contains(row.city(), city)) {
+            return FilterStage.CITY;
+        }
+        if (district != null && !contains(row.district(), district)) {
+            return FilterStage.DISTRICT;
+        }
+        if (cuisineType != null && !r.hasCuisineType(cuisineType)) {
+            return FilterStage.CUISINE;
+        }
+        if (cuisineTypes != null && !hasAnyCuisine(r)) {
+            return FilterStage.CUISINES;
+        }
+        if (ratingFilter) {
+            double rating = row.rating();
+            if (minRating != null && rating < minRating || maxRating != null && rating > maxRating) {
+                return FilterStage.RATING;
+            }
+        }
+        if (priceLevel > 0 && row.priceLevel() != priceLevel || priceRangeFilter && !inPriceRange(row)) {
+            return FilterStage.PRICE;
+        }
+        if (openNow && !row.openNow()) {
+            return FilterStage.OPEN_NOW;
+        }
+        if (delivery && !r.isHasDelivery()) {
+            return FilterStage.DELIVERY;
+        }
+        if (takeout && !r.isHasTakeout()) {
+            return FilterStage.TAKEOUT;
+        }
+        if (parking && !r.isHasParking()) {
+            return FilterStage.PARKING;
+        }
+        if (reservations && !r.isAcceptsReservations()) {
+            return FilterStage.RESERVATIONS;
+        }
+        if (userLocation != null && (r.getLocation() == null
+                || row.recommendationService.calculateDistance(userLocation, r.getLocation()) > radiusKm)) {
+            return FilterStage.LOCATION;
+        }
+        return null;
+    }
+
+    private static boolean contains(String value, String part) {
+        return value != null && value.contains(part);
+    }
+
+    private boolean hasAnyCuisine(Restaurant r) {
+        for (CuisineType type : cuisineTypes) {
+            if (r.hasCuisineType(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same rules as PriceAnalyzer.filterByPriceRange
+    private boolean inPriceRange(Row row) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return false;
+        }
+        double price = row.effectivePrice();
+        return price > 0 && (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice);
+    }
+
+    /**
+     * One restaurant of a pass, with its derived values computed on first use.
+     * A row is reused for every restaurant of the pass.
+     */
+    static final class Row {
+        private final RatingService ratingService;
+        private final PriceAnalyzer priceAnalyzer;
+        private final BusinessHoursService businessHoursService;
+        private final RecommendationService recommendationService;
+        private final LocalDateTime now;
+
+        private Restaurant restaurant;
+        private String city;
+        private String district;
+        private boolean located;
+        private double rating;
+        private double effectivePrice;
+        private int priceLevel;
+        private int open; // -1 unknown, 0 closed, 1 open
+
+        Row(RatingService ratingService, PriceAnalyzer priceAnalyzer, BusinessHoursService businessHoursService,
+                RecommendationService recommendationService, LocalDateTime now) {
+            this.ratingService = ratingService;
+            this.priceAnalyzer = priceAnalyzer;
+            this.businessHoursService = businessHoursService;
+            this.recommendationService = recommendationService;
+            this.now = now;
+        }
+
+        void reset(Restaurant restaurant) {
+            this.restaurant = restaurant;
+            this.located = false;
+            this.rating = Double.NaN;
+            this.effectivePrice = Double.NaN;
+            this.priceLevel = -1;
+            this.open = -1;
+        }
+
+        private void locate() {
+            if (!located) {
+                Location location = restaurant.getLocation();
+                city = location != null && location.getCity() != null ? location.getCity().toLowerCase() : null;
+                district = location != null && location.getDistrict() != null
+                        ? location.getDistrict().toLowerCase()
+                        : null;
+                located = true;
+            }
+        }
+
+        String city() {
+            locate();
+            return city;
+        }
+
+        String district() {
+            locate();
+            return district;
+        }
+
+        double rating() {
+            if (Double.isNaN(rating)) {
+                rating = ratingService.calculateAverageRating(restaurant);
+            }
+            return rating;
+        }
+
+        double effectivePrice() {
+            if (Double.isNaN(effectivePrice)) {
+                effectivePrice = priceAnalyzer.getEffectivePrice(restaurant);
+            }
+            return effectivePrice;
+        }
+
+        int priceLevel() {
+            if (priceLevel < 0) {
+                priceLevel = priceAnalyzer.categorizePriceLevel(restaurant);
+            }
+            return priceLevel;
+        }
+
+        boolean openNow() {
+            if (open < 0) {
+                open = businessHoursService.isOpenAt(restaurant, now) ? 1 : 0;
+            }
+            return open == 1;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.SearchCriteria;
+
+import java.util.function.Predicate;
+
+/**
+ * Filter stages of {@link RestaurantSearchService#searchByMultipleCriteria}
+ * and the criteria that enable them, in the order {@link CompiledCriteria}
+ * applies them. Candidate counts are recorded as
+ * {@code search.criteria.<stage>.in} and {@code .out}.
+ */
+enum FilterStage {
+    ACTIVE(c -> true),
+    KEYWORD(c -> c.getKeyword() != null && !c.getKeyword().trim().isEmpty()),
+    CITY(c -> c.getCity() != null && !c.getCity().trim().isEmpty()),
+    DISTRICT(c -> c.getDistrict() != null && !c.getDistrict().trim().isEmpty()),
+    CUISINE(c -> c.getCuisineType() != null),
+    CUISINES(c -> c.getCuisineTypes() != null && !c.getCuisineTypes().isEmpty()),
+    RATING(SearchCriteria::hasRatingFilter),
+    PRICE(SearchCriteria::hasPriceFilter),
+    OPEN_NOW(c -> Boolean.TRUE.equals(c.getOpenNow())),
+    DELIVERY(c -> Boolean.TRUE.equals(c.getHasDelivery())),
+    TAKEOUT(c -> Boolean.TRUE.equals(c.getHasTakeout())),
+    PARKING(c -> Boolean.TRUE.equals(c.getHasParking())),
+    RESERVATIONS(c -> Boolean.TRUE.equals(c.getAcceptsReservations())),
+    LOCATION(SearchCriteria::hasLocationFilter);
+
+    private final Predicate<SearchCriteria> condition;
+
+    FilterStage(Predicate<SearchCriteria> condition) {
+        this.condition = condition;
+    }
+
+    boolean appliesTo(SearchCriteria criteria) {
+        return condition.test(criteria);
+    }
+}
@@ -3,6 +3,7 @@ package org.example.restaurant.service;
 import org.example.restaurant.exception.ValidationException;
 import org.example.restaurant.model.*;
 
+import java.time.DayOfWeek;
 import java.util.List;
 
 /**
@@ -240,24 +241,31 @@ public class InputValidator {
 
     /**
      * Validates business hours.
-     * v(G) = ~8
+     * v(G) = ~9
      */
     public void validateBusinessHours(BusinessHours hours) {
         if (hours == null) {
             throw new ValidationException("Business hours cannot be null", "businessHours");
         }
 
-        if (hours.getWeeklyHours() != null) {
-            for (var entry : hours.getWeeklyHours().entrySet()) {
-                BusinessHours.TimeSlot slot = entry.getValue();
-                if (slot != null) {
-                    if (slot.getOpenTime() == null) {
-                        throw new ValidationException("Open time is required", "openTime");
-                    }
-                    if (slot.getCloseTime() == null) {
-                        throw new ValidationException("Close time is required", "closeTime");
-                    }
+        // Validate packed time slots: sorted, non-overlapping minute offsets within a day
+        for (DayOfWeek day : DayOfWeek.values()) {
+            short[] slots = hours.getPackedSlots(day);
+            if (slots == null) {
+                continue;
+            }
+            if (slots.length % 2 != 0) {
+                throw new ValidationException("Time slots must have an open and close time", "timeSlots");
+            }
+            int previousClose = -1;
+            for (int i = 0; i < slots.length; i += 2) {
+                if (slots[i] < 0 || slots[i + 1] > 24 * 60 || slots[i] > slots[i + 1]) {
+                    throw new ValidationException("Time slot is out of range", "timeSlots");
+                }
+                if (slots[i] <= previousClose) {
+                    throw new ValidationException("Time slots cannot overlap", "timeSlots");
                 }
+                previousClose = slots[i + 1];
             }
         }
     }
@@ -0,0 +1,482 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.jfr.IndexBuildEvent;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+import org.example.restaurant.repository.IdDictionary;
+import org.example.restaurant.repository.RepositoryListener;
+import org.example.restaurant.repository.RestaurantRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Item-item collaborative filtering model built from review co-occurrence:
+ * two restaurants are related when the same users rated both highly.
+ * Restaurant and user ids are interned to dense ints; each restaurant keeps a
+ * capped, primitive-keyed adjacency table of co-occurrence counts, and related
+ * restaurants are ranked by cosine similarity of their "liked by" sets.
+ * When a table is full, a pair outside it is counted in a small sketch and only
+ * replaces the weakest pair once its estimate is higher, so rare pairs cannot
+ * push out established ones while a recurring pair still gets in.
+ * <p>
+ * {@link #attach} keeps a model in step with a repository's reviews. Deleted
+ * restaurants keep their likes; the candidates passed to the recommendation
+ * service decide what is recommended.
+ */
+public final class ItemCooccurrenceModel implements RepositoryListener {
+
+    public static final int LIKE_THRESHOLD = 4;
+    public static final int DEFAULT_MAX_NEIGHBOURS = 50;
+    // Only the most recent likes of a user are paired with a new like
+    static final int MAX_USER_HISTORY = 500;
+
+    private final int maxNeighbours;
+    private final IdDictionary restaurantIds = new IdDictionary();
+    private final IdDictionary userIds = new IdDictionary();
+    private final List<Adjacency> adjacency = new ArrayList<>();
+    private final List<int[]> userLikes = new ArrayList<>(); // packed: [0] = length, then item ordinals
+    // Packed sorted sets, [0] = size: every restaurant a user liked, and every one they rated
+    private final List<int[]> userLiked = new ArrayList<>();
+    private final List<int[]> userRated = new ArrayList<>();
+    private int[] likeCounts = new int[16];
+
+    public ItemCooccurrenceModel() {
+        this(DEFAULT_MAX_NEIGHBOURS);
+    }
+
+    public ItemCooccurrenceModel(int maxNeighbours) {
+        this.maxNeighbours = maxNeighbours > 0 ? maxNeighbours : DEFAULT_MAX_NEIGHBOURS;
+    }
+
+    /**
+     * Build a model from the reviews of a list of restaurants.
+     */
+    public static ItemCooccurrenceModel fromRestaurants(List<Restaurant> restaurants) {
+        List<Review> reviews = new ArrayList<>();
+        if (restaurants != null) {
+            for (Restaurant r : restaurants) {
+                if (r != null && r.getReviews() != null) {
+                    reviews.addAll(r.getReviews());
+                }
+            }
+        }
+        return build(reviews, null, DEFAULT_MAX_NEIGHBOURS);
+    }
+
+    /**
+     * Build a model from the reviews in a repository and follow its new reviews.
+     */
+    public static ItemCooccurrenceModel attach(RestaurantRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        ItemCooccurrenceModel model = fromRestaurants(repository.findAll());
+        repository.addListener(model);
+        return model;
+    }
+
+    /**
+     * Build a model from a batch of reviews. Likes are grouped per user first;
+     * the pair counting is then sharded by restaurant ordinal across the pool,
+     * so every adjacency table is written by a single worker.
+     *
+     * @param pool pool used for the pair counting, or null to count sequentially
+     */
+    public static ItemCooccurrenceModel build(Collection<Review> reviews, ForkJoinPool pool, int maxNeighbours) {
+        ItemCooccurrenceModel model = new ItemCooccurrenceModel(maxNeighbours);
+        if (reviews == null || reviews.isEmpty()) {
+            return model;
+        }
+        IndexBuildEvent event = new IndexBuildEvent();
+        event.begin();
+
+        for (Review review : reviews) {
+            if (isRating(review)) {
+                int user = model.internUser(review.getUserId());
+                int item = model.internRestaurant(review.getRestaurantId());
+                model.markRated(user, item);
+                if (isLike(review) && model.markLiked(user, item)) {
+                    model.appendLike(user, item);
+                }
+            }
+        }
+
+        int[][] likes = new int[model.userLikes.size()][];
+        for (int u = 0; u < likes.length; u++) {
+            int[] packed = model.userLikes.get(u);
+            likes[u] = Arrays.copyOfRange(packed, 1, 1 + packed[0]);
+        }
+
+        int items = model.adjacency.size();
+        if (pool == null) {
+            countPairs(model, likes, 0, 1);
+        } else {
+            int shards = Math.min(items, pool.getParallelism() * 4);
+            pool.submit(() -> IntStream.range(0, shards)
+                    .parallel()
+                    .forEach(shard -> countPairs(model, likes, shard, shards)))
+                    .join();
+        }
+        event.emit("item-cooccurrence", reviews.size());
+        return model;
+    }
+
+    // Count the pairs whose first item belongs to the given shard
+    private static void countPairs(ItemCooccurrenceModel model, int[][] likes, int shard, int shards) {
+        for (int[] items : likes) {
+            for (int x : items) {
+                if (x % shards != shard) {
+                    continue;
+                }
+                Adjacency table = model.adjacency.get(x);
+                for (int y : items) {
+                    if (y != x) {
+                        table.increment(y, Math.min(model.likeCounts[x], model.likeCounts[y]));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Record a new review; a high rating updates the co-occurrence counts with
+     * the user's earlier likes. A user's later likes of the same restaurant are
+     * not counted again.
+     */
+    public synchronized void addReview(Review review) {
+        if (!isRating(review)) {
+            return;
+        }
+        int user = internUser(review.getUserId());
+        int item = internRestaurant(review.getRestaurantId());
+        markRated(user, item);
+        if (!isLike(review) || !markLiked(user, item)) {
+            return;
+        }
+        int[] history = userLikes.get(user);
+        for (int i = 1; i <= history[0]; i++) {
+            int bound = Math.min(likeCounts[item] + 1, likeCounts[history[i]]);
+            adjacency.get(item).increment(history[i], bound);
+            adjacency.get(history[i]).increment(item, bound);
+        }
+        appendLike(user, item);
+    }
+
+    /**
+     * A saved restaurant's reviews; reviews already recorded change nothing.
+     */
+    @Override
+    public void onSave(Restaurant restaurant, int ordinal) {
+        for (Review review : restaurant.getReviews()) {
+            addReview(review);
+        }
+    }
+
+    @Override
+    public void onReviewAdded(Restaurant restaurant, Review review, int ordinal) {
+        addReview(review);
+    }
+
+    @Override
+    public void onDelete(String id, int ordinal) {
+        // Likes of a deleted restaurant still relate the restaurants liked with it
+    }
+
+    @Override
+    public synchronized void onClear() {
+        restaurantIds.clear();
+        userIds.clear();
+        adjacency.clear();
+        userLikes.clear();
+        userLiked.clear();
+        userRated.clear();
+        likeCounts = new int[16];
+    }
+
+    /**
+     * Restaurants most related to a restaurant, best first.
+     */
+    public synchronized List<String> relatedRestaurants(String restaurantId, int limit) {
+        int item = restaurantIds.ordinalOf(restaurantId);
+        if (item < 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Adjacency table = adjacency.get(item);
+        List<long[]> scored = new ArrayList<>(); // [similarity bits, ordinal]
+        for (int slot = 0; slot < table.keys.length; slot++) {
+            if (table.keys[slot] != 0) {
+                int other = table.keys[slot] - 1;
+                double similarity = cosine(table.counts[slot], item, other);
+                scored.add(new long[] { Double.doubleToLongBits(similarity), other });
+            }
+        }
+        scored.sort((a, b) -> {
+            int cmp = Double.compare(Double.longBitsToDouble(b[0]), Double.longBitsToDouble(a[0]));
+            return cmp != 0 ? cmp : restaurantIds.idOf((int) a[1]).compareTo(restaurantIds.idOf((int) b[1]));
+        });
+
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(Math.min(limit, maxNeighbours), scored.size()); i++) {
+            result.add(restaurantIds.idOf((int) scored.get(i)[1]));
+        }
+        return result;
+    }
+
+    /**
+     * Summed similarity of each restaurant to the restaurants a user rated highly,
+     * leaving out the restaurants the user has already rated.
+     * Returns an empty map for unknown users.
+     */
+    public synchronized Map<String, Double> affinities(String userId) {
+        Map<String, Double> result = new HashMap<>();
+        int user = userIds.ordinalOf(userId);
+        if (user < 0) {
+            return result;
+        }
+
+        int[] history = userLikes.get(user);
+        int[] rated = userRated.get(user);
+        for (int i = 1; i <= history[0]; i++) {
+            int liked = history[i];
+            Adjacency table = adjacency.get(liked);
+            for (int slot = 0; slot < table.keys.length; slot++) {
+                int other = table.keys[slot] - 1;
+                if (other >= 0 && !contains(rated, other)) {
+                    result.merge(restaurantIds.idOf(other), cosine(table.counts[slot], liked, other), Double::sum);
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized int restaurantCount() {
+        return adjacency.size();
+    }
+
+    public synchronized int userCount() {
+        return userLikes.size();
+    }
+
+    public synchronized int likeCount(String restaurantId) {
+        int item = restaurantIds.ordinalOf(restaurantId);
+        return item < 0 ? 0 : likeCounts[item];
+    }
+
+    private static boolean isRating(Review review) {
+        return review != null && review.getUserId() != null && review.getRestaurantId() != null;
+    }
+
+    private static boolean isLike(Review review) {
+        return review.getRating() >= LIKE_THRESHOLD;
+    }
+
+    private double cosine(int count, int a, int b) {
+        return count / Math.sqrt((double) likeCounts[a] * likeCounts[b]);
+    }
+
+    private int internRestaurant(String restaurantId) {
+        int item = restaurantIds.intern(restaurantId);
+        if (item == adjacency.size()) {
+            adjacency.add(new Adjacency(maxNeighbours * 4));
+            if (item == likeCounts.length) {
+                likeCounts = Arrays.copyOf(likeCounts, likeCounts.length * 2);
+            }
+        }
+        return item;
+    }
+
+    private int internUser(String userId) {
+        int user = userIds.intern(userId);
+        if (user == userLikes.size()) {
+            userLikes.add(new int[9]);
+            userLiked.add(new int[9]);
+            userRated.add(new int[9]);
+        }
+        return user;
+    }
+
+    private void markRated(int user, int item) {
+        userRated.set(user, insert(userRated.get(user), item));
+    }
+
+    /**
+     * @return true if the user had not liked the restaurant before
+     */
+    private boolean markLiked(int user, int item) {
+        int[] liked = userLiked.get(user);
+        if (contains(liked, item)) {
+            return false;
+        }
+        userLiked.set(user, insert(liked, item));
+        return true;
+    }
+
+    private static boolean contains(int[] set, int item) {
+        return Arrays.binarySearch(set, 1, 1 + set[0], item) >= 0;
+    }
+
+    // The set with the item added; the same array when it has room or already holds it
+    private static int[] insert(int[] set, int item) {
+        int position = Arrays.binarySearch(set, 1, 1 + set[0], item);
+        if (position >= 0) {
+            return set;
+        }
+        position = -position - 1;
+        int[] target = set[0] + 1 < set.length ? set : Arrays.copyOf(set, set.length * 2);
+        System.arraycopy(set, position, target, position + 1, 1 + set[0] - position);
+        target[position] = item;
+        target[0]++;
+        return target;
+    }
+
+    private void appendLike(int user, int item) {
+        int[] history = userLikes.get(user);
+        if (history[0] >= MAX_USER_HISTORY) {
+            // Drop the oldest like from pairing; it still counts for the restaurant and stays liked
+            System.arraycopy(history, 2, history, 1, history[0] - 1);
+            history[0]--;
+        } else if (history[0] + 1 == history.length) {
+            history = Arrays.copyOf(history, Math.min(history.length * 2, MAX_USER_HISTORY + 1));
+            userLikes.set(user, history);
+        }
+        history[++history[0]] = item;
+        likeCounts[item]++;
+    }
+
+    /**
+     * Open-addressing int -> count table holding at most {@code capacity} entries.
+     * Keys are stored as ordinal + 1 so that 0 marks an empty slot. Once full,
+     * misses are counted in a two-row count-min sketch that is halved as it
+     * fills, and a key replaces the weakest entry when its estimate, capped by
+     * the like counts of the pair, exceeds that entry's count.
+     */
+    private static final class Adjacency {
+        private final int capacity;
+        private int[] keys;
+        private int[] counts;
+        private int size;
+        private int[] sketch; // two rows, allocated when the table first fills
+        private int misses;
+        private int weakest = -1; // slot of the smallest count, -1 when unknown
+
+        Adjacency(int capacity) {
+            this.capacity = capacity;
+            this.keys = new int[16];
+            this.counts = new int[16];
+        }
+
+        /**
+         * Count one co-occurrence with key; bound caps the count a key entering
+         * a full table can be given.
+         */
+        void increment(int key, int bound) {
+            int slot = find(key);
+            if (keys[slot] != 0) {
+                counts[slot]++;
+                if (slot == weakest) {
+                    weakest = -1;
+                }
+                return;
+            }
+            int count = 1;
+            if (size == capacity) {
+                count = Math.min(estimate(key), bound);
+                int victim = weakest();
+                if (count <= counts[victim]) {
+                    return;
+                }
+                delete(victim);
+                slot = find(key);
+            } else if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+                slot = find(key);
+            }
+            keys[slot] = key + 1;
+            counts[slot] = count;
+            size++;
+        }
+
+        private int find(int key) {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9E3779B9 >>> 16) & mask;
+            while (keys[slot] != 0 && keys[slot] != key + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // Count a miss and estimate the key's count so far
+        private int estimate(int key) {
+            if (sketch == null) {
+                sketch = new int[4 * Integer.highestOneBit(capacity)];
+            }
+            int half = sketch.length / 2;
+            if (++misses == half) {
+                // Age the counts so that old misses do not add up to a false estimate
+                for (int i = 0; i < sketch.length; i++) {
+                    sketch[i] >>>= 1;
+                }
+                misses = 0;
+            }
+            int first = (key * 0x9E3779B9 >>> 8) & (half - 1);
+            int second = half + ((key * 0x85EBCA6B >>> 8) & (half - 1));
+            return Math.min(++sketch[first], ++sketch[second]);
+        }
+
+        private int weakest() {
+            if (weakest < 0) {
+                int min = Integer.MAX_VALUE;
+                for (int slot = 0; slot < keys.length; slot++) {
+                    if (keys[slot] != 0 && counts[slot] < min) {
+                        min = counts[slot];
+                        weakest = slot;
+                    }
+                }
+            }
+            return weakest;
+        }
+
+        // Backward-shift deletion keeps every probe chain unbroken
+        private void delete(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != 0) {
+                int home = ((keys[next] - 1) * 0x9E3779B9 >>> 16) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    counts[hole] = counts[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = 0;
+            counts[hole] = 0;
+            size--;
+            weakest = -1;
+        }
+
+        private void rehash(int length) {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[length];
+            counts = new int[length];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    int target = find(oldKeys[slot] - 1);
+                    keys[target] = oldKeys[slot];
+                    counts[target] = oldCounts[slot];
+                }
+            }
+            weakest = -1;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.jfr.IndexBuildEvent;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.repository.RepositoryListener;
+import org.example.restaurant.repository.RestaurantRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Restaurants ordered by popularity score, kept sorted as reviews change.
+ * Each restaurant's score is computed once per update rather than per comparison,
+ * and the top N are read by walking the head of a skip list.
+ * Only active restaurants with at least one review are ranked.
+ * A re-scored restaurant's new entry is added before its old one is removed,
+ * so readers never miss it; {@link #attach} keeps a leaderboard in step with
+ * a repository.
+ */
+public class PopularityLeaderboard implements RepositoryListener {
+
+    // Higher score first, then smaller id, then older entry
+    private static final Comparator<Entry> BEST_FIRST = Comparator
+            .comparingDouble((Entry e) -> e.score).reversed()
+            .thenComparing(e -> e.restaurant.getId())
+            .thenComparingLong(e -> e.sequence);
+
+    private final RatingService ratingService;
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(BEST_FIRST);
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private long sequence;
+
+    public PopularityLeaderboard() {
+        this(new RatingService());
+    }
+
+    public PopularityLeaderboard(RatingService ratingService) {
+        this.ratingService = ratingService;
+    }
+
+    /**
+     * Build a leaderboard over a collection of restaurants.
+     */
+    public static PopularityLeaderboard of(Collection<Restaurant> restaurants, RatingService ratingService) {
+        IndexBuildEvent event = new IndexBuildEvent();
+        event.begin();
+        PopularityLeaderboard leaderboard = new PopularityLeaderboard(ratingService);
+        if (restaurants != null) {
+            for (Restaurant r : restaurants) {
+                leaderboard.update(r);
+            }
+        }
+        event.emit("popularity-leaderboard", restaurants == null ? 0 : restaurants.size());
+        return leaderboard;
+    }
+
+    /**
+     * Rank the current restaurants of a repository and follow its changes.
+     */
+    public static PopularityLeaderboard attach(RestaurantRepository repository, RatingService ratingService) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        PopularityLeaderboard leaderboard = of(repository.findAll(), ratingService);
+        repository.addListener(leaderboard);
+        return leaderboard;
+    }
+
+    /**
+     * Popularity score from an average rating and a review count.
+     * A Bayesian average handles restaurants with few reviews.
+     */
+    static double popularityScore(double rating, int reviewCount) {
+        double avgRating = 3.5; // Platform average
+        int minReviews = 5; // Minimum reviews for full weight
+
+        double weightedRating = (reviewCount * rating + minReviews * avgRating)
+                / (reviewCount + minReviews);
+
+        // Combine with review count (log scale)
+        double countFactor = Math.log10(reviewCount + 1) * 10;
+
+        return weightedRating * 20 + countFactor;
+    }
+
+    /**
+     * Re-score a restaurant after its reviews or status changed.
+     */
+    public synchronized void update(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getId() == null) {
+            return;
+        }
+        if (!restaurant.isActive() || restaurant.getReviewCount() == 0) {
+            remove(restaurant.getId());
+            return;
+        }
+        int reviewCount = restaurant.getReviewCount();
+        double score = popularityScore(ratingService.calculateAverageRating(restaurant), reviewCount);
+        Entry entry = new Entry(restaurant, score, reviewCount, sequence++);
+        ranking.add(entry);
+        Entry previous = entries.put(restaurant.getId(), entry);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    @Override
+    public void onSave(Restaurant restaurant, int ordinal) {
+        update(restaurant);
+    }
+
+    @Override
+    public void onDelete(String id, int ordinal) {
+        remove(id);
+    }
+
+    @Override
+    public synchronized void onClear() {
+        entries.clear();
+        ranking.clear();
+    }
+
+    public synchronized void remove(String restaurantId) {
+        Entry previous = restaurantId != null ? entries.remove(restaurantId) : null;
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    /**
+     * Get the most popular restaurants, best first.
+     */
+    public List<Restaurant> top(int limit) {
+        List<Restaurant> result = new ArrayList<>();
+        // During an update a restaurant can briefly have two entries; the first one counts
+        Set<String> seen = new HashSet<>();
+        Iterator<Entry> iterator = ranking.iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (seen.add(entry.restaurant.getId())) {
+                result.add(entry.restaurant);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The most popular of the given candidates, best first, with ties in
+     * candidate order, as ranking them one by one would give. Returns null
+     * when a rankable candidate is not the object ranked here with the same
+     * review count, appears twice, or when the candidates are under half of
+     * the leaderboard so that walking it would cost more than scoring them.
+     */
+    List<Restaurant> top(List<Restaurant> candidates, int limit) {
+        Map<Restaurant, Integer> positions = new IdentityHashMap<>();
+        int position = 0;
+        for (Restaurant r : candidates) {
+            if (r != null && r.isActive() && r.getReviewCount() > 0) {
+                Entry entry = r.getId() != null ? entries.get(r.getId()) : null;
+                if (entry == null || entry.restaurant != r || entry.reviewCount != r.getReviewCount()
+                        || positions.put(r, position) != null) {
+                    return null;
+                }
+            }
+            position++;
+        }
+        if (positions.size() * 2 < entries.size()) {
+            return null;
+        }
+
+        // Take every entry tied with the last one that fits, then order ties by position
+        List<Entry> selected = new ArrayList<>();
+        Set<Restaurant> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+        Iterator<Entry> iterator = ranking.iterator();
+        while (taken.size() < positions.size() && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!positions.containsKey(entry.restaurant) || !taken.add(entry.restaurant)) {
+                continue;
+            }
+            if (selected.size() >= limit && entry.score != selected.get(selected.size() - 1).score) {
+                break;
+            }
+            selected.add(entry);
+        }
+        selected.sort((a, b) -> {
+            int cmp = Double.compare(b.score, a.score);
+            return cmp != 0 ? cmp : Integer.compare(positions.get(a.restaurant), positions.get(b.restaurant));
+        });
+        List<Restaurant> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, selected.size()); i++) {
+            result.add(selected.get(i).restaurant);
+        }
+        return result;
+    }
+
+    /**
+     * Get the stored popularity score of a restaurant, or 0 if it is not ranked.
+     */
+    public double getScore(String restaurantId) {
+        Entry entry = restaurantId != null ? entries.get(restaurantId) : null;
+        return entry != null ? entry.score : 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        final Restaurant restaurant;
+        final double score;
+        final int reviewCount;
+        final long sequence;
+
+        Entry(Restaurant restaurant, double score, int reviewCount, long sequence) {
+            this.restaurant = restaurant;
+            this.score = score;
+            this.reviewCount = reviewCount;
+            this.sequence = sequence;
+        }
+    }
+}
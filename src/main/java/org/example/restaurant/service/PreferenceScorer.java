@@ -0,0 +1,132 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.UserPreferences;
+
+/**
+ * User preferences compiled once per request into lookup tables.
+ * Scores candidates from {@link RestaurantFeatureVectors} without allocation.
+ */
+public final class PreferenceScorer {
+
+    private static final double BASE_SCORE = 50.0;
+
+    private final int[] mainCuisineWeight;
+    private final int likedMask;
+    private final int dislikedMask;
+    private final int maxPriceLevel;
+    private final double minAcceptableRating;
+    private final int parkingBonus;
+    private final int parkingPenalty;
+    private final int deliveryBonus;
+    private final int takeoutBonus;
+    private final boolean hasUserLocation;
+    private final double userLatRad;
+    private final double userLonRad;
+    private final double userCosLat;
+    private final double maxDistanceKm;
+
+    private PreferenceScorer(UserPreferences prefs) {
+        CuisineType[] types = CuisineType.values();
+        this.mainCuisineWeight = new int[types.length];
+        int liked = 0;
+        int disliked = 0;
+        for (CuisineType type : types) {
+            // Likes win over dislikes, as in likesCuisine / dislikesCuisine checks
+            if (prefs.likesCuisine(type)) {
+                mainCuisineWeight[type.ordinal()] = 25;
+                liked |= 1 << type.ordinal();
+            } else if (prefs.dislikesCuisine(type)) {
+                mainCuisineWeight[type.ordinal()] = -40;
+                disliked |= 1 << type.ordinal();
+            }
+        }
+        this.likedMask = liked;
+        this.dislikedMask = disliked;
+
+        this.maxPriceLevel = prefs.getMaxPriceLevel();
+        this.minAcceptableRating = prefs.getMinAcceptableRating();
+        this.parkingBonus = prefs.isRequiresParking() ? 15 : 0;
+        this.parkingPenalty = prefs.isRequiresParking() ? -25 : 0;
+        this.deliveryBonus = prefs.isPreferDelivery() ? 10 : 0;
+        this.takeoutBonus = prefs.isPreferTakeout() ? 10 : 0;
+
+        Location userLocation = prefs.getUserLocation();
+        this.hasUserLocation = userLocation != null;
+        this.userLatRad = hasUserLocation ? Math.toRadians(userLocation.getLatitude()) : 0;
+        this.userLonRad = hasUserLocation ? Math.toRadians(userLocation.getLongitude()) : 0;
+        this.userCosLat = Math.cos(userLatRad);
+        this.maxDistanceKm = prefs.getMaxDistanceKm();
+    }
+
+    /**
+     * Compile user preferences into a scorer.
+     */
+    public static PreferenceScorer compile(UserPreferences prefs) {
+        if (prefs == null) {
+            throw new IllegalArgumentException("Preferences cannot be null");
+        }
+        return new PreferenceScorer(prefs);
+    }
+
+    /**
+     * Score one candidate; same rules as the per-restaurant match score.
+     * v(G) = ~9
+     */
+    public double score(RestaurantFeatureVectors v, int i) {
+        double score = BASE_SCORE;
+
+        // Cuisine match
+        int cuisine = v.cuisine[i];
+        if (cuisine != RestaurantFeatureVectors.NO_CUISINE) {
+            score += mainCuisineWeight[cuisine];
+        }
+        int additional = v.additionalCuisineMask[i];
+        score += Integer.bitCount(additional & likedMask) * 10
+                - Integer.bitCount(additional & dislikedMask) * 15;
+
+        // Price level check
+        int priceLevel = v.priceLevel[i];
+        if (priceLevel > 0) {
+            score += priceLevel <= maxPriceLevel ? 10 : -25;
+        }
+
+        // Rating check
+        double rating = v.rating[i];
+        if (rating >= minAcceptableRating) {
+            score += rating * 5;
+        } else if (rating > 0) {
+            score -= 20;
+        }
+
+        // Feature preferences
+        int features = v.features[i];
+        score += (features & RestaurantFeatureVectors.FEATURE_PARKING) != 0 ? parkingBonus : parkingPenalty;
+        score += (features & RestaurantFeatureVectors.FEATURE_DELIVERY) != 0 ? deliveryBonus : 0;
+        score += (features & RestaurantFeatureVectors.FEATURE_TAKEOUT) != 0 ? takeoutBonus : 0;
+
+        // Distance check (if location available)
+        if (hasUserLocation && !Double.isNaN(v.latRad[i])) {
+            double distance = distanceKm(v, i);
+            if (distance <= maxDistanceKm) {
+                score += 15 - (distance / maxDistanceKm * 10);
+            } else {
+                score -= 20;
+            }
+        }
+
+        return Math.max(0, score);
+    }
+
+    /**
+     * Haversine distance from the user to a candidate using precomputed radians.
+     */
+    double distanceKm(RestaurantFeatureVectors v, int i) {
+        double sinLat = Math.sin((v.latRad[i] - userLatRad) / 2);
+        double sinLon = Math.sin((v.lonRad[i] - userLonRad) / 2);
+        double a = sinLat * sinLat + userCosLat * v.cosLat[i] * sinLon * sinLon;
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return RecommendationService.EARTH_RADIUS_KM * c;
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.restaurant.service;
 
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.Timer;
 import org.example.restaurant.model.MenuItem;
 import org.example.restaurant.model.Restaurant;
 
@@ -18,12 +20,39 @@ public class PriceAnalyzer {
     public static final int PRICE_LEVEL_EXPENSIVE = 3; // $500 - $1000
     public static final int PRICE_LEVEL_LUXURY = 4; // > $1000
 
+    private final Timer filterByPriceRangeTimer = Metrics.timer("price.filterByPriceRange");
+    private final Timer sortByPriceTimer = Metrics.timer("price.sortByPrice");
+    private final Timer recommendByBudgetTimer = Metrics.timer("price.recommendByBudget");
+    private final Timer filterByPriceLevelTimer = Metrics.timer("price.filterByPriceLevel");
+    private final Timer calculatePriceStatisticsTimer = Metrics.timer("price.calculatePriceStatistics");
+    private final Timer isAffordableTimer = Metrics.timer("price.isAffordable");
+
+    private volatile RestaurantColumnStore columnStore;
+
+    /**
+     * Answer price statistics and price-level filters over stored restaurants
+     * from a column store kept current by the repository; null disables it.
+     */
+    public void setColumnStore(RestaurantColumnStore columnStore) {
+        this.columnStore = columnStore;
+    }
+
     /**
      * Filter restaurants by price range.
      * v(G) = ~10
      */
     public List<Restaurant> filterByPriceRange(List<Restaurant> restaurants,
             Double minPrice, Double maxPrice) {
+        long start = filterByPriceRangeTimer.start();
+        try {
+            return doFilterByPriceRange(restaurants, minPrice, maxPrice);
+        } finally {
+            filterByPriceRangeTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doFilterByPriceRange(List<Restaurant> restaurants,
+            Double minPrice, Double maxPrice) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -103,6 +132,15 @@ public class PriceAnalyzer {
      * v(G) = ~6
      */
     public List<Restaurant> sortByPrice(List<Restaurant> restaurants, boolean ascending) {
+        long start = sortByPriceTimer.start();
+        try {
+            return doSortByPrice(restaurants, ascending);
+        } finally {
+            sortByPriceTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSortByPrice(List<Restaurant> restaurants, boolean ascending) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -123,7 +161,7 @@ public class PriceAnalyzer {
                 .collect(Collectors.toList());
     }
 
-    private double getEffectivePrice(Restaurant restaurant) {
+    double getEffectivePrice(Restaurant restaurant) {
         double avgPrice = calculateAveragePrice(restaurant);
         return avgPrice > 0 ? avgPrice : restaurant.getAveragePrice();
     }
@@ -133,6 +171,15 @@ public class PriceAnalyzer {
      * v(G) = ~12
      */
     public List<Restaurant> recommendByBudget(List<Restaurant> restaurants, double budget) {
+        long start = recommendByBudgetTimer.start();
+        try {
+            return doRecommendByBudget(restaurants, budget);
+        } finally {
+            recommendByBudgetTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doRecommendByBudget(List<Restaurant> restaurants, double budget) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -218,9 +265,18 @@ public class PriceAnalyzer {
 
     /**
      * Filter restaurants by price level.
-     * v(G) = ~6
+     * v(G) = ~8
      */
     public List<Restaurant> filterByPriceLevel(List<Restaurant> restaurants, int priceLevel) {
+        long start = filterByPriceLevelTimer.start();
+        try {
+            return doFilterByPriceLevel(restaurants, priceLevel);
+        } finally {
+            filterByPriceLevelTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doFilterByPriceLevel(List<Restaurant> restaurants, int priceLevel) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -229,6 +285,14 @@ public class PriceAnalyzer {
             return new ArrayList<>(restaurants);
         }
 
+        RestaurantColumnStore store = columnStore;
+        if (store != null) {
+            List<Restaurant> stored = store.filterByPriceLevel(restaurants, priceLevel);
+            if (stored != null) {
+                return stored;
+            }
+        }
+
         return restaurants.stream()
                 .filter(r -> r != null)
                 .filter(r -> categorizePriceLevel(r) == priceLevel)
@@ -262,15 +326,32 @@ public class PriceAnalyzer {
 
     /**
      * Get price statistics for a list of restaurants.
-     * v(G) = ~6
+     * v(G) = ~8
      */
     public PriceStatistics calculatePriceStatistics(List<Restaurant> restaurants) {
+        long start = calculatePriceStatisticsTimer.start();
+        try {
+            return doCalculatePriceStatistics(restaurants);
+        } finally {
+            calculatePriceStatisticsTimer.stop(start);
+        }
+    }
+
+    private PriceStatistics doCalculatePriceStatistics(List<Restaurant> restaurants) {
         PriceStatistics stats = new PriceStatistics();
 
         if (restaurants == null || restaurants.isEmpty()) {
             return stats;
         }
 
+        RestaurantColumnStore store = columnStore;
+        if (store != null) {
+            PriceStatistics stored = store.priceStatistics(restaurants);
+            if (stored != null) {
+                return stored;
+            }
+        }
+
         List<Double> prices = new ArrayList<>();
 
         for (Restaurant r : restaurants) {
@@ -303,6 +384,15 @@ public class PriceAnalyzer {
      * v(G) = ~5
      */
     public boolean isAffordable(Restaurant restaurant, List<Restaurant> referenceSet) {
+        long start = isAffordableTimer.start();
+        try {
+            return doIsAffordable(restaurant, referenceSet);
+        } finally {
+            isAffordableTimer.stop(start);
+        }
+    }
+
+    private boolean doIsAffordable(Restaurant restaurant, List<Restaurant> referenceSet) {
         if (restaurant == null) {
             return false;
         }
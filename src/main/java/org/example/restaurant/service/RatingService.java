@@ -1,9 +1,14 @@
 package org.example.restaurant.service;
 
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.Timer;
 import org.example.restaurant.model.Location;
 import org.example.restaurant.model.Restaurant;
 import org.example.restaurant.model.Review;
+import org.example.restaurant.repository.OffHeapReviewStore;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -18,6 +23,21 @@ public class RatingService {
     private static final double DEFAULT_WEIGHT = 1.0;
     private static final int MIN_REVIEWS_FOR_WEIGHTED = 5;
 
+    private final Timer filterByRatingRangeTimer = Metrics.timer("rating.filterByRatingRange");
+    private final Timer getTopRatedRestaurantsTimer = Metrics.timer("rating.getTopRatedRestaurants");
+    private final Timer filterByMinReviewCountTimer = Metrics.timer("rating.filterByMinReviewCount");
+    private final Timer sortByRatingTimer = Metrics.timer("rating.sortByRating");
+
+    private volatile RestaurantColumnStore columnStore;
+
+    /**
+     * Answer rating filters and top-rated lists over stored restaurants from a
+     * column store kept current by the repository; null disables it.
+     */
+    public void setColumnStore(RestaurantColumnStore columnStore) {
+        this.columnStore = columnStore;
+    }
+
     /**
      * Calculate simple average rating for a restaurant.
      * v(G) = ~6
@@ -94,22 +114,24 @@ public class RatingService {
         if (review == null) {
             return DEFAULT_WEIGHT;
         }
+        return calculateReviewWeight(review.getUserLevel(), review.isVerified(), review.getHelpfulCount(),
+                review.isRecent());
+    }
 
+    private static double calculateReviewWeight(int userLevel, boolean verified, int helpfulCount, boolean recent) {
         double weight = 1.0;
 
         // Factor 1: User level (1-5)
-        int userLevel = review.getUserLevel();
         if (userLevel >= 1 && userLevel <= 5) {
             weight *= (0.5 + userLevel * 0.2); // 0.7 to 1.5
         }
 
         // Factor 2: Verification status
-        if (review.isVerified()) {
+        if (verified) {
             weight *= 1.3;
         }
 
         // Factor 3: Helpful count
-        int helpfulCount = review.getHelpfulCount();
         if (helpfulCount > 20) {
             weight *= 1.4;
         } else if (helpfulCount > 10) {
@@ -119,7 +141,7 @@ public class RatingService {
         }
 
         // Factor 4: Recency
-        if (review.isRecent()) {
+        if (recent) {
             weight *= 1.2;
         } else {
             weight *= 0.9;
@@ -129,16 +151,95 @@ public class RatingService {
         return Math.min(weight, 3.0);
     }
 
+    /**
+     * Simple average rating over a restaurant's packed reviews; same result as
+     * {@link #calculateAverageRating(Restaurant)} on the same reviews.
+     * v(G) = ~4
+     */
+    public double calculateAverageRating(OffHeapReviewStore store, String restaurantId) {
+        double sum = 0;
+        int validCount = 0;
+        OffHeapReviewStore.Cursor cursor = store.cursor(restaurantId);
+        while (cursor.next()) {
+            int rating = cursor.rating();
+            if (rating >= 1 && rating <= 5) {
+                sum += rating;
+                validCount++;
+            }
+        }
+        return validCount == 0 ? 0.0 : Math.round((sum / validCount) * 10.0) / 10.0;
+    }
+
+    /**
+     * Weighted average rating over a restaurant's packed reviews; same result as
+     * {@link #calculateWeightedRating(Restaurant)}, with recency decided to the second.
+     * v(G) = ~5
+     */
+    public double calculateWeightedRating(OffHeapReviewStore store, String restaurantId) {
+        if (store.reviewCount(restaurantId) < MIN_REVIEWS_FOR_WEIGHTED) {
+            return calculateAverageRating(store, restaurantId);
+        }
+
+        long recentAfter = LocalDateTime.now().minusMonths(6).toEpochSecond(ZoneOffset.UTC);
+        double weightedSum = 0;
+        double totalWeight = 0;
+        OffHeapReviewStore.Cursor cursor = store.cursor(restaurantId);
+        while (cursor.next()) {
+            int rating = cursor.rating();
+            if (rating >= 1 && rating <= 5) {
+                double weight = calculateReviewWeight(cursor.userLevel(), cursor.isVerified(),
+                        cursor.helpfulCount(), cursor.createdAtEpochSecond() > recentAfter);
+                weightedSum += rating * weight;
+                totalWeight += weight;
+            }
+        }
+        return totalWeight == 0 ? 0.0 : Math.round((weightedSum / totalWeight) * 10.0) / 10.0;
+    }
+
+    /**
+     * Rating distribution over a restaurant's packed reviews.
+     * v(G) = ~3
+     */
+    public int[] getRatingDistribution(OffHeapReviewStore store, String restaurantId) {
+        int[] distribution = new int[5];
+        OffHeapReviewStore.Cursor cursor = store.cursor(restaurantId);
+        while (cursor.next()) {
+            int rating = cursor.rating();
+            if (rating >= 1 && rating <= 5) {
+                distribution[rating - 1]++;
+            }
+        }
+        return distribution;
+    }
+
     /**
      * Filter restaurants by rating range.
-     * v(G) = ~8
+     * v(G) = ~10
      */
     public List<Restaurant> filterByRatingRange(List<Restaurant> restaurants,
             Double minRating, Double maxRating) {
+        long start = filterByRatingRangeTimer.start();
+        try {
+            return doFilterByRatingRange(restaurants, minRating, maxRating);
+        } finally {
+            filterByRatingRangeTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doFilterByRatingRange(List<Restaurant> restaurants,
+            Double minRating, Double maxRating) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
 
+        RestaurantColumnStore store = columnStore;
+        if (store != null) {
+            List<Restaurant> stored = store.filterByRatingRange(restaurants, minRating, maxRating);
+            if (stored != null) {
+                return stored;
+            }
+        }
+
         List<Restaurant> result = new ArrayList<>();
 
         for (Restaurant restaurant : restaurants) {
@@ -161,9 +262,18 @@ public class RatingService {
 
     /**
      * Get top rated restaurants.
-     * v(G) = ~6
+     * v(G) = ~8
      */
     public List<Restaurant> getTopRatedRestaurants(List<Restaurant> restaurants, int limit) {
+        long start = getTopRatedRestaurantsTimer.start();
+        try {
+            return doGetTopRatedRestaurants(restaurants, limit);
+        } finally {
+            getTopRatedRestaurantsTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doGetTopRatedRestaurants(List<Restaurant> restaurants, int limit) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -172,6 +282,14 @@ public class RatingService {
             limit = 10;
         }
 
+        RestaurantColumnStore store = columnStore;
+        if (store != null) {
+            List<Restaurant> stored = store.topRatedWeighted(restaurants, limit);
+            if (stored != null) {
+                return stored;
+            }
+        }
+
         return restaurants.stream()
                 .filter(r -> r != null)
                 .filter(r -> r.getReviews() != null && !r.getReviews().isEmpty())
@@ -194,6 +312,15 @@ public class RatingService {
      * v(G) = ~4
      */
     public List<Restaurant> filterByMinReviewCount(List<Restaurant> restaurants, int minCount) {
+        long start = filterByMinReviewCountTimer.start();
+        try {
+            return doFilterByMinReviewCount(restaurants, minCount);
+        } finally {
+            filterByMinReviewCountTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doFilterByMinReviewCount(List<Restaurant> restaurants, int minCount) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -293,6 +420,15 @@ public class RatingService {
      * v(G) = ~4
      */
     public List<Restaurant> sortByRating(List<Restaurant> restaurants, boolean ascending) {
+        long start = sortByRatingTimer.start();
+        try {
+            return doSortByRating(restaurants, ascending);
+        } finally {
+            sortByRatingTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSortByRating(List<Restaurant> restaurants, boolean ascending) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -1,8 +1,12 @@
 package org.example.restaurant.service;
 
+import org.example.restaurant.jfr.RecommendationEvent;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.Timer;
 import org.example.restaurant.model.*;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -10,273 +14,304 @@ import java.util.stream.Collectors;
  */
 public class RecommendationService {
 
-    private static final double EARTH_RADIUS_KM = 6371.0;
+    static final double EARTH_RADIUS_KM = 6371.0;
+    // Candidate lists smaller than this are scored sequentially
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+    static final double MIN_SIMILARITY = 0.2;
+    static final int MAX_SIMILAR = 10;
+    // Points added for a restaurant strongly related to the user's highly rated restaurants
+    static final double COLLABORATIVE_WEIGHT = 20.0;
     private final RatingService ratingService;
     private final PriceAnalyzer priceAnalyzer;
+    private final TopRestaurantSelector selector;
+    private volatile ItemCooccurrenceModel collaborativeModel;
+    private volatile RestaurantFeatureIndex featureIndex;
+    private volatile SimilarRestaurantIndex similarIndex;
+    private volatile SimilarityLshIndex similarityLsh;
+    private volatile PopularityLeaderboard popularityLeaderboard;
+
+    private final Timer recommendByPreferencesTimer = Metrics.timer("recommendation.recommendByPreferences");
+    private final Timer recommendSimilarTimer = Metrics.timer("recommendation.recommendSimilar");
+    private final Timer getPopularRestaurantsTimer = Metrics.timer("recommendation.getPopularRestaurants");
+    private final Timer findNearbyTimer = Metrics.timer("recommendation.findNearby");
+    private final Timer sortByDistanceTimer = Metrics.timer("recommendation.sortByDistance");
+    private final Timer getTopPicksTimer = Metrics.timer("recommendation.getTopPicks");
+    private final SingleFlight<PopularityRequest, List<Restaurant>> popularFlights =
+            new SingleFlight<>("recommendation.popular.flights", SingleFlight.DEFAULT_TIMEOUT);
 
     public RecommendationService() {
-        this.ratingService = new RatingService();
-        this.priceAnalyzer = new PriceAnalyzer();
+        this(new RatingService(), new PriceAnalyzer());
     }
 
     public RecommendationService(RatingService ratingService, PriceAnalyzer priceAnalyzer) {
+        this(ratingService, priceAnalyzer, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param pool              pool used to score large candidate lists, or null to always score sequentially
+     * @param parallelThreshold minimum candidate count for parallel scoring
+     */
+    public RecommendationService(RatingService ratingService, PriceAnalyzer priceAnalyzer,
+            ForkJoinPool pool, int parallelThreshold) {
         this.ratingService = ratingService;
         this.priceAnalyzer = priceAnalyzer;
+        this.selector = new TopRestaurantSelector(pool, Math.max(1, parallelThreshold));
     }
 
     /**
-     * Recommend restaurants based on user preferences.
-     * v(G) = ~15
+     * Blend review co-occurrence into preference recommendations for users
+     * identified by {@link UserPreferences#getUserId()}; null disables it.
      */
-    public List<Restaurant> recommendByPreferences(UserPreferences prefs,
-            List<Restaurant> restaurants) {
-        if (restaurants == null || restaurants.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        if (prefs == null) {
-            return getPopularRestaurants(restaurants, 10);
-        }
-
-        List<ScoredRestaurant> scored = new ArrayList<>();
+    public void setCollaborativeModel(ItemCooccurrenceModel collaborativeModel) {
+        this.collaborativeModel = collaborativeModel;
+    }
 
-        for (Restaurant restaurant : restaurants) {
-            if (restaurant == null || !restaurant.isActive()) {
-                continue;
-            }
+    /**
+     * Read the features of stored restaurants from an index kept current by
+     * the repository instead of deriving them per call; null disables it.
+     */
+    public void setFeatureIndex(RestaurantFeatureIndex featureIndex) {
+        this.featureIndex = featureIndex;
+    }
 
-            double score = calculateMatchScore(restaurant, prefs);
+    /**
+     * Answer similar-restaurant requests from precomputed neighbour lists when
+     * they give the same result as scoring the candidates; null disables it.
+     */
+    public void setSimilarIndex(SimilarRestaurantIndex similarIndex) {
+        this.similarIndex = similarIndex;
+    }
 
-            if (score > 0) {
-                scored.add(new ScoredRestaurant(restaurant, score));
-            }
-        }
+    /**
+     * Answer similar-restaurant requests that the similar index cannot from
+     * LSH buckets instead of scoring every candidate. Results are approximate
+     * and limited to the restaurants the LSH index was built over; null
+     * disables it.
+     */
+    public void setSimilarityLsh(SimilarityLshIndex similarityLsh) {
+        this.similarityLsh = similarityLsh;
+    }
 
-        // Sort by score descending
-        scored.sort((a, b) -> Double.compare(b.score, a.score));
+    /**
+     * Answer popularity rankings of stored restaurants from a leaderboard kept
+     * current by the repository instead of scoring every candidate; null
+     * disables it.
+     */
+    public void setPopularityLeaderboard(PopularityLeaderboard popularityLeaderboard) {
+        this.popularityLeaderboard = popularityLeaderboard;
+    }
 
-        return scored.stream()
-                .map(s -> s.restaurant)
-                .collect(Collectors.toList());
+    /**
+     * Recommend restaurants based on user preferences.
+     * v(G) = ~1
+     */
+    public List<Restaurant> recommendByPreferences(UserPreferences prefs,
+            List<Restaurant> restaurants) {
+        return recommendByPreferences(prefs, restaurants, TopRestaurantSelector.UNLIMITED);
     }
 
     /**
-     * Calculate match score for a restaurant against user preferences.
-     * v(G) = ~20
+     * Recommend at most limit restaurants based on user preferences.
+     * v(G) = ~3
      */
-    private double calculateMatchScore(Restaurant restaurant, UserPreferences prefs) {
-        double score = 50.0; // Base score
-
-        // Cuisine match
-        CuisineType mainCuisine = restaurant.getCuisineType();
-        if (mainCuisine != null) {
-            if (prefs.likesCuisine(mainCuisine)) {
-                score += 25;
-            } else if (prefs.dislikesCuisine(mainCuisine)) {
-                score -= 40;
+    public List<Restaurant> recommendByPreferences(UserPreferences prefs,
+            List<Restaurant> restaurants, int limit) {
+        long start = recommendByPreferencesTimer.start();
+        RecommendationEvent event = new RecommendationEvent();
+        event.begin();
+        List<Restaurant> results = null;
+        try {
+            results = rankByPreferences(prefs, restaurants, limit);
+            return results;
+        } finally {
+            recommendByPreferencesTimer.stop(start);
+            if (event.shouldCommit()) {
+                event.emit(String.valueOf(prefs), restaurants == null ? 0 : restaurants.size(), limit,
+                        results == null ? 0 : results.size());
             }
         }
+    }
 
-        // Additional cuisines
-        for (CuisineType type : restaurant.getAdditionalCuisineTypes()) {
-            if (prefs.likesCuisine(type)) {
-                score += 10;
-            } else if (prefs.dislikesCuisine(type)) {
-                score -= 15;
-            }
+    /**
+     * v(G) = ~8
+     */
+    private List<Restaurant> rankByPreferences(UserPreferences prefs, List<Restaurant> restaurants, int limit) {
+        if (restaurants == null || restaurants.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        // Price level check
-        int priceLevel = priceAnalyzer.categorizePriceLevel(restaurant);
-        if (priceLevel > 0) {
-            if (priceLevel <= prefs.getMaxPriceLevel()) {
-                score += 10;
-            } else {
-                score -= 25;
-            }
+        if (limit <= 0) {
+            limit = 10;
         }
 
-        // Rating check
-        double rating = ratingService.calculateAverageRating(restaurant);
-        if (rating >= prefs.getMinAcceptableRating()) {
-            score += rating * 5;
-        } else if (rating > 0) {
-            score -= 20;
+        if (prefs == null) {
+            return getPopularRestaurants(restaurants, Math.min(limit, 10));
         }
 
-        // Feature preferences
-        if (prefs.isRequiresParking()) {
-            if (restaurant.isHasParking()) {
-                score += 15;
-            } else {
-                score -= 25;
-            }
+        RestaurantFeatureIndex index = featureIndex;
+        if (index != null) {
+            return rankIndexed(index, prefs, restaurants, limit);
         }
 
-        if (prefs.isPreferDelivery() && restaurant.isHasDelivery()) {
-            score += 10;
+        // Derive per-restaurant facts once, then score with the compiled preferences
+        ForkJoinPool pool = selector.isParallel(restaurants.size()) ? selector.getPool() : null;
+        RestaurantFeatureVectors features = RestaurantFeatureVectors.of(restaurants, ratingService, priceAnalyzer,
+                pool);
+        PreferenceScorer scorer = PreferenceScorer.compile(prefs);
+        Map<String, Double> affinities = collaborativeAffinities(prefs);
+        if (affinities.isEmpty()) {
+            return selector.select(features.size(), features::restaurant, i -> scorer.score(features, i),
+                    0, limit);
         }
 
-        if (prefs.isPreferTakeout() && restaurant.isHasTakeout()) {
-            score += 10;
-        }
+        return selector.select(features.size(), features::restaurant, i -> {
+            double score = scorer.score(features, i);
+            Double affinity = affinities.get(features.restaurant(i).getId());
+            return affinity == null ? score : score + COLLABORATIVE_WEIGHT * Math.min(1.0, affinity);
+        }, 0, limit);
+    }
 
-        // Distance check (if location available)
-        if (prefs.getUserLocation() != null && restaurant.getLocation() != null) {
-            double distance = calculateDistance(prefs.getUserLocation(), restaurant.getLocation());
-            if (distance <= prefs.getMaxDistanceKm()) {
-                score += 15 - (distance / prefs.getMaxDistanceKm() * 10);
-            } else {
-                score -= 20;
+    /**
+     * Score candidates from precomputed feature rows; same ranking as deriving them.
+     * v(G) = ~4
+     */
+    private List<Restaurant> rankIndexed(RestaurantFeatureIndex index, UserPreferences prefs,
+            List<Restaurant> restaurants, int limit) {
+        List<Restaurant> list = restaurants instanceof RandomAccess ? restaurants : new ArrayList<>(restaurants);
+        RestaurantFeatureIndex.Candidates candidates = index.candidates(list);
+        PreferenceScorer scorer = PreferenceScorer.compile(prefs);
+        Map<String, Double> affinities = collaborativeAffinities(prefs);
+        return selector.select(list.size(), list::get, i -> {
+            double score = candidates.score(scorer, i);
+            if (Double.isNaN(score)) {
+                return score;
             }
-        }
+            Double affinity = affinities.get(list.get(i).getId());
+            return affinity == null ? score : score + COLLABORATIVE_WEIGHT * Math.min(1.0, affinity);
+        }, 0, limit);
+    }
 
-        return Math.max(0, score);
+    private Map<String, Double> collaborativeAffinities(UserPreferences prefs) {
+        ItemCooccurrenceModel model = collaborativeModel;
+        if (model == null || prefs.getUserId() == null) {
+            return Collections.emptyMap();
+        }
+        return model.affinities(prefs.getUserId());
     }
 
     /**
      * Recommend similar restaurants based on a reference restaurant.
-     * v(G) = ~12
+     * v(G) = ~15
      */
     public List<Restaurant> recommendSimilar(Restaurant reference,
             List<Restaurant> candidates) {
+        long start = recommendSimilarTimer.start();
+        try {
+            return doRecommendSimilar(reference, candidates);
+        } finally {
+            recommendSimilarTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doRecommendSimilar(Restaurant reference,
+            List<Restaurant> candidates) {
         if (reference == null || candidates == null || candidates.isEmpty()) {
             return new ArrayList<>();
         }
 
-        List<ScoredRestaurant> scored = new ArrayList<>();
+        List<Restaurant> list = candidates instanceof RandomAccess ? candidates : new ArrayList<>(candidates);
+        SimilarRestaurantIndex index = similarIndex;
+        List<Restaurant> indexed = index != null ? index.recommendSimilar(reference, list, MAX_SIMILAR) : null;
+        if (indexed != null) {
+            return indexed;
+        }
+        SimilarityLshIndex lsh = similarityLsh;
+        if (lsh != null) {
+            return lsh.recommendSimilar(reference, list);
+        }
 
-        for (Restaurant candidate : candidates) {
+        // The reference's price level and rating are derived once, not per candidate
+        SimilaritySignature referenceSignature = SimilaritySignature.of(reference, ratingService, priceAnalyzer);
+        return selector.select(list.size(), list::get, i -> {
+            Restaurant candidate = list.get(i);
             if (candidate == null || !candidate.isActive()) {
-                continue;
+                return Double.NaN;
             }
             if (candidate.getId() != null && candidate.getId().equals(reference.getId())) {
-                continue; // Skip the reference restaurant itself
+                return Double.NaN; // Skip the reference restaurant itself
             }
-
-            double similarity = calculateSimilarity(reference, candidate);
-            if (similarity > 0.2) { // Minimum similarity threshold
-                scored.add(new ScoredRestaurant(candidate, similarity));
-            }
-        }
-
-        scored.sort((a, b) -> Double.compare(b.score, a.score));
-
-        return scored.stream()
-                .limit(10)
-                .map(s -> s.restaurant)
-                .collect(Collectors.toList());
+            return referenceSignature.similarityTo(SimilaritySignature.of(candidate, ratingService, priceAnalyzer));
+        }, MIN_SIMILARITY, MAX_SIMILAR); // Minimum similarity threshold
     }
 
     /**
-     * Calculate similarity score between two restaurants.
-     * v(G) = ~14
+     * Get popular restaurants based on review count and ratings.
+     * v(G) = ~5
      */
-    private double calculateSimilarity(Restaurant r1, Restaurant r2) {
-        double score = 0.0;
-        double maxScore = 0.0;
-
-        // Cuisine type match (weight: 30)
-        maxScore += 30;
-        if (r1.getCuisineType() != null && r2.getCuisineType() != null) {
-            if (r1.getCuisineType() == r2.getCuisineType()) {
-                score += 30;
-            } else if (r2.hasCuisineType(r1.getCuisineType())) {
-                score += 15;
-            }
+    public List<Restaurant> getPopularRestaurants(List<Restaurant> restaurants, int limit) {
+        long start = getPopularRestaurantsTimer.start();
+        try {
+            return doGetPopularRestaurants(restaurants, limit);
+        } finally {
+            getPopularRestaurantsTimer.stop(start);
         }
+    }
 
-        // Price level match (weight: 20)
-        maxScore += 20;
-        int p1 = priceAnalyzer.categorizePriceLevel(r1);
-        int p2 = priceAnalyzer.categorizePriceLevel(r2);
-        if (p1 > 0 && p2 > 0) {
-            int diff = Math.abs(p1 - p2);
-            score += 20 - (diff * 7);
+    private List<Restaurant> doGetPopularRestaurants(List<Restaurant> restaurants, int limit) {
+        if (restaurants == null || restaurants.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        // Rating similarity (weight: 20)
-        maxScore += 20;
-        double rating1 = ratingService.calculateAverageRating(r1);
-        double rating2 = ratingService.calculateAverageRating(r2);
-        if (rating1 > 0 && rating2 > 0) {
-            double ratingDiff = Math.abs(rating1 - rating2);
-            score += Math.max(0, 20 - (ratingDiff * 5));
+        if (limit <= 0) {
+            limit = 10;
         }
 
-        // Location proximity (weight: 15)
-        maxScore += 15;
-        if (r1.getLocation() != null && r2.getLocation() != null) {
-            String city1 = r1.getLocation().getCity();
-            String city2 = r2.getLocation().getCity();
-            if (city1 != null && city1.equals(city2)) {
-                score += 15;
-            }
+        PopularityLeaderboard leaderboard = popularityLeaderboard;
+        List<Restaurant> ranked = leaderboard != null ? leaderboard.top(restaurants, limit) : null;
+        if (ranked != null) {
+            return ranked;
         }
 
-        // Feature match (weight: 15)
-        maxScore += 15;
-        int featureMatch = 0;
-        if (r1.isHasDelivery() == r2.isHasDelivery())
-            featureMatch++;
-        if (r1.isHasTakeout() == r2.isHasTakeout())
-            featureMatch++;
-        if (r1.isHasParking() == r2.isHasParking())
-            featureMatch++;
-        score += featureMatch * 5;
-
-        return maxScore > 0 ? score / maxScore : 0;
+        // Concurrent calls over the same restaurants share one ranking
+        int top = limit;
+        return new ArrayList<>(popularFlights.execute(new PopularityRequest(restaurants, top),
+                () -> rankByPopularity(restaurants, top)));
     }
 
     /**
-     * Get popular restaurants based on review count and ratings.
-     * v(G) = ~8
+     * Number of callers waiting for the popularity ranking of these restaurants.
      */
-    public List<Restaurant> getPopularRestaurants(List<Restaurant> restaurants, int limit) {
-        if (restaurants == null || restaurants.isEmpty()) {
-            return new ArrayList<>();
-        }
+    int popularityWaiters(List<Restaurant> restaurants, int limit) {
+        return popularFlights.waiters(new PopularityRequest(restaurants, limit));
+    }
 
-        if (limit <= 0) {
-            limit = 10;
+    /**
+     * v(G) = ~5
+     */
+    private List<Restaurant> rankByPopularity(List<Restaurant> restaurants, int limit) {
+        // Score each restaurant once; the stable sort keeps input order for ties
+        List<Restaurant> ranked = new ArrayList<>();
+        Map<Restaurant, Double> scores = new IdentityHashMap<>();
+        for (Restaurant r : restaurants) {
+            if (r != null && r.isActive() && r.getReviewCount() > 0) {
+                ranked.add(r);
+                scores.put(r, calculatePopularityScore(r));
+            }
         }
-
-        return restaurants.stream()
-                .filter(r -> r != null && r.isActive())
-                .filter(r -> r.getReviewCount() > 0)
-                .sorted((r1, r2) -> {
-                    // Calculate popularity score
-                    double pop1 = calculatePopularityScore(r1);
-                    double pop2 = calculatePopularityScore(r2);
-                    return Double.compare(pop2, pop1);
-                })
-                .limit(limit)
-                .collect(Collectors.toList());
+        ranked.sort((r1, r2) -> Double.compare(scores.get(r2), scores.get(r1)));
+        return new ArrayList<>(ranked.subList(0, Math.min(limit, ranked.size())));
     }
 
     /**
      * Calculate popularity score.
-     * v(G) = ~6
+     * v(G) = ~2
      */
     private double calculatePopularityScore(Restaurant restaurant) {
         if (restaurant == null) {
             return 0;
         }
-
-        double rating = ratingService.calculateAverageRating(restaurant);
-        int reviewCount = restaurant.getReviewCount();
-
-        // Bayesian average to handle restaurants with few reviews
-        double avgRating = 3.5; // Platform average
-        int minReviews = 5; // Minimum reviews for full weight
-
-        double weightedRating = (reviewCount * rating + minReviews * avgRating)
-                / (reviewCount + minReviews);
-
-        // Combine with review count (log scale)
-        double countFactor = Math.log10(reviewCount + 1) * 10;
-
-        return weightedRating * 20 + countFactor;
+        return PopularityLeaderboard.popularityScore(ratingService.calculateAverageRating(restaurant),
+                restaurant.getReviewCount());
     }
 
     /**
@@ -286,6 +321,17 @@ public class RecommendationService {
     public List<Restaurant> findNearby(Location userLocation,
             List<Restaurant> restaurants,
             double radiusKm) {
+        long start = findNearbyTimer.start();
+        try {
+            return doFindNearby(userLocation, restaurants, radiusKm);
+        } finally {
+            findNearbyTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doFindNearby(Location userLocation,
+            List<Restaurant> restaurants,
+            double radiusKm) {
         if (userLocation == null || restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -348,6 +394,16 @@ public class RecommendationService {
      */
     public List<Restaurant> sortByDistance(Location userLocation,
             List<Restaurant> restaurants) {
+        long start = sortByDistanceTimer.start();
+        try {
+            return doSortByDistance(userLocation, restaurants);
+        } finally {
+            sortByDistanceTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSortByDistance(Location userLocation,
+            List<Restaurant> restaurants) {
         if (userLocation == null || restaurants == null) {
             return new ArrayList<>();
         }
@@ -375,6 +431,17 @@ public class RecommendationService {
     public List<Restaurant> getTopPicks(List<Restaurant> restaurants,
             Location userLocation,
             int limit) {
+        long start = getTopPicksTimer.start();
+        try {
+            return doGetTopPicks(restaurants, userLocation, limit);
+        } finally {
+            getTopPicksTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doGetTopPicks(List<Restaurant> restaurants,
+            Location userLocation,
+            int limit) {
         if (restaurants == null || restaurants.isEmpty()) {
             return new ArrayList<>();
         }
@@ -383,11 +450,11 @@ public class RecommendationService {
             limit = 5;
         }
 
-        List<ScoredRestaurant> scored = new ArrayList<>();
-
-        for (Restaurant restaurant : restaurants) {
+        List<Restaurant> list = restaurants instanceof RandomAccess ? restaurants : new ArrayList<>(restaurants);
+        return selector.select(list.size(), list::get, i -> {
+            Restaurant restaurant = list.get(i);
             if (restaurant == null || !restaurant.isActive()) {
-                continue;
+                return Double.NaN;
             }
 
             double score = 0;
@@ -411,28 +478,11 @@ public class RecommendationService {
                 }
             }
 
-            scored.add(new ScoredRestaurant(restaurant, score));
-        }
-
-        scored.sort((a, b) -> Double.compare(b.score, a.score));
-
-        return scored.stream()
-                .limit(limit)
-                .map(s -> s.restaurant)
-                .collect(Collectors.toList());
+            return score;
+        }, Double.NEGATIVE_INFINITY, limit);
     }
 
     // Helper classes
-    private static class ScoredRestaurant {
-        Restaurant restaurant;
-        double score;
-
-        ScoredRestaurant(Restaurant restaurant, double score) {
-            this.restaurant = restaurant;
-            this.score = score;
-        }
-    }
-
     private static class DistancedRestaurant {
         Restaurant restaurant;
         double distance;
@@ -442,4 +492,50 @@ public class RecommendationService {
             this.distance = distance;
         }
     }
+
+    /**
+     * Key of a popularity ranking: the same restaurant objects in the same
+     * order with the same limit. The hash reads only the size and the end
+     * elements, so building a key does not walk the list; equals does.
+     */
+    static final class PopularityRequest {
+        private final List<Restaurant> restaurants;
+        private final int limit;
+        private final int hash;
+
+        PopularityRequest(List<Restaurant> restaurants, int limit) {
+            this.restaurants = restaurants;
+            this.limit = limit;
+            int h = 31 * limit + restaurants.size();
+            if (!restaurants.isEmpty()) {
+                h = 31 * h + System.identityHashCode(restaurants.get(0));
+                h = 31 * h + System.identityHashCode(restaurants.get(restaurants.size() - 1));
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof PopularityRequest))
+                return false;
+            PopularityRequest that = (PopularityRequest) o;
+            if (hash != that.hash || limit != that.limit || restaurants.size() != that.restaurants.size()) {
+                return false;
+            }
+            Iterator<Restaurant> other = that.restaurants.iterator();
+            for (Restaurant r : restaurants) {
+                if (r != other.next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -0,0 +1,467 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.jfr.IndexBuildEvent;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+import org.example.restaurant.repository.RepositoryListener;
+import org.example.restaurant.repository.RestaurantRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-optimized copy of the per-restaurant facts used by analytic scans, held
+ * as primitive columns indexed by restaurant ordinal. Rating, effective price and
+ * price level are derived once when a restaurant is saved, so scans are plain
+ * array loops with no object dereferences.
+ * The store listens to its repository; callers that add reviews to a restaurant
+ * in place should save it again, or call {@link #update(Restaurant)}.
+ * <p>
+ * {@link PriceAnalyzer}, {@link RatingService} and {@link RestaurantSearchService}
+ * answer their list scans from a store set on them when every restaurant in the
+ * list is the one stored; the list methods here return null otherwise. The store
+ * sits beside {@link RestaurantFeatureIndex} rather than in the repository
+ * package because its columns are derived through those services.
+ */
+public class RestaurantColumnStore implements RepositoryListener {
+
+    private static final byte LIVE = 1;
+    private static final byte ACTIVE = 1 << 1;
+    private static final int RECENCY_MARGIN_DAYS = 3;
+
+    private final RestaurantRepository repository;
+    private final RatingService ratingService;
+    private final PriceAnalyzer priceAnalyzer;
+
+    // Columns, indexed by ordinal; guarded by this
+    private Restaurant[] restaurants = new Restaurant[0];
+    private byte[] state = new byte[0];
+    private double[] latitude = new double[0]; // NaN without location
+    private double[] longitude = new double[0];
+    private double[] effectivePrice = new double[0];
+    private byte[] priceLevel = new byte[0];
+    private double[] averageRating = new double[0];
+    private double[] weightedRating = new double[0];
+    private long[] weightsValidUntil = new long[0]; // until a review weighted as recent stops being recent
+    private int[] reviewCount = new int[0];
+    private byte[] features = new byte[0]; // RestaurantFeatureVectors.FEATURE_* bits
+    private int rows; // highest ordinal + 1
+
+    public RestaurantColumnStore(RestaurantRepository repository) {
+        this(repository, new RatingService(), new PriceAnalyzer());
+    }
+
+    /**
+     * Create a store over a repository, loading its current restaurants and
+     * registering for later changes.
+     */
+    public RestaurantColumnStore(RestaurantRepository repository, RatingService ratingService,
+            PriceAnalyzer priceAnalyzer) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        this.repository = repository;
+        this.ratingService = ratingService;
+        this.priceAnalyzer = priceAnalyzer;
+        IndexBuildEvent event = new IndexBuildEvent();
+        event.begin();
+        synchronized (this) {
+            ensureCapacity(repository.getIdDictionary().capacity());
+            for (Restaurant r : repository.findAll()) {
+                update(r);
+            }
+            repository.addListener(this);
+            event.emit("column-store", rows);
+        }
+    }
+
+    /**
+     * Re-derive the columns of a saved restaurant, e.g. after adding reviews in place.
+     */
+    public synchronized void update(Restaurant restaurant) {
+        if (restaurant == null) {
+            return;
+        }
+        int ordinal = repository.ordinalOf(restaurant.getId());
+        if (ordinal >= 0) {
+            onSave(restaurant, ordinal);
+        }
+    }
+
+    @Override
+    public synchronized void onSave(Restaurant restaurant, int ordinal) {
+        ensureCapacity(ordinal + 1);
+        restaurants[ordinal] = restaurant;
+        state[ordinal] = (byte) (LIVE | (restaurant.isActive() ? ACTIVE : 0));
+        Location location = restaurant.getLocation();
+        latitude[ordinal] = location != null ? location.getLatitude() : Double.NaN;
+        longitude[ordinal] = location != null ? location.getLongitude() : Double.NaN;
+        effectivePrice[ordinal] = priceAnalyzer.getEffectivePrice(restaurant);
+        priceLevel[ordinal] = (byte) priceAnalyzer.categorizePriceLevel(restaurant);
+        averageRating[ordinal] = ratingService.calculateAverageRating(restaurant);
+        deriveWeightedRating(ordinal);
+        reviewCount[ordinal] = restaurant.getReviewCount();
+        features[ordinal] = (byte) RestaurantFeatureVectors.featureBits(restaurant);
+        rows = Math.max(rows, ordinal + 1);
+    }
+
+    private void deriveWeightedRating(int row) {
+        Restaurant restaurant = restaurants[row];
+        weightedRating[row] = ratingService.calculateWeightedRating(restaurant);
+        // Recency only lapses, so the rating holds until the first recent review ages out;
+        // a few days early, as month arithmetic clamps at month ends
+        long validUntil = Long.MAX_VALUE;
+        if (restaurant.getReviews() != null) {
+            for (Review review : restaurant.getReviews()) {
+                if (review != null && review.isRecent()) {
+                    validUntil = Math.min(validUntil,
+                            epochSecond(review.getCreatedAt().plusMonths(6).minusDays(RECENCY_MARGIN_DAYS)));
+                }
+            }
+        }
+        weightsValidUntil[row] = validUntil;
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Override
+    public synchronized void onDelete(String id, int ordinal) {
+        if (ordinal < rows) {
+            restaurants[ordinal] = null;
+            state[ordinal] = 0;
+        }
+    }
+
+    @Override
+    public synchronized void onClear() {
+        Arrays.fill(restaurants, 0, rows, null);
+        Arrays.fill(state, 0, rows, (byte) 0);
+        rows = 0;
+    }
+
+    /**
+     * Number of restaurants held.
+     */
+    public synchronized int size() {
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            count += state[i] & LIVE;
+        }
+        return count;
+    }
+
+    /**
+     * Price statistics over all restaurants with a known effective price;
+     * same figures as {@link PriceAnalyzer#calculatePriceStatistics(List)}.
+     */
+    public synchronized PriceAnalyzer.PriceStatistics priceStatistics() {
+        PriceAnalyzer.PriceStatistics stats = new PriceAnalyzer.PriceStatistics();
+        double[] prices = new double[rows];
+        int count = 0;
+        double sum = 0;
+        for (int i = 0; i < rows; i++) {
+            double price = effectivePrice[i];
+            if (state[i] != 0 && price > 0) {
+                prices[count++] = price;
+                sum += price;
+            }
+        }
+        if (count == 0) {
+            return stats;
+        }
+
+        Arrays.sort(prices, 0, count);
+        stats.count = count;
+        stats.min = prices[0];
+        stats.max = prices[count - 1];
+        stats.average = sum / count;
+        stats.median = prices[count / 2];
+        return stats;
+    }
+
+    /**
+     * Count of active restaurants per price level; index 0 counts unknown levels.
+     */
+    public synchronized int[] priceLevelHistogram() {
+        int[] histogram = new int[PriceAnalyzer.PRICE_LEVEL_LUXURY + 1];
+        for (int i = 0; i < rows; i++) {
+            if ((state[i] & ACTIVE) != 0) {
+                histogram[priceLevel[i]]++;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Count of active, reviewed restaurants per whole-star average rating;
+     * index 0 holds averages below 2 stars, index 4 holds 5 stars.
+     */
+    public synchronized int[] ratingDistribution() {
+        int[] distribution = new int[5];
+        for (int i = 0; i < rows; i++) {
+            if ((state[i] & ACTIVE) != 0 && reviewCount[i] > 0) {
+                int stars = (int) averageRating[i];
+                distribution[Math.max(0, Math.min(4, stars - 1))]++;
+            }
+        }
+        return distribution;
+    }
+
+    /**
+     * Active restaurants that have all the requested feature bits.
+     */
+    public synchronized List<Restaurant> findWithFeatures(int requiredFeatures) {
+        List<Restaurant> result = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            if ((state[i] & ACTIVE) != 0 && (features[i] & requiredFeatures) == requiredFeatures) {
+                result.add(restaurants[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of active restaurants within a latitude/longitude box.
+     */
+    public synchronized int countInBox(double minLat, double minLon, double maxLat, double maxLon) {
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            // NaN coordinates fail both comparisons
+            if ((state[i] & ACTIVE) != 0
+                    && latitude[i] >= minLat && latitude[i] <= maxLat
+                    && longitude[i] >= minLon && longitude[i] <= maxLon) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Active restaurants with the highest average rating and at least
+     * minReviews reviews; ties go to more reviews, then to the lower ordinal.
+     */
+    public synchronized List<Restaurant> topRated(int limit, int minReviews) {
+        int[] rowOf = new int[rows];
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            if ((state[i] & ACTIVE) != 0 && reviewCount[i] >= Math.max(1, minReviews)) {
+                rowOf[count++] = i;
+            }
+        }
+        return best(rowOf, count, averageRating, limit);
+    }
+
+    /**
+     * Price statistics of a list of stored restaurants, the same figures as
+     * {@link PriceAnalyzer#calculatePriceStatistics(List)}, or null when a
+     * restaurant in the list is not the one stored.
+     */
+    public synchronized PriceAnalyzer.PriceStatistics priceStatistics(List<Restaurant> list) {
+        int[] rowOf = rowsOf(list);
+        if (rowOf == null) {
+            return null;
+        }
+        double[] prices = new double[rowOf.length];
+        int count = 0;
+        double sum = 0;
+        for (int row : rowOf) {
+            if (row >= 0 && effectivePrice[row] > 0) {
+                prices[count++] = effectivePrice[row];
+                sum += effectivePrice[row];
+            }
+        }
+        PriceAnalyzer.PriceStatistics stats = new PriceAnalyzer.PriceStatistics();
+        if (count == 0) {
+            return stats;
+        }
+
+        Arrays.sort(prices, 0, count);
+        stats.count = count;
+        stats.min = prices[0];
+        stats.max = prices[count - 1];
+        stats.average = sum / count;
+        stats.median = prices[count / 2];
+        return stats;
+    }
+
+    /**
+     * Restaurants of a list at a price level, in list order, or null when a
+     * restaurant in the list is not the one stored.
+     */
+    public synchronized List<Restaurant> filterByPriceLevel(List<Restaurant> list, int level) {
+        int[] rowOf = rowsOf(list);
+        if (rowOf == null) {
+            return null;
+        }
+        List<Restaurant> result = new ArrayList<>();
+        for (int row : rowOf) {
+            if (row >= 0 && priceLevel[row] == level) {
+                result.add(restaurants[row]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Restaurants of a list whose average rating is within the bounds, in list
+     * order, or null when a restaurant in the list is not the one stored.
+     */
+    public synchronized List<Restaurant> filterByRatingRange(List<Restaurant> list, Double minRating,
+            Double maxRating) {
+        int[] rowOf = rowsOf(list);
+        if (rowOf == null) {
+            return null;
+        }
+        List<Restaurant> result = new ArrayList<>();
+        for (int row : rowOf) {
+            if (row >= 0 && (minRating == null || averageRating[row] >= minRating)
+                    && (maxRating == null || averageRating[row] <= maxRating)) {
+                result.add(restaurants[row]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The reviewed restaurants of a list with the highest weighted rating, ranked
+     * as {@link RatingService#getTopRatedRestaurants(List, int)} ranks them, or
+     * null when a restaurant in the list is not the one stored.
+     */
+    public synchronized List<Restaurant> topRatedWeighted(List<Restaurant> list, int limit) {
+        int[] rowOf = rowsOf(list);
+        if (rowOf == null) {
+            return null;
+        }
+        long now = epochSecond(LocalDateTime.now());
+        int count = 0;
+        for (int row : rowOf) {
+            if (row >= 0 && reviewCount[row] > 0) {
+                if (weightsValidUntil[row] <= now) {
+                    deriveWeightedRating(row);
+                }
+                rowOf[count++] = row;
+            }
+        }
+        return best(rowOf, count, weightedRating, limit);
+    }
+
+    // Stored rows of a list, -1 for null entries; null if any restaurant is not the one stored
+    private int[] rowsOf(List<Restaurant> list) {
+        int[] rowOf = new int[list.size()];
+        int i = 0;
+        for (Restaurant restaurant : list) {
+            if (restaurant == null) {
+                rowOf[i++] = -1;
+                continue;
+            }
+            int ordinal = repository.ordinalOf(restaurant.getId());
+            if (ordinal < 0 || ordinal >= rows || restaurants[ordinal] != restaurant) {
+                return null;
+            }
+            rowOf[i++] = ordinal;
+        }
+        return rowOf;
+    }
+
+    /**
+     * The best limit of the first count rows by rating, then review count,
+     * then position, best first.
+     */
+    private List<Restaurant> best(int[] rowOf, int count, double[] rating, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Min-heap of positions on the worst kept row
+        int[] heap = new int[Math.min(limit, Math.max(count, 1))];
+        int size = 0;
+        for (int p = 0; p < count; p++) {
+            if (size < heap.length) {
+                heap[size] = p;
+                siftUp(heap, size++, rowOf, rating);
+            } else if (compare(p, heap[0], rowOf, rating) < 0) {
+                heap[0] = p;
+                siftDown(heap, size, rowOf, rating);
+            }
+        }
+
+        List<Restaurant> result = new ArrayList<>(size);
+        for (int n = size - 1; n >= 0; n--) {
+            result.add(restaurants[rowOf[heap[0]]]);
+            heap[0] = heap[n];
+            siftDown(heap, n, rowOf, rating);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // Negative when position a ranks before position b
+    private int compare(int a, int b, int[] rowOf, double[] rating) {
+        int cmp = Double.compare(rating[rowOf[b]], rating[rowOf[a]]);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Integer.compare(reviewCount[rowOf[b]], reviewCount[rowOf[a]]);
+        return cmp != 0 ? cmp : Integer.compare(a, b);
+    }
+
+    private void siftUp(int[] heap, int index, int[] rowOf, double[] rating) {
+        int position = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(position, heap[parent], rowOf, rating) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = position;
+    }
+
+    private void siftDown(int[] heap, int size, int[] rowOf, double[] rating) {
+        int index = 0;
+        int position = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && compare(heap[child + 1], heap[child], rowOf, rating) > 0) {
+                child++;
+            }
+            if (compare(heap[child], position, rowOf, rating) <= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        if (size > 0) {
+            heap[index] = position;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= restaurants.length) {
+            return;
+        }
+        int capacity = Math.max(needed, Math.max(16, restaurants.length * 2));
+        restaurants = Arrays.copyOf(restaurants, capacity);
+        state = Arrays.copyOf(state, capacity);
+        latitude = Arrays.copyOf(latitude, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+        effectivePrice = Arrays.copyOf(effectivePrice, capacity);
+        priceLevel = Arrays.copyOf(priceLevel, capacity);
+        averageRating = Arrays.copyOf(averageRating, capacity);
+        weightedRating = Arrays.copyOf(weightedRating, capacity);
+        weightsValidUntil = Arrays.copyOf(weightsValidUntil, capacity);
+        reviewCount = Arrays.copyOf(reviewCount, capacity);
+        features = Arrays.copyOf(features, capacity);
+    }
+}
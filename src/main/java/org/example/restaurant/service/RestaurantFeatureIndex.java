@@ -0,0 +1,172 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.jfr.IndexBuildEvent;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.repository.IdDictionary;
+import org.example.restaurant.repository.RepositoryListener;
+import org.example.restaurant.repository.RestaurantRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feature vectors of a repository's active restaurants, one row per restaurant
+ * ordinal, derived once per save or review instead of once per query.
+ * Candidates are resolved to rows through the repository's id dictionary.
+ * Restaurants changed in place without going through the repository keep
+ * their old row, and a query running during an update may score that one
+ * restaurant with a mix of its old and new features.
+ */
+public class RestaurantFeatureIndex implements RepositoryListener {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final IdDictionary ordinals;
+    private final RatingService ratingService;
+    private final PriceAnalyzer priceAnalyzer;
+    private volatile RestaurantFeatureVectors rows = new RestaurantFeatureVectors(INITIAL_CAPACITY);
+    private volatile int size;
+
+    /**
+     * @param ordinals the dictionary assigning the ordinals this index receives
+     */
+    public RestaurantFeatureIndex(IdDictionary ordinals, RatingService ratingService, PriceAnalyzer priceAnalyzer) {
+        if (ordinals == null) {
+            throw new IllegalArgumentException("Id dictionary cannot be null");
+        }
+        if (ratingService == null) {
+            throw new IllegalArgumentException("Rating service cannot be null");
+        }
+        if (priceAnalyzer == null) {
+            throw new IllegalArgumentException("Price analyzer cannot be null");
+        }
+        this.ordinals = ordinals;
+        this.ratingService = ratingService;
+        this.priceAnalyzer = priceAnalyzer;
+    }
+
+    /**
+     * Index the current restaurants of a repository and follow its changes.
+     */
+    public static RestaurantFeatureIndex attach(RestaurantRepository repository, RatingService ratingService,
+            PriceAnalyzer priceAnalyzer) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        IndexBuildEvent event = new IndexBuildEvent();
+        event.begin();
+        RestaurantFeatureIndex index = new RestaurantFeatureIndex(repository.getIdDictionary(), ratingService,
+                priceAnalyzer);
+        List<Restaurant> restaurants = repository.findAll();
+        for (Restaurant restaurant : restaurants) {
+            index.onSave(restaurant, repository.ordinalOf(restaurant.getId()));
+        }
+        repository.addListener(index);
+        event.emit("feature-vectors", restaurants.size());
+        return index;
+    }
+
+    @Override
+    public synchronized void onSave(Restaurant restaurant, int ordinal) {
+        if (!restaurant.isActive()) {
+            onDelete(restaurant.getId(), ordinal);
+            return;
+        }
+        RestaurantFeatureVectors current = rows;
+        if (ordinal >= current.size()) {
+            current = current.grow(Math.max(ordinal + 1, current.size() * 2));
+        }
+        if (current.restaurants[ordinal] == null) {
+            size++;
+        }
+        current.set(ordinal, restaurant, ratingService, priceAnalyzer);
+        // Published again after the row, so a reader taking the rows after this sees it
+        rows = current;
+    }
+
+    @Override
+    public synchronized void onDelete(String id, int ordinal) {
+        RestaurantFeatureVectors current = rows;
+        if (ordinal < current.size() && current.restaurants[ordinal] != null) {
+            current.clear(ordinal);
+            size--;
+        }
+    }
+
+    @Override
+    public synchronized void onClear() {
+        rows = new RestaurantFeatureVectors(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Number of indexed restaurants.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Rows for a list of candidates. Active candidates stored in the index
+     * read their row; other active candidates get theirs derived for this call.
+     */
+    Candidates candidates(List<Restaurant> restaurants) {
+        RestaurantFeatureVectors current = rows;
+        int[] rowOf = new int[restaurants.size()];
+        List<Restaurant> unindexed = new ArrayList<>();
+        for (int i = 0; i < rowOf.length; i++) {
+            Restaurant restaurant = restaurants.get(i);
+            if (restaurant == null || !restaurant.isActive()) {
+                rowOf[i] = Candidates.SKIP;
+                continue;
+            }
+            int ordinal = ordinals.ordinalOf(restaurant.getId());
+            if (ordinal >= 0 && ordinal < current.size() && current.restaurants[ordinal] == restaurant) {
+                rowOf[i] = ordinal;
+            } else {
+                rowOf[i] = -1 - unindexed.size();
+                unindexed.add(restaurant);
+            }
+        }
+        return new Candidates(current, RestaurantFeatureVectors.of(unindexed, ratingService, priceAnalyzer), rowOf);
+    }
+
+    /**
+     * A candidate list resolved to feature rows, in candidate order.
+     */
+    static final class Candidates {
+        static final int SKIP = Integer.MIN_VALUE;
+
+        private final RestaurantFeatureVectors indexed;
+        private final RestaurantFeatureVectors derived;
+        private final int[] rowOf; // ordinal, -1 - derived row, or SKIP
+
+        Candidates(RestaurantFeatureVectors indexed, RestaurantFeatureVectors derived, int[] rowOf) {
+            this.indexed = indexed;
+            this.derived = derived;
+            this.rowOf = rowOf;
+        }
+
+        int size() {
+            return rowOf.length;
+        }
+
+        /**
+         * Number of candidates whose features were derived for this call.
+         */
+        int derivedCount() {
+            return derived.size();
+        }
+
+        /**
+         * Score candidate i, or NaN if it is null or inactive.
+         */
+        double score(PreferenceScorer scorer, int i) {
+            int row = rowOf[i];
+            if (row == SKIP) {
+                return Double.NaN;
+            }
+            return row >= 0 ? scorer.score(indexed, row) : scorer.score(derived, -1 - row);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.Restaurant;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Per-restaurant scoring features laid out as primitive arrays.
+ * Rating and price level are derived once here, so scoring a candidate
+ * does not rescan its reviews or menu.
+ */
+public final class RestaurantFeatureVectors {
+
+    public static final int FEATURE_DELIVERY = 1;
+    public static final int FEATURE_TAKEOUT = 1 << 1;
+    public static final int FEATURE_PARKING = 1 << 2;
+    public static final int FEATURE_RESERVATIONS = 1 << 3;
+
+    static final int NO_CUISINE = -1;
+
+    final Restaurant[] restaurants;
+    final int[] cuisine;
+    final int[] additionalCuisineMask;
+    final int[] priceLevel;
+    final double[] rating;
+    final int[] features;
+    final double[] latRad; // NaN when the restaurant has no location
+    final double[] lonRad;
+    final double[] cosLat;
+    private final int size;
+
+    RestaurantFeatureVectors(int capacity) {
+        this.restaurants = new Restaurant[capacity];
+        this.cuisine = new int[capacity];
+        this.additionalCuisineMask = new int[capacity];
+        this.priceLevel = new int[capacity];
+        this.rating = new double[capacity];
+        this.features = new int[capacity];
+        this.latRad = new double[capacity];
+        this.lonRad = new double[capacity];
+        this.cosLat = new double[capacity];
+        this.size = capacity;
+    }
+
+    /**
+     * Build feature vectors for the active, non-null restaurants of a list,
+     * keeping their order.
+     */
+    public static RestaurantFeatureVectors of(List<Restaurant> restaurants,
+            RatingService ratingService, PriceAnalyzer priceAnalyzer) {
+        return of(restaurants, ratingService, priceAnalyzer, null);
+    }
+
+    /**
+     * Build feature vectors, deriving the per-restaurant features on the given
+     * fork/join pool when it is not null.
+     */
+    public static RestaurantFeatureVectors of(List<Restaurant> restaurants,
+            RatingService ratingService, PriceAnalyzer priceAnalyzer, ForkJoinPool pool) {
+        int count = 0;
+        if (restaurants != null) {
+            for (Restaurant r : restaurants) {
+                if (r != null && r.isActive()) {
+                    count++;
+                }
+            }
+        }
+
+        RestaurantFeatureVectors vectors = new RestaurantFeatureVectors(count);
+        if (count == 0) {
+            return vectors;
+        }
+
+        int i = 0;
+        for (Restaurant r : restaurants) {
+            if (r != null && r.isActive()) {
+                vectors.restaurants[i++] = r;
+            }
+        }
+
+        if (pool != null) {
+            pool.submit(() -> IntStream.range(0, vectors.size)
+                    .parallel()
+                    .forEach(index -> vectors.fill(index, ratingService, priceAnalyzer)))
+                    .join();
+        } else {
+            for (int index = 0; index < vectors.size; index++) {
+                vectors.fill(index, ratingService, priceAnalyzer);
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * Derive the features of a restaurant into row i.
+     */
+    void set(int i, Restaurant r, RatingService ratingService, PriceAnalyzer priceAnalyzer) {
+        restaurants[i] = r;
+        fill(i, ratingService, priceAnalyzer);
+    }
+
+    /**
+     * Empty row i; an empty row has no restaurant.
+     */
+    void clear(int i) {
+        restaurants[i] = null;
+    }
+
+    /**
+     * Copy of these rows with room for at least capacity rows.
+     */
+    RestaurantFeatureVectors grow(int capacity) {
+        RestaurantFeatureVectors grown = new RestaurantFeatureVectors(Math.max(capacity, size));
+        System.arraycopy(restaurants, 0, grown.restaurants, 0, size);
+        System.arraycopy(cuisine, 0, grown.cuisine, 0, size);
+        System.arraycopy(additionalCuisineMask, 0, grown.additionalCuisineMask, 0, size);
+        System.arraycopy(priceLevel, 0, grown.priceLevel, 0, size);
+        System.arraycopy(rating, 0, grown.rating, 0, size);
+        System.arraycopy(features, 0, grown.features, 0, size);
+        System.arraycopy(latRad, 0, grown.latRad, 0, size);
+        System.arraycopy(lonRad, 0, grown.lonRad, 0, size);
+        System.arraycopy(cosLat, 0, grown.cosLat, 0, size);
+        return grown;
+    }
+
+    private void fill(int i, RatingService ratingService, PriceAnalyzer priceAnalyzer) {
+        Restaurant r = restaurants[i];
+        cuisine[i] = r.getCuisineType() != null ? r.getCuisineType().ordinal() : NO_CUISINE;
+        additionalCuisineMask[i] = cuisineMask(r);
+        priceLevel[i] = priceAnalyzer.categorizePriceLevel(r);
+        rating[i] = ratingService.calculateAverageRating(r);
+        features[i] = featureBits(r);
+
+        Location location = r.getLocation();
+        if (location != null) {
+            latRad[i] = Math.toRadians(location.getLatitude());
+            lonRad[i] = Math.toRadians(location.getLongitude());
+            cosLat[i] = Math.cos(latRad[i]);
+        } else {
+            latRad[i] = Double.NaN;
+            lonRad[i] = Double.NaN;
+            cosLat[i] = Double.NaN;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Restaurant restaurant(int index) {
+        return restaurants[index];
+    }
+
+    public double rating(int index) {
+        return rating[index];
+    }
+
+    public int priceLevel(int index) {
+        return priceLevel[index];
+    }
+
+    public boolean hasFeature(int index, int feature) {
+        return (features[index] & feature) != 0;
+    }
+
+    public boolean hasLocation(int index) {
+        return !Double.isNaN(latRad[index]);
+    }
+
+    static int cuisineMask(Restaurant restaurant) {
+        int mask = 0;
+        if (restaurant.getAdditionalCuisineTypes() != null) {
+            for (CuisineType type : restaurant.getAdditionalCuisineTypes()) {
+                if (type != null) {
+                    mask |= 1 << type.ordinal();
+                }
+            }
+        }
+        return mask;
+    }
+
+    static int featureBits(Restaurant restaurant) {
+        int bits = 0;
+        if (restaurant.isHasDelivery()) {
+            bits |= FEATURE_DELIVERY;
+        }
+        if (restaurant.isHasTakeout()) {
+            bits |= FEATURE_TAKEOUT;
+        }
+        if (restaurant.isHasParking()) {
+            bits |= FEATURE_PARKING;
+        }
+        if (restaurant.isAcceptsReservations()) {
+            bits |= FEATURE_RESERVATIONS;
+        }
+        return bits;
+    }
+}
@@ -1,8 +1,16 @@
 package org.example.restaurant.service;
 
+import org.example.restaurant.jfr.SearchEvent;
+import org.example.restaurant.metrics.Counter;
+import org.example.restaurant.metrics.Histogram;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.MetricsSnapshot;
+import org.example.restaurant.metrics.Timer;
 import org.example.restaurant.model.*;
 import org.example.restaurant.repository.RestaurantRepository;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,6 +24,31 @@ public class RestaurantSearchService {
     private final PriceAnalyzer priceAnalyzer;
     private final BusinessHoursService businessHoursService;
     private final RecommendationService recommendationService;
+    private volatile SearchResultCache resultCache;
+    private volatile RestaurantColumnStore columnStore;
+    private volatile SingleFlight<SearchCriteria, List<Restaurant>> criteriaFlights =
+            new SingleFlight<>("search.criteria.flights", SingleFlight.DEFAULT_TIMEOUT);
+
+    private final Timer searchByNameTimer = Metrics.timer("search.searchByName");
+    private final Timer searchByNameFuzzyTimer = Metrics.timer("search.searchByNameFuzzy");
+    private final Timer searchByCityTimer = Metrics.timer("search.searchByCity");
+    private final Timer searchByDistrictTimer = Metrics.timer("search.searchByDistrict");
+    private final Timer searchByCuisineTypeTimer = Metrics.timer("search.searchByCuisineType");
+    private final Timer searchByMultipleCuisineTypesTimer = Metrics.timer("search.searchByMultipleCuisineTypes");
+    private final Timer searchByMultipleCriteriaTimer = Metrics.timer("search.searchByMultipleCriteria");
+    private final Timer searchAllTimer = Metrics.timer("search.searchAll");
+    private final Histogram batchSizes = Metrics.histogram("search.searchAll.batch");
+    private final Histogram batchQueries = Metrics.histogram("search.searchAll.queries");
+    private final Timer sortResultsTimer = Metrics.timer("search.sortResults");
+    private final Timer getAllRestaurantsTimer = Metrics.timer("search.getAllRestaurants");
+    private final Timer countRestaurantsTimer = Metrics.timer("search.countRestaurants");
+    private final Timer searchGlobalTimer = Metrics.timer("search.searchGlobal");
+    private final Histogram[] stageInput = new Histogram[FilterStage.values().length];
+    private final Histogram[] stageOutput = new Histogram[FilterStage.values().length];
+    // Searches started from a cuisine, district, city or feature lookup rather than every restaurant;
+    // on the default repository those lookups are scans too, so this is not an index hit rate
+    private final Counter narrowed = Metrics.counter("search.criteria.narrowed" + MetricsSnapshot.HITS);
+    private final Counter notNarrowed = Metrics.counter("search.criteria.narrowed" + MetricsSnapshot.MISSES);
 
     public RestaurantSearchService(RestaurantRepository repository) {
         this.repository = repository;
@@ -23,6 +56,35 @@ public class RestaurantSearchService {
         this.priceAnalyzer = new PriceAnalyzer();
         this.businessHoursService = new BusinessHoursService();
         this.recommendationService = new RecommendationService(ratingService, priceAnalyzer);
+        for (FilterStage stage : FilterStage.values()) {
+            String name = "search.criteria." + stage.name().toLowerCase();
+            stageInput[stage.ordinal()] = Metrics.histogram(name + ".in");
+            stageOutput[stage.ordinal()] = Metrics.histogram(name + ".out");
+        }
+    }
+
+    /**
+     * Serve criteria searches through a cache, normally one attached to this
+     * service's repository; null disables caching.
+     */
+    public void setResultCache(SearchResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Start criteria searches that require features, and no cuisine, district
+     * or city, from the column store's feature columns; null disables it.
+     */
+    public void setColumnStore(RestaurantColumnStore columnStore) {
+        this.columnStore = columnStore;
+    }
+
+    /**
+     * Set how long a criteria search waits for an identical search already
+     * running before running its own.
+     */
+    public void setCoalescingTimeout(Duration timeout) {
+        this.criteriaFlights = new SingleFlight<>("search.criteria.flights", timeout);
     }
 
     /**
@@ -30,6 +92,15 @@ public class RestaurantSearchService {
      * v(G) = ~5
      */
     public List<Restaurant> searchByName(String name) {
+        long start = searchByNameTimer.start();
+        try {
+            return doSearchByName(name);
+        } finally {
+            searchByNameTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSearchByName(String name) {
         if (name == null || name.trim().isEmpty()) {
             return new ArrayList<>();
         }
@@ -45,6 +116,15 @@ public class RestaurantSearchService {
      * v(G) = ~8
      */
     public List<Restaurant> searchByNameFuzzy(String keyword) {
+        long start = searchByNameFuzzyTimer.start();
+        try {
+            return doSearchByNameFuzzy(keyword);
+        } finally {
+            searchByNameFuzzyTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSearchByNameFuzzy(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return new ArrayList<>();
         }
@@ -115,20 +195,21 @@ public class RestaurantSearchService {
      * v(G) = ~6
      */
     public List<Restaurant> searchByCity(String city) {
+        long start = searchByCityTimer.start();
+        try {
+            return doSearchByCity(city);
+        } finally {
+            searchByCityTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSearchByCity(String city) {
         if (city == null || city.trim().isEmpty()) {
             return new ArrayList<>();
         }
 
-        String lowerCity = city.trim().toLowerCase();
-
-        return repository.findAll().stream()
+        return repository.findByCity(city).stream()
                 .filter(r -> r != null && r.isActive())
-                .filter(r -> {
-                    if (r.getLocation() == null || r.getLocation().getCity() == null) {
-                        return false;
-                    }
-                    return r.getLocation().getCity().toLowerCase().contains(lowerCity);
-                })
                 .collect(Collectors.toList());
     }
 
@@ -137,20 +218,21 @@ public class RestaurantSearchService {
      * v(G) = ~6
      */
     public List<Restaurant> searchByDistrict(String district) {
+        long start = searchByDistrictTimer.start();
+        try {
+            return doSearchByDistrict(district);
+        } finally {
+            searchByDistrictTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSearchByDistrict(String district) {
         if (district == null || district.trim().isEmpty()) {
             return new ArrayList<>();
         }
 
-        String lowerDistrict = district.trim().toLowerCase();
-
-        return repository.findAll().stream()
+        return repository.findByDistrict(district).stream()
                 .filter(r -> r != null && r.isActive())
-                .filter(r -> {
-                    if (r.getLocation() == null || r.getLocation().getDistrict() == null) {
-                        return false;
-                    }
-                    return r.getLocation().getDistrict().toLowerCase().contains(lowerDistrict);
-                })
                 .collect(Collectors.toList());
     }
 
@@ -159,13 +241,21 @@ public class RestaurantSearchService {
      * v(G) = ~5
      */
     public List<Restaurant> searchByCuisineType(CuisineType cuisineType) {
+        long start = searchByCuisineTypeTimer.start();
+        try {
+            return doSearchByCuisineType(cuisineType);
+        } finally {
+            searchByCuisineTypeTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSearchByCuisineType(CuisineType cuisineType) {
         if (cuisineType == null) {
             return new ArrayList<>();
         }
 
-        return repository.findAll().stream()
+        return repository.findByCuisineType(cuisineType).stream()
                 .filter(r -> r != null && r.isActive())
-                .filter(r -> r.hasCuisineType(cuisineType))
                 .collect(Collectors.toList());
     }
 
@@ -174,6 +264,15 @@ public class RestaurantSearchService {
      * v(G) = ~7
      */
     public List<Restaurant> searchByMultipleCuisineTypes(Set<CuisineType> cuisineTypes) {
+        long start = searchByMultipleCuisineTypesTimer.start();
+        try {
+            return doSearchByMultipleCuisineTypes(cuisineTypes);
+        } finally {
+            searchByMultipleCuisineTypesTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSearchByMultipleCuisineTypes(Set<CuisineType> cuisineTypes) {
         if (cuisineTypes == null || cuisineTypes.isEmpty()) {
             return new ArrayList<>();
         }
@@ -192,131 +291,269 @@ public class RestaurantSearchService {
     }
 
     /**
-     * Search with multiple criteria.
-     * v(G) = ~25
+     * Search with multiple criteria, through the result cache when one is set.
+     * v(G) = ~5
      */
     public List<Restaurant> searchByMultipleCriteria(SearchCriteria criteria) {
+        long start = searchByMultipleCriteriaTimer.start();
+        try {
+            return doSearchByMultipleCriteria(criteria);
+        } finally {
+            searchByMultipleCriteriaTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSearchByMultipleCriteria(SearchCriteria criteria) {
         if (criteria == null) {
             return getAllRestaurants(); // Return only active restaurants
         }
+        SearchResultCache cache = resultCache;
+        if (cache != null) {
+            return cache.get(criteria, this::coalescedFilter);
+        }
 
-        List<Restaurant> results = repository.findAll().stream()
-                .filter(r -> r != null && r.isActive())
-                .collect(Collectors.toList());
+        // Apply pagination; the result may be shared with concurrent identical searches
+        return page(coalescedFilter(criteria), criteria);
+    }
 
-        // Apply keyword filter
-        if (criteria.getKeyword() != null && !criteria.getKeyword().trim().isEmpty()) {
-            String keyword = criteria.getKeyword().trim().toLowerCase();
-            results = results.stream()
-                    .filter(r -> r.matchesKeyword(keyword))
-                    .collect(Collectors.toList());
-        }
-
-        // Apply city filter
-        if (criteria.getCity() != null && !criteria.getCity().trim().isEmpty()) {
-            String city = criteria.getCity().trim().toLowerCase();
-            results = results.stream()
-                    .filter(r -> r.getLocation() != null
-                            && r.getLocation().getCity() != null
-                            && r.getLocation().getCity().toLowerCase().contains(city))
-                    .collect(Collectors.toList());
-        }
-
-        // Apply district filter
-        if (criteria.getDistrict() != null && !criteria.getDistrict().trim().isEmpty()) {
-            String district = criteria.getDistrict().trim().toLowerCase();
-            results = results.stream()
-                    .filter(r -> r.getLocation() != null
-                            && r.getLocation().getDistrict() != null
-                            && r.getLocation().getDistrict().toLowerCase().contains(district))
-                    .collect(Collectors.toList());
-        }
-
-        // Apply cuisine type filter
-        if (criteria.getCuisineType() != null) {
-            CuisineType type = criteria.getCuisineType();
-            results = results.stream()
-                    .filter(r -> r.hasCuisineType(type))
-                    .collect(Collectors.toList());
-        }
-
-        // Apply multiple cuisine types filter
-        if (criteria.getCuisineTypes() != null && !criteria.getCuisineTypes().isEmpty()) {
-            Set<CuisineType> types = criteria.getCuisineTypes();
-            results = results.stream()
-                    .filter(r -> {
-                        for (CuisineType t : types) {
-                            if (r.hasCuisineType(t)) {
-                                return true;
-                            }
-                        }
-                        return false;
-                    })
-                    .collect(Collectors.toList());
+    /**
+     * Copy the page of sorted results that criteria ask for.
+     */
+    private static List<Restaurant> page(List<Restaurant> results, SearchCriteria criteria) {
+        int offset = criteria.getOffset();
+        int limit = criteria.getLimit();
+
+        if (offset >= results.size()) {
+            return new ArrayList<>();
         }
 
-        // Apply rating filter
-        if (criteria.hasRatingFilter()) {
-            results = ratingService.filterByRatingRange(results,
-                    criteria.getMinRating(), criteria.getMaxRating());
+        int endIndex = Math.min(offset + limit, results.size());
+        return new ArrayList<>(results.subList(offset, endIndex));
+    }
+
+    /**
+     * Run a batch of criteria searches in one pass over the catalog, with the
+     * same results as {@link #searchByMultipleCriteria} gives for each. Every
+     * restaurant is read once for the whole batch, its rating, price and
+     * opening state computed at most once, and identical queries share one
+     * sorted result. The result cache and coalescing are not used.
+     * Returned lists are copies the caller may modify.
+     * v(G) = ~7
+     */
+    public List<List<Restaurant>> searchAll(List<SearchCriteria> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        long start = searchAllTimer.start();
+        try {
+            Map<SearchCriteria, Integer> slots = new HashMap<>();
+            List<SearchCriteria> queries = new ArrayList<>();
+            int[] slotOf = new int[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                SearchCriteria criteria = batch.get(i);
+                if (criteria == null) {
+                    slotOf[i] = -1;
+                    continue;
+                }
+                SearchCriteria query = criteria.normalizedQuery();
+                Integer slot = slots.get(query);
+                if (slot == null) {
+                    slot = queries.size();
+                    slots.put(query, slot);
+                    queries.add(query);
+                }
+                slotOf[i] = slot;
+            }
+            batchSizes.record(batch.size());
+            batchQueries.record(queries.size());
+
+            List<List<Restaurant>> sorted = scan(queries);
+            List<List<Restaurant>> results = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                // Null criteria return only active restaurants, as in searchByMultipleCriteria
+                results.add(slotOf[i] < 0 ? getAllRestaurants() : page(sorted.get(slotOf[i]), batch.get(i)));
+            }
+            return results;
+        } finally {
+            searchAllTimer.stop(start);
         }
+    }
 
-        // Apply price filter
-        if (criteria.hasPriceFilter()) {
-            if (criteria.getPriceLevel() != null) {
-                results = priceAnalyzer.filterByPriceLevel(results, criteria.getPriceLevel());
-            } else {
-                results = priceAnalyzer.filterByPriceRange(results,
-                        criteria.getMinPrice(), criteria.getMaxPrice());
+    /**
+     * Match every query against each restaurant in one pass, then order and
+     * sort each query's matches as the filter pipeline does.
+     * v(G) = ~7
+     */
+    private List<List<Restaurant>> scan(List<SearchCriteria> queries) {
+        List<List<Restaurant>> matches = new ArrayList<>(queries.size());
+        if (queries.isEmpty()) {
+            return matches;
+        }
+        CompiledCriteria[] compiled = new CompiledCriteria[queries.size()];
+        for (int q = 0; q < compiled.length; q++) {
+            compiled[q] = CompiledCriteria.compile(queries.get(q));
+            matches.add(new ArrayList<>());
+        }
+        CompiledCriteria.Row row = new CompiledCriteria.Row(ratingService, priceAnalyzer, businessHoursService,
+                recommendationService, LocalDateTime.now());
+        for (Restaurant restaurant : repository.findAll()) {
+            if (restaurant == null) {
+                continue;
             }
+            row.reset(restaurant);
+            for (int q = 0; q < compiled.length; q++) {
+                if (compiled[q].matches(row)) {
+                    matches.get(q).add(restaurant);
+                }
+            }
+        }
+        for (int q = 0; q < compiled.length; q++) {
+            SearchCriteria query = queries.get(q);
+            List<Restaurant> results = matches.get(q);
+            if (compiled[q].hasLocationFilter()) {
+                // Nearest first, as the location stage leaves them before sorting
+                Location userLocation = new Location(query.getLatitude(), query.getLongitude());
+                results = recommendationService.findNearby(userLocation, results, query.getRadiusKm());
+            }
+            matches.set(q, sortResults(results, query));
         }
+        return matches;
+    }
 
-        // Apply open now filter
-        if (Boolean.TRUE.equals(criteria.getOpenNow())) {
-            results = businessHoursService.findOpenNow(results);
+    /**
+     * Filter and sort, joining an identical search that is already running.
+     */
+    private List<Restaurant> coalescedFilter(SearchCriteria criteria) {
+        return criteriaFlights.execute(criteria.normalizedQuery(), () -> filterByCriteria(criteria));
+    }
+
+    /**
+     * Filter and sort the restaurants matching criteria, before pagination.
+     * v(G) = ~6
+     */
+    private List<Restaurant> filterByCriteria(SearchCriteria criteria) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        try {
+            List<Restaurant> initial = candidates(criteria);
+            event.setCandidates(initial.size());
+            CompiledCriteria compiled = CompiledCriteria.compile(criteria);
+            CompiledCriteria.Row row = new CompiledCriteria.Row(ratingService, priceAnalyzer, businessHoursService,
+                    recommendationService, LocalDateTime.now());
+            int[] rejected = new int[FilterStage.values().length];
+            List<Restaurant> results = new ArrayList<>();
+            for (Restaurant restaurant : initial) {
+                if (restaurant == null) {
+                    rejected[FilterStage.ACTIVE.ordinal()]++;
+                    continue;
+                }
+                row.reset(restaurant);
+                FilterStage stage = compiled.rejectedBy(row);
+                if (stage == null) {
+                    results.add(restaurant);
+                } else {
+                    rejected[stage.ordinal()]++;
+                }
+            }
+            recordStages(criteria, initial.size(), rejected);
+
+            if (compiled.hasLocationFilter()) {
+                // Nearest first, as the location stage leaves them before sorting
+                Location userLocation = new Location(criteria.getLatitude(), criteria.getLongitude());
+                results = recommendationService.findNearby(userLocation, results, criteria.getRadiusKm());
+            }
+
+            // Apply sorting
+            results = sortResults(results, criteria);
+            event.setMatches(results.size());
+            return results;
+        } finally {
+            if (event.shouldCommit()) {
+                event.emit(String.valueOf(criteria), describePlan(criteria));
+            }
         }
+    }
 
-        // Apply feature filters
-        if (Boolean.TRUE.equals(criteria.getHasDelivery())) {
-            results = results.stream()
-                    .filter(Restaurant::isHasDelivery)
-                    .collect(Collectors.toList());
+    /**
+     * Record the candidate counts entering and leaving each filter stage that
+     * applies, given how many candidates each stage rejected.
+     */
+    private void recordStages(SearchCriteria criteria, int candidates, int[] rejected) {
+        int remaining = candidates;
+        for (FilterStage stage : FilterStage.values()) {
+            if (stage.appliesTo(criteria)) {
+                stageInput[stage.ordinal()].record(remaining);
+                remaining -= rejected[stage.ordinal()];
+                stageOutput[stage.ordinal()].record(remaining);
+            }
         }
-        if (Boolean.TRUE.equals(criteria.getHasTakeout())) {
-            results = results.stream()
-                    .filter(Restaurant::isHasTakeout)
-                    .collect(Collectors.toList());
+    }
+
+    /**
+     * Narrow the starting set with the most selective lookup the repository or
+     * column store can answer; the full filter chain still runs on the result.
+     * v(G) = ~7
+     */
+    private List<Restaurant> candidates(SearchCriteria criteria) {
+        if (FilterStage.CUISINE.appliesTo(criteria)) {
+            narrowed.increment();
+            return repository.findByCuisineType(criteria.getCuisineType());
+        }
+        if (FilterStage.DISTRICT.appliesTo(criteria)) {
+            narrowed.increment();
+            return repository.findByDistrict(criteria.getDistrict());
+        }
+        if (FilterStage.CITY.appliesTo(criteria)) {
+            narrowed.increment();
+            return repository.findByCity(criteria.getCity());
+        }
+        RestaurantColumnStore store = columnStore;
+        int features = requiredFeatures(criteria);
+        if (store != null && features != 0) {
+            narrowed.increment();
+            return store.findWithFeatures(features);
+        }
+        notNarrowed.increment();
+        return repository.findAll();
+    }
+
+    private static int requiredFeatures(SearchCriteria criteria) {
+        int features = 0;
+        if (FilterStage.DELIVERY.appliesTo(criteria)) {
+            features |= RestaurantFeatureVectors.FEATURE_DELIVERY;
         }
-        if (Boolean.TRUE.equals(criteria.getHasParking())) {
-            results = results.stream()
-                    .filter(Restaurant::isHasParking)
-                    .collect(Collectors.toList());
+        if (FilterStage.TAKEOUT.appliesTo(criteria)) {
+            features |= RestaurantFeatureVectors.FEATURE_TAKEOUT;
         }
-        if (Boolean.TRUE.equals(criteria.getAcceptsReservations())) {
-            results = results.stream()
-                    .filter(Restaurant::isAcceptsReservations)
-                    .collect(Collectors.toList());
+        if (FilterStage.PARKING.appliesTo(criteria)) {
+            features |= RestaurantFeatureVectors.FEATURE_PARKING;
         }
-
-        // Apply location filter
-        if (criteria.hasLocationFilter()) {
-            Location userLocation = new Location(criteria.getLatitude(), criteria.getLongitude());
-            results = recommendationService.findNearby(userLocation, results, criteria.getRadiusKm());
+        if (FilterStage.RESERVATIONS.appliesTo(criteria)) {
+            features |= RestaurantFeatureVectors.FEATURE_RESERVATIONS;
         }
+        return features;
+    }
 
-        // Apply sorting
-        results = sortResults(results, criteria);
-
-        // Apply pagination
-        int offset = criteria.getOffset();
-        int limit = criteria.getLimit();
-
-        if (offset >= results.size()) {
-            return new ArrayList<>();
+    /**
+     * Describe how a criteria search runs: candidate source, filter stages,
+     * sort and page, e.g. {@code city lookup -> active, city, delivery -> sort RATING desc -> page 0+20}.
+     * v(G) = ~7
+     */
+    private String describePlan(SearchCriteria criteria) {
+        String source = FilterStage.CUISINE.appliesTo(criteria) ? "cuisine lookup"
+                : FilterStage.DISTRICT.appliesTo(criteria) ? "district lookup"
+                : FilterStage.CITY.appliesTo(criteria) ? "city lookup"
+                : columnStore != null && requiredFeatures(criteria) != 0 ? "feature columns" : "full scan";
+        StringJoiner stages = new StringJoiner(", ", source + " -> ", "");
+        for (FilterStage stage : FilterStage.values()) {
+            if (stage.appliesTo(criteria)) {
+                stages.add(stage.name().toLowerCase());
+            }
         }
-
-        int endIndex = Math.min(offset + limit, results.size());
-        return results.subList(offset, endIndex);
+        String sort = criteria.getSortBy() != null
+                ? criteria.getSortBy() + (criteria.isAscending() ? " asc" : " desc")
+                : "none";
+        return stages + " -> sort " + sort + " -> page " + criteria.getOffset() + "+" + criteria.getLimit();
     }
 
     /**
@@ -324,6 +561,15 @@ public class RestaurantSearchService {
      * v(G) = ~10
      */
     public List<Restaurant> sortResults(List<Restaurant> results, SearchCriteria criteria) {
+        long start = sortResultsTimer.start();
+        try {
+            return doSortResults(results, criteria);
+        } finally {
+            sortResultsTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSortResults(List<Restaurant> results, SearchCriteria criteria) {
         if (results == null || results.isEmpty()) {
             return new ArrayList<>();
         }
@@ -383,6 +629,15 @@ public class RestaurantSearchService {
      * Get all restaurants.
      */
     public List<Restaurant> getAllRestaurants() {
+        long start = getAllRestaurantsTimer.start();
+        try {
+            return doGetAllRestaurants();
+        } finally {
+            getAllRestaurantsTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doGetAllRestaurants() {
         return repository.findAll().stream()
                 .filter(r -> r != null && r.isActive())
                 .collect(Collectors.toList());
@@ -392,6 +647,15 @@ public class RestaurantSearchService {
      * Count total restaurants.
      */
     public long countRestaurants() {
+        long start = countRestaurantsTimer.start();
+        try {
+            return doCountRestaurants();
+        } finally {
+            countRestaurantsTimer.stop(start);
+        }
+    }
+
+    private long doCountRestaurants() {
         return repository.findAll().stream()
                 .filter(r -> r != null && r.isActive())
                 .count();
@@ -402,6 +666,15 @@ public class RestaurantSearchService {
      * v(G) = ~8
      */
     public List<Restaurant> searchGlobal(String keyword) {
+        long start = searchGlobalTimer.start();
+        try {
+            return doSearchGlobal(keyword);
+        } finally {
+            searchGlobalTimer.stop(start);
+        }
+    }
+
+    private List<Restaurant> doSearchGlobal(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return new ArrayList<>();
         }
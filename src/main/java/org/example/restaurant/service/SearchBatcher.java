@@ -0,0 +1,210 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.metrics.Counter;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.SearchCriteria;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent criteria searches into batches and runs each batch as
+ * one {@link RestaurantSearchService#searchAll shared scan}, so that a burst
+ * of queries reads the catalog once instead of once per query.
+ * <p>
+ * A batch runs when it holds the maximum number of queries, on the thread
+ * that filled it, or when the window since its first query has passed, on the
+ * batcher's executor. The timer thread only hands batches over, so a slow scan
+ * does not hold back the next window. Criteria are copied when submitted.
+ */
+public class SearchBatcher implements AutoCloseable {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(2);
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private final RestaurantSearchService searchService;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private List<Pending> pending = new ArrayList<>();
+    private long batchNumber; // batches started, so a late timer does not run a newer batch early
+    private boolean closed;
+
+    private final Counter submitted = Metrics.counter("search.batcher.submitted");
+    private final Counter fullBatches = Metrics.counter("search.batcher.full");
+    private final Counter timedBatches = Metrics.counter("search.batcher.timed");
+
+    public SearchBatcher(RestaurantSearchService searchService) {
+        this(searchService, DEFAULT_WINDOW, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * Run timed batches on the common fork-join pool.
+     *
+     * @param window   how long the first query of a batch waits for others
+     * @param maxBatch number of queries that runs a batch at once
+     */
+    public SearchBatcher(RestaurantSearchService searchService, Duration window, int maxBatch) {
+        this(searchService, window, maxBatch, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor runs the batches whose window has passed; a batch it
+     *                 rejects runs on the timer thread
+     */
+    public SearchBatcher(RestaurantSearchService searchService, Duration window, int maxBatch, Executor executor) {
+        if (searchService == null) {
+            throw new IllegalArgumentException("Search service cannot be null");
+        }
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Max batch must be positive");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.searchService = searchService;
+        this.executor = executor;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "search-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a search for the next batch. The future completes with the same
+     * results {@link RestaurantSearchService#searchByMultipleCriteria} gives,
+     * or with the exception that failed the batch.
+     * v(G) = ~5
+     */
+    public CompletableFuture<List<Restaurant>> submit(SearchCriteria criteria) {
+        Pending query = new Pending(criteria == null ? null : criteria.normalized());
+        List<Pending> full = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Batcher is closed");
+            }
+            pending.add(query);
+            if (pending.size() >= maxBatch) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                long number = batchNumber;
+                timer.schedule(() -> runTimed(number), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        submitted.increment();
+        if (full != null) {
+            fullBatches.increment();
+            run(full);
+        }
+        return query.future;
+    }
+
+    /**
+     * Search through the next batch and wait for the results.
+     */
+    public List<Restaurant> search(SearchCriteria criteria) {
+        try {
+            return submit(criteria).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        }
+    }
+
+    private List<Pending> takePending() {
+        List<Pending> batch = pending;
+        pending = new ArrayList<>();
+        batchNumber++;
+        return batch;
+    }
+
+    private void runTimed(long number) {
+        List<Pending> batch;
+        synchronized (this) {
+            if (number != batchNumber || pending.isEmpty()) {
+                return; // Already run when it filled up
+            }
+            batch = takePending();
+        }
+        timedBatches.increment();
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            run(batch);
+        }
+    }
+
+    private void run(List<Pending> batch) {
+        List<SearchCriteria> criteria = new ArrayList<>(batch.size());
+        for (Pending query : batch) {
+            criteria.add(query.criteria);
+        }
+        List<List<Restaurant>> results;
+        try {
+            results = searchService.searchAll(criteria);
+        } catch (RuntimeException | Error e) {
+            for (Pending query : batch) {
+                query.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(results.get(i));
+        }
+    }
+
+    /**
+     * Queries waiting for their batch to run.
+     */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Run the queries still waiting, then stop accepting new ones.
+     */
+    @Override
+    public void close() {
+        List<Pending> batch;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            batch = takePending();
+        }
+        timer.shutdownNow();
+        if (!batch.isEmpty()) {
+            run(batch);
+        }
+    }
+
+    private static final class Pending {
+        private final SearchCriteria criteria;
+        private final CompletableFuture<List<Restaurant>> future = new CompletableFuture<>();
+
+        Pending(SearchCriteria criteria) {
+            this.criteria = criteria;
+        }
+    }
+}
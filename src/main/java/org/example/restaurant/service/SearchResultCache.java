@@ -0,0 +1,336 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.metrics.Counter;
+import org.example.restaurant.metrics.Histogram;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.MetricsSnapshot;
+import org.example.restaurant.metrics.Timer;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.SearchCriteria;
+import org.example.restaurant.repository.RepositoryListener;
+import org.example.restaurant.repository.RestaurantRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of criteria search results. Each entry is a window: the full
+ * sorted result of a {@link SearchCriteria#normalizedQuery()}, held as
+ * restaurant ordinals, so that every page of a query and every equivalent
+ * form of its criteria is sliced from one entry.
+ * <p>
+ * Eviction is segmented LRU: new entries start in a probation segment and move
+ * to a protected segment on their first hit, so a burst of one-off queries
+ * evicts other one-off queries rather than the popular ones. Both the entry
+ * count and the total ordinals held are bounded. Entries are served for a
+ * short time to live, and those with an open-now filter no later than the end
+ * of the minute they were loaded in, since business hours have minute resolution.
+ * <p>
+ * Used as a {@link RepositoryListener}, the cache drops the entries a change
+ * can affect: entries filtered on a city are dropped only when the old or new
+ * city of the changed restaurant matches that filter, other entries on every
+ * change. Loads that overlap a change are not stored. Restaurants modified in
+ * place without saving them again are not seen; call {@link #invalidateAll()}.
+ */
+public class SearchResultCache implements RepositoryListener {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_ORDINALS = 1 << 20;
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final RestaurantRepository repository;
+    private final int capacity;
+    private final int protectedCapacity;
+    private final long maxOrdinals;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+    private final LinkedHashMap<SearchCriteria, Entry> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<SearchCriteria, Entry> protectedEntries = new LinkedHashMap<>();
+    private final Map<String, Set<SearchCriteria>> keysByCity = new HashMap<>(); // "" holds entries without a city filter
+    private String[] cities = new String[0]; // lower-cased city by restaurant ordinal
+    private long generation; // changes seen, to reject loads that overlap one
+    private long ordinalCount; // ordinals held by all windows
+
+    private final Counter hits = Metrics.counter("search.cache" + MetricsSnapshot.HITS);
+    private final Counter misses = Metrics.counter("search.cache" + MetricsSnapshot.MISSES);
+    private final Counter evictions = Metrics.counter("search.cache.evictions");
+    private final Counter invalidations = Metrics.counter("search.cache.invalidations");
+    private final Timer loadTimer = Metrics.timer("search.cache.load");
+    private final Histogram windowSizes = Metrics.histogram("search.cache.window");
+
+    private SearchResultCache(RestaurantRepository repository, int capacity, long maxOrdinals,
+            Duration timeToLive, Clock clock) {
+        this.repository = repository;
+        this.capacity = capacity;
+        this.protectedCapacity = Math.max(1, capacity * 4 / 5);
+        this.maxOrdinals = maxOrdinals;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+    }
+
+    public static SearchResultCache attach(RestaurantRepository repository) {
+        return attach(repository, DEFAULT_CAPACITY, DEFAULT_MAX_ORDINALS, DEFAULT_TIME_TO_LIVE,
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * Create a cache that follows the changes of a repository.
+     *
+     * @param capacity    maximum number of windows
+     * @param maxOrdinals maximum number of restaurant ordinals held by all windows
+     * @param timeToLive  how long a window is served after it was loaded
+     * @param clock       clock for expiry; must agree with the clock business hours are checked against
+     */
+    public static SearchResultCache attach(RestaurantRepository repository, int capacity, long maxOrdinals,
+            Duration timeToLive, Clock clock) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (maxOrdinals <= 0) {
+            throw new IllegalArgumentException("Max ordinals must be positive");
+        }
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        SearchResultCache cache = new SearchResultCache(repository, capacity, maxOrdinals, timeToLive, clock);
+        synchronized (cache) {
+            for (Restaurant restaurant : repository.findAll()) {
+                cache.track(repository.ordinalOf(restaurant.getId()), restaurant);
+            }
+            repository.addListener(cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Get a page of results for criteria, sliced from the cached window of
+     * their query or from a window loaded and cached now. The loader returns
+     * the full sorted result, ignoring offset and limit.
+     * Returned lists are copies the caller may modify.
+     * v(G) = ~4
+     */
+    public List<Restaurant> get(SearchCriteria criteria, Function<SearchCriteria, List<Restaurant>> loader) {
+        if (criteria == null) {
+            throw new IllegalArgumentException("Criteria cannot be null");
+        }
+        SearchCriteria key = criteria.normalizedQuery();
+        long loadedAt = clock.millis();
+        Entry entry;
+        long loadGeneration;
+        synchronized (this) {
+            entry = lookup(key, loadedAt);
+            loadGeneration = generation;
+        }
+        if (entry != null) {
+            hits.increment();
+            return page(entry.ordinals, criteria.getOffset(), criteria.getLimit());
+        }
+        misses.increment();
+
+        long start = loadTimer.start();
+        List<Restaurant> results;
+        try {
+            results = loader.apply(criteria);
+        } finally {
+            loadTimer.stop(start);
+        }
+        long expiresAt = loadedAt + timeToLiveMillis;
+        if (Boolean.TRUE.equals(key.getOpenNow())) {
+            expiresAt = Math.min(expiresAt, (loadedAt / MINUTE_MILLIS + 1) * MINUTE_MILLIS);
+        }
+        if (results.size() <= maxOrdinals) {
+            int[] ordinals = new int[results.size()];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = repository.ordinalOf(results.get(i).getId());
+            }
+            windowSizes.record(ordinals.length);
+            store(key, new Entry(ordinals, expiresAt, key.getCity()), loadGeneration);
+        }
+
+        int offset = criteria.getOffset();
+        if (offset >= results.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(results.subList(offset, Math.min(offset + criteria.getLimit(), results.size())));
+    }
+
+    private List<Restaurant> page(int[] ordinals, int offset, int limit) {
+        List<Restaurant> page = new ArrayList<>();
+        for (int i = offset, end = Math.min(offset + limit, ordinals.length); i < end; i++) {
+            repository.findByOrdinal(ordinals[i]).ifPresent(page::add);
+        }
+        return page;
+    }
+
+    // Find a live entry and promote it
+    private Entry lookup(SearchCriteria key, long now) {
+        Entry entry = protectedEntries.get(key);
+        if (entry == null) {
+            entry = probation.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= now) {
+            remove(key);
+            return null;
+        }
+        if (protectedEntries.remove(key) == null) {
+            probation.remove(key);
+        }
+        protectedEntries.put(key, entry);
+        if (protectedEntries.size() > protectedCapacity) {
+            // Demote the least recently used protected entry to probation
+            Iterator<Map.Entry<SearchCriteria, Entry>> eldest = protectedEntries.entrySet().iterator();
+            Map.Entry<SearchCriteria, Entry> demoted = eldest.next();
+            eldest.remove();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+        return entry;
+    }
+
+    private synchronized void store(SearchCriteria key, Entry entry, long loadGeneration) {
+        if (loadGeneration != generation || protectedEntries.containsKey(key) || probation.containsKey(key)) {
+            return;
+        }
+        probation.put(key, entry);
+        ordinalCount += entry.ordinals.length;
+        keysByCity.computeIfAbsent(tag(entry.city), tag -> new HashSet<>()).add(key);
+        while (size() > capacity || ordinalCount > maxOrdinals) {
+            LinkedHashMap<SearchCriteria, Entry> segment = probation.isEmpty() ? protectedEntries : probation;
+            remove(segment.keySet().iterator().next());
+            evictions.increment();
+        }
+    }
+
+    private void remove(SearchCriteria key) {
+        Entry entry = protectedEntries.remove(key);
+        if (entry == null) {
+            entry = probation.remove(key);
+        }
+        if (entry != null) {
+            ordinalCount -= entry.ordinals.length;
+            Set<SearchCriteria> keys = keysByCity.get(tag(entry.city));
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByCity.remove(tag(entry.city));
+            }
+        }
+    }
+
+    private static String tag(String city) {
+        return city == null ? "" : city;
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedEntries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Restaurant ordinals currently held by all windows.
+     */
+    public synchronized long ordinalCount() {
+        return ordinalCount;
+    }
+
+    /**
+     * Drop every entry, e.g. after modifying restaurants in place.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.add(size());
+        probation.clear();
+        protectedEntries.clear();
+        keysByCity.clear();
+        ordinalCount = 0;
+    }
+
+    @Override
+    public synchronized void onSave(Restaurant restaurant, int ordinal) {
+        String previous = ordinal >= 0 && ordinal < cities.length ? cities[ordinal] : null;
+        track(ordinal, restaurant);
+        invalidate(previous, cityOf(restaurant));
+    }
+
+    @Override
+    public synchronized void onDelete(String id, int ordinal) {
+        String previous = ordinal >= 0 && ordinal < cities.length ? cities[ordinal] : null;
+        if (previous != null) {
+            cities[ordinal] = null;
+        }
+        invalidate(previous, null);
+    }
+
+    @Override
+    public synchronized void onClear() {
+        cities = new String[0];
+        invalidateAll();
+    }
+
+    private void track(int ordinal, Restaurant restaurant) {
+        if (ordinal < 0) {
+            return;
+        }
+        if (ordinal >= cities.length) {
+            cities = Arrays.copyOf(cities, Math.max(ordinal + 1, cities.length * 2));
+        }
+        cities[ordinal] = cityOf(restaurant);
+    }
+
+    private static String cityOf(Restaurant restaurant) {
+        Location location = restaurant.getLocation();
+        return location == null || location.getCity() == null ? null : location.getCity().toLowerCase();
+    }
+
+    // Drop entries without a city filter and those whose filter matches either city
+    private void invalidate(String previousCity, String city) {
+        generation++;
+        List<SearchCriteria> stale = new ArrayList<>();
+        for (Map.Entry<String, Set<SearchCriteria>> tagged : keysByCity.entrySet()) {
+            String filter = tagged.getKey();
+            if (filter.isEmpty() || previousCity != null && previousCity.contains(filter)
+                    || city != null && city.contains(filter)) {
+                stale.addAll(tagged.getValue());
+            }
+        }
+        for (SearchCriteria key : stale) {
+            remove(key);
+        }
+        invalidations.add(stale.size());
+    }
+
+    private static final class Entry {
+        private final int[] ordinals; // sorted result
+        private final long expiresAt;
+        private final String city; // normalized city filter, or null
+
+        Entry(int[] ordinals, long expiresAt, String city) {
+            this.ordinals = ordinals;
+            this.expiresAt = expiresAt;
+            this.city = city;
+        }
+    }
+}
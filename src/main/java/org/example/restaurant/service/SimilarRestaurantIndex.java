@@ -0,0 +1,537 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.metrics.Counter;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.repository.RepositoryListener;
+import org.example.restaurant.repository.RestaurantRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precomputed "similar restaurants" lists for every active restaurant in a repository.
+ * Candidates are blocked by cuisine and city: a restaurant is first compared only with
+ * restaurants that serve its main cuisine or are in the same city. Any other restaurant
+ * scores at most {@link #UNBLOCKED_MAX_SIMILARITY}, so when the blocked candidates fill
+ * the list above that score the list is exact; otherwise, typically for a rare cuisine
+ * in a small city, the restaurant is compared with every restaurant.
+ * <p>
+ * The index follows repository events from its first {@link #refresh()} on, and each
+ * refresh only re-scores restaurants saved, reviewed or deleted since the last one whose
+ * cuisine, price level, rating, features or location bucket changed. Restaurants changed
+ * in place without going through the repository are not seen.
+ */
+public class SimilarRestaurantIndex implements RepositoryListener, AutoCloseable {
+
+    // The best score of a candidate sharing neither cuisine nor city: price, rating and features
+    static final double UNBLOCKED_MAX_SIMILARITY = (20 + 20 + 15) / 100.0;
+
+    private static final Comparator<Neighbour> BEST_FIRST = Comparator
+            .comparingDouble((Neighbour n) -> n.score).reversed()
+            .thenComparing(n -> n.id);
+
+    private final RestaurantRepository repository;
+    private final RatingService ratingService;
+    private final PriceAnalyzer priceAnalyzer;
+    private final int maxNeighbours;
+
+    // Refresh state, guarded by this
+    private final Map<String, SimilaritySignature> signatures = new HashMap<>();
+    private final Map<CuisineType, Set<String>> byCuisine = new EnumMap<>(CuisineType.class);
+    private final Map<String, Set<String>> byCity = new HashMap<>();
+    private final Map<String, List<Neighbour>> neighbours = new HashMap<>();
+    private final Map<String, Set<String>> listedBy = new HashMap<>(); // neighbour id -> owners
+    private final Set<String> open = new HashSet<>(); // owners compared with every restaurant
+    private boolean attached;
+
+    // Changes not applied yet, written by repository threads
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong changes = new AtomicLong();
+    private volatile boolean resync = true;
+
+    // Read by request threads
+    private final Map<String, List<String>> published = new ConcurrentHashMap<>();
+    private final Map<String, Restaurant> indexed = new ConcurrentHashMap<>(); // the restaurants lists were built from
+    private volatile long applied = -1; // changes reflected by the lists, -1 while they are being updated
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final Counter refreshFailureCounter = Metrics.counter("recommendation.similar.refresh.failures");
+
+    public SimilarRestaurantIndex(RestaurantRepository repository) {
+        this(repository, new RatingService(), new PriceAnalyzer(), RecommendationService.MAX_SIMILAR);
+    }
+
+    public SimilarRestaurantIndex(RestaurantRepository repository, RatingService ratingService,
+            PriceAnalyzer priceAnalyzer, int maxNeighbours) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository cannot be null");
+        }
+        this.repository = repository;
+        this.ratingService = ratingService;
+        this.priceAnalyzer = priceAnalyzer;
+        this.maxNeighbours = maxNeighbours > 0 ? maxNeighbours : RecommendationService.MAX_SIMILAR;
+    }
+
+    /**
+     * Get the precomputed similar restaurants of a reference restaurant.
+     * Returns an empty list for restaurants not indexed yet.
+     */
+    public List<Restaurant> recommendSimilar(Restaurant reference) {
+        if (reference == null || reference.getId() == null) {
+            return new ArrayList<>();
+        }
+
+        List<String> ids = published.get(reference.getId());
+        List<Restaurant> result = new ArrayList<>();
+        if (ids == null) {
+            return result;
+        }
+        for (String id : ids) {
+            repository.findById(id)
+                    .filter(Restaurant::isActive)
+                    .ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * The best limit restaurants among candidates for a reference, as scoring
+     * every candidate would rank them, or null when the lists cannot tell:
+     * the index is behind the repository, the reference or a candidate is not
+     * the restaurant the lists were built from, or a neighbour is missing from
+     * the candidates. Costs one map lookup per candidate and no scoring.
+     * v(G) = ~11
+     */
+    List<Restaurant> recommendSimilar(Restaurant reference, List<Restaurant> candidates, int limit) {
+        long version = changes.get();
+        if (!isAt(version) || limit > maxNeighbours || reference.getId() == null
+                || indexed.get(reference.getId()) != reference) {
+            return null;
+        }
+        List<String> ids = published.get(reference.getId());
+
+        Set<String> candidateIds = new HashSet<>();
+        for (Restaurant candidate : candidates) {
+            if (candidate == null || !candidate.isActive()) {
+                continue;
+            }
+            if (candidate.getId() == null || indexed.get(candidate.getId()) != candidate) {
+                return null;
+            }
+            candidateIds.add(candidate.getId());
+        }
+
+        List<Restaurant> result = new ArrayList<>();
+        for (String id : ids.subList(0, Math.min(limit, ids.size()))) {
+            if (!candidateIds.contains(id)) {
+                return null;
+            }
+            result.add(indexed.get(id));
+        }
+        // Lists changed while they were read
+        return isAt(version) ? result : null;
+    }
+
+    /**
+     * Whether the lists reflect every repository change seen so far.
+     */
+    public boolean isCurrent() {
+        return isAt(changes.get());
+    }
+
+    private boolean isAt(long version) {
+        return applied == version && changes.get() == version;
+    }
+
+    /**
+     * Number of background refreshes that failed.
+     */
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    @Override
+    public void onSave(Restaurant restaurant, int ordinal) {
+        changed(restaurant.getId());
+    }
+
+    @Override
+    public void onDelete(String id, int ordinal) {
+        changed(id);
+    }
+
+    @Override
+    public void onClear() {
+        resync = true;
+        changes.incrementAndGet();
+    }
+
+    private void changed(String id) {
+        pending.add(id);
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Bring the neighbour lists up to date with the repository. The first call
+     * starts following repository events and compares every restaurant.
+     *
+     * @return the number of restaurants whose list was fully re-scored
+     */
+    public synchronized int refresh() {
+        if (!attached) {
+            repository.addListener(this);
+            attached = true;
+        }
+        try {
+            return applyChanges();
+        } catch (RuntimeException e) {
+            // The lists may be half updated; rebuild them on the next refresh
+            reset();
+            throw e;
+        }
+    }
+
+    /**
+     * v(G) = ~14
+     */
+    private int applyChanges() {
+        long version = changes.get();
+        Set<String> ids = drainPending();
+        if (ids.isEmpty()) {
+            applied = version;
+            return 0;
+        }
+
+        // Restaurants that were added, removed or changed
+        Map<String, SimilaritySignature> updates = new HashMap<>();
+        Map<String, Restaurant> restaurants = new HashMap<>();
+        for (String id : ids) {
+            Restaurant r = repository.findById(id).filter(Restaurant::isActive).orElse(null);
+            SimilaritySignature after = r != null ? SimilaritySignature.of(r, ratingService, priceAnalyzer) : null;
+            SimilaritySignature before = signatures.get(id);
+            restaurants.put(id, r);
+            if (after == null ? before != null : !after.sameAs(before)) {
+                updates.put(id, after);
+            }
+        }
+
+        applied = -1;
+        Set<String> dirty = new HashSet<>();
+        Set<String> touched = new HashSet<>();
+        for (Map.Entry<String, SimilaritySignature> entry : updates.entrySet()) {
+            String id = entry.getKey();
+            SimilaritySignature before = signatures.get(id);
+            SimilaritySignature after = entry.getValue();
+            if (before != null) {
+                unblock(before);
+            }
+            if (after != null) {
+                signatures.put(id, after);
+                block(after);
+                dirty.add(id);
+            } else {
+                signatures.remove(id);
+                open.remove(id);
+                setNeighbours(id, null);
+                published.remove(id);
+            }
+        }
+
+        // Patch the lists of restaurants that may hold a changed restaurant as a neighbour
+        for (String id : updates.keySet()) {
+            for (String other : affectedBy(id)) {
+                if (!dirty.contains(other) && !other.equals(id) && updateNeighbour(other, id)) {
+                    touched.add(other);
+                } else if (!dirty.contains(other) && neighbourRemoved(other, id)) {
+                    dirty.add(other);
+                }
+            }
+        }
+
+        for (String id : dirty) {
+            rescore(id);
+            touched.add(id);
+        }
+        for (String id : touched) {
+            publish(id);
+        }
+        for (Map.Entry<String, Restaurant> entry : restaurants.entrySet()) {
+            if (entry.getValue() != null) {
+                indexed.put(entry.getKey(), entry.getValue());
+            } else {
+                indexed.remove(entry.getKey());
+            }
+        }
+        applied = version;
+        return dirty.size();
+    }
+
+    private void reset() {
+        signatures.clear();
+        byCuisine.clear();
+        byCity.clear();
+        neighbours.clear();
+        listedBy.clear();
+        open.clear();
+        published.clear();
+        indexed.clear();
+        onClear();
+    }
+
+    // Ids changed since the last refresh; every id after a clear or before the first refresh
+    private Set<String> drainPending() {
+        Set<String> ids = new HashSet<>();
+        if (resync) {
+            resync = false;
+            pending.clear();
+            ids.addAll(signatures.keySet());
+            for (Restaurant r : repository.findAll()) {
+                ids.add(r.getId());
+            }
+            return ids;
+        }
+        for (Iterator<String> it = pending.iterator(); it.hasNext();) {
+            ids.add(it.next());
+            it.remove();
+        }
+        return ids;
+    }
+
+    /**
+     * Run {@link #refresh()} periodically on a background daemon thread.
+     * A failed run is counted in {@link #getRefreshFailures()} and retried on the next.
+     * The refresh reads the repository while other threads write it, so this is
+     * only for repositories safe to read during writes, such as
+     * {@link org.example.restaurant.repository.PersistentRestaurantRepository};
+     * otherwise call {@link #refresh()} on the writing thread.
+     */
+    public synchronized void startBackgroundRefresh(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "similar-restaurant-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshInBackground, 0, period, unit);
+    }
+
+    void refreshInBackground() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // The next run rebuilds the lists
+            refreshFailures.incrementAndGet();
+            refreshFailureCounter.increment();
+        }
+    }
+
+    /**
+     * Stop the background refresh and stop following repository events;
+     * a later {@link #refresh()} compares every restaurant again.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (attached) {
+            repository.removeListener(this);
+            attached = false;
+            onClear();
+        }
+    }
+
+    private void block(SimilaritySignature signature) {
+        for (CuisineType type : CuisineType.values()) {
+            if (signature.hasCuisineType(type)) {
+                byCuisine.computeIfAbsent(type, t -> new HashSet<>()).add(signature.id);
+            }
+        }
+        if (signature.city != null) {
+            byCity.computeIfAbsent(signature.city, c -> new HashSet<>()).add(signature.id);
+        }
+    }
+
+    private void unblock(SimilaritySignature signature) {
+        for (CuisineType type : CuisineType.values()) {
+            Set<String> ids = byCuisine.get(type);
+            if (ids != null) {
+                ids.remove(signature.id);
+            }
+        }
+        if (signature.city != null) {
+            byCity.get(signature.city).remove(signature.id);
+        }
+    }
+
+    // A candidate is compared with a reference when it serves the reference's cuisine or shares its city
+    private static boolean isCandidate(SimilaritySignature reference, SimilaritySignature candidate) {
+        return candidate.hasCuisineType(reference.cuisine)
+                || (reference.city != null && reference.city.equals(candidate.city));
+    }
+
+    private Set<String> candidatesOf(SimilaritySignature reference) {
+        Set<String> candidates = new HashSet<>(byCuisine.getOrDefault(reference.cuisine, Collections.emptySet()));
+        if (reference.city != null) {
+            candidates.addAll(byCity.get(reference.city));
+        }
+        return candidates;
+    }
+
+    // Restaurants whose list may contain the given restaurant, before or after its change
+    private Set<String> affectedBy(String id) {
+        Set<String> affected = new HashSet<>(listedBy.getOrDefault(id, Collections.emptySet()));
+        affected.addAll(open);
+        SimilaritySignature after = signatures.get(id);
+        if (after != null) {
+            for (CuisineType type : CuisineType.values()) {
+                if (after.hasCuisineType(type)) {
+                    affected.addAll(byCuisine.get(type));
+                }
+            }
+            if (after.city != null) {
+                affected.addAll(byCity.get(after.city));
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Re-insert a changed restaurant into another restaurant's list when that
+     * cannot push out a better neighbour.
+     *
+     * @return true if the list was patched in place
+     */
+    private boolean updateNeighbour(String ownerId, String changedId) {
+        // Owners not re-scored in this refresh all have a signature and a list
+        SimilaritySignature owner = signatures.get(ownerId);
+        SimilaritySignature changed = signatures.get(changedId);
+        List<Neighbour> list = neighbours.get(ownerId);
+        if (changed == null) {
+            return false;
+        }
+
+        Neighbour previous = null;
+        for (Neighbour n : list) {
+            if (n.id.equals(changedId)) {
+                previous = n;
+                break;
+            }
+        }
+
+        // A full list compared only with blocked candidates beats every other restaurant
+        double score = open.contains(ownerId) || isCandidate(owner, changed) ? owner.similarityTo(changed) : 0;
+        boolean qualifies = score > RecommendationService.MIN_SIMILARITY;
+        if (previous != null && (!qualifies || score < previous.score)) {
+            // A lower score may let a restaurant outside the list overtake it
+            return false;
+        }
+        if (!qualifies) {
+            return true;
+        }
+
+        List<Neighbour> updated = new ArrayList<>(list);
+        updated.remove(previous);
+        updated.add(new Neighbour(changedId, score));
+        updated.sort(BEST_FIRST);
+        if (updated.size() > maxNeighbours) {
+            updated = new ArrayList<>(updated.subList(0, maxNeighbours));
+        }
+        setNeighbours(ownerId, updated);
+        return true;
+    }
+
+    // A removed or downgraded restaurant held a place in the owner's list
+    private boolean neighbourRemoved(String ownerId, String changedId) {
+        return listedBy.getOrDefault(changedId, Collections.emptySet()).contains(ownerId);
+    }
+
+    private void rescore(String id) {
+        SimilaritySignature reference = signatures.get(id);
+        List<Neighbour> list = score(reference, candidatesOf(reference));
+        if (list.size() < maxNeighbours || list.get(maxNeighbours - 1).score <= UNBLOCKED_MAX_SIMILARITY) {
+            // A restaurant sharing neither cuisine nor city could still make the list
+            list = score(reference, signatures.keySet());
+            open.add(id);
+        } else {
+            open.remove(id);
+        }
+        setNeighbours(id, list);
+    }
+
+    private List<Neighbour> score(SimilaritySignature reference, Collection<String> candidateIds) {
+        List<Neighbour> list = new ArrayList<>();
+        for (String candidateId : candidateIds) {
+            if (candidateId.equals(reference.id)) {
+                continue;
+            }
+            double score = reference.similarityTo(signatures.get(candidateId));
+            if (score > RecommendationService.MIN_SIMILARITY) {
+                list.add(new Neighbour(candidateId, score));
+            }
+        }
+        list.sort(BEST_FIRST);
+        if (list.size() > maxNeighbours) {
+            list = new ArrayList<>(list.subList(0, maxNeighbours));
+        }
+        return list;
+    }
+
+    // Replace a list, keeping the neighbour -> owners index in step
+    private void setNeighbours(String ownerId, List<Neighbour> list) {
+        List<Neighbour> old = list != null ? neighbours.put(ownerId, list) : neighbours.remove(ownerId);
+        if (old != null) {
+            for (Neighbour n : old) {
+                Set<String> owners = listedBy.get(n.id);
+                owners.remove(ownerId);
+                if (owners.isEmpty()) {
+                    listedBy.remove(n.id);
+                }
+            }
+        }
+        if (list != null) {
+            for (Neighbour n : list) {
+                listedBy.computeIfAbsent(n.id, k -> new HashSet<>()).add(ownerId);
+            }
+        }
+    }
+
+    private void publish(String id) {
+        List<Neighbour> list = neighbours.get(id);
+        List<String> ids = new ArrayList<>(list.size());
+        for (Neighbour n : list) {
+            ids.add(n.id);
+        }
+        published.put(id, Collections.unmodifiableList(ids));
+    }
+
+    private static final class Neighbour {
+        final String id;
+        final double score;
+
+        Neighbour(String id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
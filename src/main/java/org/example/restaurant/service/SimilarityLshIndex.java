@@ -0,0 +1,255 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.jfr.IndexBuildEvent;
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Restaurant;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Approximate similar-restaurant search over a fixed catalog using SimHash
+ * (random hyperplane) locality-sensitive hashing.
+ * Each restaurant's similarity attributes are encoded into a fixed-length vector:
+ * cuisine one-hot, price level, rating, the delivery/takeout/parking flags and a
+ * hashed city. Every table hashes the vector to a bucket key of {@code bitsPerTable}
+ * hyperplane signs; a query only scores the restaurants sharing a bucket with the
+ * reference in at least one probed table, using the exact similarity score.
+ * Probing more tables raises recall at the cost of scoring more candidates.
+ */
+public final class SimilarityLshIndex {
+
+    public static final int DEFAULT_TABLES = 24;
+    public static final int DEFAULT_BITS_PER_TABLE = 8;
+
+    private static final int CUISINE_DIMENSIONS = CuisineType.values().length;
+    private static final int CITY_DIMENSIONS = 16;
+    private static final int PRICE = CUISINE_DIMENSIONS;
+    private static final int RATING = PRICE + 1;
+    private static final int FLAGS = RATING + 1;
+    private static final int CITY = FLAGS + 3;
+    static final int DIMENSIONS = CITY + CITY_DIMENSIONS;
+
+    // Relative weights follow the similarity score: cuisine 30, price 20, rating 20, city 15, features 15
+    private static final double CUISINE_WEIGHT = 1.0;
+    private static final double ADDITIONAL_CUISINE_WEIGHT = 0.5;
+    private static final double PRICE_WEIGHT = 0.8;
+    private static final double RATING_WEIGHT = 0.8;
+    private static final double FLAG_WEIGHT = 0.35;
+    private static final double CITY_WEIGHT = 0.9;
+
+    private final RatingService ratingService;
+    private final PriceAnalyzer priceAnalyzer;
+    private final Restaurant[] restaurants;
+    private final SimilaritySignature[] signatures;
+    private final int tables;
+    private final int bitsPerTable;
+    private final double[][] hyperplanes; // tables * bitsPerTable rows of DIMENSIONS
+    private final List<Map<Integer, int[]>> buckets;
+    private final TopRestaurantSelector selector = new TopRestaurantSelector(null, TopRestaurantSelector.UNLIMITED);
+
+    private SimilarityLshIndex(List<Restaurant> catalog, RatingService ratingService, PriceAnalyzer priceAnalyzer,
+            int tables, int bitsPerTable, long seed) {
+        this.ratingService = ratingService;
+        this.priceAnalyzer = priceAnalyzer;
+        this.tables = tables;
+        this.bitsPerTable = bitsPerTable;
+
+        List<Restaurant> active = new ArrayList<>();
+        for (Restaurant r : catalog) {
+            if (r != null && r.isActive()) {
+                active.add(r);
+            }
+        }
+        this.restaurants = active.toArray(new Restaurant[0]);
+        this.signatures = new SimilaritySignature[restaurants.length];
+        for (int i = 0; i < restaurants.length; i++) {
+            signatures[i] = SimilaritySignature.of(restaurants[i], ratingService, priceAnalyzer);
+        }
+
+        Random random = new Random(seed);
+        this.hyperplanes = new double[tables * bitsPerTable][DIMENSIONS];
+        for (double[] plane : hyperplanes) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                plane[d] = random.nextGaussian();
+            }
+        }
+
+        this.buckets = new ArrayList<>(tables);
+        List<Map<Integer, List<Integer>>> building = new ArrayList<>(tables);
+        for (int t = 0; t < tables; t++) {
+            building.add(new HashMap<>());
+        }
+        for (int i = 0; i < restaurants.length; i++) {
+            double[] vector = encode(signatures[i]);
+            for (int t = 0; t < tables; t++) {
+                building.get(t).computeIfAbsent(bucketKey(vector, t), k -> new ArrayList<>()).add(i);
+            }
+        }
+        for (Map<Integer, List<Integer>> table : building) {
+            Map<Integer, int[]> packed = new HashMap<>(table.size() * 2);
+            for (Map.Entry<Integer, List<Integer>> entry : table.entrySet()) {
+                packed.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+            buckets.add(packed);
+        }
+    }
+
+    /**
+     * Build an index over the active restaurants of a catalog with the default table layout.
+     */
+    public static SimilarityLshIndex build(List<Restaurant> catalog) {
+        return build(catalog, new RatingService(), new PriceAnalyzer(), DEFAULT_TABLES, DEFAULT_BITS_PER_TABLE, 0L);
+    }
+
+    /**
+     * Build an index over the active restaurants of a catalog.
+     * More tables raise the achievable recall; more bits per table make buckets smaller.
+     */
+    public static SimilarityLshIndex build(List<Restaurant> catalog, RatingService ratingService,
+            PriceAnalyzer priceAnalyzer, int tables, int bitsPerTable, long seed) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (tables <= 0) {
+            throw new IllegalArgumentException("Table count must be positive");
+        }
+        if (bitsPerTable <= 0 || bitsPerTable > 30) {
+            throw new IllegalArgumentException("Bits per table must be between 1 and 30");
+        }
+        IndexBuildEvent event = new IndexBuildEvent();
+        event.begin();
+        SimilarityLshIndex index = new SimilarityLshIndex(catalog, ratingService, priceAnalyzer, tables,
+                bitsPerTable, seed);
+        event.emit("similarity-lsh", catalog.size());
+        return index;
+    }
+
+    public int size() {
+        return restaurants.length;
+    }
+
+    public int getTables() {
+        return tables;
+    }
+
+    /**
+     * Get similar restaurants, probing every table.
+     */
+    public List<Restaurant> recommendSimilar(Restaurant reference) {
+        return recommendSimilar(reference, tables);
+    }
+
+    /**
+     * Get similar restaurants, probing the first {@code probes} tables.
+     * Fewer probes score fewer candidates and may miss some exact neighbours.
+     */
+    public List<Restaurant> recommendSimilar(Restaurant reference, int probes) {
+        if (reference == null) {
+            return new ArrayList<>();
+        }
+        return select(reference, probes, null);
+    }
+
+    /**
+     * Get similar restaurants among a list of candidates, probing every table.
+     * Only catalog restaurants that are in the list, as the same objects, are
+     * returned; the list itself is never scored.
+     */
+    List<Restaurant> recommendSimilar(Restaurant reference, List<Restaurant> candidates) {
+        Set<Restaurant> allowed = Collections.newSetFromMap(new IdentityHashMap<>());
+        allowed.addAll(candidates);
+        return select(reference, tables, allowed);
+    }
+
+    private List<Restaurant> select(Restaurant reference, int probes, Set<Restaurant> allowed) {
+        SimilaritySignature referenceSignature = SimilaritySignature.of(reference, ratingService, priceAnalyzer);
+        int[] candidates = candidates(referenceSignature, probes);
+        return selector.select(candidates.length, i -> restaurants[candidates[i]], i -> {
+            SimilaritySignature candidate = signatures[candidates[i]];
+            if (candidate.id != null && candidate.id.equals(referenceSignature.id)) {
+                return Double.NaN; // Skip the reference restaurant itself
+            }
+            if (allowed != null && !allowed.contains(restaurants[candidates[i]])) {
+                return Double.NaN;
+            }
+            return referenceSignature.similarityTo(candidate);
+        }, RecommendationService.MIN_SIMILARITY, RecommendationService.MAX_SIMILAR);
+    }
+
+    /**
+     * Number of catalog restaurants that a query would score exactly.
+     */
+    public int candidateCount(Restaurant reference, int probes) {
+        if (reference == null) {
+            return 0;
+        }
+        return candidates(SimilaritySignature.of(reference, ratingService, priceAnalyzer), probes).length;
+    }
+
+    private int[] candidates(SimilaritySignature reference, int probes) {
+        int probed = Math.max(1, Math.min(probes, tables));
+        double[] vector = encode(reference);
+        BitSet seen = new BitSet(restaurants.length);
+        for (int t = 0; t < probed; t++) {
+            int[] bucket = buckets.get(t).get(bucketKey(vector, t));
+            if (bucket != null) {
+                for (int index : bucket) {
+                    seen.set(index);
+                }
+            }
+        }
+        return seen.stream().toArray();
+    }
+
+    private int bucketKey(double[] vector, int table) {
+        int key = 0;
+        int first = table * bitsPerTable;
+        for (int b = 0; b < bitsPerTable; b++) {
+            double[] plane = hyperplanes[first + b];
+            double dot = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                dot += plane[d] * vector[d];
+            }
+            if (dot >= 0) {
+                key |= 1 << b;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Encode similarity attributes as a fixed-length vector; values are centred
+     * so that the hyperplane signs separate dissimilar restaurants.
+     */
+    static double[] encode(SimilaritySignature signature) {
+        double[] vector = new double[DIMENSIONS];
+        for (CuisineType type : CuisineType.values()) {
+            if (type == signature.cuisine) {
+                vector[type.ordinal()] = CUISINE_WEIGHT;
+            } else if (signature.hasCuisineType(type)) {
+                vector[type.ordinal()] = ADDITIONAL_CUISINE_WEIGHT;
+            }
+        }
+        if (signature.priceLevel > 0) {
+            vector[PRICE] = (signature.priceLevel - 2.5) / 1.5 * PRICE_WEIGHT;
+        }
+        if (signature.rating > 0) {
+            vector[RATING] = (signature.rating - 3.0) / 2.0 * RATING_WEIGHT;
+        }
+        for (int f = 0; f < 3; f++) {
+            vector[FLAGS + f] = (signature.features & (1 << f)) != 0 ? FLAG_WEIGHT : -FLAG_WEIGHT;
+        }
+        if (signature.city != null) {
+            vector[CITY + Math.floorMod(signature.city.hashCode(), CITY_DIMENSIONS)] = CITY_WEIGHT;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.Location;
+import org.example.restaurant.model.Restaurant;
+
+import java.util.Objects;
+
+/**
+ * The attributes of a restaurant used by similarity scoring, derived once.
+ * Two signatures that are {@link #sameAs(SimilaritySignature) the same} give
+ * the same similarity against any other restaurant.
+ */
+final class SimilaritySignature {
+
+    private static final int FEATURE_DELIVERY = 1;
+    private static final int FEATURE_TAKEOUT = 1 << 1;
+    private static final int FEATURE_PARKING = 1 << 2;
+    private static final int SHARED_FEATURES = FEATURE_DELIVERY | FEATURE_TAKEOUT | FEATURE_PARKING;
+
+    final String id;
+    final CuisineType cuisine;
+    final int cuisineMask; // main and additional cuisines
+    final int priceLevel;
+    final double rating;
+    final String city;
+    final int features;
+    final long locationBucket; // ~1km grid cell, Long.MIN_VALUE without location
+
+    private SimilaritySignature(Restaurant restaurant, RatingService ratingService, PriceAnalyzer priceAnalyzer) {
+        this.id = restaurant.getId();
+        this.cuisine = restaurant.getCuisineType();
+        int mask = RestaurantFeatureVectors.cuisineMask(restaurant);
+        if (cuisine != null) {
+            mask |= 1 << cuisine.ordinal();
+        }
+        this.cuisineMask = mask;
+        this.priceLevel = priceAnalyzer.categorizePriceLevel(restaurant);
+        this.rating = ratingService.calculateAverageRating(restaurant);
+
+        Location location = restaurant.getLocation();
+        this.city = location != null ? location.getCity() : null;
+        this.locationBucket = location != null
+                ? (long) Math.floor(location.getLatitude() * 100) << 32
+                        | ((long) Math.floor(location.getLongitude() * 100) & 0xFFFFFFFFL)
+                : Long.MIN_VALUE;
+
+        int bits = 0;
+        if (restaurant.isHasDelivery()) {
+            bits |= FEATURE_DELIVERY;
+        }
+        if (restaurant.isHasTakeout()) {
+            bits |= FEATURE_TAKEOUT;
+        }
+        if (restaurant.isHasParking()) {
+            bits |= FEATURE_PARKING;
+        }
+        this.features = bits;
+    }
+
+    static SimilaritySignature of(Restaurant restaurant, RatingService ratingService, PriceAnalyzer priceAnalyzer) {
+        return new SimilaritySignature(restaurant, ratingService, priceAnalyzer);
+    }
+
+    boolean hasCuisineType(CuisineType type) {
+        return type != null && (cuisineMask & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * Similarity score between two restaurants, from 0 to 1.
+     * v(G) = ~12
+     */
+    double similarityTo(SimilaritySignature other) {
+        double score = 0.0;
+        double maxScore = 0.0;
+
+        // Cuisine type match (weight: 30)
+        maxScore += 30;
+        if (cuisine != null && other.cuisine != null) {
+            if (cuisine == other.cuisine) {
+                score += 30;
+            } else if (other.hasCuisineType(cuisine)) {
+                score += 15;
+            }
+        }
+
+        // Price level match (weight: 20)
+        maxScore += 20;
+        if (priceLevel > 0 && other.priceLevel > 0) {
+            int diff = Math.abs(priceLevel - other.priceLevel);
+            score += 20 - (diff * 7);
+        }
+
+        // Rating similarity (weight: 20)
+        maxScore += 20;
+        if (rating > 0 && other.rating > 0) {
+            double ratingDiff = Math.abs(rating - other.rating);
+            score += Math.max(0, 20 - (ratingDiff * 5));
+        }
+
+        // Location proximity (weight: 15)
+        maxScore += 15;
+        if (city != null && city.equals(other.city)) {
+            score += 15;
+        }
+
+        // Feature match (weight: 15)
+        maxScore += 15;
+        int featureMatch = 3 - Integer.bitCount((features ^ other.features) & SHARED_FEATURES);
+        score += featureMatch * 5;
+
+        return score / maxScore;
+    }
+
+    /**
+     * Whether both signatures would score the same against any restaurant.
+     */
+    boolean sameAs(SimilaritySignature other) {
+        return other != null
+                && cuisine == other.cuisine
+                && cuisineMask == other.cuisineMask
+                && priceLevel == other.priceLevel
+                && Double.compare(rating, other.rating) == 0
+                && Objects.equals(city, other.city)
+                && features == other.features
+                && locationBucket == other.locationBucket;
+    }
+}
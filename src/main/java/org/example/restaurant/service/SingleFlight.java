@@ -0,0 +1,105 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.metrics.Counter;
+import org.example.restaurant.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs one computation per key at a time: callers asking for a key that is
+ * already being computed wait for that computation and share its result, or
+ * its exception, instead of repeating it. Nothing is kept once a computation
+ * completes; caching results is left to callers.
+ * <p>
+ * Waiters give up after a timeout and compute the value themselves, so a slow
+ * computation delays the callers that joined it by at most the timeout.
+ * Shared results are seen by every caller and must not be modified.
+ */
+final class SingleFlight<K, V> {
+
+    static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+    private final Counter computations;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    /**
+     * @param name    metric prefix for the {@code .computations}, {@code .coalesced} and {@code .timeouts} counters
+     * @param timeout how long a caller waits for a computation it joined
+     */
+    SingleFlight(String name, Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.timeoutNanos = timeout.toNanos();
+        this.computations = Metrics.counter(name + ".computations");
+        this.coalesced = Metrics.counter(name + ".coalesced");
+        this.timeouts = Metrics.counter(name + ".timeouts");
+    }
+
+    /**
+     * Compute the value of a key, or join the computation of it that is in flight.
+     * v(G) = ~5
+     */
+    V execute(K key, Supplier<V> computation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            return lead(key, flight, computation);
+        }
+        try {
+            V value = leader.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            coalesced.increment();
+            return value;
+        } catch (ExecutionException e) {
+            coalesced.increment();
+            throw rethrow(e.getCause());
+        } catch (TimeoutException e) {
+            timeouts.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Stopped waiting: compute without sharing
+        computations.increment();
+        return computation.get();
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> computation) {
+        computations.increment();
+        V value;
+        try {
+            value = computation.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // Callers arriving from now on start a new computation
+        inFlight.remove(key, flight);
+        flight.complete(value);
+        return value;
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+    }
+
+    /**
+     * Callers currently waiting for the computation of a key.
+     */
+    int waiters(K key) {
+        CompletableFuture<V> flight = inFlight.get(key);
+        return flight == null ? 0 : flight.getNumberOfDependents();
+    }
+}
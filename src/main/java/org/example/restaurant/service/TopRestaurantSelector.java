@@ -0,0 +1,171 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.Restaurant;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Scores candidates and keeps the best ones, ordered by score descending
+ * with ties broken by restaurant id.
+ * Lists at or above the parallel threshold are split across a fork/join pool;
+ * each worker keeps its own bounded top-K heap and the heaps are merged at the end,
+ * so the result is the same as the sequential path.
+ */
+class TopRestaurantSelector {
+
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    // Better candidates first: higher score, then smaller id, then earlier position
+    private static final Comparator<Scored> BEST_FIRST = Comparator
+            .comparingDouble((Scored s) -> s.score).reversed()
+            .thenComparing(s -> s.restaurant.getId(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingInt(s -> s.index);
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    TopRestaurantSelector(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    ForkJoinPool getPool() {
+        return pool;
+    }
+
+    boolean isParallel(int size) {
+        return pool != null && size >= parallelThreshold;
+    }
+
+    /**
+     * Select the best candidates whose score is greater than minScore.
+     * A NaN score skips the candidate.
+     */
+    List<Restaurant> select(int size, IntFunction<Restaurant> candidates, IntToDoubleFunction scorer,
+            double minScore, int limit) {
+        if (size <= 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        TopK top;
+        if (isParallel(size)) {
+            int leafSize = Math.max(1024, size / (pool.getParallelism() * 4));
+            top = pool.invoke(new ScoreTask(candidates, scorer, minScore, limit, 0, size, leafSize));
+        } else {
+            top = scoreRange(candidates, scorer, minScore, limit, 0, size);
+        }
+
+        List<Scored> best = top.sorted();
+        List<Restaurant> result = new ArrayList<>(best.size());
+        for (Scored s : best) {
+            result.add(s.restaurant);
+        }
+        return result;
+    }
+
+    private static TopK scoreRange(IntFunction<Restaurant> candidates, IntToDoubleFunction scorer,
+            double minScore, int limit, int from, int to) {
+        TopK top = new TopK(limit);
+        for (int i = from; i < to; i++) {
+            double score = scorer.applyAsDouble(i);
+            if (score > minScore) {
+                top.offer(new Scored(candidates.apply(i), score, i));
+            }
+        }
+        return top;
+    }
+
+    private static final class ScoreTask extends RecursiveTask<TopK> {
+        private static final long serialVersionUID = 1L;
+
+        private final IntFunction<Restaurant> candidates;
+        private final IntToDoubleFunction scorer;
+        private final double minScore;
+        private final int limit;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        ScoreTask(IntFunction<Restaurant> candidates, IntToDoubleFunction scorer, double minScore,
+                int limit, int from, int to, int leafSize) {
+            this.candidates = candidates;
+            this.scorer = scorer;
+            this.minScore = minScore;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= leafSize) {
+                return scoreRange(candidates, scorer, minScore, limit, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ScoreTask left = new ScoreTask(candidates, scorer, minScore, limit, from, mid, leafSize);
+            ScoreTask right = new ScoreTask(candidates, scorer, minScore, limit, mid, to, leafSize);
+            left.fork();
+            TopK top = right.compute();
+            top.merge(left.join());
+            return top;
+        }
+    }
+
+    /**
+     * Bounded top-K holder; a min-heap on the worst kept candidate when limited.
+     */
+    private static final class TopK {
+        private final int limit;
+        private final Collection<Scored> items;
+
+        TopK(int limit) {
+            this.limit = limit;
+            this.items = limit == UNLIMITED ? new ArrayList<>() : new PriorityQueue<>(BEST_FIRST.reversed());
+        }
+
+        void offer(Scored candidate) {
+            if (limit == UNLIMITED || items.size() < limit) {
+                items.add(candidate);
+                return;
+            }
+            PriorityQueue<Scored> heap = (PriorityQueue<Scored>) items;
+            if (BEST_FIRST.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        void merge(TopK other) {
+            for (Scored s : other.items) {
+                offer(s);
+            }
+        }
+
+        List<Scored> sorted() {
+            List<Scored> list = new ArrayList<>(items);
+            list.sort(BEST_FIRST);
+            return list;
+        }
+    }
+
+    private static final class Scored {
+        final Restaurant restaurant;
+        final double score;
+        final int index;
+
+        Scored(Restaurant restaurant, double score, int index) {
+            this.restaurant = restaurant;
+            this.score = score;
+            this.index = index;
+        }
+    }
+}
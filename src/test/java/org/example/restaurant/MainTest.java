@@ -64,6 +64,26 @@ class MainTest {
                 assertNotNull(main);
             });
         }
+
+        @Test
+        @DisplayName("run - 結束時應關閉相似餐廳索引")
+        void run_ClosesSimilarIndex() throws Exception {
+            PrintStream originalOut = System.out;
+            try {
+                System.setIn(new ByteArrayInputStream("0\n".getBytes()));
+                System.setOut(new PrintStream(new ByteArrayOutputStream()));
+                Main main = new Main();
+                SimilarRestaurantIndex similarIndex = (SimilarRestaurantIndex) getField(main, "similarIndex");
+                assertTrue(similarIndex.isCurrent());
+
+                main.run();
+
+                // 關閉後不再跟隨儲存庫事件
+                assertFalse(similarIndex.isCurrent());
+            } finally {
+                System.setOut(originalOut);
+            }
+        }
     }
 
     @Nested
@@ -127,12 +147,37 @@ class MainTest {
                 assertTrue(output.contains("8. 新增餐廳評論"), "新增選項 8 存在");
                 assertTrue(output.contains("9. 查詢下次營業時間"), "新增選項 9 存在");
                 assertTrue(output.contains("10. 進階組合搜尋"), "新增選項 10 存在");
+                assertTrue(output.contains("11. 瀏覽餐廳評論"), "新增選項 11 存在");
+                assertTrue(output.contains("12. 餐廳統計分析"), "新增選項 12 存在");
                 assertTrue(output.contains("0. 離開系統"), "選項 0 存在");
             } finally {
                 System.setOut(originalOut);
             }
         }
 
+        @Test
+        @DisplayName("run - 餐廳統計分析")
+        void run_ShowStatistics() {
+            ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+            PrintStream originalOut = System.out;
+            System.setOut(new PrintStream(outContent));
+
+            try {
+                System.setIn(new ByteArrayInputStream("12\n0\n".getBytes()));
+                Main main = new Main();
+                main.run();
+
+                String output = outContent.toString();
+                assertTrue(output.contains("--- 餐廳統計分析 ---"));
+                assertTrue(output.contains("價格等級分布:"));
+                assertTrue(output.contains("平均評分分布"));
+                assertTrue(output.contains("提供外送: "));
+                assertTrue(output.contains("評分最高的餐廳:"));
+            } finally {
+                System.setOut(originalOut);
+            }
+        }
+
         @Test
         @DisplayName("run - 無效的主選單輸入")
         void run_InvalidOption() {
@@ -889,6 +934,72 @@ class MainTest {
         }
     }
 
+    @Nested
+    @DisplayName("Browse Reviews Feature")
+    class BrowseReviewsFeature {
+        @Test
+        @DisplayName("browseReviews - 依評分排序並翻頁")
+        void browseReviews_SortsAndPages() throws Exception {
+            ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+            PrintStream originalOut = System.out;
+            System.setOut(new PrintStream(outContent));
+
+            try {
+                // 輸入 11 (瀏覽評論) -> 1 (第1家) -> 3 (評分最高) -> n (下一頁) -> p (上一頁) -> Enter (返回) -> 0 (離開)
+                String input = "11\n1\n3\nn\np\n\n0\n";
+                System.setIn(new ByteArrayInputStream(input.getBytes()));
+
+                Main main = new Main();
+                RestaurantRepository repo = (RestaurantRepository) getField(main, "repository");
+                Restaurant r = repo.findAll().get(0);
+                for (int i = 0; i < 6; i++) {
+                    Review review = new Review("browse-" + i, r.getId(), 5, "翻頁測試 " + i);
+                    review.setUserName("翻頁者" + i);
+                    repo.addReview(r.getId(), review);
+                }
+
+                main.run();
+
+                String output = outContent.toString();
+                int total = r.getReviewCount();
+                int pages = (total + 4) / 5;
+                assertTrue(output.contains("第 1/" + pages + " 頁 (共 " + total + " 則)"));
+                assertTrue(output.contains("第 2/" + pages + " 頁"));
+                assertTrue(output.contains("翻頁者5"), "最新的五星評論在第一頁");
+            } finally {
+                System.setOut(originalOut);
+            }
+        }
+
+        @Test
+        @DisplayName("browseReviews - 沒有評論與無效輸入")
+        void browseReviews_NoReviewsAndInvalidInput() throws Exception {
+            ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+            PrintStream originalOut = System.out;
+            System.setOut(new PrintStream(outContent));
+
+            try {
+                // 無效編號 -> 非數字 -> 選擇沒有評論的餐廳 -> 離開
+                String input = "11\n99\n11\nabc\n11\n1\n\n0\n";
+                System.setIn(new ByteArrayInputStream(input.getBytes()));
+
+                Main main = new Main();
+                RestaurantRepository repo = (RestaurantRepository) getField(main, "repository");
+                repo.deleteAll();
+                repo.save(new Restaurant("empty", "無評論餐廳"));
+
+                main.run();
+
+                String output = outContent.toString();
+                assertTrue(output.contains("無效的編號"));
+                assertTrue(output.contains("請輸入有效的數字"));
+                assertTrue(output.contains("「無評論餐廳」目前沒有評論"));
+            } finally {
+                System.setOut(originalOut);
+            }
+        }
+    }
+
     @Nested
     @DisplayName("Add Review Feature")
     class AddReviewFeature {
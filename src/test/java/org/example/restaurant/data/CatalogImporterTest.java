@@ -0,0 +1,249 @@
+package org.example.restaurant.data;
+
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.example.restaurant.repository.ReviewIndex;
+import org.example.restaurant.service.InputValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CatalogImporter 測試類別
+ */
+class CatalogImporterTest {
+
+    private static final String RESTAURANT_HEADER = "id,name,cuisineType,additionalCuisineTypes,latitude,longitude,"
+            + "address,city,district,priceLevel,averagePrice,active,hasDelivery,description";
+
+    @TempDir
+    Path tempDir;
+
+    private RestaurantRepository repository;
+    private CatalogImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RestaurantRepository();
+        // Small chunks so that tests span several parallel chunks
+        importer = new CatalogImporter(repository, new InputValidator(), new ForkJoinPool(3), 2);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private ImportReport importRestaurants() throws IOException {
+        return importer.importFile(write("restaurants.csv", RESTAURANT_HEADER + "\n"
+                + "r1,春水堂,TAIWANESE,CAFE;甜點,24.1,120.6,西區向上路,台中市,西區,2,250,true,yes,\"珍奶, \"\"原創\"\"\"\n"
+                + "r2,鼎泰豐,中式料理,,25.0,121.5,信義路,台北市,大安區,3,500,,no,\"多行\n描述\"\n"
+                + "\n"
+                + "r3,Pizza,ITALIAN,,,,,,,1,200,false,false,\n"), CatalogImporter.RecordType.RESTAURANTS);
+    }
+
+    @Nested
+    @DisplayName("Restaurants")
+    class Restaurants {
+        @Test
+        @DisplayName("CSV 匯入餐廳，含引號、多值與多行欄位")
+        void importCsv_Restaurants() throws IOException {
+            ImportReport report = importRestaurants();
+
+            assertEquals(3, report.getRowsRead());
+            assertEquals(3, report.getRowsImported());
+            assertFalse(report.hasErrors());
+            assertTrue(report.getRowsPerSecond() > 0);
+
+            Restaurant chunShui = repository.getById("r1");
+            assertEquals("春水堂", chunShui.getName());
+            assertEquals(CuisineType.TAIWANESE, chunShui.getCuisineType());
+            assertTrue(chunShui.hasCuisineType(CuisineType.CAFE));
+            assertTrue(chunShui.hasCuisineType(CuisineType.DESSERT));
+            assertEquals("台中市", chunShui.getLocation().getCity());
+            assertEquals("西區", chunShui.getLocation().getDistrict());
+            assertEquals(24.1, chunShui.getLocation().getLatitude());
+            assertEquals(2, chunShui.getPriceLevel());
+            assertTrue(chunShui.isHasDelivery());
+            assertEquals("珍奶, \"原創\"", chunShui.getDescription());
+
+            Restaurant dinTaiFung = repository.getById("r2");
+            assertEquals(CuisineType.CHINESE, dinTaiFung.getCuisineType());
+            assertTrue(dinTaiFung.isActive());
+            assertEquals("多行\n描述", dinTaiFung.getDescription());
+
+            Restaurant pizza = repository.getById("r3");
+            assertNull(pizza.getLocation());
+            assertFalse(pizza.isActive());
+            assertNull(pizza.getDescription());
+        }
+
+        @Test
+        @DisplayName("JSON Lines 匯入餐廳")
+        void importJsonLines_Restaurants() throws IOException {
+            ImportReport report = importer.importFile(write("restaurants.jsonl",
+                    "{\"id\": \"j1\", \"name\": \"Sushi \\\"Bar\\\"\", \"cuisineType\": \"JAPANESE\","
+                            + " \"additionalCuisineTypes\": [\"SEAFOOD\", \"BBQ\"], \"priceLevel\": 4,"
+                            + " \"averagePrice\": 1200.5, \"hasParking\": true, \"website\": null,"
+                            + " \"description\": \"\\u58fd\\u53f8\\n\"}\n"
+                            + "{}\n"),
+                    CatalogImporter.RecordType.RESTAURANTS);
+
+            assertEquals(2, report.getRowsRead());
+            assertEquals(1, report.getRowsImported());
+            Restaurant sushi = repository.getById("j1");
+            assertEquals("Sushi \"Bar\"", sushi.getName());
+            assertTrue(sushi.hasCuisineType(CuisineType.SEAFOOD));
+            assertTrue(sushi.hasCuisineType(CuisineType.BBQ));
+            assertEquals(4, sushi.getPriceLevel());
+            assertEquals(1200.5, sushi.getAveragePrice());
+            assertTrue(sushi.isHasParking());
+            assertNull(sushi.getWebsite());
+            assertEquals("壽司", sushi.getDescription()); // values are trimmed
+        }
+
+        @Test
+        @DisplayName("錯誤列被略過並回報行號與欄位")
+        void importCsv_BadRows_Reported() throws IOException {
+            ImportReport report = importer.importFile(write("bad.csv", "id,name,priceLevel,cuisineType\n"
+                    + "ok1,Good One,1,\n"
+                    + "bad1,X,1,\n"
+                    + "bad2,Bad Price,abc,\n"
+                    + "bad3,Too,Many,Columns,Here\n"
+                    + "bad4,Unknown,1,MARTIAN\n"
+                    + "ok2,Good Two,2,\n"), CatalogImporter.RecordType.RESTAURANTS);
+
+            assertEquals(6, report.getRowsRead());
+            assertEquals(2, report.getRowsImported());
+            assertEquals(4, report.getErrorCount());
+            assertEquals(2, repository.count());
+
+            ImportReport.RowError shortName = report.getErrors().get(0);
+            assertEquals(3, shortName.getLine());
+            assertEquals("name", shortName.getField());
+            assertEquals(4, report.getErrors().get(1).getLine());
+            assertEquals("priceLevel", report.getErrors().get(1).getField());
+            assertTrue(report.getErrors().get(2).getMessage().contains("columns"));
+            assertEquals("cuisineType", report.getErrors().get(3).getField());
+            assertTrue(report.getErrors().get(3).toString().startsWith("line 6 (cuisineType)"));
+        }
+
+        @Test
+        @DisplayName("錯誤清單有上限，錯誤計數仍完整")
+        void importJsonLines_ManyErrors_Capped() throws IOException {
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < CatalogImporter.MAX_REPORTED_ERRORS + 20; i++) {
+                lines.append("{\"id\": \"x").append(i).append("\", \"name\": ").append('\n');
+            }
+            ImportReport report = importer.importFrom(new StringReader(lines.toString()),
+                    CatalogImporter.Format.JSON_LINES, CatalogImporter.RecordType.RESTAURANTS);
+
+            assertEquals(CatalogImporter.MAX_REPORTED_ERRORS + 20, report.getErrorCount());
+            assertEquals(CatalogImporter.MAX_REPORTED_ERRORS, report.getErrors().size());
+            assertEquals(1, report.getErrors().get(0).getLine());
+        }
+
+        @Test
+        @DisplayName("不使用執行緒池時依序匯入")
+        void importWithoutPool_Sequential() throws IOException {
+            importer = new CatalogImporter(repository, new InputValidator(), null, 1);
+            ImportReport report = importRestaurants();
+            assertEquals(3, report.getRowsImported());
+            assertEquals(3, repository.count());
+        }
+    }
+
+    @Nested
+    @DisplayName("Related Records")
+    class RelatedRecords {
+        @Test
+        @DisplayName("匯入菜單、評論與營業時間，每家餐廳只儲存一次")
+        void importRelatedRecords() throws IOException {
+            importRestaurants();
+            ReviewIndex reviews = ReviewIndex.attach(repository);
+            Restaurant before = repository.getById("r1");
+            int reviewsBefore = repository.getById("r2").getReviewCount();
+            Restaurant reviewedBefore = repository.getById("r2");
+
+            ImportReport menu = importer.importFile(write("menu.csv",
+                    "restaurantId,id,name,price,category,vegan,available\n"
+                            + "r1,m1,珍珠奶茶,70,飲料,true,\n"
+                            + "r1,m2,功夫麵,120,主食,,false\n"
+                            + "missing,m3,Ghost,10,,,\n"),
+                    CatalogImporter.RecordType.MENU_ITEMS);
+            assertEquals(2, menu.getRowsImported());
+            assertEquals("restaurantId", menu.getErrors().get(0).getField());
+            assertEquals(2, repository.getById("r1").getMenuItemCount());
+            // The restaurant stored before the import is replaced, not changed
+            assertEquals(0, before.getMenuItemCount());
+            assertTrue(repository.getById("r1").getMenu().get(0).isVegan());
+            assertFalse(repository.getById("r1").getMenu().get(1).isAvailable());
+
+            ImportReport reviewReport = importer.importFile(write("reviews.jsonl",
+                    "{\"restaurantId\": \"r2\", \"id\": \"v1\", \"rating\": 5, \"userName\": \"Amy\","
+                            + " \"createdAt\": \"2024-03-01T12:30:00\", \"helpfulCount\": 3, \"verified\": true}\n"
+                            + "{\"restaurantId\": \"r2\", \"id\": \"v2\", \"rating\": 3, \"userLevel\": 4}\n"
+                            + "{\"restaurantId\": \"r2\", \"id\": \"v3\", \"rating\": 9}\n"),
+                    CatalogImporter.RecordType.REVIEWS);
+            assertEquals(2, reviewReport.getRowsImported());
+            assertEquals("rating", reviewReport.getErrors().get(0).getField());
+            Review first = repository.getById("r2").getReviews().get(0);
+            assertEquals(LocalDateTime.of(2024, 3, 1, 12, 30), first.getCreatedAt());
+            assertTrue(first.isVerified());
+            assertEquals(4, repository.getById("r2").getReviews().get(1).getUserLevel());
+            assertEquals(reviewsBefore, reviewedBefore.getReviewCount());
+            // Listeners see the restaurant saved once the file is done
+            assertEquals(4.0, reviews.summary("r2").getAverageRating());
+
+            ImportReport hours = importer.importFile(write("hours.csv",
+                    "restaurantId,day,openTime,closeTime,closed\n"
+                            + "r3,MONDAY,11:00,14:00,\n"
+                            + "r3,1,17:00,21:00,\n"
+                            + "r3,sunday,,,true\n"
+                            + "r3,FUNDAY,10:00,12:00,\n"
+                            + "r3,2,25:00,12:00,\n"),
+                    CatalogImporter.RecordType.HOURS);
+            assertEquals(3, hours.getRowsImported());
+            assertEquals(2, hours.getErrorCount());
+            BusinessHours businessHours = repository.getById("r3").getBusinessHours();
+            assertTrue(businessHours.contains(DayOfWeek.MONDAY, LocalTime.of(12, 0)));
+            assertTrue(businessHours.contains(DayOfWeek.MONDAY, LocalTime.of(18, 0)));
+            assertFalse(businessHours.contains(DayOfWeek.MONDAY, LocalTime.of(15, 0)));
+            assertFalse(businessHours.contains(DayOfWeek.SUNDAY, LocalTime.of(12, 0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Arguments")
+    class Arguments {
+        @Test
+        @DisplayName("無效參數與格式")
+        void invalidArguments_Throw() throws IOException {
+            assertThrows(IllegalArgumentException.class, () -> new CatalogImporter(null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new CatalogImporter(repository, new InputValidator(), null, 0));
+            assertThrows(IllegalArgumentException.class,
+                    () -> importer.importFile(tempDir.resolve("data.xml"), CatalogImporter.RecordType.HOURS));
+            assertEquals(CatalogImporter.Format.JSON_LINES, CatalogImporter.Format.of(Path.of("a.NDJSON")));
+            assertThrows(IOException.class, () -> importer.importFile(write("header.csv", "\"id,name\n"),
+                    CatalogImporter.RecordType.RESTAURANTS));
+            assertEquals(0, importer.importFile(write("empty.csv", ""),
+                    CatalogImporter.RecordType.RESTAURANTS).getRowsRead());
+        }
+    }
+}
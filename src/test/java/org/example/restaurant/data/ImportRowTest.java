@@ -0,0 +1,90 @@
+package org.example.restaurant.data;
+
+import org.example.restaurant.exception.ValidationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ImportRow 測試類別
+ */
+class ImportRowTest {
+
+    private static String message(String line) {
+        return assertThrows(ValidationException.class, () -> ImportRow.fromJson(line)).getMessage();
+    }
+
+    @Nested
+    @DisplayName("JSON")
+    class JsonTests {
+
+        @Test
+        @DisplayName("字串跳脫、數值、布林、null 與陣列")
+        void shouldParseValues() {
+            ImportRow row = ImportRow.fromJson(" { \"name\" : \"A\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e9\","
+                    + " \"price\": -12.5e2, \"open\": true, \"closed\": false, \"note\": null,"
+                    + " \"tags\": [\"x\", null, 3, \"y\"], \"empty\": [ ] } ");
+
+            assertEquals("A\"b\\c/d\b\f\n\r\té", row.text("name"));
+            assertEquals(-1250.0, row.decimal("price", 0));
+            assertTrue(row.bool("open", false));
+            assertFalse(row.bool("closed", true));
+            assertNull(row.text("note"));
+            assertEquals(List.of("x", "3", "y"), row.list("tags"));
+            assertTrue(row.list("empty").isEmpty());
+            assertNull(ImportRow.fromJson("{}").text("name"));
+        }
+
+        @Test
+        @DisplayName("格式錯誤應回報欄位位置")
+        void shouldRejectMalformedLines() {
+            assertTrue(message("").startsWith("Expected '{'"));
+            assertTrue(message("{\"a\": ").startsWith("Unexpected end of line"));
+            assertTrue(message("{\"a\": {\"b\": 1}}").startsWith("Nested values are not supported"));
+            assertTrue(message("{\"a\": [[1]]}").startsWith("Nested values are not supported"));
+            assertTrue(message("{\"a\": [1, 2}").startsWith("Expected ']'"));
+            assertTrue(message("{\"a\": tru}").startsWith("Invalid value 'tru'"));
+            assertTrue(message("{\"a\": ,}").startsWith("Invalid value ''"));
+            assertTrue(message("{\"a\": \"open").startsWith("Unterminated string"));
+            assertTrue(message("{\"a\": \"open\\").startsWith("Unterminated string"));
+            assertTrue(message("{\"a\": \"\\u12\"}").startsWith("Invalid unicode escape"));
+            assertTrue(message("{\"a\": \"\\u12").startsWith("Invalid unicode escape"));
+            assertTrue(message("{\"a\": \"\\uzzzz\"}").startsWith("Invalid unicode escape"));
+            assertTrue(message("{\"a\": 1 \"b\": 2}").startsWith("Expected '}'"));
+            assertTrue(message("{\"a\" 1}").startsWith("Expected ':'"));
+            assertEquals("Unexpected text after object at column 10", message("{\"a\": 1} x"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Fields")
+    class FieldTests {
+
+        @Test
+        @DisplayName("欄位轉換與錯誤")
+        void shouldConvertFields() {
+            ImportRow row = ImportRow.fromCsv(new String[] { "yes", "no", "bad", "time", "list", "quoted" },
+                    "Y,0,maybe,11:30,\" a ;; b \",\"say \"\"hi\"\"\"");
+
+            assertTrue(row.bool("yes", false));
+            assertFalse(row.bool("no", true));
+            assertTrue(row.bool("missing", true));
+            assertThrows(ValidationException.class, () -> row.bool("bad", false));
+            assertThrows(ValidationException.class, () -> row.integer("bad", 0));
+            assertThrows(ValidationException.class, () -> row.time("bad"));
+            assertThrows(ValidationException.class, () -> row.dateTime("bad"));
+            assertEquals(LocalTime.of(11, 30), row.time("time"));
+            assertNull(row.time("missing"));
+            assertEquals(List.of("a", "b"), row.list("list"));
+            assertEquals("say \"hi\"", row.text("quoted"));
+            assertThrows(ValidationException.class, () -> ImportRow.fromCsv(new String[] { "a" }, "1,2"));
+            assertThrows(ValidationException.class, () -> ImportRow.splitCsv("\"open"));
+            assertTrue(ImportRow.isOpenCsvRecord("a,\"b"));
+        }
+    }
+}
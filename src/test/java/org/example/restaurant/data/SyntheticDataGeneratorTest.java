@@ -0,0 +1,300 @@
+package org.example.restaurant.data;
+
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.example.restaurant.service.InputValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SyntheticDataGenerator 測試類別
+ */
+class SyntheticDataGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SyntheticDataGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new SyntheticDataGenerator(42L);
+    }
+
+    @Nested
+    @DisplayName("Determinism")
+    class DeterminismTests {
+
+        @Test
+        @DisplayName("相同種子與索引應產生相同餐廳")
+        void sameSeedAndIndexShouldGenerateSameRestaurant() {
+            Restaurant first = generator.restaurant(7);
+            Restaurant second = new SyntheticDataGenerator(42L).restaurant(7);
+
+            assertEquals("syn-7", first.getId());
+            assertEquals(first.getName(), second.getName());
+            assertEquals(first.getLocation().getLatitude(), second.getLocation().getLatitude());
+            assertEquals(first.getPhoneNumber(), second.getPhoneNumber());
+            assertEquals(first.getMenu().size(), second.getMenu().size());
+            assertEquals(first.getReviews().size(), second.getReviews().size());
+        }
+
+        @Test
+        @DisplayName("不同種子應產生不同資料")
+        void differentSeedShouldGenerateDifferentData() {
+            List<String> phones = generator.restaurants(20).map(Restaurant::getPhoneNumber).collect(Collectors.toList());
+            List<String> others = new SyntheticDataGenerator(43L).restaurants(20)
+                    .map(Restaurant::getPhoneNumber).collect(Collectors.toList());
+
+            assertNotEquals(phones, others);
+        }
+
+        @Test
+        @DisplayName("相鄰索引不應產生相同資料")
+        void adjacentIndexesShouldNotBeCorrelated() {
+            long distinctPhones = generator.restaurants(200).map(Restaurant::getPhoneNumber).distinct().count();
+
+            assertEquals(200, distinctPhones);
+        }
+
+        @Test
+        @DisplayName("串流應依索引順序產生")
+        void streamShouldFollowIndexOrder() {
+            List<String> ids = generator.restaurants(3).map(Restaurant::getId).collect(Collectors.toList());
+
+            assertEquals(List.of("syn-0", "syn-1", "syn-2"), ids);
+        }
+    }
+
+    @Nested
+    @DisplayName("Data Quality")
+    class DataQualityTests {
+
+        @Test
+        @DisplayName("產生的資料應通過輸入驗證")
+        void generatedDataShouldPassValidation() {
+            InputValidator validator = new InputValidator();
+
+            generator.restaurants(500).forEach(restaurant -> {
+                validator.validateRestaurant(restaurant);
+                validator.validateLocation(restaurant.getLocation());
+                validator.validateBusinessHours(restaurant.getBusinessHours());
+                restaurant.getMenu().forEach(validator::validateMenuItem);
+                restaurant.getReviews().forEach(validator::validateReview);
+            });
+        }
+
+        @Test
+        @DisplayName("菜系分布應偏向台式料理")
+        void cuisineDistributionShouldBeSkewed() {
+            Map<CuisineType, Long> counts = generator.restaurants(2000)
+                    .collect(Collectors.groupingBy(Restaurant::getCuisineType,
+                            () -> new EnumMap<>(CuisineType.class), Collectors.counting()));
+
+            CuisineType mostCommon = counts.entrySet().stream()
+                    .max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+            assertEquals(CuisineType.TAIWANESE, mostCommon);
+            assertTrue(counts.get(CuisineType.TAIWANESE) > 10 * counts.getOrDefault(CuisineType.MEXICAN, 0L));
+        }
+
+        @Test
+        @DisplayName("評論數應為長尾分布")
+        void reviewCountsShouldHaveLongTail() {
+            generator.setReviewExponent(1.5);
+            List<Integer> counts = generator.restaurants(2000).map(r -> r.getReviews().size())
+                    .collect(Collectors.toList());
+
+            long unreviewed = counts.stream().filter(count -> count == 0).count();
+            int max = counts.stream().mapToInt(Integer::intValue).max().orElse(0);
+            assertTrue(unreviewed > 0);
+            assertTrue(max > 50, "max reviews was " + max);
+            assertTrue(max <= generator.getMaxReviews());
+        }
+
+        @Test
+        @DisplayName("營業時間應包含跨夜時段與公休日")
+        void hoursShouldIncludeOvernightSlotsAndClosedDays() {
+            List<BusinessHours> hours = generator.restaurants(500).map(Restaurant::getBusinessHours)
+                    .collect(Collectors.toList());
+
+            assertTrue(hours.stream().anyMatch(h -> h.getTimeSlots(DayOfWeek.SATURDAY).stream()
+                    .anyMatch(slot -> slot.getCloseTime().isBefore(slot.getOpenTime()))));
+            assertTrue(hours.stream().anyMatch(h -> {
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    if (h.getTimeSlots(day).isEmpty()) {
+                        return true;
+                    }
+                }
+                return false;
+            }));
+        }
+
+        @Test
+        @DisplayName("評論時間不應晚於參考日期")
+        void reviewsShouldPredateReferenceDate() {
+            LocalDate reference = LocalDate.of(2020, 6, 1);
+            generator.setReferenceDate(reference);
+
+            generator.restaurants(200).flatMap(r -> r.getReviews().stream())
+                    .forEach(review -> assertFalse(review.getCreatedAt().toLocalDate().isAfter(reference)));
+        }
+
+        @Test
+        @DisplayName("最大評論數為0時不應產生評論")
+        void zeroMaxReviewsShouldGenerateNoReviews() {
+            generator.setMaxReviews(0);
+
+            assertTrue(generator.restaurants(100).allMatch(r -> r.getReviews().isEmpty()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Output")
+    class OutputTests {
+
+        @Test
+        @DisplayName("應將指定數量的餐廳存入儲存庫")
+        void populateShouldSaveRequestedCount() {
+            RestaurantRepository repository = new RestaurantRepository();
+
+            generator.populate(repository, 5000);
+
+            assertEquals(5000, repository.count());
+            assertTrue(repository.exists("syn-4999"));
+        }
+
+        @Test
+        @DisplayName("匯出檔案應能由匯入器完整讀回")
+        void exportedFilesShouldRoundTripThroughImporter() throws IOException {
+            generator.writeImportFiles(300, tempDir, new ForkJoinPool(2));
+            List<Restaurant> expected = generator.restaurants(300).collect(Collectors.toList());
+            RestaurantRepository repository = new RestaurantRepository();
+            CatalogImporter importer = new CatalogImporter(repository);
+
+            ImportReport restaurants = importer.importFile(tempDir.resolve(CatalogCsvWriter.RESTAURANTS_FILE),
+                    CatalogImporter.RecordType.RESTAURANTS);
+            ImportReport menu = importer.importFile(tempDir.resolve(CatalogCsvWriter.MENU_ITEMS_FILE),
+                    CatalogImporter.RecordType.MENU_ITEMS);
+            ImportReport reviews = importer.importFile(tempDir.resolve(CatalogCsvWriter.REVIEWS_FILE),
+                    CatalogImporter.RecordType.REVIEWS);
+            ImportReport hours = importer.importFile(tempDir.resolve(CatalogCsvWriter.HOURS_FILE),
+                    CatalogImporter.RecordType.HOURS);
+
+            assertFalse(restaurants.hasErrors(), restaurants.getErrors().toString());
+            assertFalse(menu.hasErrors(), menu.getErrors().toString());
+            assertFalse(reviews.hasErrors(), reviews.getErrors().toString());
+            assertFalse(hours.hasErrors(), hours.getErrors().toString());
+            assertEquals(300, repository.count());
+            for (Restaurant original : expected) {
+                Restaurant imported = repository.findById(original.getId()).orElseThrow();
+                assertEquals(original.getName(), imported.getName());
+                assertEquals(original.getDescription(), imported.getDescription());
+                assertEquals(original.getLocation().getLatitude(), imported.getLocation().getLatitude());
+                assertEquals(original.getAdditionalCuisineTypes(), imported.getAdditionalCuisineTypes());
+                assertEquals(original.getMenu().size(), imported.getMenu().size());
+                assertEquals(original.getReviews().size(), imported.getReviews().size());
+                assertEquals(original.getReviews().stream().mapToInt(Review::getRating).sum(),
+                        imported.getReviews().stream().mapToInt(Review::getRating).sum());
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    assertEquals(original.getBusinessHours().getTimeSlots(day).size(),
+                            imported.getBusinessHours().getTimeSlots(day).size());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("含逗號與引號的欄位應加上引號")
+        void fieldsWithSeparatorsShouldBeQuoted() throws IOException {
+            Restaurant restaurant = new Restaurant("q1", "A, \"B\"", CuisineType.CAFE,
+                    new Location(25.0, 121.5, "路", "台北市"));
+            try (CatalogCsvWriter writer = new CatalogCsvWriter(tempDir)) {
+                writer.write(restaurant);
+            }
+
+            List<String> lines = Files.readAllLines(tempDir.resolve(CatalogCsvWriter.RESTAURANTS_FILE));
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(1).startsWith("q1,\"A, \"\"B\"\"\","));
+        }
+
+        @Test
+        @DisplayName("換行、長欄位與多個料理類型應能由匯入器讀回")
+        void multilineAndLongFieldsShouldRoundTrip() throws IOException {
+            Restaurant restaurant = new Restaurant("m1", "拉麵店", CuisineType.JAPANESE,
+                    new Location(25.0, 121.5, "路", "台北市"));
+            restaurant.setDescription("第一行\n第二行");
+            restaurant.addCuisineType(CuisineType.CHINESE);
+            restaurant.addCuisineType(CuisineType.KOREAN);
+            String comment = "好吃".repeat(300);
+            restaurant.addReview(new Review("m1-v1", "m1", 5, comment));
+            restaurant.getReviews().add(null);
+            try (CatalogCsvWriter writer = new CatalogCsvWriter(tempDir)) {
+                writer.write(restaurant);
+            }
+
+            RestaurantRepository repository = new RestaurantRepository();
+            CatalogImporter importer = new CatalogImporter(repository);
+            ImportReport restaurants = importer.importFile(tempDir.resolve(CatalogCsvWriter.RESTAURANTS_FILE),
+                    CatalogImporter.RecordType.RESTAURANTS);
+            ImportReport reviews = importer.importFile(tempDir.resolve(CatalogCsvWriter.REVIEWS_FILE),
+                    CatalogImporter.RecordType.REVIEWS);
+
+            assertFalse(restaurants.hasErrors(), restaurants.getErrors().toString());
+            assertFalse(reviews.hasErrors(), reviews.getErrors().toString());
+            Restaurant imported = repository.findById("m1").orElseThrow();
+            assertEquals("第一行\n第二行", imported.getDescription());
+            assertEquals(restaurant.getAdditionalCuisineTypes(), imported.getAdditionalCuisineTypes());
+            assertEquals(1, imported.getReviews().size());
+            assertEquals(comment, imported.getReviews().get(0).getComment());
+        }
+
+        @Test
+        @DisplayName("缺少位置、料理類型、菜單與評論時應寫出空欄位")
+        void missingPartsShouldBeWrittenAsEmptyFields() throws IOException {
+            Restaurant restaurant = new Restaurant("e1", "Empty");
+            restaurant.setDescription("a\rb");
+            restaurant.setAdditionalCuisineTypes(null);
+            restaurant.setMenu(null);
+            restaurant.setReviews(null);
+            try (CatalogCsvWriter writer = new CatalogCsvWriter(tempDir)) {
+                writer.write(restaurant);
+            }
+
+            String written = Files.readString(tempDir.resolve(CatalogCsvWriter.RESTAURANTS_FILE));
+            assertTrue(written.contains("\ne1,Empty,\"a\rb\",,,,,,,,"), written);
+            assertEquals(1, Files.readAllLines(tempDir.resolve(CatalogCsvWriter.MENU_ITEMS_FILE)).size());
+            assertEquals(1, Files.readAllLines(tempDir.resolve(CatalogCsvWriter.REVIEWS_FILE)).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Argument Checks")
+    class ArgumentCheckTests {
+
+        @Test
+        @DisplayName("不合法的參數應拋出例外")
+        void invalidArgumentsShouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> generator.restaurant(-1));
+            assertThrows(IllegalArgumentException.class, () -> generator.restaurants(-1));
+            assertThrows(IllegalArgumentException.class, () -> generator.setMaxReviews(-1));
+            assertThrows(IllegalArgumentException.class, () -> generator.setReviewExponent(1.0));
+            assertThrows(IllegalArgumentException.class, () -> generator.setReviewExponent(0));
+            assertThrows(IllegalArgumentException.class, () -> generator.setReferenceDate(null));
+        }
+    }
+}
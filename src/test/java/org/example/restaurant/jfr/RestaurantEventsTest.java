@@ -0,0 +1,178 @@
+package org.example.restaurant.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.restaurant.data.CatalogImporter;
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.model.CuisineType;
+import org.example.restaurant.model.SearchCriteria;
+import org.example.restaurant.model.UserPreferences;
+import org.example.restaurant.repository.CatalogSegment;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.example.restaurant.repository.RestaurantSnapshot;
+import org.example.restaurant.repository.ReviewIndex;
+import org.example.restaurant.service.RecommendationService;
+import org.example.restaurant.service.RestaurantSearchService;
+import org.example.restaurant.service.SimilarityLshIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JFR 事件測試類別
+ */
+class RestaurantEventsTest {
+
+    private static final String PREFIX = "org.example.restaurant.";
+
+    @TempDir
+    Path tempDir;
+
+    private RestaurantRepository repository;
+    private Recording recording;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RestaurantRepository();
+        new SyntheticDataGenerator(42L).populate(repository, 200);
+        recording = new Recording();
+        for (String name : new String[] { "Search", "Recommendation", "ImportBatch", "IndexBuild", "SnapshotWrite" }) {
+            recording.enable(PREFIX + name).withThreshold(Duration.ZERO);
+        }
+        recording.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recording.close();
+    }
+
+    private List<RecordedEvent> events(String name) throws IOException {
+        recording.stop();
+        Path file = tempDir.resolve("events.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(PREFIX + name))
+                .collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Search")
+    class SearchTests {
+
+        @Test
+        @DisplayName("多條件搜尋應記錄條件、執行計畫與筆數")
+        void criteriaSearchShouldRecordPlan() throws IOException {
+            SearchCriteria criteria = new SearchCriteria();
+            criteria.setCity("台北市");
+            criteria.setHasDelivery(true);
+            criteria.setSortBy(SearchCriteria.SortType.RATING);
+            int found = new RestaurantSearchService(repository).searchByMultipleCriteria(criteria).size();
+
+            List<RecordedEvent> events = events("Search");
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertTrue(event.getString("criteria").contains("city=台北市"));
+            assertTrue(event.getString("criteria").contains("hasDelivery=true"));
+            assertTrue(event.getString("plan").startsWith("city lookup -> active, city, delivery -> sort RATING"),
+                    event.getString("plan"));
+            assertTrue(event.getInt("candidates") >= event.getInt("matches"));
+            assertTrue(event.getInt("matches") >= found);
+        }
+
+        @Test
+        @DisplayName("未指定索引欄位時應記錄全表掃描")
+        void searchWithoutIndexedFieldShouldRecordFullScan() throws IOException {
+            SearchCriteria criteria = new SearchCriteria();
+            criteria.setMinRating(4.0);
+            new RestaurantSearchService(repository).searchByMultipleCriteria(criteria);
+
+            RecordedEvent event = events("Search").get(0);
+            assertTrue(event.getString("plan").startsWith("full scan -> active, rating -> sort none"),
+                    event.getString("plan"));
+            assertEquals(200, event.getInt("candidates"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Recommendation")
+    class RecommendationTests {
+
+        @Test
+        @DisplayName("偏好推薦應記錄候選數與結果數")
+        void recommendationShouldRecordCounts() throws IOException {
+            UserPreferences prefs = new UserPreferences();
+            prefs.addFavoriteCuisine(CuisineType.TAIWANESE);
+            int results = new RecommendationService().recommendByPreferences(prefs, repository.findAll(), 5).size();
+
+            RecordedEvent event = events("Recommendation").get(0);
+            assertTrue(event.getString("preferences").contains("TAIWANESE"));
+            assertEquals(200, event.getInt("candidates"));
+            assertEquals(5, event.getInt("limit"));
+            assertEquals(results, event.getInt("results"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Ingestion And Indexes")
+    class IngestionTests {
+
+        @Test
+        @DisplayName("匯入批次應記錄匯入與拒絕筆數")
+        void importBatchShouldRecordOutcome() throws IOException {
+            new CatalogImporter(new RestaurantRepository()).importFrom(new StringReader("id,name,cuisineType\n"
+                    + "a1,甲咖啡,CAFE\n"
+                    + "a2,乙咖啡,NOPE\n"), CatalogImporter.Format.CSV, CatalogImporter.RecordType.RESTAURANTS);
+
+            List<RecordedEvent> events = events("ImportBatch");
+            assertEquals(1, events.size());
+            assertEquals("RESTAURANTS", events.get(0).getString("recordType"));
+            assertEquals(2, events.get(0).getInt("rows"));
+            assertEquals(1, events.get(0).getLong("imported"));
+            assertEquals(1, events.get(0).getLong("rejected"));
+        }
+
+        @Test
+        @DisplayName("建立索引應記錄索引名稱與筆數")
+        void indexBuildsShouldBeRecorded() throws IOException {
+            ReviewIndex.attach(repository);
+            SimilarityLshIndex.build(repository.findAll());
+
+            List<RecordedEvent> events = events("IndexBuild");
+            List<String> names = events.stream().map(e -> e.getString("index")).collect(Collectors.toList());
+            assertTrue(names.containsAll(List.of("reviews", "similarity-lsh")), names.toString());
+            assertTrue(events.stream().allMatch(e -> e.getInt("entries") == 200));
+        }
+
+        @Test
+        @DisplayName("寫入快照與區段檔應記錄檔案大小")
+        void snapshotWritesShouldRecordSize() throws IOException {
+            Path snapshot = tempDir.resolve("catalog.snapshot");
+            Path segment = tempDir.resolve("catalog.segment");
+            RestaurantSnapshot.of(repository.findAll()).write(snapshot);
+            CatalogSegment.write(repository.findAll(), segment);
+
+            List<RecordedEvent> events = events("SnapshotWrite");
+            assertEquals(2, events.size());
+            assertEquals("snapshot", events.get(0).getString("format"));
+            assertEquals(Files.size(snapshot), events.get(0).getLong("bytes"));
+            assertEquals("segment", events.get(1).getString("format"));
+            assertEquals(Files.size(segment), events.get(1).getLong("bytes"));
+            assertEquals(200, events.get(1).getInt("restaurants"));
+        }
+    }
+}
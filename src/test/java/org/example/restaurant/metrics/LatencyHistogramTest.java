@@ -0,0 +1,138 @@
+package org.example.restaurant.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LatencyHistogram 測試類別
+ */
+class LatencyHistogramTest {
+
+    @Nested
+    @DisplayName("Buckets")
+    class BucketTests {
+
+        @Test
+        @DisplayName("小數值應有各自的桶")
+        void smallValuesShouldBeExact() {
+            for (long v = 0; v < LatencyHistogram.SUB_BUCKETS; v++) {
+                int bucket = LatencyHistogram.bucketOf(v);
+                assertEquals(v, LatencyHistogram.lowestValueOf(bucket));
+                assertEquals(v, LatencyHistogram.highestValueOf(bucket));
+            }
+        }
+
+        @Test
+        @DisplayName("桶應連續且涵蓋所有 long 值")
+        void bucketsShouldBeContiguous() {
+            for (int bucket = 1; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+                assertEquals(LatencyHistogram.highestValueOf(bucket - 1) + 1, LatencyHistogram.lowestValueOf(bucket));
+            }
+            assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+        }
+
+        @Test
+        @DisplayName("數值應落在所屬桶的範圍內且誤差不超過1/32")
+        void valuesShouldFallInsideTheirBucket() {
+            long[] values = { 64, 65, 127, 128, 1000, 123_456, 1L << 40, (1L << 40) + 12345, Long.MAX_VALUE / 3 };
+            for (long value : values) {
+                int bucket = LatencyHistogram.bucketOf(value);
+                long low = LatencyHistogram.lowestValueOf(bucket);
+                long high = LatencyHistogram.highestValueOf(bucket);
+                assertTrue(low <= value && value <= high, value + " not in [" + low + ", " + high + "]");
+                assertTrue(high - low <= low / 32, "bucket too wide for " + value);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshot")
+    class SnapshotTests {
+
+        @Test
+        @DisplayName("空的直方圖應回傳0")
+        void emptyHistogramShouldReportZero() {
+            HistogramSnapshot snapshot = new LatencyHistogram().snapshot();
+
+            assertEquals(0, snapshot.getCount());
+            assertEquals(0.0, snapshot.getMean());
+            assertEquals(0, snapshot.getMin());
+            assertEquals(0, snapshot.getMax());
+            assertEquals(0, snapshot.getValueAtPercentile(99));
+        }
+
+        @Test
+        @DisplayName("應計算次數、平均與百分位數")
+        void shouldReportCountMeanAndPercentiles() {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (int v = 1; v <= 1000; v++) {
+                histogram.record(v);
+            }
+
+            HistogramSnapshot snapshot = histogram.snapshot();
+
+            assertEquals(1000, snapshot.getCount());
+            assertEquals(500.5, snapshot.getMean(), 500.5 / 64);
+            assertEquals(1, snapshot.getMin());
+            assertEquals(500, snapshot.getValueAtPercentile(50), 500 / 32.0);
+            assertEquals(990, snapshot.getValueAtPercentile(99), 990 / 32.0);
+            assertEquals(1000, snapshot.getMax(), 1000 / 32.0);
+            assertEquals(1, snapshot.getValueAtPercentile(0));
+        }
+
+        @Test
+        @DisplayName("負值應記錄為0")
+        void negativeValuesShouldBeRecordedAsZero() {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(-5);
+
+            assertEquals(0, histogram.snapshot().getMax());
+            assertEquals(1, histogram.snapshot().getCount());
+        }
+
+        @Test
+        @DisplayName("計時器應記錄經過的奈秒數")
+        void timerShouldRecordElapsedNanos() throws InterruptedException {
+            LatencyHistogram timer = new LatencyHistogram();
+            long start = timer.start();
+            Thread.sleep(2);
+            timer.stop(start);
+
+            HistogramSnapshot snapshot = timer.snapshot();
+            assertEquals(1, snapshot.getCount());
+            assertTrue(snapshot.getMax() >= 2_000_000);
+        }
+
+        @Test
+        @DisplayName("百分位數超出範圍應拋出例外")
+        void invalidPercentileShouldThrow() {
+            HistogramSnapshot snapshot = new LatencyHistogram().snapshot();
+
+            assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(-1));
+            assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(100.5));
+        }
+
+        @Test
+        @DisplayName("並行記錄不應遺失")
+        void concurrentRecordingShouldNotLoseCounts() throws InterruptedException {
+            LatencyHistogram histogram = new LatencyHistogram();
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        histogram.record(i);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(40_000, histogram.snapshot().getCount());
+        }
+    }
+}
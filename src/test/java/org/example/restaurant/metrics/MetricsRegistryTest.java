@@ -0,0 +1,172 @@
+package org.example.restaurant.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MetricsRegistry 與 Metrics 測試類別
+ */
+class MetricsRegistryTest {
+
+    @AfterEach
+    void tearDown() {
+        Metrics.reset();
+    }
+
+    @Nested
+    @DisplayName("No-op Registry")
+    class NoopTests {
+
+        @Test
+        @DisplayName("預設應使用不記錄的登錄表")
+        void defaultRegistryShouldBeNoop() {
+            MetricsRegistry registry = Metrics.registry();
+
+            assertSame(MetricsRegistry.noop(), registry);
+            Timer timer = registry.timer("a");
+            assertEquals(0L, timer.start());
+            timer.stop(0L);
+            registry.histogram("b").record(5);
+            registry.counter("c").increment();
+            registry.counter("c").add(3);
+
+            MetricsSnapshot snapshot = registry.snapshot();
+            assertTrue(snapshot.getTimers().isEmpty());
+            assertTrue(snapshot.getHistograms().isEmpty());
+            assertTrue(snapshot.getCounters().isEmpty());
+            assertEquals("", snapshot.format());
+        }
+    }
+
+    @Nested
+    @DisplayName("In-Process Registry")
+    class InProcessTests {
+
+        @Test
+        @DisplayName("相同名稱應取得相同的儀表")
+        void sameNameShouldReturnSameInstrument() {
+            InProcessMetricsRegistry registry = new InProcessMetricsRegistry();
+
+            assertSame(registry.timer("t"), registry.timer("t"));
+            assertSame(registry.histogram("h"), registry.histogram("h"));
+            assertSame(registry.counter("c"), registry.counter("c"));
+            assertNotSame(registry.timer("x"), registry.histogram("x"));
+        }
+
+        @Test
+        @DisplayName("快照應包含所有儀表")
+        void snapshotShouldContainEveryInstrument() {
+            InProcessMetricsRegistry registry = new InProcessMetricsRegistry();
+            Timer timer = registry.timer("search.test");
+            timer.stop(timer.start());
+            registry.histogram("search.candidates").record(42);
+            registry.counter("cache.hits").add(3);
+            registry.counter("cache.misses").increment();
+
+            MetricsSnapshot snapshot = registry.snapshot();
+
+            assertEquals(1, snapshot.getTimer("search.test").getCount());
+            assertEquals(42, snapshot.getHistogram("search.candidates").getMax());
+            assertEquals(3, snapshot.getCounter("cache.hits"));
+            assertEquals(0, snapshot.getCounter("unknown"));
+            assertEquals(0.75, snapshot.getHitRatio("cache"), 1e-9);
+            assertEquals(0.0, snapshot.getHitRatio("unknown"));
+            String table = snapshot.format();
+            assertTrue(table.contains("search.test"));
+            assertTrue(table.contains("search.candidates"));
+            assertTrue(table.contains("cache.hits"));
+            assertEquals(table, snapshot.toString());
+        }
+
+        @Test
+        @DisplayName("快照不應隨後續記錄改變")
+        void snapshotShouldBeImmutable() {
+            InProcessMetricsRegistry registry = new InProcessMetricsRegistry();
+            registry.histogram("h").record(1);
+            MetricsSnapshot snapshot = registry.snapshot();
+
+            registry.histogram("h").record(2);
+            registry.counter("c").increment();
+
+            assertEquals(1, snapshot.getHistogram("h").getCount());
+            assertFalse(snapshot.getCounters().containsKey("c"));
+            assertThrows(UnsupportedOperationException.class, () -> snapshot.getCounters().put("c", 1L));
+        }
+
+        @Test
+        @DisplayName("空白名稱應拋出例外")
+        void blankNameShouldThrow() {
+            InProcessMetricsRegistry registry = new InProcessMetricsRegistry();
+
+            assertThrows(IllegalArgumentException.class, () -> registry.timer(null));
+            assertThrows(IllegalArgumentException.class, () -> registry.histogram(" "));
+            assertThrows(IllegalArgumentException.class, () -> registry.counter(""));
+        }
+    }
+
+    @Nested
+    @DisplayName("Global Registry")
+    class GlobalTests {
+
+        @Test
+        @DisplayName("安裝後應透過全域方法取得儀表")
+        void installedRegistryShouldServeInstruments() {
+            InProcessMetricsRegistry registry = new InProcessMetricsRegistry();
+            Metrics.install(registry);
+
+            Metrics.counter("c").increment();
+            Metrics.histogram("h").record(7);
+            Metrics.timer("t").stop(Metrics.timer("t").start());
+
+            MetricsSnapshot snapshot = Metrics.registry().snapshot();
+            assertEquals(1, snapshot.getCounter("c"));
+            assertEquals(1, snapshot.getHistogram("h").getCount());
+            assertEquals(1, snapshot.getTimer("t").getCount());
+
+            Metrics.reset();
+            assertSame(MetricsRegistry.noop(), Metrics.registry());
+        }
+
+        @Test
+        @DisplayName("安裝前取得的儀表應記錄到之後安裝的登錄")
+        void instrumentsShouldFollowInstalledRegistry() {
+            Counter counter = Metrics.counter("early.c");
+            Histogram histogram = Metrics.histogram("early.h");
+            Timer timer = Metrics.timer("early.t");
+            counter.increment();
+            long straddling = timer.start();
+
+            InProcessMetricsRegistry first = new InProcessMetricsRegistry();
+            Metrics.install(first);
+            try {
+                timer.stop(straddling);
+                counter.add(2);
+                histogram.record(5);
+                timer.stop(timer.start());
+                assertEquals(2, first.snapshot().getCounter("early.c"));
+                assertEquals(1, first.snapshot().getHistogram("early.h").getCount());
+                assertEquals(1, first.snapshot().getTimer("early.t").getCount());
+
+                InProcessMetricsRegistry second = new InProcessMetricsRegistry();
+                Metrics.install(second);
+                counter.increment();
+                assertEquals(1, second.snapshot().getCounter("early.c"));
+                assertEquals(2, first.snapshot().getCounter("early.c"));
+            } finally {
+                Metrics.reset();
+            }
+            counter.increment();
+            assertThrows(IllegalArgumentException.class, () -> Metrics.counter(" "));
+        }
+
+        @Test
+        @DisplayName("安裝null應拋出例外")
+        void installNullShouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> Metrics.install(null));
+        }
+    }
+}
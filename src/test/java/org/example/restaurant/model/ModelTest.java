@@ -12,7 +12,9 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -192,6 +194,54 @@ class ModelTest {
             assertTrue(r.matchesKeyword("100號"));
         }
 
+        @Test
+        @DisplayName("copy 有自己的評論與菜單列表")
+        void restaurant_CopyHasOwnLists() {
+            Restaurant r = new Restaurant("1", "Test", CuisineType.JAPANESE, new Location(25.0, 121.0));
+            r.setDescription("Noodles");
+            r.addCuisineType(CuisineType.CHINESE);
+            r.addMenuItem(new MenuItem("m1", "Ramen", 200));
+            r.addReview(new Review("v1", "1", 4, "Good"));
+            r.setBusinessHours(new BusinessHours());
+            r.setAveragePrice(250);
+            r.setPriceLevel(2);
+            r.setActive(false);
+            r.setPhoneNumber("02-1234");
+            r.setWebsite("https://example.org");
+            r.setCapacity(40);
+            r.setHasDelivery(true);
+            r.setHasTakeout(true);
+            r.setHasParking(true);
+            r.setAcceptsReservations(true);
+
+            Restaurant copy = r.withReview(new Review("v2", "1", 5, "Great"));
+            copy.addMenuItem(new MenuItem("m2", "Gyoza", 120));
+
+            assertEquals(1, r.getReviewCount());
+            assertEquals(1, r.getMenuItemCount());
+            assertEquals(List.of("v1", "v2"), copy.getReviews().stream().map(Review::getId).toList());
+            assertEquals(2, copy.getMenuItemCount());
+            assertSame(r.getLocation(), copy.getLocation());
+            assertSame(r.getBusinessHours(), copy.getBusinessHours());
+            assertTrue(copy.hasCuisineType(CuisineType.CHINESE));
+            assertEquals("Noodles", copy.getDescription());
+            assertEquals(250, copy.getAveragePrice());
+            assertEquals(2, copy.getPriceLevel());
+            assertFalse(copy.isActive());
+            assertEquals("02-1234", copy.getPhoneNumber());
+            assertEquals("https://example.org", copy.getWebsite());
+            assertEquals(40, copy.getCapacity());
+            assertTrue(copy.isHasDelivery() && copy.isHasTakeout() && copy.isHasParking()
+                    && copy.isAcceptsReservations());
+
+            r.setReviews(null);
+            r.setMenu(null);
+            Restaurant empty = r.copy();
+            assertEquals(0, empty.getReviewCount());
+            empty.addMenuItem(new MenuItem("m3", "Tea", 50));
+            assertNull(r.getMenu());
+        }
+
         @Test
         @DisplayName("matchesKeyword null returns true")
         void restaurant_MatchesKeywordNull() {
@@ -1300,6 +1350,126 @@ class ModelTest {
             assertNotNull(bh.getWeeklyHours());
             assertNotNull(bh.getHours(DayOfWeek.MONDAY));
         }
+
+        @Test
+        @DisplayName("addHours 午晚餐分段營業")
+        void businessHours_AddHoursSplitShift() {
+            BusinessHours bh = new BusinessHours();
+            bh.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            bh.addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+
+            assertTrue(bh.isOpenAt(LocalDateTime.of(2025, 12, 29, 12, 0)));
+            assertFalse(bh.isOpenAt(LocalDateTime.of(2025, 12, 29, 15, 0))); // 午休
+            assertTrue(bh.isOpenAt(LocalDateTime.of(2025, 12, 29, 17, 0)));
+            assertTrue(bh.isOpenAt(LocalDateTime.of(2025, 12, 29, 21, 0)));
+            assertFalse(bh.isOpenAt(LocalDateTime.of(2025, 12, 29, 21, 1)));
+            assertEquals(2, bh.getTimeSlots(DayOfWeek.MONDAY).size());
+            assertEquals(LocalTime.of(11, 0), bh.getHours(DayOfWeek.MONDAY).getOpenTime());
+        }
+
+        @Test
+        @DisplayName("addHours 重疊時段合併")
+        void businessHours_AddHoursMergesOverlap() {
+            BusinessHours bh = new BusinessHours();
+            bh.addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+            bh.addHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            bh.addHours(DayOfWeek.MONDAY, LocalTime.of(13, 0), LocalTime.of(18, 0));
+            bh.addHours(DayOfWeek.MONDAY, null, LocalTime.of(22, 0));
+
+            List<BusinessHours.TimeSlot> slots = bh.getTimeSlots(DayOfWeek.MONDAY);
+            assertEquals(1, slots.size());
+            assertEquals(new BusinessHours.TimeSlot(LocalTime.of(11, 0), LocalTime.of(21, 0)), slots.get(0));
+            assertEquals(600, bh.getOpenMinutes(DayOfWeek.MONDAY));
+        }
+
+        @Test
+        @DisplayName("addHours 跨夜時段與分段營業")
+        void businessHours_AddHoursOvernight() {
+            BusinessHours bh = new BusinessHours();
+            bh.setHours(DayOfWeek.FRIDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            bh.addHours(DayOfWeek.FRIDAY, LocalTime.of(22, 0), LocalTime.of(2, 0));
+
+            LocalDateTime friday = LocalDateTime.of(2026, 1, 2, 0, 0); // 2026/1/2 is Friday
+            assertTrue(bh.isOpenAt(friday.withHour(1)));
+            assertTrue(bh.isOpenAt(friday.withHour(23)));
+            assertFalse(bh.isOpenAt(friday.withHour(3)));
+
+            List<BusinessHours.TimeSlot> slots = bh.getTimeSlots(DayOfWeek.FRIDAY);
+            assertEquals(2, slots.size());
+            assertEquals(new BusinessHours.TimeSlot(LocalTime.of(22, 0), LocalTime.of(2, 0)), slots.get(1));
+            assertTrue(bh.toString().contains("11:00 - 14:00, 22:00 - 02:00"));
+        }
+
+        @Test
+        @DisplayName("getNextOpenTime 午休後返回晚餐時段")
+        void businessHours_GetNextOpenTimeAfterLunch() {
+            BusinessHours bh = new BusinessHours();
+            bh.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            bh.addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+
+            LocalDateTime mondayBreak = LocalDateTime.of(2025, 12, 29, 15, 0);
+            assertEquals(LocalDateTime.of(2025, 12, 29, 17, 0), bh.getNextOpenTime(mondayBreak));
+            assertEquals(LocalTime.of(11, 0), bh.getNextOpeningAfter(DayOfWeek.MONDAY, null));
+            assertNull(bh.getNextOpeningAfter(DayOfWeek.MONDAY, LocalTime.of(18, 0)));
+            assertNull(bh.getNextOpeningAfter(null, null));
+        }
+
+        @Test
+        @DisplayName("contains null 參數返回 false")
+        void businessHours_ContainsNull() {
+            BusinessHours bh = new BusinessHours();
+            bh.setHours(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(21, 0));
+            assertFalse(bh.contains(null, LocalTime.NOON));
+            assertFalse(bh.contains(DayOfWeek.MONDAY, null));
+            assertFalse(bh.contains(DayOfWeek.TUESDAY, LocalTime.NOON));
+            assertTrue(bh.getTimeSlots(null).isEmpty());
+            assertEquals(0, bh.getOpenMinutes(DayOfWeek.TUESDAY));
+        }
+
+        @Test
+        @DisplayName("每週時段由緊湊時段推導且唯讀")
+        void businessHours_WeeklyHoursDerivedReadOnly() {
+            BusinessHours bh = new BusinessHours();
+            bh.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            bh.addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+            bh.setHours(DayOfWeek.FRIDAY, LocalTime.of(22, 0), LocalTime.of(2, 0));
+
+            Map<DayOfWeek, BusinessHours.TimeSlot> weekly = bh.getWeeklyHours();
+            assertEquals(2, weekly.size());
+            assertEquals(new BusinessHours.TimeSlot(LocalTime.of(22, 0), LocalTime.of(2, 0)),
+                    weekly.get(DayOfWeek.FRIDAY));
+            assertThrows(UnsupportedOperationException.class, () -> weekly.remove(DayOfWeek.MONDAY));
+
+            bh.getHours(DayOfWeek.MONDAY).setCloseTime(LocalTime.of(23, 0));
+            assertFalse(bh.isOpenAt(LocalDateTime.of(2025, 12, 29, 15, 0))); // 午休不受副本影響
+            assertTrue(bh.isOpenOn(DayOfWeek.MONDAY));
+            assertFalse(bh.isOpenOn(DayOfWeek.TUESDAY));
+            assertFalse(bh.isOpenOn(null));
+        }
+
+        @Test
+        @DisplayName("關門時間依所在時段與當日最後時段計算")
+        void businessHours_ClosingTimes() {
+            BusinessHours bh = new BusinessHours();
+            bh.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            bh.addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+            bh.setHours(DayOfWeek.FRIDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            bh.addHours(DayOfWeek.FRIDAY, LocalTime.of(22, 0), LocalTime.of(2, 0));
+
+            assertEquals(LocalTime.of(14, 0), bh.getClosingTime(DayOfWeek.MONDAY, LocalTime.of(12, 0)));
+            assertEquals(LocalTime.of(21, 0), bh.getClosingTime(DayOfWeek.MONDAY, LocalTime.of(18, 0)));
+            assertNull(bh.getClosingTime(DayOfWeek.MONDAY, LocalTime.of(15, 0)));
+            assertEquals(LocalTime.of(2, 0), bh.getClosingTime(DayOfWeek.FRIDAY, LocalTime.of(1, 0)));
+            assertEquals(LocalTime.of(2, 0), bh.getClosingTime(DayOfWeek.FRIDAY, LocalTime.of(23, 0)));
+            assertNull(bh.getClosingTime(DayOfWeek.TUESDAY, LocalTime.NOON));
+            assertNull(bh.getClosingTime(null, LocalTime.NOON));
+            assertNull(bh.getClosingTime(DayOfWeek.MONDAY, null));
+
+            assertEquals(LocalTime.of(21, 0), bh.getLastClosingTime(DayOfWeek.MONDAY));
+            assertEquals(LocalTime.of(2, 0), bh.getLastClosingTime(DayOfWeek.FRIDAY));
+            assertNull(bh.getLastClosingTime(DayOfWeek.TUESDAY));
+            assertNull(bh.getLastClosingTime(null));
+        }
     }
 
     // CuisineType tests
@@ -1672,6 +1842,51 @@ class ModelTest {
             criteria.setOffset(10);
             assertEquals(10, criteria.getOffset());
         }
+
+        @Test
+        @DisplayName("任一欄位不同的條件應不相等")
+        void criteriaDifferingInOneFieldShouldNotBeEqual() {
+            List<SearchCriteria> variants = List.of(
+                    new SearchCriteria().ascending(false), new SearchCriteria().limit(5),
+                    new SearchCriteria().offset(5), new SearchCriteria().keyword("k"),
+                    new SearchCriteria().city("c"), new SearchCriteria().district("d"),
+                    new SearchCriteria().cuisineType(CuisineType.CAFE),
+                    new SearchCriteria().addCuisineType(CuisineType.CAFE), new SearchCriteria().minRating(1.0),
+                    new SearchCriteria().maxRating(4.0), new SearchCriteria().minPrice(10.0),
+                    new SearchCriteria().maxPrice(90.0), new SearchCriteria().priceLevel(2),
+                    new SearchCriteria().openNow(true), new SearchCriteria().hasDelivery(true),
+                    new SearchCriteria().hasTakeout(true), new SearchCriteria().hasParking(true),
+                    new SearchCriteria().acceptsReservations(true), criteria(c -> c.setLatitude(25.0)),
+                    criteria(c -> c.setLongitude(121.0)), criteria(c -> c.setRadiusKm(3.0)),
+                    new SearchCriteria().sortBy(SearchCriteria.SortType.RATING));
+            SearchCriteria base = new SearchCriteria();
+
+            for (SearchCriteria variant : variants) {
+                assertNotEquals(base, variant, variant.toString());
+                assertNotEquals(variant, base, variant.toString());
+            }
+            assertEquals(base, base);
+            assertNotEquals(base, null);
+            assertNotEquals(base, "SearchCriteria");
+        }
+
+        @Test
+        @DisplayName("料理類型集合為 null 時應能正規化並輸出字串")
+        void nullCuisineTypesShouldBeTolerated() {
+            SearchCriteria criteria = new SearchCriteria().city("Taipei");
+            criteria.setCuisineTypes(null);
+
+            assertTrue(criteria.normalized().getCuisineTypes().isEmpty());
+            assertFalse(criteria.toString().contains("cuisineTypes"));
+            assertFalse(new SearchCriteria().addCuisineType(CuisineType.CAFE).isEmpty());
+            assertTrue(new SearchCriteria().addCuisineType(CuisineType.CAFE).toString().contains("cuisineTypes"));
+        }
+
+        private SearchCriteria criteria(Consumer<SearchCriteria> setter) {
+            SearchCriteria criteria = new SearchCriteria();
+            setter.accept(criteria);
+            return criteria;
+        }
     }
 
     // UserPreferences tests
@@ -2193,6 +2408,63 @@ class ModelTest {
             assertEquals(1, repo.count());
         }
 
+        @Test
+        @DisplayName("ordinal 在刪除後重複使用")
+        void repository_OrdinalsReusedAfterDelete() {
+            RestaurantRepository repo = new RestaurantRepository();
+            Restaurant r1 = repo.save(new Restaurant("1", "Test1"));
+            repo.save(new Restaurant("2", "Test2"));
+            int ordinal = repo.ordinalOf("1");
+
+            assertEquals(r1, repo.findByOrdinal(ordinal).orElseThrow());
+            repo.save(r1);
+            assertEquals(ordinal, repo.ordinalOf("1"));
+
+            repo.delete("1");
+            assertEquals(-1, repo.ordinalOf("1"));
+            assertTrue(repo.findByOrdinal(ordinal).isEmpty());
+            repo.save(new Restaurant("3", "Test3"));
+            assertEquals(ordinal, repo.ordinalOf("3"));
+            assertEquals(2, repo.getIdDictionary().capacity());
+
+            repo.deleteAll();
+            assertEquals(0, repo.getIdDictionary().size());
+        }
+
+        @Test
+        @DisplayName("監聽器收到儲存與刪除通知")
+        void repository_NotifiesListeners() {
+            RestaurantRepository repo = new RestaurantRepository();
+            List<String> events = new java.util.ArrayList<>();
+            org.example.restaurant.repository.RepositoryListener listener =
+                    new org.example.restaurant.repository.RepositoryListener() {
+                        @Override
+                        public void onSave(Restaurant restaurant, int ordinal) {
+                            events.add("save " + restaurant.getId() + "@" + ordinal);
+                        }
+
+                        @Override
+                        public void onDelete(String id, int ordinal) {
+                            events.add("delete " + id + "@" + ordinal);
+                        }
+
+                        @Override
+                        public void onClear() {
+                            events.add("clear");
+                        }
+                    };
+            repo.addListener(listener);
+            repo.save(new Restaurant("1", "Test1"));
+            repo.delete("1");
+            repo.delete("1");
+            repo.deleteAll();
+            repo.removeListener(listener);
+            repo.save(new Restaurant("2", "Test2"));
+
+            assertEquals(List.of("save 1@0", "delete 1@0", "clear"), events);
+            assertThrows(IllegalArgumentException.class, () -> repo.addListener(null));
+        }
+
         @Test
         @DisplayName("deleteAll 清除所有餐廳")
         void repository_DeleteAll() {
@@ -0,0 +1,182 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.*;
+import org.example.restaurant.service.RestaurantSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSegmentTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RestaurantRepository memory;
+    private MappedRestaurantRepository mapped;
+
+    private static final String[] CITIES = { "台北市", "新北市", "台中市", null };
+    private static final String[] DISTRICTS = { "信義區", "大安區", "西屯區", "板橋區" };
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Random random = new Random(42);
+        CuisineType[] cuisines = CuisineType.values();
+        memory = new RestaurantRepository();
+        memory.save(RestaurantJournalTest.fullRestaurant("full"));
+        for (int i = 0; i < 300; i++) {
+            Restaurant restaurant = new Restaurant("r" + i, "Restaurant " + i, cuisines[random.nextInt(cuisines.length)],
+                    random.nextInt(10) == 0 ? null
+                            : new Location(24 + random.nextDouble(), 121 + random.nextDouble(), "Road " + i,
+                                    CITIES[random.nextInt(CITIES.length)]));
+            if (restaurant.getLocation() != null) {
+                restaurant.getLocation().setDistrict(DISTRICTS[random.nextInt(DISTRICTS.length)]);
+            }
+            if (random.nextBoolean()) {
+                restaurant.addCuisineType(cuisines[random.nextInt(cuisines.length)]);
+            }
+            restaurant.setActive(random.nextInt(8) != 0);
+            restaurant.setHasDelivery(random.nextBoolean());
+            restaurant.addReview(new Review("v" + i, "r" + i, 1 + random.nextInt(5), "OK"));
+            restaurant.setAveragePrice(100 + random.nextInt(900));
+            memory.save(restaurant);
+        }
+
+        Path file = tempDir.resolve("catalog.seg");
+        assertEquals(301, CatalogSegment.write(memory.findAll(), file));
+        mapped = new MappedRestaurantRepository(CatalogSegment.open(file));
+    }
+
+    private static Set<String> ids(List<Restaurant> restaurants) {
+        return restaurants.stream().map(Restaurant::getId).collect(Collectors.toSet());
+    }
+
+    @Nested
+    @DisplayName("Lookups")
+    class Lookups {
+        @Test
+        @DisplayName("依 ID 取得完整餐廳")
+        void findById_DecodesRestaurant() {
+            assertEquals(301, mapped.count());
+            RestaurantJournalTest.assertSameRestaurant(memory.getById("full"), mapped.getById("full"));
+            for (Restaurant expected : memory.findAll()) {
+                assertTrue(mapped.exists(expected.getId()));
+                assertEquals(expected.getName(), mapped.getById(expected.getId()).getName());
+            }
+            assertTrue(mapped.findById("missing").isEmpty());
+            assertTrue(mapped.findById(null).isEmpty());
+            assertFalse(mapped.exists("missing"));
+        }
+
+        @Test
+        @DisplayName("序號與記錄號碼一致")
+        void ordinals_AreRecordNumbers() {
+            int ordinal = mapped.ordinalOf("r5");
+            assertTrue(ordinal >= 0);
+            assertEquals("r5", mapped.findByOrdinal(ordinal).orElseThrow().getId());
+            assertEquals(ordinal, mapped.getIdDictionary().ordinalOf("r5"));
+            assertEquals(301, mapped.getIdDictionary().size());
+            assertTrue(mapped.findByOrdinal(301).isEmpty());
+        }
+
+        @Test
+        @DisplayName("名稱、城市、行政區與菜系查詢與記憶體版本相同")
+        void filters_MatchInMemoryRepository() {
+            assertEquals(ids(memory.findAll()), ids(mapped.findAll()));
+            assertEquals(ids(memory.findByName("restaurant 1")), ids(mapped.findByName("restaurant 1")));
+            assertEquals(ids(memory.findByCity("台北")), ids(mapped.findByCity("台北")));
+            assertEquals(ids(memory.findByDistrict("區")), ids(mapped.findByDistrict("區")));
+            for (CuisineType type : CuisineType.values()) {
+                assertEquals(ids(memory.findByCuisineType(type)), ids(mapped.findByCuisineType(type)), type.name());
+            }
+            assertTrue(mapped.findByCity(" ").isEmpty());
+            assertTrue(mapped.findByCuisineType(null).isEmpty());
+        }
+
+        @Test
+        @DisplayName("範圍查詢只回傳營業中餐廳")
+        void findInBox_ActiveOnly() {
+            Set<String> expected = memory.findAll().stream()
+                    .filter(r -> r.isActive() && r.getLocation() != null
+                            && r.getLocation().getLatitude() <= 24.5 && r.getLocation().getLongitude() <= 121.5)
+                    .map(Restaurant::getId)
+                    .collect(Collectors.toSet());
+            assertEquals(expected, ids(mapped.findInBox(24, 121, 24.5, 121.5)));
+        }
+
+        @Test
+        @DisplayName("搜尋服務在映射儲存庫上結果相同")
+        void searchService_SameResults() {
+            RestaurantSearchService memorySearch = new RestaurantSearchService(memory);
+            RestaurantSearchService mappedSearch = new RestaurantSearchService(mapped);
+            assertEquals(ids(memorySearch.searchByCity("新北")), ids(mappedSearch.searchByCity("新北")));
+            assertEquals(ids(memorySearch.searchByCuisineType(CuisineType.THAI)),
+                    ids(mappedSearch.searchByCuisineType(CuisineType.THAI)));
+
+            SearchCriteria criteria = new SearchCriteria().city("台中").hasDelivery(true);
+            criteria.setLimit(1000);
+            assertEquals(ids(memorySearch.searchByMultipleCriteria(criteria)),
+                    ids(mappedSearch.searchByMultipleCriteria(criteria)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Format")
+    class Format {
+        @Test
+        @DisplayName("唯讀操作丟出例外")
+        void mutations_Unsupported() {
+            assertThrows(UnsupportedOperationException.class, () -> mapped.save(new Restaurant("x", "X")));
+            assertThrows(UnsupportedOperationException.class, () -> mapped.delete("r1"));
+            assertThrows(UnsupportedOperationException.class, () -> mapped.deleteAll());
+            assertThrows(UnsupportedOperationException.class,
+                    () -> mapped.addReview("r1", new Review("v", "r1", 5, "")));
+            assertThrows(IllegalArgumentException.class, () -> new MappedRestaurantRepository(null));
+        }
+
+        @Test
+        @DisplayName("重複 ID 只保留第一筆")
+        void write_DuplicateIds_FirstKept() throws IOException {
+            Path file = tempDir.resolve("dup.seg");
+            List<Restaurant> restaurants = new ArrayList<>();
+            restaurants.add(new Restaurant("a", "First"));
+            restaurants.add(new Restaurant("a", "Second"));
+            restaurants.add(null);
+            assertEquals(1, CatalogSegment.write(restaurants, file));
+            try (CatalogSegment segment = CatalogSegment.open(file)) {
+                assertEquals(1, segment.size());
+                assertEquals("First", segment.get(segment.indexOf("a")).getName());
+                assertThrows(IndexOutOfBoundsException.class, () -> segment.get(1));
+            }
+
+            Path empty = tempDir.resolve("empty.seg");
+            assertEquals(0, CatalogSegment.write(List.of(), empty));
+            try (CatalogSegment segment = CatalogSegment.open(empty)) {
+                assertEquals(-1, segment.indexOf("a"));
+            }
+        }
+
+        @Test
+        @DisplayName("非區段檔案丟出 IOException")
+        void open_NotSegment_Throws() throws IOException {
+            Path file = tempDir.resolve("bad.seg");
+            Files.write(file, "not a catalog segment file at all, just some text bytes here..."
+                    .getBytes(StandardCharsets.UTF_8));
+            assertThrows(IOException.class, () -> CatalogSegment.open(file));
+            assertThrows(IllegalArgumentException.class, () -> CatalogSegment.write(null, file));
+        }
+    }
+}
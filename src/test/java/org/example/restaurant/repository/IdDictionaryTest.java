@@ -0,0 +1,138 @@
+package org.example.restaurant.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdDictionaryTest {
+
+    @Nested
+    @DisplayName("Ordinals")
+    class Ordinals {
+        @Test
+        @DisplayName("intern 分配連續 ordinal 並可雙向查詢")
+        void intern_AssignsDenseOrdinals() {
+            IdDictionary dictionary = new IdDictionary();
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, dictionary.intern("id" + i));
+            }
+
+            assertEquals(42, dictionary.intern("id42"));
+            assertEquals(42, dictionary.ordinalOf("id42"));
+            assertEquals("id42", dictionary.idOf(42));
+            assertEquals(100, dictionary.size());
+            assertEquals(100, dictionary.capacity());
+        }
+
+        @Test
+        @DisplayName("未知 ID 與超出範圍的 ordinal")
+        void lookups_Unknown() {
+            IdDictionary dictionary = new IdDictionary();
+            dictionary.intern("a");
+
+            assertEquals(-1, dictionary.ordinalOf("missing"));
+            assertEquals(-1, dictionary.ordinalOf(null));
+            assertNull(dictionary.idOf(-1));
+            assertNull(dictionary.idOf(1));
+            assertEquals(-1, dictionary.release("missing"));
+            assertEquals(-1, dictionary.release(null));
+            assertThrows(IllegalArgumentException.class, () -> dictionary.intern(null));
+        }
+
+        @Test
+        @DisplayName("release 後重複使用 ordinal")
+        void release_ReusesOrdinal() {
+            IdDictionary dictionary = new IdDictionary();
+            dictionary.intern("a");
+            dictionary.intern("b");
+            dictionary.intern("c");
+
+            assertEquals(1, dictionary.release("b"));
+            assertNull(dictionary.idOf(1));
+            assertEquals(1, dictionary.intern("d"));
+            assertEquals(3, dictionary.intern("e"));
+            assertEquals(4, dictionary.capacity());
+
+            dictionary.clear();
+            assertEquals(0, dictionary.size());
+            assertEquals(0, dictionary.intern("x"));
+        }
+
+        @Test
+        @DisplayName("查詢可與 intern 同時進行")
+        void lookups_ConcurrentWithIntern() throws InterruptedException {
+            IdDictionary dictionary = new IdDictionary();
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    dictionary.intern("id" + i);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                int bound = dictionary.capacity();
+                for (int ordinal = Math.max(0, bound - 50); ordinal < bound; ordinal++) {
+                    String id = dictionary.idOf(ordinal);
+                    assertNotNull(id);
+                    assertEquals(ordinal, dictionary.ordinalOf(id));
+                }
+            }
+            writer.join();
+            assertEquals(20_000, dictionary.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class Persistence {
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("儲存並載入後 ordinal 不變")
+        void saveAndLoad_KeepsOrdinals() throws IOException {
+            IdDictionary dictionary = new IdDictionary();
+            dictionary.intern("a");
+            dictionary.intern("餐廳-b");
+            dictionary.intern("c");
+            dictionary.intern("d");
+            dictionary.release("a");
+            dictionary.release("c");
+
+            Path file = tempDir.resolve("ids.bin");
+            dictionary.save(file);
+            IdDictionary loaded = IdDictionary.load(file);
+
+            assertEquals(2, loaded.size());
+            assertEquals(4, loaded.capacity());
+            assertEquals(1, loaded.ordinalOf("餐廳-b"));
+            assertEquals("d", loaded.idOf(3));
+            assertEquals(0, loaded.intern("e"));
+            assertEquals(2, loaded.intern("f"));
+            assertEquals(4, loaded.intern("g"));
+        }
+
+        @Test
+        @DisplayName("版本不符時拋出例外")
+        void load_WrongVersion_Throws() throws IOException {
+            Path file = tempDir.resolve("bad.bin");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+                out.writeInt(99);
+            }
+            assertThrows(IOException.class, () -> IdDictionary.load(file));
+
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+                out.writeInt(1);
+                out.writeInt(-1);
+            }
+            assertThrows(IOException.class, () -> IdDictionary.load(file));
+        }
+    }
+}
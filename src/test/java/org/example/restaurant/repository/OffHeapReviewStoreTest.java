@@ -0,0 +1,213 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapReviewStoreTest {
+
+    private OffHeapReviewStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Tiny segments so that tests cross segment boundaries
+        store = new OffHeapReviewStore(4, 64);
+    }
+
+    private static Review review(String id, String restaurantId, int rating) {
+        Review review = new Review(id, restaurantId, rating, "評論 " + id);
+        review.setUserId("u-" + id);
+        review.setUserName("User " + id);
+        review.setUserLevel(3);
+        review.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0, 30));
+        return review;
+    }
+
+    @Nested
+    @DisplayName("Storage")
+    class Storage {
+        @Test
+        @DisplayName("評論重建後欄位相同")
+        void reviews_RoundTrip() {
+            Review full = review("v1", "a", 5);
+            full.setVerified(true);
+            full.setHelpfulCount(42);
+            full.setUpdatedAt(LocalDateTime.of(2024, 2, 3, 4, 5, 6));
+            store.add(full);
+            Review sparse = new Review(null, "a", 2, null);
+            sparse.setUserLevel(1);
+            sparse.setCreatedAt(null);
+            store.add(sparse);
+
+            List<Review> reviews = store.reviews("a");
+            assertEquals(2, reviews.size());
+            Review copy = reviews.get(0);
+            assertEquals("v1", copy.getId());
+            assertEquals("a", copy.getRestaurantId());
+            assertEquals("u-v1", copy.getUserId());
+            assertEquals("User v1", copy.getUserName());
+            assertEquals("評論 v1", copy.getComment());
+            assertEquals(5, copy.getRating());
+            assertEquals(3, copy.getUserLevel());
+            assertTrue(copy.isVerified());
+            assertEquals(42, copy.getHelpfulCount());
+            assertEquals(full.getCreatedAt(), copy.getCreatedAt());
+            assertEquals(full.getUpdatedAt(), copy.getUpdatedAt());
+
+            Review empty = reviews.get(1);
+            assertNull(empty.getId());
+            assertNull(empty.getComment());
+            assertNull(empty.getCreatedAt());
+            assertEquals(2, empty.getRating());
+        }
+
+        @Test
+        @DisplayName("跨區段時各餐廳評論仍分開")
+        void add_AcrossSegments_KeepsRestaurantsApart() {
+            for (int i = 0; i < 50; i++) {
+                store.add(review("v" + i, i % 3 == 0 ? "a" : "b", 1 + i % 5));
+            }
+            // Longer than an arena segment
+            store.add(review("x".repeat(100), "c", 4));
+
+            assertEquals(51, store.size());
+            assertEquals(17, store.reviewCount("a"));
+            assertEquals(33, store.reviewCount("b"));
+            assertEquals(0, store.reviewCount("missing"));
+            assertEquals("x".repeat(100), store.reviews("c").get(0).getId());
+            List<Review> a = store.reviews("a");
+            assertEquals("v0", a.get(0).getId());
+            assertEquals("v48", a.get(16).getId());
+            assertTrue(store.offHeapBytes() >= 51 * OffHeapReviewStore.ROW_SIZE);
+
+            OffHeapReviewStore.Cursor cursor = store.cursor("a");
+            assertTrue(cursor.next());
+            assertEquals(4, cursor.rating()); // v48, newest first
+        }
+
+        @Test
+        @DisplayName("超出範圍的欄位被截斷")
+        void add_OutOfRangeFields_Clamped() {
+            Review review = review("v", "a", 99);
+            review.setUserLevel(-1);
+            review.setHelpfulCount(Integer.MAX_VALUE);
+            store.add(review);
+
+            OffHeapReviewStore.Cursor cursor = store.cursor("a");
+            assertTrue(cursor.next());
+            assertEquals(0, cursor.rating());
+            assertEquals(0, cursor.userLevel());
+            assertEquals((1 << 23) - 1, cursor.helpfulCount());
+            assertFalse(cursor.next());
+        }
+
+        @Test
+        @DisplayName("無效參數丟出例外")
+        void add_InvalidArguments_Throws() {
+            assertThrows(IllegalArgumentException.class, () -> store.add(null));
+            assertThrows(IllegalArgumentException.class, () -> store.add(new Review("v", null, 5, "")));
+            assertThrows(IllegalArgumentException.class, () -> new OffHeapReviewStore(0, 64));
+        }
+    }
+
+    @Nested
+    @DisplayName("Repository Listener")
+    class Listener {
+        @Test
+        @DisplayName("跟隨儲存庫的儲存、新增評論、刪除與清空")
+        void followsRepository() {
+            RestaurantRepository repository = new RestaurantRepository();
+            repository.addListener(store);
+            Restaurant restaurant = new Restaurant("a", "A");
+            restaurant.addReview(review("v1", "a", 5));
+            repository.save(restaurant);
+            repository.addReview("a", review("v2", "a", 3));
+            assertEquals(2, store.reviewCount("a"));
+
+            // Saving again only adds reviews not stored yet
+            restaurant.addReview(review("v3", "a", 4));
+            repository.save(restaurant);
+            assertEquals(List.of("v1", "v2", "v3"), store.reviews("a").stream().map(Review::getId).toList());
+
+            // A replacement with fewer reviews starts over
+            Restaurant replacement = new Restaurant("a", "A");
+            replacement.addReview(review("w1", "other", 1));
+            repository.save(replacement);
+            List<Review> reviews = store.reviews("a");
+            assertEquals(1, reviews.size());
+            assertEquals("a", reviews.get(0).getRestaurantId());
+
+            repository.delete("a");
+            assertEquals(0, store.reviewCount("a"));
+            repository.save(restaurant);
+            assertEquals(3, store.reviewCount("a"));
+            repository.deleteAll();
+            assertEquals(0, store.size());
+            assertEquals(0, store.offHeapBytes());
+        }
+    }
+
+    @Nested
+    @DisplayName("Reclamation")
+    class Reclamation {
+        @Test
+        @DisplayName("刪除與取代的評論列被回收且其餘評論不變")
+        void deletedRows_Reclaimed() {
+            RestaurantRepository repository = new RestaurantRepository();
+            repository.addListener(store);
+            for (int r = 0; r < 10; r++) {
+                Restaurant restaurant = new Restaurant("r" + r, "R" + r);
+                for (int v = 0; v < 10; v++) {
+                    restaurant.addReview(review("r" + r + "-v" + v, "r" + r, 1 + v % 5));
+                }
+                repository.save(restaurant);
+            }
+            List<Review> kept = store.reviews("r9");
+            OffHeapReviewStore.Cursor early = store.cursor("r0");
+            long before = store.offHeapBytes();
+
+            for (int r = 0; r < 6; r++) {
+                repository.delete("r" + r);
+            }
+            assertEquals(40, store.size());
+            assertTrue(store.offHeapBytes() < before);
+            assertEquals(kept.size(), store.reviews("r9").size());
+            for (int i = 0; i < kept.size(); i++) {
+                assertEquals(kept.get(i).getId(), store.reviews("r9").get(i).getId());
+                assertEquals(kept.get(i).getComment(), store.reviews("r9").get(i).getComment());
+                assertEquals(kept.get(i).getRating(), store.reviews("r9").get(i).getRating());
+            }
+
+            // A cursor created before the copy still reads the old rows
+            int seen = 0;
+            while (early.next()) {
+                assertEquals("r0-v" + (9 - seen), early.toReview().getId());
+                seen++;
+            }
+            assertEquals(10, seen);
+
+            // Repeated replacement keeps the store bounded
+            for (int i = 0; i < 50; i++) {
+                Restaurant longer = new Restaurant("r9", "R9");
+                longer.addReview(review("x" + i, "r9", 4));
+                longer.addReview(review("y" + i, "r9", 2));
+                repository.save(longer);
+                Restaurant shorter = new Restaurant("r9", "R9");
+                shorter.addReview(review("x" + i, "r9", 4));
+                repository.save(shorter);
+            }
+            assertEquals(31, store.size());
+            assertEquals(List.of("x49"), store.reviews("r9").stream().map(Review::getId).toList());
+            store.add(review("late", "r6", 5));
+            assertEquals(11, store.reviewCount("r6"));
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.exception.RestaurantNotFoundException;
+import org.example.restaurant.model.*;
+import org.example.restaurant.service.RestaurantSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PersistentRestaurantRepository 測試類別
+ */
+class PersistentRestaurantRepositoryTest {
+
+    private PersistentRestaurantRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new PersistentRestaurantRepository();
+        repository.save(restaurant("r1", "台北市"));
+        repository.save(restaurant("r2", "台中市"));
+    }
+
+    private static Restaurant restaurant(String id, String city) {
+        Restaurant restaurant = new Restaurant(id, "Restaurant " + id, CuisineType.TAIWANESE,
+                new Location(25.0, 121.5, "Road", city));
+        restaurant.addReview(new Review(id + "-v0", id, 4, "Good"));
+        return restaurant;
+    }
+
+    @Nested
+    @DisplayName("Repository Operations")
+    class OperationTests {
+
+        @Test
+        @DisplayName("應如一般儲存庫般新增、查詢與刪除")
+        void shouldBehaveLikeRepository() {
+            repository.saveAll(List.of(restaurant("r3", "高雄市"), restaurant("r4", "台北市")));
+            repository.delete("r2");
+
+            assertEquals(3, repository.count());
+            assertTrue(repository.exists("r3"));
+            assertFalse(repository.exists("r2"));
+            assertFalse(repository.exists(null));
+            assertEquals(2, repository.findByCity("台北").size());
+            assertEquals(3, repository.findByCuisineType(CuisineType.TAIWANESE).size());
+            assertEquals("r4", repository.findByOrdinal(repository.ordinalOf("r4")).orElseThrow().getId());
+            assertThrows(RestaurantNotFoundException.class, () -> repository.getById("r2"));
+
+            repository.deleteAll();
+            assertEquals(0, repository.count());
+            assertTrue(repository.findAll().isEmpty());
+        }
+
+        @Test
+        @DisplayName("findAll 應回傳不隨之後寫入改變的唯讀視圖")
+        void findAllShouldBeStableReadOnlyView() {
+            List<Restaurant> all = repository.findAll();
+            repository.save(restaurant("r3", "高雄市"));
+            repository.delete("r1");
+
+            assertEquals(2, all.size());
+            assertThrows(UnsupportedOperationException.class, () -> all.add(restaurant("r9", "台北市")));
+            assertEquals(List.of("r2", "r3"), sortedIds(repository.findAll()));
+        }
+
+        @Test
+        @DisplayName("新增評論應儲存副本並通知監聽器")
+        void addReviewShouldStoreCopy() {
+            Restaurant before = repository.getById("r1");
+            List<Restaurant> notified = new ArrayList<>();
+            repository.addListener(new RepositoryListener() {
+                @Override
+                public void onSave(Restaurant restaurant, int ordinal) {
+                    notified.add(restaurant);
+                }
+
+                @Override
+                public void onDelete(String id, int ordinal) {
+                }
+
+                @Override
+                public void onClear() {
+                }
+            });
+
+            Restaurant after = repository.addReview("r1", new Review("r1-v1", "r1", 2, "Slow"));
+
+            assertEquals(1, before.getReviews().size());
+            assertEquals(2, after.getReviews().size());
+            assertSame(after, repository.getById("r1"));
+            assertEquals(List.of(after), notified);
+            assertThrows(RestaurantNotFoundException.class,
+                    () -> repository.addReview("missing", new Review("x", "missing", 3, "Ok")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshots")
+    class SnapshotTests {
+
+        @Test
+        @DisplayName("快照不應看到之後的寫入")
+        void snapshotShouldIgnoreLaterWrites() {
+            RestaurantRepository snapshot = repository.snapshot();
+            repository.addReview("r1", new Review("r1-v1", "r1", 1, "Bad"));
+            repository.save(restaurant("r3", "高雄市"));
+            repository.delete("r2");
+
+            assertEquals(2, snapshot.count());
+            assertEquals(1, snapshot.getById("r1").getReviews().size());
+            assertTrue(snapshot.exists("r2"));
+            assertFalse(snapshot.exists("r3"));
+            assertEquals(1, snapshot.findByCity("台中").size());
+            assertEquals(2, repository.snapshot().count());
+        }
+
+        @Test
+        @DisplayName("快照序號應為 findAll 中的位置")
+        void snapshotOrdinalsShouldBePositions() {
+            RestaurantRepository snapshot = repository.snapshot();
+            List<Restaurant> all = snapshot.findAll();
+
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(i, snapshot.ordinalOf(all.get(i).getId()));
+                assertEquals(i, snapshot.getIdDictionary().ordinalOf(all.get(i).getId()));
+                assertSame(all.get(i), snapshot.findByOrdinal(i).orElseThrow());
+            }
+            assertEquals(-1, snapshot.ordinalOf("missing"));
+            assertTrue(snapshot.findByOrdinal(all.size()).isEmpty());
+        }
+
+        @Test
+        @DisplayName("快照應唯讀")
+        void snapshotShouldBeReadOnly() {
+            RestaurantRepository snapshot = repository.snapshot();
+
+            assertThrows(UnsupportedOperationException.class, () -> snapshot.save(restaurant("r5", "台北市")));
+            assertThrows(UnsupportedOperationException.class, () -> snapshot.delete("r1"));
+            assertThrows(UnsupportedOperationException.class, snapshot::deleteAll);
+            assertThrows(UnsupportedOperationException.class,
+                    () -> snapshot.addReview("r1", new Review("x", "r1", 3, "Ok")));
+            assertThrows(UnsupportedOperationException.class, () -> snapshot.saveAll(List.of()));
+        }
+
+        @Test
+        @DisplayName("快照上的監聽器永遠不會收到事件")
+        void snapshotListenersShouldNeverFire() {
+            RestaurantRepository snapshot = repository.snapshot();
+            ReviewIndex index = ReviewIndex.attach(snapshot);
+            snapshot.removeListener(index);
+
+            assertEquals(1, index.reviewCount("r1"));
+            assertThrows(IllegalArgumentException.class, () -> snapshot.addListener(null));
+        }
+
+        @Test
+        @DisplayName("服務應可在儲存庫與快照上執行")
+        void servicesShouldRunOnRepositoryAndSnapshot() {
+            RestaurantRepository plain = new RestaurantRepository();
+            new SyntheticDataGenerator(5L).populate(plain, 300);
+            PersistentRestaurantRepository persistent = new PersistentRestaurantRepository();
+            persistent.saveAll(plain.findAll());
+            SearchCriteria criteria = new SearchCriteria().minRating(3.0).sortBy(SearchCriteria.SortType.NAME);
+            List<String> expected = sortedIds(new RestaurantSearchService(plain).searchByMultipleCriteria(criteria));
+
+            RestaurantRepository snapshot = persistent.snapshot();
+            for (Restaurant restaurant : plain.findAll()) {
+                persistent.delete(restaurant.getId());
+            }
+
+            assertFalse(expected.isEmpty());
+            assertEquals(expected,
+                    sortedIds(new RestaurantSearchService(snapshot).searchByMultipleCriteria(criteria)));
+            assertTrue(new RestaurantSearchService(persistent).searchByMultipleCriteria(criteria).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("讀取者在批次寫入時應看到完整的批次")
+        void readersShouldSeeWholeBatches() throws Exception {
+            // Both restaurants always move to the same city together
+            repository.saveAll(List.of(restaurant("r1", "City"), restaurant("r2", "City")));
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                Future<?> writer = executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String city = "City" + i;
+                        repository.saveAll(List.of(restaurant("r1", city), restaurant("r2", city)));
+                    }
+                });
+                List<Future<Integer>> readers = new ArrayList<>();
+                for (int r = 0; r < 2; r++) {
+                    readers.add(executor.submit(() -> {
+                        int torn = 0;
+                        while (!writer.isDone()) {
+                            RestaurantRepository snapshot = repository.snapshot();
+                            if (!snapshot.getById("r1").getLocation().getCity()
+                                    .equals(snapshot.getById("r2").getLocation().getCity())) {
+                                torn++;
+                            }
+                        }
+                        return torn;
+                    }));
+                }
+                writer.get(30, TimeUnit.SECONDS);
+                for (Future<Integer> reader : readers) {
+                    assertEquals(0, reader.get(30, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("並行新增評論不應遺失")
+        void concurrentReviewsShouldNotBeLost() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int w = 0; w < 4; w++) {
+                    int writerId = w;
+                    writers.add(executor.submit(() -> {
+                        for (int i = 0; i < 250; i++) {
+                            repository.addReview("r1", new Review("w" + writerId + "-" + i, "r1", 5, "Great"));
+                        }
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get(30, TimeUnit.SECONDS);
+                }
+                assertEquals(1001, repository.getById("r1").getReviews().size());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("並行儲存與刪除後，序號與監聽器應與儲存內容一致")
+        void concurrentSaveAndDeleteShouldKeepOrdinalsAndListenersInStep() throws Exception {
+            Set<String> listened = ConcurrentHashMap.newKeySet();
+            listened.addAll(List.of("r1", "r2"));
+            repository.addListener(new RepositoryListener() {
+                @Override
+                public void onSave(Restaurant restaurant, int ordinal) {
+                    listened.add(restaurant.getId());
+                }
+
+                @Override
+                public void onDelete(String id, int ordinal) {
+                    listened.remove(id);
+                }
+
+                @Override
+                public void onClear() {
+                    listened.clear();
+                }
+            });
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                for (int round = 0; round < 200; round++) {
+                    String id = "c" + (round % 5);
+                    CountDownLatch start = new CountDownLatch(1);
+                    Future<?> saver = executor.submit(() -> {
+                        start.await();
+                        return repository.save(restaurant(id, "台南市"));
+                    });
+                    Future<?> deleter = executor.submit(() -> {
+                        start.await();
+                        repository.delete(id);
+                        return null;
+                    });
+                    start.countDown();
+                    saver.get(30, TimeUnit.SECONDS);
+                    deleter.get(30, TimeUnit.SECONDS);
+
+                    boolean stored = repository.exists(id);
+                    assertEquals(stored, repository.ordinalOf(id) >= 0, id);
+                    assertEquals(stored, listened.contains(id), id);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static List<String> sortedIds(List<Restaurant> restaurants) {
+        List<String> ids = new ArrayList<>();
+        for (Restaurant restaurant : restaurants) {
+            ids.add(restaurant.getId());
+        }
+        ids.sort(null);
+        return ids;
+    }
+}
@@ -0,0 +1,404 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.exception.RestaurantNotFoundException;
+import org.example.restaurant.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    static Restaurant fullRestaurant(String id) {
+        Restaurant restaurant = new Restaurant(id, "餐廳 " + id, CuisineType.JAPANESE,
+                new Location(25.03, 121.56, "信義路五段7號", "台北市"));
+        restaurant.getLocation().setDistrict("信義區");
+        restaurant.setDescription("Sushi");
+        restaurant.addCuisineType(CuisineType.SEAFOOD);
+        MenuItem item = new MenuItem("m1", "Salmon", 320, "Main");
+        item.setSpicy(true);
+        item.setCalories(450);
+        restaurant.addMenuItem(item);
+        Review review = new Review("v1", id, 5, "Great");
+        review.setUserId("u1");
+        review.setUserName("Amy");
+        review.setUserLevel(3);
+        review.setVerified(true);
+        review.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123));
+        restaurant.addReview(review);
+        BusinessHours hours = new BusinessHours();
+        hours.setHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+        hours.addHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+        hours.setHours(DayOfWeek.FRIDAY, LocalTime.of(22, 0), LocalTime.of(2, 0));
+        hours.setClosed(DayOfWeek.SUNDAY);
+        hours.setClosedOnHolidays(true);
+        restaurant.setBusinessHours(hours);
+        restaurant.setAveragePrice(450);
+        restaurant.setPriceLevel(2);
+        restaurant.setPhoneNumber("02-2345-6789");
+        restaurant.setCapacity(40);
+        restaurant.setHasDelivery(true);
+        restaurant.setAcceptsReservations(true);
+        return restaurant;
+    }
+
+    static void assertSameRestaurant(Restaurant expected, Restaurant actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getLocation(), actual.getLocation());
+        assertEquals(expected.getLocation().getDistrict(), actual.getLocation().getDistrict());
+        assertEquals(expected.getCuisineType(), actual.getCuisineType());
+        assertEquals(expected.getAdditionalCuisineTypes(), actual.getAdditionalCuisineTypes());
+        assertEquals(expected.getMenu(), actual.getMenu());
+        assertEquals(expected.getMenu().get(0).getCalories(), actual.getMenu().get(0).getCalories());
+        assertEquals(expected.getReviews(), actual.getReviews());
+        for (int i = 0; i < expected.getReviews().size(); i++) {
+            Review e = expected.getReviews().get(i);
+            Review a = actual.getReviews().get(i);
+            assertEquals(e.getUserId(), a.getUserId());
+            assertEquals(e.getRating(), a.getRating());
+            assertEquals(e.getCreatedAt(), a.getCreatedAt());
+            assertEquals(e.getUserLevel(), a.getUserLevel());
+            assertEquals(e.isVerified(), a.isVerified());
+        }
+        assertEquals(expected.getBusinessHours() == null, actual.getBusinessHours() == null);
+        if (expected.getBusinessHours() != null) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                assertEquals(expected.getBusinessHours().getHours(day), actual.getBusinessHours().getHours(day));
+                assertEquals(expected.getBusinessHours().getTimeSlots(day),
+                        actual.getBusinessHours().getTimeSlots(day));
+            }
+            assertEquals(expected.getBusinessHours().getWeeklyHours(), actual.getBusinessHours().getWeeklyHours());
+            assertEquals(expected.getBusinessHours().isClosedOnHolidays(),
+                    actual.getBusinessHours().isClosedOnHolidays());
+        }
+        assertEquals(expected.getAveragePrice(), actual.getAveragePrice());
+        assertEquals(expected.getPriceLevel(), actual.getPriceLevel());
+        assertEquals(expected.isActive(), actual.isActive());
+        assertEquals(expected.getPhoneNumber(), actual.getPhoneNumber());
+        assertEquals(expected.getWebsite(), actual.getWebsite());
+        assertEquals(expected.getCapacity(), actual.getCapacity());
+        assertEquals(expected.isHasDelivery(), actual.isHasDelivery());
+        assertEquals(expected.isHasTakeout(), actual.isHasTakeout());
+        assertEquals(expected.isHasParking(), actual.isHasParking());
+        assertEquals(expected.isAcceptsReservations(), actual.isAcceptsReservations());
+    }
+
+    @Nested
+    @DisplayName("Codec")
+    class Codec {
+        @Test
+        @DisplayName("完整餐廳編碼後解碼相同")
+        void roundTrip_FullRestaurant() throws IOException {
+            Restaurant restaurant = fullRestaurant("r1");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            RestaurantCodec.writeRestaurant(new DataOutputStream(bytes), restaurant);
+
+            Restaurant decoded = RestaurantCodec.readRestaurant(
+                    new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertSameRestaurant(restaurant, decoded);
+        }
+
+        @Test
+        @DisplayName("空欄位編碼後仍為空")
+        void roundTrip_NullFields() throws IOException {
+            Restaurant restaurant = new Restaurant("r2", null);
+            restaurant.setAdditionalCuisineTypes(null);
+            restaurant.setMenu(null);
+            restaurant.getReviews().add(null);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            RestaurantCodec.writeRestaurant(new DataOutputStream(bytes), restaurant);
+
+            Restaurant decoded = RestaurantCodec.readRestaurant(
+                    new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertNull(decoded.getName());
+            assertNull(decoded.getLocation());
+            assertNull(decoded.getCuisineType());
+            assertNull(decoded.getAdditionalCuisineTypes());
+            assertNull(decoded.getMenu());
+            assertNull(decoded.getBusinessHours());
+            assertEquals(1, decoded.getReviews().size());
+            assertNull(decoded.getReviews().get(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Journal")
+    class Journal {
+        @Test
+        @DisplayName("重新開啟後重播儲存、評論與刪除")
+        void reopen_RestoresRepository() throws IOException {
+            Path file = tempDir.resolve("restaurants.wal");
+            RestaurantRepository repository = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, repository,
+                    WriteAheadLog.Durability.PER_WRITE)) {
+                assertEquals(0, journal.getReplayedRecords());
+                repository.save(fullRestaurant("r1"));
+                repository.save(fullRestaurant("r2"));
+                repository.save(fullRestaurant("r3"));
+                repository.delete("r2");
+                Review review = new Review("v2", "r1", 3, "OK");
+                review.setUserId("u2");
+                repository.addReview("r1", review);
+                journal.sync();
+            }
+
+            RestaurantRepository restored = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, restored,
+                    WriteAheadLog.Durability.BATCHED)) {
+                assertEquals(5, journal.getReplayedRecords());
+                assertEquals(2, restored.count());
+                assertFalse(restored.exists("r2"));
+                Restaurant r1 = restored.getById("r1");
+                assertEquals(2, r1.getReviewCount());
+                assertEquals("u2", r1.getReviews().get(1).getUserId());
+                assertSameRestaurant(fullRestaurant("r3"), restored.getById("r3"));
+
+                restored.deleteAll();
+            }
+
+            RestaurantRepository cleared = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, cleared,
+                    WriteAheadLog.Durability.ASYNC)) {
+                assertEquals(6, journal.getReplayedRecords());
+                assertEquals(0, cleared.count());
+            }
+        }
+
+        @Test
+        @DisplayName("關閉後不再記錄")
+        void close_StopsLogging() throws IOException {
+            Path file = tempDir.resolve("restaurants.wal");
+            RestaurantRepository repository = new RestaurantRepository();
+            RestaurantJournal journal = RestaurantJournal.open(file, repository, WriteAheadLog.Durability.ASYNC);
+            repository.save(new Restaurant("1", "One"));
+            journal.close();
+            repository.save(new Restaurant("2", "Two"));
+
+            RestaurantRepository restored = new RestaurantRepository();
+            try (RestaurantJournal reopened = RestaurantJournal.open(file, restored,
+                    WriteAheadLog.Durability.ASYNC)) {
+                assertEquals(1, restored.count());
+            }
+            assertThrows(IllegalArgumentException.class,
+                    () -> RestaurantJournal.open(file, null, WriteAheadLog.Durability.ASYNC));
+        }
+
+        @Test
+        @DisplayName("檢查點後從快照還原並只重播新記錄")
+        void checkpoint_RestoresSnapshotThenLog() throws IOException {
+            Path file = tempDir.resolve("restaurants.wal");
+            Path snapshot = tempDir.resolve("restaurants.snap");
+            RestaurantRepository repository = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, repository,
+                    WriteAheadLog.Durability.PER_WRITE)) {
+                repository.save(fullRestaurant("r1"));
+                repository.save(fullRestaurant("r2"));
+                assertTrue(journal.checkpoint() > 0);
+                repository.save(fullRestaurant("r3"));
+                repository.delete("r2");
+            }
+
+            RestaurantRepository restored = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, restored,
+                    WriteAheadLog.Durability.PER_WRITE)) {
+                assertEquals(2, journal.getRestoredRestaurants());
+                assertEquals(2, journal.getReplayedRecords());
+                assertEquals(2, restored.count());
+                assertTrue(restored.exists("r3"));
+                assertFalse(restored.exists("r2"));
+                assertSameRestaurant(fullRestaurant("r1"), restored.getById("r1"));
+            }
+        }
+
+        @Test
+        @DisplayName("檢查點可與並行寫入同時進行")
+        void checkpoint_DuringConcurrentWrites_RestoresEveryWrite() throws Exception {
+            Path file = tempDir.resolve("restaurants.wal");
+            Path snapshot = tempDir.resolve("restaurants.snap");
+            RestaurantRepository repository = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, repository,
+                    WriteAheadLog.Durability.ASYNC)) {
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < 400; i++) {
+                        repository.save(fullRestaurant("r" + i));
+                        if (i % 3 == 0) {
+                            repository.delete("r" + (i / 2));
+                        }
+                    }
+                });
+                writer.start();
+                while (writer.isAlive()) {
+                    journal.checkpoint();
+                }
+                writer.join();
+            }
+
+            RestaurantRepository restored = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, restored,
+                    WriteAheadLog.Durability.ASYNC)) {
+                assertEquals(repository.count(), restored.count());
+                for (Restaurant restaurant : repository.findAll()) {
+                    assertTrue(restored.exists(restaurant.getId()), restaurant.getId());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("中斷的檢查點在開啟時完成")
+        void open_InterruptedCheckpoint_Completed() throws IOException {
+            Path file = tempDir.resolve("restaurants.wal");
+            Path snapshot = tempDir.resolve("restaurants.snap");
+            Path previous = tempDir.resolve("restaurants.wal.prev");
+            RestaurantRepository repository = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, repository,
+                    WriteAheadLog.Durability.BATCHED)) {
+                repository.save(fullRestaurant("r1"));
+                journal.checkpoint();
+                repository.save(fullRestaurant("r2"));
+            }
+            // Crash after the log was switched but before the snapshot was written
+            Files.move(file, previous);
+
+            RestaurantRepository restored = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, restored,
+                    WriteAheadLog.Durability.BATCHED)) {
+                assertEquals(2, restored.count());
+                assertFalse(Files.exists(previous));
+                restored.save(fullRestaurant("r3"));
+            }
+
+            RestaurantRepository reopened = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, reopened,
+                    WriteAheadLog.Durability.BATCHED)) {
+                assertEquals(2, journal.getRestoredRestaurants());
+                assertEquals(1, journal.getReplayedRecords());
+                assertEquals(3, reopened.count());
+            }
+        }
+
+        @Test
+        @DisplayName("沒有快照檔案時合併前一個日誌")
+        void open_PreviousLogWithoutSnapshotFile_Joined() throws IOException {
+            Path file = tempDir.resolve("restaurants.wal");
+            Path previous = tempDir.resolve("restaurants.wal.prev");
+            Path current = tempDir.resolve("current.wal");
+            // Left by a crash after the switch: the previous log holds two saves, the current one a delete
+            try (RestaurantJournal journal = RestaurantJournal.open(previous, new RestaurantRepository(),
+                    WriteAheadLog.Durability.BATCHED)) {
+                journal.onSave(fullRestaurant("r1"), 0);
+                journal.onSave(fullRestaurant("r2"), 1);
+            }
+            try (RestaurantJournal journal = RestaurantJournal.open(current, new RestaurantRepository(),
+                    WriteAheadLog.Durability.BATCHED)) {
+                journal.onDelete("r1", 0);
+            }
+            Files.move(current, file);
+
+            Path alone = tempDir.resolve("alone.wal");
+            Files.copy(previous, alone.resolveSibling("alone.wal.prev"));
+            RestaurantRepository fromPrevious = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(alone, fromPrevious,
+                    WriteAheadLog.Durability.BATCHED)) {
+                assertEquals(2, fromPrevious.count());
+            }
+
+            for (int i = 0; i < 2; i++) {
+                RestaurantRepository restored = new RestaurantRepository();
+                try (RestaurantJournal journal = RestaurantJournal.open(file, restored,
+                        WriteAheadLog.Durability.BATCHED)) {
+                    assertEquals(3, journal.getReplayedRecords());
+                    assertEquals(1, restored.count());
+                    assertTrue(restored.exists("r2"));
+                    assertFalse(Files.exists(previous));
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("同一餐廳的重複評論記錄只加入一次")
+        void replay_RepeatedReviewRecords_AddedOnce() throws IOException {
+            Path file = tempDir.resolve("restaurants.wal");
+            RestaurantRepository repository = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, repository,
+                    WriteAheadLog.Durability.BATCHED)) {
+                repository.save(fullRestaurant("r1"));
+                for (int i = 0; i < 50; i++) {
+                    repository.addReview("r1", new Review("extra" + i, "r1", 4, "Again"));
+                }
+                journal.onReviewAdded(repository.getById("r1"), new Review("extra0", "r1", 4, "Again"), 0);
+                journal.onReviewAdded(repository.getById("r1"), new Review(null, "r1", 3, "No id"), 0);
+                repository.save(fullRestaurant("r1"));
+                journal.onReviewAdded(repository.getById("r1"), new Review("extra1", "r1", 4, "Again"), 0);
+                journal.onReviewAdded(new Restaurant("missing", "Gone"),
+                        new Review("gone", "missing", 4, "Deleted"), 0);
+            }
+
+            RestaurantRepository restored = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, restored,
+                    WriteAheadLog.Durability.BATCHED)) {
+                assertEquals(56, journal.getReplayedRecords());
+                assertEquals(2, restored.getById("r1").getReviewCount());
+            }
+        }
+
+        @Test
+        @DisplayName("已在快照中的評論不重複加入")
+        void replay_ReviewInSnapshot_NotDuplicated() throws IOException {
+            Path file = tempDir.resolve("restaurants.wal");
+            Path snapshot = tempDir.resolve("restaurants.snap");
+            RestaurantRepository repository = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, repository,
+                    WriteAheadLog.Durability.ASYNC)) {
+                repository.save(fullRestaurant("r1"));
+                Review review = new Review("v2", "r1", 4, "Again");
+                // Review appended in place before the checkpoint, logged after it
+                repository.getById("r1").addReview(review);
+                journal.checkpoint();
+                journal.onReviewAdded(repository.getById("r1"), review, repository.ordinalOf("r1"));
+            }
+
+            RestaurantRepository restored = new RestaurantRepository();
+            try (RestaurantJournal journal = RestaurantJournal.open(file, snapshot, restored,
+                    WriteAheadLog.Durability.ASYNC)) {
+                assertEquals(1, journal.getReplayedRecords());
+                assertEquals(2, restored.getById("r1").getReviewCount());
+            }
+        }
+
+        @Test
+        @DisplayName("沒有快照檔案時不可建立檢查點")
+        void checkpoint_WithoutSnapshotFile_Throws() throws IOException {
+            try (RestaurantJournal journal = RestaurantJournal.open(tempDir.resolve("restaurants.wal"),
+                    new RestaurantRepository(), WriteAheadLog.Durability.ASYNC)) {
+                assertThrows(IllegalStateException.class, journal::checkpoint);
+            }
+        }
+
+        @Test
+        @DisplayName("addReview 檢查參數")
+        void addReview_InvalidArguments_Throws() {
+            RestaurantRepository repository = new RestaurantRepository();
+            assertThrows(IllegalArgumentException.class, () -> repository.addReview("1", null));
+            assertThrows(RestaurantNotFoundException.class,
+                    () -> repository.addReview("missing", new Review("v", "missing", 5, "")));
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String[] CITIES = { "台北市", "新北市", "台中市", "高雄市" };
+
+    private static List<Restaurant> generate(int count, int reviewsPerRestaurant, long seed) {
+        Random random = new Random(seed);
+        CuisineType[] cuisines = CuisineType.values();
+        List<Restaurant> restaurants = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = "r" + i;
+            Restaurant restaurant = new Restaurant(id, "Restaurant " + i, cuisines[random.nextInt(cuisines.length)],
+                    new Location(22 + random.nextDouble() * 3, 120 + random.nextDouble() * 2,
+                            "Road " + i, CITIES[random.nextInt(CITIES.length)]));
+            restaurant.getLocation().setDistrict("District " + random.nextInt(12));
+            restaurant.addMenuItem(new MenuItem(id + "-m", "Dish", 100 + random.nextInt(500), "Main"));
+            for (int j = 0; j < reviewsPerRestaurant; j++) {
+                Review review = new Review(id + "-v" + j, id, 1 + random.nextInt(5), "Nice");
+                review.setUserId("u" + random.nextInt(1000));
+                restaurant.addReview(review);
+            }
+            restaurant.setAveragePrice(100 + random.nextInt(900));
+            restaurants.add(restaurant);
+        }
+        return restaurants;
+    }
+
+    // Apply a change to the metadata block of a snapshot file and store a matching checksum
+    private static void rewriteMetadata(Path file, Consumer<ByteBuffer> change) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer trailer = ByteBuffer.allocate(16);
+            channel.read(trailer, size - 16);
+            long offset = trailer.getLong(0);
+            ByteBuffer metadata = ByteBuffer.allocate((int) (size - 16 - offset));
+            channel.read(metadata, offset);
+            change.accept(metadata);
+            CRC32 crc = new CRC32();
+            crc.update(metadata.array());
+            channel.write(ByteBuffer.wrap(metadata.array()), offset);
+            channel.write(ByteBuffer.allocate(4).putInt(0, (int) crc.getValue()), size - 8);
+        }
+    }
+
+    private static void assertCorrupt(Path file, String message) {
+        IOException e = assertThrows(IOException.class,
+                () -> RestaurantSnapshot.restore(file, new RestaurantRepository(), null));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    @Nested
+    @DisplayName("Write and Restore")
+    class WriteAndRestore {
+        @Test
+        @DisplayName("完整餐廳寫入後還原相同")
+        void restore_FullRestaurants() throws IOException {
+            RestaurantRepository repository = new RestaurantRepository();
+            Restaurant full = RestaurantJournalTest.fullRestaurant("full");
+            repository.save(full);
+            Restaurant empty = new Restaurant("empty", null);
+            empty.setMenu(null);
+            repository.save(empty);
+
+            Path file = tempDir.resolve("catalog.snap");
+            RestaurantSnapshot snapshot = RestaurantSnapshot.capture(repository);
+            assertEquals(2, snapshot.size());
+            assertTrue(snapshot.write(file) > 0);
+            assertFalse(Files.exists(tempDir.resolve("catalog.snap.tmp")));
+
+            RestaurantRepository restored = new RestaurantRepository();
+            assertEquals(2, RestaurantSnapshot.restore(file, restored));
+            RestaurantJournalTest.assertSameRestaurant(full, restored.getById("full"));
+            assertNull(restored.getById("empty").getMenu());
+            assertNull(restored.getById("empty").getLocation());
+        }
+
+        @Test
+        @DisplayName("並行與循序編碼結果相同")
+        void restore_ParallelMatchesSequential() throws IOException {
+            List<Restaurant> restaurants = generate(1000, 5, 7);
+            Path parallel = tempDir.resolve("parallel.snap");
+            Path sequential = tempDir.resolve("sequential.snap");
+            RestaurantSnapshot snapshot = RestaurantSnapshot.of(restaurants);
+            snapshot.write(parallel, new ForkJoinPool(4), 64);
+            snapshot.write(sequential, null, 64);
+            assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+
+            RestaurantRepository restored = new RestaurantRepository();
+            assertEquals(1000, RestaurantSnapshot.restore(parallel, restored, new ForkJoinPool(4)));
+            for (Restaurant expected : restaurants) {
+                RestaurantJournalTest.assertSameRestaurant(expected, restored.getById(expected.getId()));
+            }
+        }
+
+        @Test
+        @DisplayName("擷取後新增的評論不寫入")
+        void write_ReviewsAddedAfterCapture_Excluded() throws IOException {
+            List<Restaurant> restaurants = generate(3, 2, 1);
+            RestaurantSnapshot snapshot = RestaurantSnapshot.of(restaurants);
+            restaurants.get(0).addReview(new Review("late", "r0", 5, "Late"));
+
+            Path file = tempDir.resolve("catalog.snap");
+            snapshot.write(file);
+            RestaurantRepository restored = new RestaurantRepository();
+            RestaurantSnapshot.restore(file, restored, null);
+            assertEquals(2, restored.getById("r0").getReviewCount());
+        }
+
+        @Test
+        @DisplayName("擷取時複製評論清單")
+        void capture_CopiesReviewLists() throws IOException {
+            RestaurantRepository repository = new RestaurantRepository();
+            generate(3, 2, 1).forEach(repository::save);
+            repository.getById("r2").setReviews(null);
+            RestaurantSnapshot snapshot = RestaurantSnapshot.capture(repository);
+            repository.getById("r0").getReviews().clear();
+            repository.getById("r1").setReviews(null);
+
+            Path file = tempDir.resolve("catalog.snap");
+            snapshot.write(file);
+            RestaurantRepository restored = new RestaurantRepository();
+            RestaurantSnapshot.restore(file, restored, null);
+            assertEquals(2, restored.getById("r0").getReviewCount());
+            assertEquals(2, restored.getById("r1").getReviewCount());
+            assertNull(restored.getById("r2").getReviews());
+
+            List<Restaurant> mixed = new ArrayList<>(generate(2, 0, 1));
+            mixed.add(null);
+            mixed.add(new Restaurant(null, "No id"));
+            assertEquals(2, RestaurantSnapshot.of(mixed).size());
+        }
+
+        @Test
+        @DisplayName("空目錄與字典壓縮")
+        void write_EmptyAndDictionary() throws IOException {
+            Path empty = tempDir.resolve("empty.snap");
+            RestaurantSnapshot.of(List.of()).write(empty);
+            assertEquals(0, RestaurantSnapshot.restore(empty, new RestaurantRepository()));
+
+            // City names appear once in the file however many restaurants share them
+            Path file = tempDir.resolve("catalog.snap");
+            RestaurantSnapshot.of(generate(500, 0, 3)).write(file);
+            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            assertEquals(content.indexOf("台北市"), content.lastIndexOf("台北市"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Corruption")
+    class Corruption {
+        @Test
+        @DisplayName("損壞的區塊與非快照檔案")
+        void restore_Corrupt_Throws() throws IOException {
+            Path file = tempDir.resolve("catalog.snap");
+            RestaurantSnapshot.of(generate(100, 2, 5)).write(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] { 0x7F, 0x7F }), 40);
+            }
+            assertThrows(IOException.class, () -> RestaurantSnapshot.restore(file, new RestaurantRepository()));
+
+            Path other = tempDir.resolve("other.snap");
+            Files.write(other, "not a snapshot at all".getBytes(StandardCharsets.UTF_8));
+            assertThrows(IOException.class, () -> RestaurantSnapshot.restore(other, new RestaurantRepository()));
+
+            assertThrows(IllegalArgumentException.class, () -> RestaurantSnapshot.capture(null));
+            assertThrows(IllegalArgumentException.class, () -> RestaurantSnapshot.restore(file, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> RestaurantSnapshot.of(List.of()).write(file, null, 0));
+            assertThrows(IllegalArgumentException.class, () -> RestaurantSnapshot.of(null));
+        }
+
+        @Test
+        @DisplayName("中繼資料校驗碼錯誤")
+        void restore_CorruptMetadata_Throws() throws IOException {
+            Path file = tempDir.resolve("catalog.snap");
+            RestaurantSnapshot.of(generate(100, 2, 5)).write(file, null, 64);
+            long size = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                // Inside the chunk directory, which no chunk checksum covers
+                channel.write(ByteBuffer.wrap(new byte[] { 0x01 }), size - 16 - 5);
+            }
+            assertCorrupt(file, "metadata");
+        }
+
+        @Test
+        @DisplayName("區塊數與餐廳數在配置前檢查")
+        void restore_InvalidCounts_Throws() throws IOException {
+            Path file = tempDir.resolve("catalog.snap");
+            List<Restaurant> restaurants = generate(100, 2, 5);
+            int chunksAt = -2 * 16 - 4; // two chunks of 64, counted from the end of the metadata
+            int totalAt = chunksAt - 4;
+
+            RestaurantSnapshot.of(restaurants).write(file, null, 64);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() + chunksAt, 1_000_000_000));
+            assertCorrupt(file, "directory");
+
+            RestaurantSnapshot.of(restaurants).write(file, null, 64);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() + totalAt, -1));
+            assertCorrupt(file, "directory");
+
+            RestaurantSnapshot.of(restaurants).write(file, null, 64);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() + totalAt, 1_000_000_000));
+            assertCorrupt(file, "directory");
+
+            RestaurantSnapshot.of(restaurants).write(file, null, 64);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() + totalAt, 99));
+            assertCorrupt(file, "expected 99");
+
+            RestaurantSnapshot.of(restaurants).write(file, null, 64);
+            rewriteMetadata(file, metadata -> metadata.putLong(metadata.capacity() - 32, 0));
+            assertCorrupt(file, "directory");
+
+            RestaurantSnapshot.of(restaurants).write(file, null, 64);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() - 24, -1));
+            assertCorrupt(file, "directory");
+
+            RestaurantSnapshot.of(restaurants).write(file, null, 64);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() - 24, 1 << 30));
+            assertCorrupt(file, "directory");
+
+            RestaurantSnapshot.of(restaurants).write(file, null, 64);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() + chunksAt, -1));
+            assertCorrupt(file, "directory");
+        }
+
+        @Test
+        @DisplayName("區塊內的餐廳數無效")
+        void restore_InvalidChunkCount_Throws() throws IOException {
+            Path file = tempDir.resolve("catalog.snap");
+            RestaurantSnapshot.of(generate(10, 1, 5)).write(file, null, 64);
+            long[] chunk = new long[2];
+            rewriteMetadata(file, metadata -> {
+                chunk[0] = metadata.getLong(metadata.capacity() - 16);
+                chunk[1] = metadata.getInt(metadata.capacity() - 8);
+            });
+            byte[] bytes = new byte[(int) chunk[1]];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                channel.read(ByteBuffer.wrap(bytes), chunk[0]);
+                ByteBuffer.wrap(bytes).putInt(0, 0x7FFFFFFF);
+                channel.write(ByteBuffer.wrap(bytes), chunk[0]);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() - 4, (int) crc.getValue()));
+            assertCorrupt(file, "invalid restaurant count");
+
+            ByteBuffer.wrap(bytes).putInt(0, -1);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(bytes), chunk[0]);
+            }
+            CRC32 negative = new CRC32();
+            negative.update(bytes);
+            rewriteMetadata(file, metadata -> metadata.putInt(metadata.capacity() - 4, (int) negative.getValue()));
+            assertCorrupt(file, "invalid restaurant count");
+        }
+
+        @Test
+        @DisplayName("版本不符與截斷的結尾")
+        void restore_VersionAndTrailer_Throws() throws IOException {
+            Path file = tempDir.resolve("catalog.snap");
+            RestaurantSnapshot.of(generate(10, 1, 5)).write(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, 1), 4);
+            }
+            assertCorrupt(file, "version");
+
+            RestaurantSnapshot.of(generate(10, 1, 5)).write(file);
+            long size = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(8).putLong(0, size), size - 16);
+            }
+            assertCorrupt(file, "Truncated");
+
+            RestaurantSnapshot.of(generate(10, 1, 5)).write(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size - 1);
+            }
+            assertCorrupt(file, "Truncated");
+        }
+    }
+
+    @Nested
+    @DisplayName("Scale")
+    class Scale {
+        @Test
+        @DisplayName("20 萬評論的寫入與還原")
+        void restore_LargeCatalog() throws IOException {
+            List<Restaurant> restaurants = generate(20_000, 10, 11);
+            Path file = tempDir.resolve("catalog.snap");
+            assertTrue(RestaurantSnapshot.of(restaurants).write(file) > 0);
+
+            RestaurantRepository restored = new RestaurantRepository();
+            assertEquals(20_000, RestaurantSnapshot.restore(file, restored));
+            assertEquals(10, restored.getById("r19999").getReviewCount());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.model.Restaurant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RestaurantTrie 測試類別
+ */
+class RestaurantTrieTest {
+
+    private static Restaurant restaurant(String id) {
+        return new Restaurant(id, "Restaurant " + id);
+    }
+
+    private static void assertSameContents(Map<String, Restaurant> expected, RestaurantTrie trie) {
+        assertEquals(expected.size(), trie.size());
+        List<Restaurant> values = trie.values();
+        Set<String> seen = new HashSet<>();
+        int position = 0;
+        for (Restaurant restaurant : values) {
+            assertTrue(seen.add(restaurant.getId()));
+            assertSame(expected.get(restaurant.getId()), restaurant);
+            assertSame(restaurant, values.get(position));
+            assertEquals(position, trie.indexOf(restaurant.getId()));
+            position++;
+        }
+        assertEquals(expected.size(), position);
+        for (Map.Entry<String, Restaurant> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), trie.get(entry.getKey()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Updates")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("隨機新增與刪除後應與 HashMap 一致")
+        void shouldMatchHashMapUnderRandomUpdates() {
+            Random random = new Random(7L);
+            Map<String, Restaurant> expected = new HashMap<>();
+            RestaurantTrie trie = RestaurantTrie.EMPTY;
+            for (int i = 0; i < 20000; i++) {
+                String id = "r" + random.nextInt(3000);
+                if (random.nextInt(3) == 0) {
+                    expected.remove(id);
+                    trie = trie.remove(id);
+                } else {
+                    Restaurant restaurant = restaurant(id);
+                    expected.put(id, restaurant);
+                    trie = trie.put(restaurant);
+                }
+            }
+            assertSameContents(expected, trie);
+            assertNull(trie.get("missing"));
+            assertEquals(-1, trie.indexOf("missing"));
+        }
+
+        @Test
+        @DisplayName("更新應保留舊版本不變")
+        void updatesShouldLeaveOlderTriesUnchanged() {
+            RestaurantTrie before = RestaurantTrie.EMPTY;
+            Map<String, Restaurant> expected = new HashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                Restaurant restaurant = restaurant("r" + i);
+                expected.put(restaurant.getId(), restaurant);
+                before = before.put(restaurant);
+            }
+
+            RestaurantTrie after = before.remove("r1").put(restaurant("r2")).put(restaurant("new"));
+
+            assertSameContents(expected, before);
+            assertEquals(1000, after.size());
+            assertNull(after.get("r1"));
+            assertNotSame(before.get("r2"), after.get("r2"));
+        }
+
+        @Test
+        @DisplayName("沒有變化的更新應回傳同一個 trie")
+        void noOpUpdatesShouldReturnSameTrie() {
+            Restaurant restaurant = restaurant("r1");
+            RestaurantTrie trie = RestaurantTrie.EMPTY.put(restaurant);
+
+            assertSame(trie, trie.put(restaurant));
+            assertSame(trie, trie.remove("r2"));
+            assertSame(RestaurantTrie.EMPTY, trie.remove("r1"));
+        }
+
+        @Test
+        @DisplayName("雜湊值完全相同的 ID 應分開保存")
+        void shouldKeepIdsWithEqualHashesApart() {
+            // "Aa" and "BB" have the same hashCode, as do all their concatenations
+            List<String> ids = new ArrayList<>();
+            for (String first : new String[] { "Aa", "BB" }) {
+                for (String second : new String[] { "Aa", "BB" }) {
+                    ids.add(first + second);
+                }
+            }
+            Map<String, Restaurant> expected = new HashMap<>();
+            RestaurantTrie trie = RestaurantTrie.EMPTY;
+            for (String id : ids) {
+                Restaurant restaurant = restaurant(id);
+                expected.put(id, restaurant);
+                trie = trie.put(restaurant);
+            }
+            // One id that shares no level with them
+            Restaurant other = restaurant("other");
+            expected.put("other", other);
+            trie = trie.put(other);
+            assertSameContents(expected, trie);
+
+            for (String id : ids.subList(0, 3)) {
+                expected.remove(id);
+                trie = trie.remove(id);
+            }
+            assertSameContents(expected, trie);
+        }
+
+        @Test
+        @DisplayName("碰撞節點應處理取代、缺少的 ID 與不同雜湊的插入")
+        void collisionNodeShouldHandleUpdates() {
+            Restaurant aa = restaurant("AaAa");
+            Restaurant bb = restaurant("BBBB");
+            RestaurantTrie trie = RestaurantTrie.EMPTY.put(aa).put(bb);
+            assertSame(trie, trie.put(aa));
+            assertSame(trie, trie.remove("AaBB"));
+            assertNull(trie.get("AaBB"));
+            assertEquals(-1, trie.indexOf("AaBB"));
+
+            // An id whose hash differs but lands in the collision's slot at the root
+            String neighbour = null;
+            for (int i = 0; neighbour == null; i++) {
+                String candidate = "n" + i;
+                if (candidate.hashCode() != aa.getId().hashCode()
+                        && (spread(candidate.hashCode()) & 31) == (spread(aa.getId().hashCode()) & 31)) {
+                    neighbour = candidate;
+                }
+            }
+            assertNull(trie.get(neighbour));
+            assertEquals(-1, trie.indexOf(neighbour));
+            assertSame(trie, trie.remove(neighbour));
+
+            Map<String, Restaurant> expected = new HashMap<>();
+            expected.put("AaAa", aa);
+            Restaurant replacement = restaurant("BBBB");
+            expected.put("BBBB", replacement);
+            Restaurant near = restaurant(neighbour);
+            expected.put(neighbour, near);
+            trie = trie.put(replacement).put(near);
+            assertSameContents(expected, trie);
+
+            expected.remove("AaAa");
+            trie = trie.remove("AaAa");
+            assertSameContents(expected, trie);
+            expected.remove("BBBB");
+            trie = trie.remove("BBBB");
+            assertSameContents(expected, trie);
+        }
+    }
+
+    // RestaurantTrie's hash spreading
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    @Nested
+    @DisplayName("Values")
+    class ValuesTests {
+
+        @Test
+        @DisplayName("值清單應唯讀並檢查範圍")
+        void valuesShouldBeReadOnly() {
+            List<Restaurant> values = RestaurantTrie.EMPTY.put(restaurant("r1")).values();
+
+            assertThrows(UnsupportedOperationException.class, () -> values.add(restaurant("r2")));
+            assertThrows(UnsupportedOperationException.class, () -> values.remove(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> values.get(1));
+            assertTrue(RestaurantTrie.EMPTY.values().isEmpty());
+            assertFalse(RestaurantTrie.EMPTY.values().iterator().hasNext());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.metrics.InProcessMetricsRegistry;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.Review;
+import org.example.restaurant.model.ReviewPage;
+import org.example.restaurant.model.ReviewSort;
+import org.example.restaurant.model.ReviewSummary;
+import org.example.restaurant.service.RatingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private RestaurantRepository repository;
+    private ReviewIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RestaurantRepository();
+        index = ReviewIndex.attach(repository);
+    }
+
+    private static Review review(String id, int rating, int helpful, int day) {
+        Review review = new Review(id, "r1", rating, "comment " + id);
+        review.setHelpfulCount(helpful);
+        review.setCreatedAt(BASE.plusDays(day));
+        return review;
+    }
+
+    private static List<String> ids(ReviewPage page) {
+        return page.getReviews().stream().map(Review::getId).collect(Collectors.toList());
+    }
+
+    @Nested
+    @DisplayName("Summary")
+    class Summary {
+        @Test
+        @DisplayName("彙總與 RatingService 平均相同")
+        void summary_MatchesRatingService() {
+            Random random = new Random(3);
+            Restaurant restaurant = new Restaurant("r1", "R1");
+            for (int i = 0; i < 40; i++) {
+                restaurant.addReview(review("v" + i, random.nextInt(7), 0, i));
+            }
+            repository.save(restaurant);
+            repository.addReview("r1", review("extra", 5, 0, 50));
+
+            ReviewSummary summary = index.summary("r1");
+            assertEquals(41, summary.getReviewCount());
+            assertEquals(new RatingService().calculateAverageRating(restaurant), summary.getAverageRating());
+            assertArrayEquals(new RatingService().getRatingDistribution(restaurant), summary.getDistribution());
+        }
+
+        @Test
+        @DisplayName("未知餐廳回傳空彙總")
+        void summary_UnknownRestaurant_Empty() {
+            assertEquals(0, index.summary("missing").getReviewCount());
+            assertEquals(0.0, index.summary(null).getAverageRating());
+            assertEquals(0, index.reviewCount("missing"));
+        }
+
+        @Test
+        @DisplayName("附加前已存在的餐廳也會被索引")
+        void attach_IndexesExistingRestaurants() {
+            RestaurantRepository other = new RestaurantRepository();
+            Restaurant restaurant = new Restaurant("r1", "R1");
+            restaurant.addReview(review("a", 4, 0, 0));
+            other.save(restaurant);
+
+            assertEquals(1, ReviewIndex.attach(other).reviewCount("r1"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Pagination")
+    class Pagination {
+        @BeforeEach
+        void addReviews() {
+            Restaurant restaurant = new Restaurant("r1", "R1");
+            restaurant.addReview(review("a", 3, 5, 2));
+            restaurant.addReview(review("b", 5, 1, 0));
+            restaurant.addReview(review("c", 1, 9, 4));
+            restaurant.addReview(review("d", 5, 1, 3));
+            restaurant.addReview(null);
+            repository.save(restaurant);
+        }
+
+        @Test
+        @DisplayName("各種排序方式")
+        void page_SortOrders() {
+            assertEquals(List.of("c", "d", "a", "b"), ids(index.page("r1", ReviewSort.NEWEST, 0, 10)));
+            assertEquals(List.of("c", "a", "d", "b"), ids(index.page("r1", ReviewSort.MOST_HELPFUL, 0, 10)));
+            assertEquals(List.of("d", "b", "a", "c"), ids(index.page("r1", ReviewSort.HIGHEST_RATING, 0, 10)));
+            assertEquals(List.of("c", "a", "d", "b"), ids(index.page("r1", ReviewSort.LOWEST_RATING, 0, 10)));
+        }
+
+        @Test
+        @DisplayName("應記錄排序快取命中率")
+        void page_RecordsOrderCacheHitRatio() {
+            InProcessMetricsRegistry registry = new InProcessMetricsRegistry();
+            Metrics.install(registry);
+            try {
+                ReviewIndex tracked = ReviewIndex.attach(repository);
+                tracked.page("r1", ReviewSort.NEWEST, 0, 2);
+                tracked.page("r1", ReviewSort.NEWEST, 1, 2);
+                tracked.page("r1", ReviewSort.NEWEST, 2, 2);
+                tracked.page("r1", ReviewSort.LOWEST_RATING, 0, 2);
+
+                assertEquals(0.5, registry.snapshot().getHitRatio("reviews.order"), 1e-9);
+            } finally {
+                Metrics.reset();
+            }
+        }
+
+        @Test
+        @DisplayName("新增評論時保持已建立的排序")
+        void page_AddedReviews_KeepOrder() {
+            index.page("r1", ReviewSort.HIGHEST_RATING, 0, 10);
+            index.page("r1", ReviewSort.NEWEST, 0, 10);
+            repository.addReview("r1", review("e", 5, 0, 3));
+            Review undated = review("f", 2, 0, 0);
+            undated.setCreatedAt(null);
+            repository.addReview("r1", undated);
+
+            // Equal reviews list the most recently added first
+            assertEquals(List.of("e", "d", "b", "a", "f", "c"),
+                    ids(index.page("r1", ReviewSort.HIGHEST_RATING, 0, 10)));
+            assertEquals(List.of("c", "e", "d", "a", "b", "f"), ids(index.page("r1", ReviewSort.NEWEST, 0, 10)));
+            assertEquals(List.of("c", "a", "d", "b", "e", "f"),
+                    ids(index.page("r1", ReviewSort.MOST_HELPFUL, 0, 10)));
+        }
+
+        @Test
+        @DisplayName("分頁資訊")
+        void page_Boundaries() {
+            ReviewPage first = index.page("r1", ReviewSort.NEWEST, 0, 3);
+            assertEquals(List.of("c", "d", "a"), ids(first));
+            assertEquals(4, first.getTotalReviews());
+            assertEquals(2, first.getTotalPages());
+            assertTrue(first.hasNext());
+            assertFalse(first.hasPrevious());
+
+            ReviewPage second = index.page("r1", ReviewSort.NEWEST, 1, 3);
+            assertEquals(List.of("b"), ids(second));
+            assertFalse(second.hasNext());
+            assertTrue(second.hasPrevious());
+
+            ReviewPage beyond = index.page("r1", ReviewSort.NEWEST, 5, 3);
+            assertTrue(beyond.isEmpty());
+            assertEquals(4, beyond.getTotalReviews());
+            assertThrows(UnsupportedOperationException.class, () -> first.getReviews().clear());
+            assertTrue(index.page("missing", ReviewSort.NEWEST, 0, 3).isEmpty());
+        }
+
+        @Test
+        @DisplayName("無效參數丟出例外")
+        void page_InvalidArguments_Throws() {
+            assertThrows(IllegalArgumentException.class, () -> index.page("r1", null, 0, 3));
+            assertThrows(IllegalArgumentException.class, () -> index.page("r1", ReviewSort.NEWEST, -1, 3));
+            assertThrows(IllegalArgumentException.class, () -> index.page("r1", ReviewSort.NEWEST, 0, 0));
+            assertThrows(IllegalArgumentException.class, () -> ReviewIndex.attach(null));
+        }
+
+        @Test
+        @DisplayName("重新儲存、刪除與清空")
+        void followsRepositoryChanges() {
+            Restaurant replacement = new Restaurant("r1", "R1");
+            replacement.addReview(review("z", 2, 0, 0));
+            repository.save(replacement);
+            assertEquals(List.of("z"), ids(index.page("r1", ReviewSort.NEWEST, 0, 10)));
+
+            repository.delete("r1");
+            assertEquals(0, index.reviewCount("r1"));
+            repository.save(replacement);
+            repository.deleteAll();
+            assertEquals(0, index.summary("r1").getReviewCount());
+        }
+    }
+}
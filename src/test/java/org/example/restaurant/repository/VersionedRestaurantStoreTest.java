@@ -0,0 +1,280 @@
+package org.example.restaurant.repository;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.model.*;
+import org.example.restaurant.service.RestaurantSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VersionedRestaurantStore 測試類別
+ */
+class VersionedRestaurantStoreTest {
+
+    private RestaurantRepository repository;
+    private VersionedRestaurantStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RestaurantRepository();
+        repository.save(restaurant("r1", "台北市"));
+        repository.save(restaurant("r2", "台中市"));
+        store = VersionedRestaurantStore.attach(repository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.reset();
+    }
+
+    private static Restaurant restaurant(String id, String city) {
+        Restaurant restaurant = new Restaurant(id, "Restaurant " + id, CuisineType.TAIWANESE,
+                new Location(25.0, 121.5, "Road", city));
+        restaurant.addReview(new Review(id + "-v0", id, 4, "Good"));
+        return restaurant;
+    }
+
+    @Nested
+    @DisplayName("Snapshot Isolation")
+    class IsolationTests {
+
+        @Test
+        @DisplayName("快照不應看到之後的新增、修改與刪除")
+        void snapshotShouldIgnoreLaterWrites() {
+            try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+                Restaurant renamed = restaurant("r1", "台北市");
+                renamed.setName("Renamed");
+                repository.save(renamed);
+                repository.save(restaurant("r3", "高雄市"));
+                repository.delete("r2");
+
+                assertEquals("Restaurant r1", snapshot.getById("r1").getName());
+                assertTrue(snapshot.exists("r2"));
+                assertFalse(snapshot.exists("r3"));
+                assertEquals(2, snapshot.count());
+                assertEquals(1, snapshot.findByCity("台中").size());
+            }
+            try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+                assertEquals("Renamed", snapshot.getById("r1").getName());
+                assertFalse(snapshot.exists("r2"));
+                assertEquals(2, snapshot.findAll().size());
+            }
+        }
+
+        @Test
+        @DisplayName("快照不應看到之後新增的評論或原地修改")
+        void snapshotShouldHoldFrozenCopies() {
+            try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+                repository.addReview("r1", new Review("r1-v1", "r1", 1, "Bad"));
+                repository.getById("r1").setName("Changed in place");
+
+                Restaurant pinned = snapshot.getById("r1");
+                assertEquals(1, pinned.getReviews().size());
+                assertEquals("Restaurant r1", pinned.getName());
+            }
+            try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+                Restaurant current = snapshot.getById("r1");
+                assertEquals(2, current.getReviews().size());
+                assertEquals("r1-v1", current.getReviews().get(1).getId());
+                assertEquals("r1", current.getReviews().get(1).getRestaurantId());
+            }
+        }
+
+        @Test
+        @DisplayName("清空後快照仍應看到原本的餐廳")
+        void snapshotShouldSurviveClear() {
+            try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+                repository.deleteAll();
+                repository.save(restaurant("r9", "台南市"));
+
+                assertEquals(2, snapshot.count());
+                assertFalse(snapshot.exists("r9"));
+            }
+            try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+                assertEquals(List.of("r9"), ids(snapshot.findAll()));
+            }
+        }
+
+        @Test
+        @DisplayName("快照應依序號排列並提供連續序號")
+        void snapshotOrdinalsShouldBePositions() {
+            repository.delete("r1");
+            repository.save(restaurant("r3", "高雄市"));
+            try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+                List<Restaurant> all = snapshot.findAll();
+
+                assertEquals(List.of("r3", "r2"), ids(all)); // r3 reuses the ordinal r1 released
+                for (int i = 0; i < all.size(); i++) {
+                    assertEquals(i, snapshot.ordinalOf(all.get(i).getId()));
+                    assertSame(all.get(i), snapshot.findByOrdinal(i).orElseThrow());
+                }
+                assertEquals(-1, snapshot.ordinalOf("r1"));
+            }
+        }
+
+        @Test
+        @DisplayName("服務應可在快照上執行")
+        void servicesShouldRunOnSnapshot() {
+            RestaurantRepository catalog = new RestaurantRepository();
+            new SyntheticDataGenerator(5L).populate(catalog, 200);
+            VersionedRestaurantStore versions = VersionedRestaurantStore.attach(catalog);
+            SearchCriteria criteria = new SearchCriteria().minRating(3.0).sortBy(SearchCriteria.SortType.NAME);
+            List<String> before = sortedIds(new RestaurantSearchService(catalog).searchByMultipleCriteria(criteria));
+
+            try (PinnedRestaurantRepository snapshot = versions.snapshot()) {
+                for (Restaurant restaurant : catalog.findAll()) {
+                    restaurant.setActive(false);
+                    catalog.save(restaurant);
+                }
+
+                // Names may tie, and ties keep repository order, which differs in a snapshot
+                assertFalse(before.isEmpty());
+                assertEquals(before,
+                        sortedIds(new RestaurantSearchService(snapshot).searchByMultipleCriteria(criteria)));
+                assertTrue(new RestaurantSearchService(catalog).searchByMultipleCriteria(criteria).isEmpty());
+            }
+        }
+
+        @Test
+        @DisplayName("快照應唯讀，關閉後不可讀取")
+        void snapshotShouldBeReadOnlyAndClosable() {
+            PinnedRestaurantRepository snapshot = store.snapshot();
+            assertThrows(UnsupportedOperationException.class, () -> snapshot.save(restaurant("r5", "台北市")));
+            assertThrows(UnsupportedOperationException.class, () -> snapshot.delete("r1"));
+            assertThrows(UnsupportedOperationException.class, snapshot::deleteAll);
+
+            snapshot.close();
+            snapshot.close();
+
+            assertTrue(snapshot.isClosed());
+            assertThrows(IllegalStateException.class, () -> snapshot.findById("r1"));
+            assertThrows(IllegalStateException.class, snapshot::findAll);
+            assertEquals(0, store.openSnapshots());
+        }
+    }
+
+    @Nested
+    @DisplayName("Reclamation")
+    class ReclamationTests {
+
+        @Test
+        @DisplayName("沒有快照時舊版本應立即回收")
+        void oldVersionsShouldBeCutWithoutSnapshots() {
+            for (int i = 0; i < 10; i++) {
+                repository.save(restaurant("r1", "台北市"));
+            }
+            repository.delete("r2");
+
+            assertEquals(1, store.versionCount());
+        }
+
+        @Test
+        @DisplayName("舊版本應保留到最舊的快照關閉")
+        void versionsShouldBeKeptUntilOldestSnapshotCloses() {
+            PinnedRestaurantRepository oldest = store.snapshot();
+            repository.save(restaurant("r1", "台北市"));
+            PinnedRestaurantRepository newer = store.snapshot();
+            repository.save(restaurant("r1", "台北市"));
+            assertEquals(4, store.versionCount());
+
+            newer.close();
+            repository.save(restaurant("r3", "高雄市"));
+            assertEquals("Restaurant r1", oldest.getById("r1").getName());
+            assertEquals(5, store.versionCount()); // r1 keeps its versions until the oldest snapshot closes
+
+            oldest.close();
+            store.reclaim();
+            assertEquals(3, store.versionCount());
+        }
+
+        @Test
+        @DisplayName("最舊的快照關閉後下一次寫入應回收")
+        void nextWriteShouldReclaimAfterOldestCloses() {
+            PinnedRestaurantRepository snapshot = store.snapshot();
+            repository.save(restaurant("r1", "台北市"));
+            repository.save(restaurant("r2", "台中市"));
+            assertEquals(4, store.versionCount());
+
+            snapshot.close();
+            repository.save(restaurant("r3", "高雄市"));
+
+            assertEquals(3, store.versionCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("讀取者在持續寫入時應看到一致的目錄")
+        void readersShouldSeeConsistentCatalogDuringWrites() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                Future<?> writer = executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        // Both restaurants always move to the same city together
+                        String city = "City" + i;
+                        Restaurant first = restaurant("r1", city);
+                        Restaurant second = restaurant("r2", city);
+                        repository.saveAll(List.of(first, second));
+                    }
+                });
+                List<Future<Integer>> readers = new ArrayList<>();
+                for (int r = 0; r < 2; r++) {
+                    readers.add(executor.submit(() -> {
+                        int torn = 0;
+                        while (!writer.isDone()) {
+                            try (PinnedRestaurantRepository snapshot = store.snapshot()) {
+                                // Versions after the first are odd once both saves of a batch are in
+                                if (snapshot.getVersion() > 1 && snapshot.getVersion() % 2 == 1
+                                        && !snapshot.getById("r1").getLocation().getCity()
+                                                .equals(snapshot.getById("r2").getLocation().getCity())) {
+                                    torn++;
+                                }
+                                assertEquals(2, snapshot.findAll().size());
+                            }
+                        }
+                        return torn;
+                    }));
+                }
+                writer.get(30, TimeUnit.SECONDS);
+                for (Future<Integer> reader : readers) {
+                    assertEquals(0, reader.get(30, TimeUnit.SECONDS));
+                }
+                assertEquals(0, store.openSnapshots());
+                store.reclaim();
+                assertEquals(2, store.versionCount());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static List<String> sortedIds(List<Restaurant> restaurants) {
+        List<String> ids = ids(restaurants);
+        ids.sort(null);
+        return ids;
+    }
+
+    private static List<String> ids(List<Restaurant> restaurants) {
+        List<String> ids = new ArrayList<>();
+        for (Restaurant restaurant : restaurants) {
+            ids.add(restaurant.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,255 @@
+package org.example.restaurant.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<String> readAll(Path file) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE)) {
+            log.replay((type, payload) -> records.add(type + ":" + StandardCharsets.UTF_8.decode(payload)));
+        }
+        return records;
+    }
+
+    @Nested
+    @DisplayName("Append and Replay")
+    class AppendAndReplay {
+        @ParameterizedTest
+        @EnumSource(WriteAheadLog.Durability.class)
+        @DisplayName("各耐久模式關閉後可重播全部記錄")
+        void appendThenReplay_AllDurabilities(WriteAheadLog.Durability durability) throws IOException {
+            Path file = tempDir.resolve("log-" + durability);
+            try (WriteAheadLog log = WriteAheadLog.open(file, durability)) {
+                assertEquals(durability, log.getDurability());
+                assertEquals(0, log.replay((type, payload) -> fail("empty log")));
+                for (int i = 0; i < 1000; i++) {
+                    log.append((byte) (i % 3), bytes("record-" + i));
+                }
+            }
+
+            List<String> records = readAll(file);
+            assertEquals(1000, records.size());
+            assertEquals("0:record-0", records.get(0));
+            assertEquals("0:record-999", records.get(999));
+        }
+
+        @Test
+        @DisplayName("重開後接續寫入")
+        void reopen_AppendsAfterExistingRecords() throws IOException {
+            Path file = tempDir.resolve("log");
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.BATCHED)) {
+                log.append((byte) 1, bytes("a"));
+            }
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.BATCHED)) {
+                assertEquals(1, log.replay((type, payload) -> {
+                }));
+                log.append((byte) 1, bytes("b"));
+            }
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.ASYNC)) {
+                // Appending without replay goes to the end of the file
+                log.append((byte) 1, bytes("c"));
+            }
+
+            assertEquals(List.of("1:a", "1:b", "1:c"), readAll(file));
+        }
+
+        @Test
+        @DisplayName("大於緩衝區的記錄直接寫入")
+        void append_RecordLargerThanBuffer() throws IOException {
+            Path file = tempDir.resolve("log");
+            String large = "x".repeat(10_000);
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.ASYNC, 4096, 5)) {
+                log.append((byte) 1, bytes("small"));
+                log.append((byte) 2, bytes(large));
+                log.append((byte) 3, bytes("after"));
+            }
+
+            assertEquals(List.of("1:small", "2:" + large, "3:after"), readAll(file));
+        }
+
+        @Test
+        @DisplayName("並行寫入共用 fsync 且不遺失記錄")
+        void concurrentAppends_GroupCommit() throws Exception {
+            Path file = tempDir.resolve("log");
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE)) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 200; i++) {
+                            log.append((byte) thread, bytes(thread + "-" + i));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            List<String> records = readAll(file);
+            assertEquals(1600, records.size());
+            for (int t = 0; t < 8; t++) {
+                String prefix = t + ":" + t + "-";
+                List<String> ofThread = records.stream().filter(r -> r.startsWith(prefix)).toList();
+                assertEquals(200, ofThread.size());
+                assertEquals(prefix + "199", ofThread.get(199));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Recovery")
+    class Recovery {
+        @Test
+        @DisplayName("截斷的尾端記錄被捨棄")
+        void replay_TornTail_Truncated() throws IOException {
+            Path file = tempDir.resolve("log");
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE)) {
+                log.append((byte) 1, bytes("kept"));
+                log.append((byte) 1, bytes("torn"));
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 2);
+            }
+
+            assertEquals(List.of("1:kept"), readAll(file));
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE)) {
+                log.replay((type, payload) -> {
+                });
+                log.append((byte) 1, bytes("next"));
+            }
+            assertEquals(List.of("1:kept", "1:next"), readAll(file));
+        }
+
+        @Test
+        @DisplayName("校驗碼錯誤的記錄停止重播")
+        void replay_CorruptRecord_Stops() throws IOException {
+            Path file = tempDir.resolve("log");
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE)) {
+                log.append((byte) 1, bytes("good"));
+                log.append((byte) 1, bytes("flipped"));
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] { 'X' }), channel.size() - 1);
+            }
+
+            assertEquals(List.of("1:good"), readAll(file));
+        }
+
+        @Test
+        @DisplayName("未重播即寫入時接在完整記錄之後")
+        void append_WithoutReplay_AfterTornTail() throws IOException {
+            Path file = tempDir.resolve("log");
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE)) {
+                log.append((byte) 1, bytes("kept"));
+                log.append((byte) 1, bytes("torn"));
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 2);
+            }
+
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.BATCHED)) {
+                log.append((byte) 1, bytes("next"));
+                assertEquals(2, log.replay((type, payload) -> {
+                }));
+            }
+            assertEquals(List.of("1:kept", "1:next"), readAll(file));
+        }
+
+        @Test
+        @DisplayName("以零填充的尾端視為截斷")
+        void open_ZeroFilledTail_Truncated() throws IOException {
+            Path file = tempDir.resolve("log");
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE)) {
+                log.append((byte) 1, bytes("kept"));
+            }
+            long size = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(20_000), size);
+            }
+
+            assertEquals(List.of("1:kept"), readAll(file));
+            assertEquals(size, Files.size(file));
+        }
+
+        @Test
+        @DisplayName("中間的損壞記錄使開啟失敗")
+        void open_CorruptRecordBeforeIntactOnes_Throws() throws IOException {
+            Path file = tempDir.resolve("log");
+            try (WriteAheadLog log = WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE)) {
+                log.append((byte) 1, bytes("first"));
+                log.append((byte) 1, bytes("second"));
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                // Last byte of the first payload
+                channel.write(ByteBuffer.wrap(new byte[] { 'X' }), 8 + 9 + 4);
+            }
+            long size = Files.size(file);
+
+            IOException e = assertThrows(IOException.class,
+                    () -> WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE));
+            assertTrue(e.getMessage().contains("offset 8"), e.getMessage());
+            assertEquals(size, Files.size(file));
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, -5), 8);
+            }
+            assertThrows(IOException.class, () -> WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE));
+        }
+
+        @Test
+        @DisplayName("非日誌檔案與無效參數")
+        void open_InvalidInput_Throws() throws IOException {
+            Path file = tempDir.resolve("not-a-log");
+            Files.write(file, bytes("hello world"));
+            assertThrows(IOException.class, () -> WriteAheadLog.open(file, WriteAheadLog.Durability.PER_WRITE));
+
+            Path other = tempDir.resolve("other");
+            assertThrows(IllegalArgumentException.class, () -> WriteAheadLog.open(other, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> WriteAheadLog.open(other, WriteAheadLog.Durability.ASYNC, 16, 10));
+            assertThrows(IllegalArgumentException.class,
+                    () -> WriteAheadLog.open(other, WriteAheadLog.Durability.ASYNC, 4096, 0));
+        }
+
+        @Test
+        @DisplayName("關閉後不可寫入")
+        void append_AfterClose_Throws() throws IOException {
+            WriteAheadLog log = WriteAheadLog.open(tempDir.resolve("log"), WriteAheadLog.Durability.PER_WRITE);
+            log.close();
+            log.close();
+            assertThrows(IllegalStateException.class, () -> log.append((byte) 1, bytes("late")));
+        }
+    }
+}
@@ -300,6 +300,18 @@ class BusinessHoursServiceTest {
             assertEquals(LocalDate.of(2024, 1, 15), next.toLocalDate());
         }
 
+        @Test
+        @DisplayName("getNextOpenTime 午休時段返回晚餐開門時間")
+        void getNextOpenTime_SplitShiftBreak_ReturnsDinnerOpening() {
+            Restaurant restaurant = createRestaurantWithHours(LocalTime.of(11, 0), LocalTime.of(14, 0));
+            restaurant.getBusinessHours().addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+            LocalDateTime mondayBreak = LocalDateTime.of(2024, 1, 15, 15, 0);
+
+            assertFalse(service.isOpenAt(restaurant, mondayBreak));
+            assertTrue(service.isOpenAt(restaurant, mondayBreak.withHour(18)));
+            assertEquals(LocalDateTime.of(2024, 1, 15, 17, 0), service.getNextOpenTime(restaurant, mondayBreak));
+        }
+
         @Test
         @DisplayName("getNextOpenTime - 14 天內都不營業返回 null")
         void getNextOpenTime_NoOpeningIn14Days_ReturnsNull() {
@@ -463,6 +475,25 @@ class BusinessHoursServiceTest {
             assertNotNull(Boolean.valueOf(result));
         }
 
+        @Test
+        @DisplayName("isClosingSoon - 分段營業依所在時段的關門時間判斷")
+        void isClosingSoon_SplitShift_UsesCurrentSlot() {
+            Restaurant restaurant = new Restaurant("1", "Test");
+            restaurant.setActive(true);
+            BusinessHours hours = new BusinessHours();
+            hours.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            hours.addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+            restaurant.setBusinessHours(hours);
+            LocalDateTime monday = LocalDateTime.of(2025, 12, 29, 0, 0);
+
+            assertTrue(service.isClosingSoon(restaurant, 30, monday.withHour(13).withMinute(45)));
+            assertFalse(service.isClosingSoon(restaurant, 30, monday.withHour(12)));
+            assertTrue(service.isClosingSoon(restaurant, 30, monday.withHour(20).withMinute(40)));
+            assertFalse(service.isClosingSoon(restaurant, 30, monday.withHour(18)));
+            assertFalse(service.isClosingSoon(restaurant, 30, monday.withHour(15)));
+            assertFalse(service.isClosingSoon(restaurant, 30, null));
+        }
+
         @Test
         @DisplayName("findClosingSoon - 過濾 null 餐廳")
         void findClosingSoon_FiltersNullRestaurants() {
@@ -477,6 +508,22 @@ class BusinessHoursServiceTest {
     @Nested
     @DisplayName("Statistics and Analysis")
     class StatisticsAndAnalysis {
+        @Test
+        @DisplayName("getOperatingDaysCount 與 is24Hours 計入所有時段")
+        void operatingDaysAnd24Hours_UseAllSlots() {
+            Restaurant restaurant = new Restaurant("1", "Test");
+            BusinessHours hours = new BusinessHours();
+            hours.setHours(DayOfWeek.MONDAY, LocalTime.of(0, 0), LocalTime.of(12, 0));
+            hours.addHours(DayOfWeek.MONDAY, LocalTime.of(12, 0), LocalTime.of(23, 59));
+            hours.setHours(DayOfWeek.TUESDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            hours.addHours(DayOfWeek.TUESDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+            restaurant.setBusinessHours(hours);
+
+            assertEquals(2, service.getOperatingDaysCount(restaurant));
+            assertTrue(service.is24Hours(restaurant, DayOfWeek.MONDAY));
+            assertFalse(service.is24Hours(restaurant, DayOfWeek.TUESDAY));
+        }
+
         @Test
         @DisplayName("Get operating days count - null restaurant returns 0")
         void getOperatingDaysCount_NullRestaurant_ReturnsZero() {
@@ -662,5 +709,18 @@ class BusinessHoursServiceTest {
             double weeklyHours = service.calculateWeeklyOperatingHours(restaurant);
             assertEquals(12.5, weeklyHours);
         }
+
+        @Test
+        @DisplayName("calculateWeeklyOperatingHours 分段營業加總")
+        void calculateWeeklyOperatingHours_SplitShift_SumsSlots() {
+            Restaurant restaurant = new Restaurant("1", "Test");
+            restaurant.setActive(true);
+            BusinessHours hours = new BusinessHours();
+            // 11:00 - 14:00 + 17:00 - 21:30 = 7.5 hours
+            hours.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            hours.addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 30));
+            restaurant.setBusinessHours(hours);
+            assertEquals(7.5, service.calculateWeeklyOperatingHours(restaurant));
+        }
     }
 }
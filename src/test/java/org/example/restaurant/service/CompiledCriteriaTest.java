@@ -0,0 +1,173 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CompiledCriteria 測試類別
+ */
+class CompiledCriteriaTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 12, 0);
+
+    private int ratings;
+    private int prices;
+    private int levels;
+    private int hourChecks;
+    private CompiledCriteria.Row row;
+
+    @BeforeEach
+    void setUp() {
+        RatingService ratingService = new RatingService() {
+            @Override
+            public double calculateAverageRating(Restaurant restaurant) {
+                ratings++;
+                return super.calculateAverageRating(restaurant);
+            }
+        };
+        PriceAnalyzer priceAnalyzer = new PriceAnalyzer() {
+            @Override
+            public double getEffectivePrice(Restaurant restaurant) {
+                prices++;
+                return super.getEffectivePrice(restaurant);
+            }
+
+            @Override
+            public int categorizePriceLevel(Restaurant restaurant) {
+                levels++;
+                return super.categorizePriceLevel(restaurant);
+            }
+        };
+        BusinessHoursService businessHoursService = new BusinessHoursService() {
+            @Override
+            public boolean isOpenAt(Restaurant restaurant, LocalDateTime dateTime) {
+                hourChecks++;
+                return super.isOpenAt(restaurant, dateTime);
+            }
+        };
+        row = new CompiledCriteria.Row(ratingService, priceAnalyzer, businessHoursService,
+                new RecommendationService(ratingService, priceAnalyzer), NOW);
+    }
+
+    private static Restaurant restaurant() {
+        Restaurant restaurant = new Restaurant("r1", "Sushi Bar", CuisineType.JAPANESE,
+                new Location(25.03, 121.56, "Road", "Taipei"));
+        restaurant.getLocation().setDistrict("Xinyi");
+        restaurant.setAveragePrice(300);
+        restaurant.setHasDelivery(true);
+        restaurant.addReview(new Review("v1", "r1", 4, "Good"));
+        return restaurant;
+    }
+
+    private FilterStage rejectedBy(SearchCriteria criteria, Restaurant restaurant) {
+        row.reset(restaurant);
+        return CompiledCriteria.compile(criteria).rejectedBy(row);
+    }
+
+    @Nested
+    @DisplayName("Stages")
+    class StageTests {
+
+        @Test
+        @DisplayName("應回傳第一個排除餐廳的篩選階段")
+        void shouldReportFirstRejectingStage() {
+            Restaurant restaurant = restaurant();
+
+            assertNull(rejectedBy(new SearchCriteria().city(" taipei ").district("XIN").minRating(3.0)
+                    .priceLevel(2).hasDelivery(true).nearLocation(25.03, 121.56, 1.0), restaurant));
+            assertEquals(FilterStage.KEYWORD, rejectedBy(new SearchCriteria().keyword("pizza").city("x"), restaurant));
+            assertEquals(FilterStage.CITY, rejectedBy(new SearchCriteria().city("Tainan"), restaurant));
+            assertEquals(FilterStage.DISTRICT, rejectedBy(new SearchCriteria().district("Daan"), restaurant));
+            assertEquals(FilterStage.CUISINE, rejectedBy(new SearchCriteria().cuisineType(CuisineType.ITALIAN),
+                    restaurant));
+            assertEquals(FilterStage.CUISINES, rejectedBy(new SearchCriteria().addCuisineType(CuisineType.ITALIAN)
+                    .addCuisineType(CuisineType.CHINESE), restaurant));
+            assertEquals(FilterStage.RATING, rejectedBy(new SearchCriteria().minRating(4.5), restaurant));
+            assertEquals(FilterStage.RATING, rejectedBy(new SearchCriteria().maxRating(3.0), restaurant));
+            assertEquals(FilterStage.PRICE, rejectedBy(new SearchCriteria().priceLevel(4), restaurant));
+            assertEquals(FilterStage.PRICE, rejectedBy(new SearchCriteria().minPrice(400.0), restaurant));
+            assertEquals(FilterStage.PRICE, rejectedBy(new SearchCriteria().minPrice(500.0).maxPrice(100.0),
+                    restaurant));
+            assertEquals(FilterStage.OPEN_NOW, rejectedBy(new SearchCriteria().openNow(true), restaurant));
+            assertEquals(FilterStage.TAKEOUT, rejectedBy(new SearchCriteria().hasTakeout(true), restaurant));
+            assertEquals(FilterStage.PARKING, rejectedBy(new SearchCriteria().hasParking(true), restaurant));
+            assertEquals(FilterStage.RESERVATIONS, rejectedBy(new SearchCriteria().acceptsReservations(true),
+                    restaurant));
+            assertEquals(FilterStage.LOCATION, rejectedBy(new SearchCriteria().nearLocation(24.0, 120.0, 1.0),
+                    restaurant));
+
+            restaurant.setHasDelivery(false);
+            assertEquals(FilterStage.DELIVERY, rejectedBy(new SearchCriteria().hasDelivery(true), restaurant));
+            restaurant.setActive(false);
+            assertEquals(FilterStage.ACTIVE, rejectedBy(new SearchCriteria(), restaurant));
+        }
+
+        @Test
+        @DisplayName("沒有位置、城市或區域的餐廳應被對應的篩選排除")
+        void missingLocationShouldBeRejected() {
+            Restaurant restaurant = restaurant();
+            restaurant.setLocation(null);
+
+            assertEquals(FilterStage.CITY, rejectedBy(new SearchCriteria().city("Taipei"), restaurant));
+            assertEquals(FilterStage.DISTRICT, rejectedBy(new SearchCriteria().district("Xinyi"), restaurant));
+            assertEquals(FilterStage.LOCATION, rejectedBy(new SearchCriteria().nearLocation(25.03, 121.56, 1.0),
+                    restaurant));
+
+            restaurant.setLocation(new Location(25.03, 121.56));
+            assertEquals(FilterStage.CITY, rejectedBy(new SearchCriteria().city("Taipei"), restaurant));
+            assertEquals(FilterStage.DISTRICT, rejectedBy(new SearchCriteria().district("Xinyi"), restaurant));
+            assertTrue(CompiledCriteria.compile(new SearchCriteria().priceLevel(0)).matches(row));
+            assertTrue(CompiledCriteria.compile(new SearchCriteria().nearLocation(25.03, 121.56, 1.0))
+                    .hasLocationFilter());
+        }
+
+        @Test
+        @DisplayName("null 條件應拋出例外")
+        void nullCriteriaShouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> CompiledCriteria.compile(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Row")
+    class RowTests {
+
+        @Test
+        @DisplayName("同一餐廳的衍生值只計算一次，重設後重新計算")
+        void derivedValuesShouldBeComputedOncePerRestaurant() {
+            CompiledCriteria byRating = CompiledCriteria.compile(new SearchCriteria().minRating(1.0).openNow(false));
+            CompiledCriteria byPrice = CompiledCriteria.compile(new SearchCriteria().minPrice(100.0).maxRating(5.0));
+            CompiledCriteria byLevel = CompiledCriteria.compile(new SearchCriteria().priceLevel(2).city("tai"));
+            CompiledCriteria open = CompiledCriteria.compile(new SearchCriteria().openNow(true).district("zz"));
+
+            row.reset(restaurant());
+            for (int i = 0; i < 3; i++) {
+                assertTrue(byRating.matches(row));
+                assertTrue(byPrice.matches(row));
+                assertTrue(byLevel.matches(row));
+                assertFalse(open.matches(row));
+            }
+            assertEquals(1, ratings);
+            // Once for the price range, once inside the price level
+            assertEquals(2, prices);
+            assertEquals(1, levels);
+            assertEquals(0, hourChecks);
+
+            Restaurant other = restaurant();
+            other.getLocation().setDistrict("Zz");
+            row.reset(other);
+            assertFalse(open.matches(row));
+            assertFalse(open.matches(row));
+            assertTrue(byRating.matches(row));
+            assertEquals(1, hourChecks);
+            assertEquals(2, ratings);
+        }
+    }
+}
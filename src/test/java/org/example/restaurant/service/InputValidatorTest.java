@@ -9,6 +9,8 @@ import org.junit.jupiter.api.Nested;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -265,29 +267,27 @@ class InputValidatorTest {
         }
 
         @Test
-        @DisplayName("validateBusinessHours - Open time is required")
-        void validateBusinessHours_NullOpenTime_ThrowsException() {
+        @DisplayName("validateBusinessHours - 不完整的時段不會存入")
+        void validateBusinessHours_IncompleteSlots_StayClosed() {
             BusinessHours hours = new BusinessHours();
-            BusinessHours.TimeSlot slot = new BusinessHours.TimeSlot(null, LocalTime.of(18, 0));
-            hours.getWeeklyHours().put(DayOfWeek.MONDAY, slot);
+            Map<DayOfWeek, BusinessHours.TimeSlot> weekly = new EnumMap<>(DayOfWeek.class);
+            weekly.put(DayOfWeek.MONDAY, new BusinessHours.TimeSlot(null, LocalTime.of(18, 0)));
+            weekly.put(DayOfWeek.TUESDAY, new BusinessHours.TimeSlot(LocalTime.of(9, 0), null));
+            hours.setWeeklyHours(weekly);
 
-            ValidationException exception = assertThrows(ValidationException.class, () -> {
-                validator.validateBusinessHours(hours);
-            });
-            assertEquals("openTime", exception.getField());
+            assertFalse(hours.isOpenOn(DayOfWeek.MONDAY));
+            assertFalse(hours.isOpenOn(DayOfWeek.TUESDAY));
+            assertDoesNotThrow(() -> validator.validateBusinessHours(hours));
         }
 
         @Test
-        @DisplayName("validateBusinessHours - Close time is required")
-        void validateBusinessHours_NullCloseTime_ThrowsException() {
+        @DisplayName("validateBusinessHours - 每週時段為唯讀")
+        void validateBusinessHours_WeeklyHoursReadOnly() {
             BusinessHours hours = new BusinessHours();
-            BusinessHours.TimeSlot slot = new BusinessHours.TimeSlot(LocalTime.of(9, 0), null);
-            hours.getWeeklyHours().put(DayOfWeek.MONDAY, slot);
+            BusinessHours.TimeSlot slot = new BusinessHours.TimeSlot(null, LocalTime.of(18, 0));
 
-            ValidationException exception = assertThrows(ValidationException.class, () -> {
-                validator.validateBusinessHours(hours);
-            });
-            assertEquals("closeTime", exception.getField());
+            assertThrows(UnsupportedOperationException.class,
+                    () -> hours.getWeeklyHours().put(DayOfWeek.MONDAY, slot));
         }
 
         @Test
@@ -295,21 +295,19 @@ class InputValidatorTest {
         void validateBusinessHours_Valid_Success() {
             BusinessHours hours = new BusinessHours();
             BusinessHours.TimeSlot slot = new BusinessHours.TimeSlot(LocalTime.of(9, 0), LocalTime.of(18, 0));
-            hours.getWeeklyHours().put(DayOfWeek.MONDAY, slot);
+            hours.setWeeklyHours(Map.of(DayOfWeek.MONDAY, slot));
 
             assertDoesNotThrow(() -> validator.validateBusinessHours(hours));
         }
 
         @Test
         @DisplayName("validateBusinessHours - Weekly hours is null (Valid)")
-        void validateBusinessHours_NullWeeklyHours_Success() throws Exception {
+        void validateBusinessHours_NullWeeklyHours_Success() {
             BusinessHours hours = new BusinessHours();
-            // Use reflection to set weeklyHours to null since there's no setter and getter
-            // initializes it
-            java.lang.reflect.Field field = BusinessHours.class.getDeclaredField("weeklyHours");
-            field.setAccessible(true);
-            field.set(hours, null);
+            hours.setHours(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(18, 0));
+            hours.setWeeklyHours(null);
 
+            assertTrue(hours.getWeeklyHours().isEmpty());
             assertDoesNotThrow(() -> validator.validateBusinessHours(hours));
         }
 
@@ -317,7 +315,9 @@ class InputValidatorTest {
         @DisplayName("validateBusinessHours - Null slot in map (Valid)")
         void validateBusinessHours_NullSlot_Success() {
             BusinessHours hours = new BusinessHours();
-            hours.getWeeklyHours().put(DayOfWeek.MONDAY, null);
+            Map<DayOfWeek, BusinessHours.TimeSlot> weekly = new EnumMap<>(DayOfWeek.class);
+            weekly.put(DayOfWeek.MONDAY, null);
+            hours.setWeeklyHours(weekly);
 
             assertDoesNotThrow(() -> validator.validateBusinessHours(hours));
         }
@@ -336,6 +336,40 @@ class InputValidatorTest {
             hours.setHours(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(21, 0));
             assertDoesNotThrow(() -> validator.validateBusinessHours(hours));
         }
+
+        @Test
+        @DisplayName("validateBusinessHours - 分段營業通過")
+        void validateBusinessHours_SplitShift_Passes() {
+            BusinessHours hours = new BusinessHours();
+            hours.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            hours.addHours(DayOfWeek.MONDAY, LocalTime.of(22, 0), LocalTime.of(2, 0));
+            assertDoesNotThrow(() -> validator.validateBusinessHours(hours));
+        }
+
+        @Test
+        @DisplayName("validateBusinessHours - 時段重疊拋出異常")
+        void validateBusinessHours_OverlappingSlots_ThrowsException() {
+            BusinessHours hours = new BusinessHours();
+            hours.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            hours.addHours(DayOfWeek.MONDAY, LocalTime.of(17, 0), LocalTime.of(21, 0));
+            hours.getPackedSlots(DayOfWeek.MONDAY)[2] = (short) (13 * 60);
+
+            ValidationException exception = assertThrows(ValidationException.class,
+                    () -> validator.validateBusinessHours(hours));
+            assertEquals("timeSlots", exception.getField());
+        }
+
+        @Test
+        @DisplayName("validateBusinessHours - 時段超出範圍拋出異常")
+        void validateBusinessHours_SlotOutOfRange_ThrowsException() {
+            BusinessHours hours = new BusinessHours();
+            hours.setHours(DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(14, 0));
+            hours.getPackedSlots(DayOfWeek.MONDAY)[1] = (short) (10 * 60);
+
+            ValidationException exception = assertThrows(ValidationException.class,
+                    () -> validator.validateBusinessHours(hours));
+            assertEquals("timeSlots", exception.getField());
+        }
     }
 
     @Nested
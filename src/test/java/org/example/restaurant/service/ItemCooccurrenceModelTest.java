@@ -0,0 +1,237 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemCooccurrenceModelTest {
+
+    private static int reviewSeq;
+
+    private static Review review(String userId, String restaurantId, int rating) {
+        Review review = new Review("v" + (reviewSeq++), restaurantId, rating, "Review");
+        review.setUserId(userId);
+        return review;
+    }
+
+    private static List<Review> randomReviews(int users, int restaurants, int perUser, long seed) {
+        Random random = new Random(seed);
+        List<Review> reviews = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            // Users of the same group favour the same block of restaurants
+            int group = u % 5;
+            for (int k = 0; k < perUser; k++) {
+                int r = random.nextInt(4) == 0
+                        ? random.nextInt(restaurants)
+                        : group * (restaurants / 5) + random.nextInt(restaurants / 5);
+                reviews.add(review("u" + u, "r" + r, 1 + random.nextInt(5)));
+            }
+        }
+        return reviews;
+    }
+
+    @Nested
+    @DisplayName("Co-occurrence")
+    class Cooccurrence {
+        @Test
+        @DisplayName("同一使用者高分評價的餐廳互相關聯")
+        void relatedRestaurants_CoLikedAreRelated() {
+            ItemCooccurrenceModel model = new ItemCooccurrenceModel();
+            model.addReview(review("alice", "A", 5));
+            model.addReview(review("alice", "B", 4));
+            model.addReview(review("bob", "A", 5));
+            model.addReview(review("bob", "B", 5));
+            model.addReview(review("bob", "C", 5));
+            model.addReview(review("carol", "C", 2));
+
+            assertEquals(List.of("B", "C"), model.relatedRestaurants("A", 10));
+            assertEquals(List.of("A"), model.relatedRestaurants("B", 1));
+            assertEquals(2, model.likeCount("A"));
+            assertEquals(0, model.likeCount("missing"));
+        }
+
+        @Test
+        @DisplayName("低分、缺少使用者與重複評價不計入")
+        void addReview_IgnoresNonLikesAndDuplicates() {
+            ItemCooccurrenceModel model = new ItemCooccurrenceModel();
+            model.addReview(review("alice", "A", 5));
+            model.addReview(review("alice", "A", 5));
+            model.addReview(review("alice", "B", 3));
+            model.addReview(review(null, "B", 5));
+            model.addReview(null);
+
+            assertEquals(1, model.likeCount("A"));
+            assertEquals(0, model.likeCount("B"));
+            // B is known as rated by alice, but not liked
+            assertEquals(2, model.restaurantCount());
+            assertEquals(1, model.userCount());
+            assertTrue(model.relatedRestaurants("A", 10).isEmpty());
+            assertTrue(model.relatedRestaurants("A", 0).isEmpty());
+        }
+
+        @Test
+        @DisplayName("使用者親和度依其高分餐廳計算")
+        void affinities_SumsSimilarityToLikedRestaurants() {
+            ItemCooccurrenceModel model = new ItemCooccurrenceModel();
+            model.addReview(review("alice", "A", 5));
+            model.addReview(review("alice", "B", 5));
+            model.addReview(review("bob", "A", 5));
+
+            Map<String, Double> affinities = model.affinities("bob");
+            assertEquals(Set.of("B"), affinities.keySet());
+            assertEquals(1 / Math.sqrt(2), affinities.get("B"), 1e-9);
+            assertTrue(model.affinities("unknown").isEmpty());
+            assertTrue(model.affinities(null).isEmpty());
+        }
+
+        @Test
+        @DisplayName("鄰接表達上限時保留最強的關聯")
+        void addReview_CapsAdjacency() {
+            ItemCooccurrenceModel model = new ItemCooccurrenceModel(2);
+            for (int u = 0; u < 5; u++) {
+                model.addReview(review("strong" + u, "A", 5));
+                model.addReview(review("strong" + u, "S", 5));
+            }
+            for (int r = 0; r < 50; r++) {
+                model.addReview(review("weak" + r, "A", 5));
+                model.addReview(review("weak" + r, "W" + r, 5));
+            }
+
+            assertEquals("S", model.relatedRestaurants("A", 10).get(0));
+            assertTrue(model.relatedRestaurants("A", 10).size() <= 2);
+        }
+
+        @Test
+        @DisplayName("鄰接表已滿時反覆出現的關聯仍能加入，單次關聯不會擠掉既有關聯")
+        void addReview_FullAdjacencyAdmitsRecurringPairs() {
+            ItemCooccurrenceModel model = new ItemCooccurrenceModel(2);
+            for (int p = 0; p < 8; p++) {
+                for (int u = 0; u < 2; u++) {
+                    model.addReview(review("p" + p + "-" + u, "A", 5));
+                    model.addReview(review("p" + p + "-" + u, "P" + p, 5));
+                }
+            }
+            for (int r = 0; r < 50; r++) {
+                model.addReview(review("weak" + r, "A", 5));
+                model.addReview(review("weak" + r, "W" + r, 5));
+            }
+            for (int u = 0; u < 3; u++) {
+                model.addReview(review("recurring" + u, "A", 5));
+                model.addReview(review("recurring" + u, "R", 5));
+            }
+
+            List<String> related = model.relatedRestaurants("A", 10);
+            assertEquals("R", related.get(0));
+            assertTrue(related.get(1).startsWith("P"), related.toString());
+        }
+
+        @Test
+        @DisplayName("超出歷史視窗後重複的高分評價不重複計算")
+        void addReview_RepeatedLikeAfterHistoryWindowIsIgnored() {
+            ItemCooccurrenceModel model = new ItemCooccurrenceModel();
+            model.addReview(review("alice", "A", 5));
+            for (int r = 0; r < ItemCooccurrenceModel.MAX_USER_HISTORY; r++) {
+                model.addReview(review("alice", "W" + r, 5));
+            }
+            model.addReview(review("alice", "B", 5));
+            model.addReview(review("alice", "A", 5));
+
+            assertEquals(1, model.likeCount("A"));
+            assertTrue(model.relatedRestaurants("B", 10).stream().noneMatch("A"::equals));
+        }
+
+        @Test
+        @DisplayName("親和度不包含使用者已評價的餐廳")
+        void affinities_SkipsRatedRestaurants() {
+            ItemCooccurrenceModel model = new ItemCooccurrenceModel();
+            model.addReview(review("alice", "A", 5));
+            model.addReview(review("alice", "B", 5));
+            model.addReview(review("alice", "C", 5));
+            model.addReview(review("bob", "A", 5));
+            model.addReview(review("bob", "B", 2));
+
+            assertEquals(Set.of("C"), model.affinities("bob").keySet());
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Build")
+    class BatchBuild {
+        @Test
+        @DisplayName("平行建立與逐筆加入結果一致")
+        void build_ParallelMatchesIncremental() {
+            List<Review> reviews = randomReviews(300, 100, 15, 3);
+            ItemCooccurrenceModel incremental = new ItemCooccurrenceModel(200);
+            reviews.forEach(incremental::addReview);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                ItemCooccurrenceModel parallel = ItemCooccurrenceModel.build(reviews, pool, 200);
+                ItemCooccurrenceModel sequential = ItemCooccurrenceModel.build(reviews, null, 200);
+                for (int r = 0; r < 100; r++) {
+                    assertEquals(incremental.relatedRestaurants("r" + r, 20),
+                            parallel.relatedRestaurants("r" + r, 20), "r" + r);
+                    assertEquals(sequential.relatedRestaurants("r" + r, 20),
+                            parallel.relatedRestaurants("r" + r, 20), "r" + r);
+                }
+                Map<String, Double> expected = incremental.affinities("u7");
+                Map<String, Double> actual = parallel.affinities("u7");
+                assertEquals(expected.keySet(), actual.keySet());
+                expected.forEach((id, value) -> assertEquals(value, actual.get(id), 1e-9));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("附加到資料庫後跟隨評論、儲存與清除")
+        void attach_FollowsRepositoryEvents() {
+            RestaurantRepository repository = new RestaurantRepository();
+            Restaurant a = new Restaurant("A", "A");
+            a.addReview(review("alice", "A", 5));
+            repository.save(a);
+            repository.save(new Restaurant("B", "B"));
+            ItemCooccurrenceModel model = ItemCooccurrenceModel.attach(repository);
+            assertEquals(1, model.likeCount("A"));
+
+            repository.addReview("B", review("alice", "B", 5));
+            assertEquals(List.of("B"), model.relatedRestaurants("A", 5));
+            Restaurant c = new Restaurant("C", "C");
+            c.addReview(review("alice", "C", 4));
+            repository.save(c);
+            repository.save(c);
+            assertEquals(1, model.likeCount("C"));
+            repository.delete("C");
+            assertEquals(List.of("B", "C"), model.relatedRestaurants("A", 5));
+
+            repository.deleteAll();
+            assertEquals(0, model.restaurantCount());
+            assertEquals(0, model.userCount());
+            assertThrows(IllegalArgumentException.class, () -> ItemCooccurrenceModel.attach(null));
+        }
+
+        @Test
+        @DisplayName("從餐廳評論建立")
+        void fromRestaurants_UsesReviews() {
+            Restaurant a = new Restaurant("A", "A");
+            Restaurant b = new Restaurant("B", "B");
+            a.addReview(review("alice", "A", 5));
+            b.addReview(review("alice", "B", 5));
+
+            ItemCooccurrenceModel model = ItemCooccurrenceModel.fromRestaurants(List.of(a, b));
+            assertEquals(List.of("B"), model.relatedRestaurants("A", 5));
+            assertEquals(0, ItemCooccurrenceModel.fromRestaurants(null).restaurantCount());
+            assertEquals(0, ItemCooccurrenceModel.build(null, null, 0).restaurantCount());
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopularityLeaderboardTest {
+
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new PopularityLeaderboard();
+    }
+
+    private Restaurant createRestaurant(String id, int... ratings) {
+        Restaurant restaurant = new Restaurant(id, "Restaurant " + id);
+        restaurant.setActive(true);
+        for (int i = 0; i < ratings.length; i++) {
+            restaurant.addReview(new Review(id + "-" + i, id, ratings[i], "Review"));
+        }
+        return restaurant;
+    }
+
+    @Nested
+    @DisplayName("Ranking")
+    class Ranking {
+        @Test
+        @DisplayName("與 getPopularRestaurants 排序一致")
+        void top_MatchesGetPopularRestaurants() {
+            Random random = new Random(5);
+            List<Restaurant> restaurants = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int[] ratings = new int[random.nextInt(30)];
+                for (int k = 0; k < ratings.length; k++) {
+                    ratings[k] = 1 + random.nextInt(5);
+                }
+                Restaurant r = createRestaurant(String.format("%03d", i), ratings);
+                r.setActive(random.nextInt(10) != 0);
+                restaurants.add(r);
+            }
+            leaderboard = PopularityLeaderboard.of(restaurants, new RatingService());
+
+            List<Restaurant> expected = new RecommendationService().getPopularRestaurants(restaurants, 20);
+            List<Restaurant> actual = leaderboard.top(20);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(leaderboard.getScore(expected.get(i).getId()),
+                        leaderboard.getScore(actual.get(i).getId()), 1e-9);
+            }
+        }
+
+        @Test
+        @DisplayName("同分時依 ID 排序")
+        void top_TiesByIdAndLimit() {
+            leaderboard.update(createRestaurant("b", 5));
+            leaderboard.update(createRestaurant("a", 5));
+            leaderboard.update(createRestaurant("c", 5));
+
+            List<Restaurant> top = leaderboard.top(2);
+            assertEquals(2, top.size());
+            assertEquals("a", top.get(0).getId());
+            assertEquals("b", top.get(1).getId());
+            assertTrue(leaderboard.top(0).isEmpty());
+        }
+
+        @Test
+        @DisplayName("無評論或非活躍餐廳不排名")
+        void update_SkipsUnrankable() {
+            Restaurant inactive = createRestaurant("1", 5);
+            inactive.setActive(false);
+            leaderboard.update(inactive);
+            leaderboard.update(createRestaurant("2"));
+            leaderboard.update(null);
+            leaderboard.update(new Restaurant());
+
+            assertEquals(0, leaderboard.size());
+            assertEquals(0, leaderboard.getScore("1"));
+            assertEquals(0, leaderboard.getScore(null));
+            assertEquals(0, PopularityLeaderboard.of(null, new RatingService()).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Maintenance")
+    class Maintenance {
+        @Test
+        @DisplayName("新增評論後重新排名")
+        void update_AfterNewReviews_Reranks() {
+            Restaurant low = createRestaurant("low", 3, 3);
+            Restaurant high = createRestaurant("high", 5, 5);
+            leaderboard.update(low);
+            leaderboard.update(high);
+            assertEquals(List.of(high, low), leaderboard.top(10));
+
+            for (int i = 0; i < 20; i++) {
+                low.addReview(new Review("extra" + i, "low", 5, "Better now"));
+            }
+            leaderboard.update(low);
+
+            assertEquals(List.of(low, high), leaderboard.top(10));
+            assertEquals(2, leaderboard.size());
+        }
+
+        @Test
+        @DisplayName("停業或移除後離開排行榜")
+        void update_DeactivatedOrRemoved_LeavesRanking() {
+            Restaurant r1 = createRestaurant("1", 5);
+            Restaurant r2 = createRestaurant("2", 4);
+            leaderboard.update(r1);
+            leaderboard.update(r2);
+
+            r1.setActive(false);
+            leaderboard.update(r1);
+            assertEquals(List.of(r2), leaderboard.top(10));
+
+            leaderboard.remove("2");
+            leaderboard.remove(null);
+            assertTrue(leaderboard.top(10).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Repository Events")
+    class RepositoryEvents {
+        @Test
+        @DisplayName("附加到資料庫後跟隨評論、儲存、刪除與清除")
+        void attach_FollowsRepository() {
+            RestaurantRepository repository = new RestaurantRepository();
+            repository.save(createRestaurant("low", 3, 3));
+            repository.save(createRestaurant("high", 5, 5));
+            leaderboard = PopularityLeaderboard.attach(repository, new RatingService());
+            assertEquals(List.of("high", "low"), ids(leaderboard.top(10)));
+
+            for (int i = 0; i < 20; i++) {
+                repository.addReview("low", new Review("extra" + i, "low", 5, "Better now"));
+            }
+            assertEquals(List.of("low", "high"), ids(leaderboard.top(10)));
+            repository.save(createRestaurant("high", 2));
+            repository.delete("low");
+            assertEquals(List.of("high"), ids(leaderboard.top(10)));
+
+            repository.deleteAll();
+            assertEquals(0, leaderboard.size());
+            assertThrows(IllegalArgumentException.class,
+                    () -> PopularityLeaderboard.attach(null, new RatingService()));
+        }
+
+        @Test
+        @DisplayName("重新評分期間讀取者不會看不到餐廳")
+        void update_ReadersNeverMissRestaurant() throws InterruptedException {
+            Restaurant stable = createRestaurant("stable", 4);
+            leaderboard.update(stable);
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread writer = new Thread(() -> {
+                int i = 0;
+                while (running.get()) {
+                    stable.addReview(new Review("w" + i, "stable", 1 + i++ % 5, "Again"));
+                    leaderboard.update(stable);
+                }
+            });
+            writer.start();
+            try {
+                for (int i = 0; i < 20_000; i++) {
+                    assertEquals(List.of(stable), leaderboard.top(10));
+                }
+            } finally {
+                running.set(false);
+                writer.join();
+            }
+            assertEquals(1, leaderboard.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Candidates")
+    class Candidates {
+        private RestaurantRepository repository;
+        private RecommendationService exact;
+        private RecommendationService ranked;
+
+        @BeforeEach
+        void setUp() {
+            repository = new RestaurantRepository();
+            new SyntheticDataGenerator(9L).populate(repository, 500);
+            leaderboard = PopularityLeaderboard.attach(repository, new RatingService());
+            exact = new RecommendationService();
+            ranked = new RecommendationService();
+            ranked.setPopularityLeaderboard(leaderboard);
+        }
+
+        @Test
+        @DisplayName("由排行榜回答的結果應與逐一評分相同")
+        void top_MatchesScoringCandidates() {
+            List<Restaurant> catalog = repository.findAll();
+            assertNotNull(leaderboard.top(catalog, 20));
+            assertEquals(exact.getPopularRestaurants(catalog, 20), ranked.getPopularRestaurants(catalog, 20));
+            List<Restaurant> shuffled = new ArrayList<>(catalog);
+            Collections.shuffle(shuffled, new Random(1));
+            List<Restaurant> subset = shuffled.subList(0, 300);
+            assertNotNull(leaderboard.top(subset, 1000));
+            assertEquals(exact.getPopularRestaurants(subset, 1000), leaderboard.top(subset, 1000));
+            assertEquals(exact.recommendByPreferences(null, catalog, 5),
+                    ranked.recommendByPreferences(null, catalog, 5));
+        }
+
+        @Test
+        @DisplayName("同分時依候選順序排列")
+        void top_TiesKeepCandidateOrder() {
+            repository.deleteAll();
+            for (String id : List.of("c", "a", "b", "d")) {
+                repository.save(createRestaurant(id, 5));
+            }
+            repository.save(createRestaurant("best", 5, 5, 5));
+            List<Restaurant> candidates = new ArrayList<>(repository.findAll());
+            Collections.reverse(candidates);
+
+            List<Restaurant> expected = exact.getPopularRestaurants(candidates, 3);
+            assertEquals(expected, leaderboard.top(candidates, 3));
+            assertEquals("best", expected.get(0).getId());
+        }
+
+        @Test
+        @DisplayName("候選餐廳不是排行榜中的物件時改為逐一評分")
+        void top_ReturnsNullWhenNotExact() {
+            List<Restaurant> catalog = new ArrayList<>(repository.findAll());
+            Restaurant first = leaderboard.top(1).get(0);
+            int index = catalog.indexOf(first);
+            catalog.set(index, createRestaurant(first.getId(), 5));
+            assertNull(leaderboard.top(catalog, 10));
+            assertEquals(exact.getPopularRestaurants(catalog, 10), ranked.getPopularRestaurants(catalog, 10));
+
+            catalog.set(index, first);
+            catalog.add(first);
+            assertNull(leaderboard.top(catalog, 10));
+            assertNull(leaderboard.top(catalog.subList(0, 10), 10));
+            first.addReview(new Review("outside", first.getId(), 1, "Changed in place"));
+            assertNull(leaderboard.top(repository.findAll(), 10));
+            Restaurant noId = createRestaurant("x", 5);
+            noId.setId(null);
+            assertNull(leaderboard.top(List.of(noId), 10));
+        }
+    }
+
+    private static List<String> ids(List<Restaurant> restaurants) {
+        List<String> ids = new ArrayList<>();
+        for (Restaurant r : restaurants) {
+            ids.add(r.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreferenceScorerTest {
+
+    private RatingService ratingService;
+    private PriceAnalyzer priceAnalyzer;
+
+    @BeforeEach
+    void setUp() {
+        ratingService = new RatingService();
+        priceAnalyzer = new PriceAnalyzer();
+    }
+
+    private Restaurant createRestaurant(String id, CuisineType cuisine, int rating) {
+        Restaurant restaurant = new Restaurant(id, "Restaurant " + id);
+        restaurant.setCuisineType(cuisine);
+        restaurant.setActive(true);
+        restaurant.setPriceLevel(2);
+        restaurant.addReview(new Review("r" + id, id, rating, "Good"));
+        return restaurant;
+    }
+
+    private double score(UserPreferences prefs, Restaurant restaurant) {
+        RestaurantFeatureVectors vectors = RestaurantFeatureVectors.of(
+                Arrays.asList(restaurant), ratingService, priceAnalyzer);
+        return PreferenceScorer.compile(prefs).score(vectors, 0);
+    }
+
+    @Nested
+    @DisplayName("Feature Vectors")
+    class FeatureVectors {
+        @Test
+        @DisplayName("of - 略過 null 與停業餐廳並保持順序")
+        void of_SkipsNullAndInactive() {
+            Restaurant r1 = createRestaurant("1", CuisineType.JAPANESE, 4);
+            Restaurant r2 = createRestaurant("2", CuisineType.CHINESE, 3);
+            r2.setActive(false);
+            Restaurant r3 = createRestaurant("3", null, 5);
+
+            RestaurantFeatureVectors vectors = RestaurantFeatureVectors.of(
+                    Arrays.asList(r1, null, r2, r3), ratingService, priceAnalyzer);
+
+            assertEquals(2, vectors.size());
+            assertSame(r1, vectors.restaurant(0));
+            assertSame(r3, vectors.restaurant(1));
+            assertEquals(4.0, vectors.rating(0));
+            assertEquals(2, vectors.priceLevel(1));
+            assertFalse(vectors.hasLocation(0));
+        }
+
+        @Test
+        @DisplayName("of - null 列表返回空向量")
+        void of_NullList_ReturnsEmpty() {
+            assertEquals(0, RestaurantFeatureVectors.of(null, ratingService, priceAnalyzer).size());
+        }
+
+        @Test
+        @DisplayName("of - 功能旗標與位置")
+        void of_FeatureBitsAndLocation() {
+            Restaurant r = createRestaurant("1", CuisineType.JAPANESE, 4);
+            r.setHasDelivery(true);
+            r.setAcceptsReservations(true);
+            r.setLocation(new Location(25.0, 121.5));
+
+            RestaurantFeatureVectors vectors = RestaurantFeatureVectors.of(
+                    Arrays.asList(r), ratingService, priceAnalyzer);
+
+            assertTrue(vectors.hasFeature(0, RestaurantFeatureVectors.FEATURE_DELIVERY));
+            assertTrue(vectors.hasFeature(0, RestaurantFeatureVectors.FEATURE_RESERVATIONS));
+            assertFalse(vectors.hasFeature(0, RestaurantFeatureVectors.FEATURE_TAKEOUT));
+            assertFalse(vectors.hasFeature(0, RestaurantFeatureVectors.FEATURE_PARKING));
+            assertTrue(vectors.hasLocation(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Compiled Scoring")
+    class CompiledScoring {
+        @Test
+        @DisplayName("compile - null 偏好拋出異常")
+        void compile_NullPrefs_ThrowsException() {
+            assertThrows(IllegalArgumentException.class, () -> PreferenceScorer.compile(null));
+        }
+
+        @Test
+        @DisplayName("score - 喜歡的主菜系加分")
+        void score_FavoriteCuisine() {
+            UserPreferences prefs = new UserPreferences();
+            prefs.addFavoriteCuisine(CuisineType.JAPANESE);
+            // 50 + 25 (cuisine) + 10 (price) + 20 (rating 4 * 5)
+            assertEquals(105.0, score(prefs, createRestaurant("1", CuisineType.JAPANESE, 4)), 0.0001);
+        }
+
+        @Test
+        @DisplayName("score - 不喜歡的主菜系與附加菜系扣分")
+        void score_DislikedCuisines() {
+            UserPreferences prefs = new UserPreferences();
+            prefs.addDislikedCuisine(CuisineType.CHINESE);
+            prefs.addDislikedCuisine(CuisineType.THAI);
+            prefs.addFavoriteCuisine(CuisineType.DESSERT);
+            Restaurant r = createRestaurant("1", CuisineType.CHINESE, 4);
+            r.addCuisineType(CuisineType.THAI);
+            r.addCuisineType(CuisineType.DESSERT);
+            // 50 - 40 - 15 + 10 + 10 + 20
+            assertEquals(35.0, score(prefs, r), 0.0001);
+        }
+
+        @Test
+        @DisplayName("score - 超出價格與評分不足")
+        void score_PriceAndRatingPenalty() {
+            UserPreferences prefs = new UserPreferences();
+            prefs.setMaxPriceLevel(1);
+            prefs.setMinAcceptableRating(4.5);
+            // 50 - 25 (price) - 20 (rating)
+            assertEquals(5.0, score(prefs, createRestaurant("1", CuisineType.JAPANESE, 4)), 0.0001);
+        }
+
+        @Test
+        @DisplayName("score - 停車需求與外送外帶偏好")
+        void score_FeaturePreferences() {
+            UserPreferences prefs = new UserPreferences();
+            prefs.setRequiresParking(true);
+            prefs.setPreferDelivery(true);
+            prefs.setPreferTakeout(true);
+            Restaurant r = createRestaurant("1", CuisineType.JAPANESE, 4);
+            r.setHasDelivery(true);
+            r.setHasTakeout(true);
+            // 50 + 10 + 20 - 25 (no parking) + 10 + 10
+            assertEquals(75.0, score(prefs, r), 0.0001);
+
+            r.setHasParking(true);
+            assertEquals(115.0, score(prefs, r), 0.0001);
+        }
+
+        @Test
+        @DisplayName("score - 距離與 calculateDistance 一致")
+        void score_DistanceMatchesHaversine() {
+            UserPreferences prefs = new UserPreferences();
+            Location user = new Location(25.0330, 121.5654);
+            prefs.setUserLocation(user);
+            prefs.setMaxDistanceKm(10.0);
+            Restaurant near = createRestaurant("1", CuisineType.JAPANESE, 4);
+            near.setLocation(new Location(25.0478, 121.5170));
+            Restaurant far = createRestaurant("2", CuisineType.JAPANESE, 4);
+            far.setLocation(new Location(24.1477, 120.6736));
+
+            double distance = new RecommendationService().calculateDistance(user, near.getLocation());
+            assertEquals(80 + 15 - distance / 10 * 10, score(prefs, near), 0.0001);
+            assertEquals(60.0, score(prefs, far), 0.0001);
+        }
+
+        @Test
+        @DisplayName("score - 分數下限為 0")
+        void score_ClampedAtZero() {
+            UserPreferences prefs = new UserPreferences();
+            prefs.addDislikedCuisine(CuisineType.JAPANESE);
+            prefs.setMaxPriceLevel(1);
+            prefs.setMinAcceptableRating(5.0);
+            prefs.setRequiresParking(true);
+            assertEquals(0.0, score(prefs, createRestaurant("1", CuisineType.JAPANESE, 1)));
+        }
+
+        @Test
+        @DisplayName("recommendByPreferences - 使用編譯後評分排序")
+        void recommendByPreferences_UsesCompiledScores() {
+            UserPreferences prefs = new UserPreferences();
+            prefs.addFavoriteCuisine(CuisineType.KOREAN);
+            List<Restaurant> list = Arrays.asList(
+                    createRestaurant("1", CuisineType.JAPANESE, 5),
+                    createRestaurant("2", CuisineType.KOREAN, 3));
+
+            List<Restaurant> result = new RecommendationService(ratingService, priceAnalyzer)
+                    .recommendByPreferences(prefs, list);
+            assertEquals("2", result.get(0).getId());
+            assertEquals("1", result.get(1).getId());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.example.restaurant.service;
 
 import org.example.restaurant.model.Restaurant;
 import org.example.restaurant.model.Review;
+import org.example.restaurant.repository.OffHeapReviewStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -822,4 +823,36 @@ class RatingServiceTest {
             assertEquals(1, dist[3]); // 只有 4 星
         }
     }
+
+    @Nested
+    @DisplayName("Off-Heap Review Store")
+    class OffHeapRatings {
+        @Test
+        @DisplayName("壓縮評論的評分與物件版本相同")
+        void packedRatings_MatchObjectRatings() {
+            java.util.Random random = new java.util.Random(9);
+            OffHeapReviewStore store = new OffHeapReviewStore();
+            for (int n : new int[] { 0, 1, 4, 5, 30, 200 }) {
+                Restaurant restaurant = new Restaurant("p" + n, "Packed");
+                for (int i = 0; i < n; i++) {
+                    Review review = new Review("p" + n + "-" + i, "p" + n, random.nextInt(7), "Comment");
+                    review.setUserLevel(random.nextInt(7));
+                    review.setVerified(random.nextBoolean());
+                    review.setHelpfulCount(random.nextInt(30));
+                    // Whole seconds, as stored
+                    review.setCreatedAt(LocalDateTime.now().withNano(0).minusDays(random.nextInt(400)));
+                    restaurant.addReview(review);
+                    store.add(review);
+                }
+
+                assertEquals(ratingService.calculateAverageRating(restaurant),
+                        ratingService.calculateAverageRating(store, restaurant.getId()));
+                assertEquals(ratingService.calculateWeightedRating(restaurant),
+                        ratingService.calculateWeightedRating(store, restaurant.getId()));
+                assertArrayEquals(ratingService.getRatingDistribution(restaurant),
+                        ratingService.getRatingDistribution(store, restaurant.getId()));
+            }
+            assertEquals(0.0, ratingService.calculateAverageRating(store, "missing"));
+        }
+    }
 }
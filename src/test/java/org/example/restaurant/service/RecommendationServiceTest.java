@@ -1,13 +1,23 @@
 package org.example.restaurant.service;
 
+import org.example.restaurant.metrics.InProcessMetricsRegistry;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.MetricsSnapshot;
 import org.example.restaurant.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -678,6 +688,90 @@ class RecommendationServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Popularity Coalescing")
+    class PopularityCoalescing {
+        private static final int CALLERS = 6;
+
+        @Test
+        @DisplayName("同一列表與限制的請求視為相同")
+        void popularityRequest_Equality() {
+            Restaurant r1 = createRestaurant("1", CuisineType.JAPANESE, 25.0, 121.0);
+            Restaurant r2 = createRestaurant("2", CuisineType.CHINESE, 25.0, 121.0);
+            Restaurant r3 = createRestaurant("3", CuisineType.ITALIAN, 25.0, 121.0);
+            List<Restaurant> list = Arrays.asList(r1, r2, r3);
+            RecommendationService.PopularityRequest request = new RecommendationService.PopularityRequest(list, 2);
+
+            RecommendationService.PopularityRequest copy =
+                    new RecommendationService.PopularityRequest(new LinkedList<>(list), 2);
+            assertEquals(request, request);
+            assertEquals(request, copy);
+            assertEquals(request.hashCode(), copy.hashCode());
+            assertNotEquals(request, new RecommendationService.PopularityRequest(list, 3));
+            assertNotEquals(request, new RecommendationService.PopularityRequest(Arrays.asList(r1, r2), 2));
+            // Same ends and size, so only the element walk tells them apart
+            assertNotEquals(request, new RecommendationService.PopularityRequest(Arrays.asList(r1, r1, r3), 2));
+            assertNotEquals(request, new RecommendationService.PopularityRequest(
+                    Arrays.asList(createRestaurant("1", CuisineType.JAPANESE, 25.0, 121.0), r2, r3), 2));
+            assertNotEquals(request, list);
+            assertNotEquals(request, null);
+            assertEquals(new RecommendationService.PopularityRequest(new ArrayList<>(), 1),
+                    new RecommendationService.PopularityRequest(new LinkedList<>(), 1));
+        }
+
+        @Test
+        @DisplayName("同時的相同請求共用一次排序")
+        void getPopularRestaurants_ConcurrentCallers_ShareRanking() throws Exception {
+            InProcessMetricsRegistry registry = new InProcessMetricsRegistry();
+            Metrics.install(registry);
+            ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+            CountDownLatch release = new CountDownLatch(1);
+            try {
+                RecommendationService tracked = new RecommendationService();
+                // Blocks the ranking that reads it until released
+                Restaurant gate = new Restaurant("gate", "Gate") {
+                    @Override
+                    public int getReviewCount() {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return super.getReviewCount();
+                    }
+                };
+                gate.addReview(new Review("rg", "gate", 5, "Great"));
+                List<Restaurant> list = Arrays.asList(createRestaurant("1", CuisineType.JAPANESE, 25.0, 121.0),
+                        gate, createRestaurant("2", CuisineType.CHINESE, 25.0, 121.0));
+
+                List<Future<List<Restaurant>>> results = new ArrayList<>();
+                for (int i = 0; i < CALLERS; i++) {
+                    results.add(executor.submit(() -> tracked.getPopularRestaurants(list, 2)));
+                }
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (tracked.popularityWaiters(list, 2) < CALLERS - 1 && System.nanoTime() < deadline) {
+                    Thread.sleep(1);
+                }
+                release.countDown();
+
+                List<Restaurant> expected = List.of(list.get(1), list.get(0));
+                for (Future<List<Restaurant>> result : results) {
+                    List<Restaurant> ranked = result.get(10, TimeUnit.SECONDS);
+                    assertEquals(expected, ranked);
+                    // Each caller gets its own copy of the shared ranking
+                    ranked.clear();
+                }
+                MetricsSnapshot snapshot = registry.snapshot();
+                assertEquals(1, snapshot.getCounter("recommendation.popular.flights.computations"));
+                assertEquals(CALLERS - 1, snapshot.getCounter("recommendation.popular.flights.coalesced"));
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+                Metrics.reset();
+            }
+        }
+    }
+
     @Nested
     @DisplayName("Proximity Search")
     class ProximitySearch {
@@ -896,4 +990,114 @@ class RecommendationServiceTest {
             assertFalse(result.isEmpty());
         }
     }
+
+    @Nested
+    @DisplayName("Parallel Scoring")
+    class ParallelScoring {
+        private List<Restaurant> createCatalog(int size) {
+            java.util.Random random = new java.util.Random(42);
+            CuisineType[] cuisines = CuisineType.values();
+            List<Restaurant> list = new java.util.ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                Restaurant r = createRestaurant(String.format("%05d", i), cuisines[random.nextInt(cuisines.length)],
+                        25.0 + random.nextDouble() * 0.1, 121.5 + random.nextDouble() * 0.1);
+                r.setPriceLevel(1 + random.nextInt(4));
+                r.setHasParking(random.nextBoolean());
+                r.addReview(new Review("x" + i, r.getId(), 1 + random.nextInt(5), "Ok"));
+                list.add(r);
+            }
+            return list;
+        }
+
+        @Test
+        @DisplayName("平行與循序評分結果一致")
+        void parallelScoring_MatchesSequential() {
+            List<Restaurant> catalog = createCatalog(5000);
+            UserPreferences prefs = new UserPreferences();
+            prefs.addFavoriteCuisine(CuisineType.JAPANESE);
+            prefs.addDislikedCuisine(CuisineType.CHINESE);
+            prefs.setUserLocation(new Location(25.05, 121.55));
+
+            java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+            try {
+                RecommendationService parallel = new RecommendationService(
+                        new RatingService(), new PriceAnalyzer(), pool, 1);
+                RecommendationService sequential = new RecommendationService(
+                        new RatingService(), new PriceAnalyzer(), null, 1);
+
+                assertEquals(sequential.recommendByPreferences(prefs, catalog),
+                        parallel.recommendByPreferences(prefs, catalog));
+                assertEquals(sequential.recommendByPreferences(prefs, catalog, 25),
+                        parallel.recommendByPreferences(prefs, catalog, 25));
+                assertEquals(sequential.getTopPicks(catalog, new Location(25.05, 121.55), 50),
+                        parallel.getTopPicks(catalog, new Location(25.05, 121.55), 50));
+                assertEquals(sequential.recommendSimilar(catalog.get(0), catalog),
+                        parallel.recommendSimilar(catalog.get(0), catalog));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("同分時依 id 排序")
+        void scoring_TiesBrokenById() {
+            Restaurant r1 = createRestaurant("b", CuisineType.JAPANESE, 25.0, 121.0);
+            Restaurant r2 = createRestaurant("a", CuisineType.JAPANESE, 25.0, 121.0);
+            Restaurant r3 = createRestaurant("c", CuisineType.JAPANESE, 25.0, 121.0);
+            List<Restaurant> list = Arrays.asList(r1, r2, r3);
+
+            List<Restaurant> result = service.recommendByPreferences(new UserPreferences(), list);
+            assertEquals(Arrays.asList(r2, r1, r3), result);
+            assertEquals(Arrays.asList(r2, r1), service.getTopPicks(list, null, 2));
+        }
+
+        @Test
+        @DisplayName("recommendByPreferences - 限制筆數")
+        void recommendByPreferences_WithLimit() {
+            List<Restaurant> catalog = createCatalog(30);
+            assertEquals(5, service.recommendByPreferences(new UserPreferences(), catalog, 5).size());
+            assertEquals(10, service.recommendByPreferences(new UserPreferences(), catalog, 0).size());
+            assertEquals(3, service.recommendByPreferences(null, catalog, 3).size());
+        }
+
+        @Test
+        @DisplayName("getTopPicks - 支援非隨機存取列表")
+        void getTopPicks_LinkedList() {
+            List<Restaurant> list = new java.util.LinkedList<>(createCatalog(10));
+            assertEquals(3, service.getTopPicks(list, null, 3).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Collaborative Blending")
+    class CollaborativeBlending {
+        private Review like(String userId, String restaurantId) {
+            Review review = new Review(userId + restaurantId, restaurantId, 5, "Great");
+            review.setUserId(userId);
+            return review;
+        }
+
+        @Test
+        @DisplayName("共同喜好的餐廳排名提升")
+        void recommendByPreferences_BoostsCoLikedRestaurants() {
+            Restaurant r1 = createRestaurant("1", CuisineType.JAPANESE, 25.0, 121.5);
+            Restaurant r2 = createRestaurant("2", CuisineType.JAPANESE, 25.0, 121.5);
+            Restaurant r3 = createRestaurant("3", CuisineType.JAPANESE, 25.0, 121.5);
+            ItemCooccurrenceModel model = new ItemCooccurrenceModel();
+            model.addReview(like("alice", "1"));
+            model.addReview(like("alice", "3"));
+            model.addReview(like("bob", "1"));
+
+            UserPreferences prefs = new UserPreferences();
+            prefs.setUserId("bob");
+            List<Restaurant> candidates = List.of(r1, r2, r3);
+            assertEquals(List.of(r1, r2, r3), service.recommendByPreferences(prefs, candidates));
+
+            service.setCollaborativeModel(model);
+            assertEquals(r3, service.recommendByPreferences(prefs, candidates).get(0));
+
+            prefs.setUserId(null);
+            assertEquals(List.of(r1, r2, r3), service.recommendByPreferences(prefs, candidates));
+        }
+    }
 }
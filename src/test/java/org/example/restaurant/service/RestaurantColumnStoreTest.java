@@ -0,0 +1,273 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantColumnStoreTest {
+
+    private RestaurantRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RestaurantRepository();
+    }
+
+    private Restaurant createRestaurant(String id, int priceLevel, double averagePrice, int... ratings) {
+        Restaurant restaurant = new Restaurant(id, "Restaurant " + id);
+        restaurant.setActive(true);
+        restaurant.setPriceLevel(priceLevel);
+        restaurant.setAveragePrice(averagePrice);
+        restaurant.setLocation(new Location(25.0, 121.5, "Address", "台北市"));
+        for (int i = 0; i < ratings.length; i++) {
+            restaurant.addReview(new Review(id + "-" + i, id, ratings[i], "Review"));
+        }
+        return restaurant;
+    }
+
+    private void createCatalog(int size) {
+        Random random = new Random(9);
+        for (int i = 0; i < size; i++) {
+            int[] ratings = new int[random.nextInt(6)];
+            for (int k = 0; k < ratings.length; k++) {
+                ratings[k] = 1 + random.nextInt(5);
+            }
+            Restaurant r = createRestaurant(String.format("%03d", i), random.nextInt(5),
+                    random.nextInt(4) == 0 ? 0 : 100 + random.nextInt(1200), ratings);
+            r.setActive(random.nextInt(8) != 0);
+            r.setHasDelivery(random.nextBoolean());
+            r.setHasParking(random.nextBoolean());
+            repository.save(r);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scans")
+    class Scans {
+        @Test
+        @DisplayName("價格統計與 PriceAnalyzer 一致")
+        void priceStatistics_MatchesPriceAnalyzer() {
+            createCatalog(300);
+            RestaurantColumnStore store = new RestaurantColumnStore(repository);
+
+            PriceAnalyzer.PriceStatistics expected = new PriceAnalyzer().calculatePriceStatistics(repository.findAll());
+            PriceAnalyzer.PriceStatistics actual = store.priceStatistics();
+            assertEquals(expected.count, actual.count);
+            assertEquals(expected.min, actual.min);
+            assertEquals(expected.max, actual.max);
+            assertEquals(expected.average, actual.average, 1e-6);
+            assertEquals(expected.median, actual.median);
+            assertEquals(300, store.size());
+        }
+
+        @Test
+        @DisplayName("空資料的統計")
+        void scans_Empty() {
+            RestaurantColumnStore store = new RestaurantColumnStore(repository);
+
+            assertEquals(0, store.priceStatistics().count);
+            assertArrayEquals(new int[5], store.priceLevelHistogram());
+            assertTrue(store.topRated(5, 0).isEmpty());
+            assertTrue(store.topRated(0, 0).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> new RestaurantColumnStore(null));
+        }
+
+        @Test
+        @DisplayName("價格等級與評分分布")
+        void histograms_CountActiveRestaurants() {
+            repository.save(createRestaurant("1", 1, 150, 5, 5));
+            repository.save(createRestaurant("2", 1, 150, 3));
+            repository.save(createRestaurant("3", 0, 800, 1));
+            repository.save(createRestaurant("4", 2, 300));
+            Restaurant inactive = createRestaurant("5", 4, 2000, 5);
+            inactive.setActive(false);
+            repository.save(inactive);
+            RestaurantColumnStore store = new RestaurantColumnStore(repository);
+
+            assertArrayEquals(new int[] { 0, 2, 1, 1, 0 }, store.priceLevelHistogram());
+            assertArrayEquals(new int[] { 1, 0, 1, 0, 1 }, store.ratingDistribution());
+        }
+
+        @Test
+        @DisplayName("特徵與範圍篩選")
+        void findWithFeaturesAndCountInBox() {
+            Restaurant both = createRestaurant("1", 1, 100);
+            both.setHasDelivery(true);
+            both.setHasParking(true);
+            Restaurant delivery = createRestaurant("2", 1, 100);
+            delivery.setHasDelivery(true);
+            delivery.setLocation(new Location(22.6, 120.3, "Address", "高雄市"));
+            Restaurant none = createRestaurant("3", 1, 100);
+            none.setLocation(null);
+            repository.save(both);
+            repository.save(delivery);
+            repository.save(none);
+            RestaurantColumnStore store = new RestaurantColumnStore(repository);
+
+            assertEquals(List.of(both), store.findWithFeatures(
+                    RestaurantFeatureVectors.FEATURE_DELIVERY | RestaurantFeatureVectors.FEATURE_PARKING));
+            assertEquals(2, store.findWithFeatures(RestaurantFeatureVectors.FEATURE_DELIVERY).size());
+            assertEquals(3, store.findWithFeatures(0).size());
+            assertEquals(1, store.countInBox(24.5, 121.0, 25.5, 122.0));
+            assertEquals(2, store.countInBox(20, 119, 26, 123));
+        }
+
+        @Test
+        @DisplayName("最高評分依評分、評論數、ordinal 排序")
+        void topRated_OrdersByRatingThenCount() {
+            repository.save(createRestaurant("a", 1, 100, 4));
+            repository.save(createRestaurant("b", 1, 100, 5));
+            repository.save(createRestaurant("c", 1, 100, 4, 4));
+            repository.save(createRestaurant("d", 1, 100, 4));
+            repository.save(createRestaurant("e", 1, 100, 3, 3, 3));
+            RestaurantColumnStore store = new RestaurantColumnStore(repository);
+
+            assertEquals(List.of("b", "c", "a", "d"), store.topRated(4, 0).stream().map(Restaurant::getId).toList());
+            assertEquals(List.of("c", "e"), store.topRated(10, 2).stream().map(Restaurant::getId).toList());
+            assertEquals(5, store.topRated(10, 0).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Service Routing")
+    class ServiceRouting {
+        @Test
+        @DisplayName("設定欄位式儲存後，價格與評分掃描結果不變")
+        void servicesWithStore_MatchObjectScans() {
+            createCatalog(300);
+            RatingService ratingService = new RatingService();
+            PriceAnalyzer priceAnalyzer = new PriceAnalyzer();
+            RestaurantColumnStore store = new RestaurantColumnStore(repository, ratingService, priceAnalyzer);
+            RatingService plainRating = new RatingService();
+            PriceAnalyzer plainPrice = new PriceAnalyzer();
+            List<Restaurant> all = repository.findAll();
+            List<Restaurant> subset = new ArrayList<>(all.subList(40, 120));
+            subset.add(null);
+            ratingService.setColumnStore(store);
+            priceAnalyzer.setColumnStore(store);
+
+            for (List<Restaurant> list : List.of(all, subset)) {
+                PriceAnalyzer.PriceStatistics expected = plainPrice.calculatePriceStatistics(list);
+                PriceAnalyzer.PriceStatistics actual = priceAnalyzer.calculatePriceStatistics(list);
+                assertEquals(expected.toString(), actual.toString());
+                for (int level = 1; level <= 4; level++) {
+                    assertEquals(plainPrice.filterByPriceLevel(list, level), priceAnalyzer.filterByPriceLevel(list, level));
+                }
+                assertEquals(plainRating.filterByRatingRange(list, 3.0, 4.5),
+                        ratingService.filterByRatingRange(list, 3.0, 4.5));
+                assertEquals(plainRating.filterByRatingRange(list, null, 2.0),
+                        ratingService.filterByRatingRange(list, null, 2.0));
+                assertEquals(plainRating.getTopRatedRestaurants(list, 25), ratingService.getTopRatedRestaurants(list, 25));
+            }
+            assertNotNull(store.priceStatistics(subset));
+        }
+
+        @Test
+        @DisplayName("清單含未儲存的餐廳時改為逐一計算")
+        void unstoredRestaurants_FallBack() {
+            repository.save(createRestaurant("1", 1, 150, 4));
+            RatingService ratingService = new RatingService();
+            PriceAnalyzer priceAnalyzer = new PriceAnalyzer();
+            RestaurantColumnStore store = new RestaurantColumnStore(repository, ratingService, priceAnalyzer);
+            ratingService.setColumnStore(store);
+            priceAnalyzer.setColumnStore(store);
+            Restaurant copy = createRestaurant("1", 3, 700, 5);
+            List<Restaurant> list = List.of(repository.getById("1"), copy, createRestaurant("2", 2, 300, 2));
+
+            assertNull(store.priceStatistics(list));
+            assertNull(store.filterByPriceLevel(list, 3));
+            assertNull(store.filterByRatingRange(list, 1.0, null));
+            assertNull(store.topRatedWeighted(list, 2));
+            assertEquals(3, priceAnalyzer.calculatePriceStatistics(list).count);
+            assertEquals(List.of(copy), priceAnalyzer.filterByPriceLevel(list, 3));
+            assertEquals(List.of(repository.getById("1"), copy), ratingService.filterByRatingRange(list, 3.5, null));
+            assertEquals(List.of(copy, repository.getById("1")), ratingService.getTopRatedRestaurants(list, 2));
+        }
+
+        @Test
+        @DisplayName("即將不再算近期的評論會在查詢時重新計算加權評分")
+        void agingReviews_AreReweighted() {
+            Restaurant aging = createRestaurant("a", 1, 100);
+            Restaurant steady = createRestaurant("b", 1, 100);
+            for (int i = 0; i < 5; i++) {
+                Review old = new Review("a-" + i, "a", i == 0 ? 5 : 3, "Review");
+                old.setCreatedAt(LocalDateTime.now().minusYears(1));
+                aging.addReview(old);
+                Review recent = new Review("b-" + i, "b", 4, "Review");
+                recent.setCreatedAt(LocalDateTime.now().minusMonths(6).plusDays(1));
+                steady.addReview(recent);
+            }
+            aging.getReviews().get(0).setCreatedAt(LocalDateTime.now().minusMonths(6).plusDays(1));
+            repository.save(aging);
+            repository.save(steady);
+            RatingService ratingService = new RatingService();
+            RestaurantColumnStore store = new RestaurantColumnStore(repository, ratingService, new PriceAnalyzer());
+            List<Restaurant> all = repository.findAll();
+
+            List<Restaurant> expected = new RatingService().getTopRatedRestaurants(all, 2);
+            ratingService.setColumnStore(store);
+            assertEquals(expected, ratingService.getTopRatedRestaurants(all, 2));
+            assertEquals(expected, ratingService.getTopRatedRestaurants(all, 2));
+        }
+
+        @Test
+        @DisplayName("只篩選設施的搜尋從特徵欄位開始")
+        void featureSearch_StartsFromColumns() {
+            createCatalog(200);
+            RestaurantSearchService plain = new RestaurantSearchService(repository);
+            RestaurantSearchService columnar = new RestaurantSearchService(repository);
+            columnar.setColumnStore(new RestaurantColumnStore(repository));
+            SearchCriteria criteria = new SearchCriteria().hasDelivery(true).hasParking(true)
+                    .sortBy(SearchCriteria.SortType.NAME).limit(500);
+
+            List<Restaurant> expected = plain.searchByMultipleCriteria(criteria);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, columnar.searchByMultipleCriteria(criteria));
+            SearchCriteria byCity = new SearchCriteria().city("台北").hasDelivery(true)
+                    .sortBy(SearchCriteria.SortType.NAME).limit(500);
+            assertEquals(plain.searchByMultipleCriteria(byCity), columnar.searchByMultipleCriteria(byCity));
+        }
+    }
+
+    @Nested
+    @DisplayName("Maintenance")
+    class Maintenance {
+        @Test
+        @DisplayName("儲存、刪除與清除後同步更新")
+        void repositoryChanges_AreReflected() {
+            RestaurantColumnStore store = new RestaurantColumnStore(repository);
+            Restaurant r1 = createRestaurant("1", 1, 100, 2);
+            repository.save(r1);
+            repository.save(createRestaurant("2", 1, 100, 4));
+            assertEquals("2", store.topRated(1, 0).get(0).getId());
+
+            r1.addReview(new Review("extra1", "1", 5, "Better"));
+            r1.addReview(new Review("extra2", "1", 5, "Better"));
+            r1.addReview(new Review("extra3", "1", 5, "Better"));
+            store.update(r1);
+            assertEquals("1", store.topRated(1, 0).get(0).getId());
+
+            repository.delete("1");
+            assertEquals(1, store.size());
+            assertEquals("2", store.topRated(1, 0).get(0).getId());
+            store.update(r1);
+            store.update(null);
+            assertEquals(1, store.size());
+
+            repository.deleteAll();
+            assertEquals(0, store.size());
+            repository.save(createRestaurant("3", 2, 300, 5));
+            assertArrayEquals(new int[] { 0, 0, 1, 0, 0 }, store.priceLevelHistogram());
+        }
+    }
+}
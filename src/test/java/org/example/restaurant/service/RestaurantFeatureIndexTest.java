@@ -0,0 +1,151 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.IdDictionary;
+import org.example.restaurant.repository.PersistentRestaurantRepository;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RestaurantFeatureIndex 測試類別
+ */
+class RestaurantFeatureIndexTest {
+
+    private final RatingService ratingService = new RatingService();
+    private final PriceAnalyzer priceAnalyzer = new PriceAnalyzer();
+    private RecommendationService exact;
+    private RecommendationService indexed;
+    private UserPreferences prefs;
+
+    @BeforeEach
+    void setUp() {
+        exact = new RecommendationService(ratingService, priceAnalyzer);
+        indexed = new RecommendationService(ratingService, priceAnalyzer);
+        prefs = new UserPreferences();
+        prefs.addFavoriteCuisine(CuisineType.JAPANESE);
+        prefs.addDislikedCuisine(CuisineType.AMERICAN);
+        prefs.setMaxPriceLevel(3);
+        prefs.setPreferDelivery(true);
+        prefs.setUserLocation(new Location(25.03, 121.56, "Road", "台北市"));
+    }
+
+    private static Restaurant restaurant(String id, CuisineType cuisine, int rating) {
+        Restaurant restaurant = new Restaurant(id, "Restaurant " + id, cuisine,
+                new Location(25.03, 121.56, "Road", "台北市"));
+        restaurant.addReview(new Review(id + "-v0", id, rating, "Ok"));
+        return restaurant;
+    }
+
+    private static List<String> ids(List<Restaurant> restaurants) {
+        List<String> ids = new ArrayList<>();
+        for (Restaurant restaurant : restaurants) {
+            ids.add(restaurant.getId());
+        }
+        return ids;
+    }
+
+    @Nested
+    @DisplayName("Recommendations")
+    class RecommendationTests {
+
+        @Test
+        @DisplayName("使用索引的推薦應與逐次計算相同")
+        void indexedShouldMatchExact() {
+            RestaurantRepository repository = new RestaurantRepository();
+            new SyntheticDataGenerator(11L).populate(repository, 2000);
+            indexed.setFeatureIndex(RestaurantFeatureIndex.attach(repository, ratingService, priceAnalyzer));
+            List<Restaurant> catalog = repository.findAll();
+
+            assertEquals(ids(exact.recommendByPreferences(prefs, catalog, 50)),
+                    ids(indexed.recommendByPreferences(prefs, catalog, 50)));
+            List<Restaurant> subset = catalog.subList(100, 700);
+            assertEquals(ids(exact.recommendByPreferences(prefs, subset, 20)),
+                    ids(indexed.recommendByPreferences(prefs, subset, 20)));
+        }
+
+        @Test
+        @DisplayName("不在索引中的候選餐廳應逐次計算")
+        void unindexedCandidatesShouldBeDerived() {
+            RestaurantRepository repository = new RestaurantRepository();
+            repository.save(restaurant("r1", CuisineType.CHINESE, 5));
+            RestaurantFeatureIndex index = RestaurantFeatureIndex.attach(repository, ratingService, priceAnalyzer);
+            indexed.setFeatureIndex(index);
+            Restaurant outsider = restaurant("r2", CuisineType.JAPANESE, 5);
+            Restaurant inactive = restaurant("r3", CuisineType.JAPANESE, 5);
+            inactive.setActive(false);
+            List<Restaurant> candidates = new ArrayList<>();
+            candidates.add(repository.getById("r1"));
+            candidates.add(outsider);
+            candidates.add(null);
+            candidates.add(inactive);
+            candidates.add(new Restaurant(null, "No id"));
+
+            RestaurantFeatureIndex.Candidates resolved = index.candidates(candidates);
+            assertEquals(2, resolved.derivedCount());
+            assertEquals(ids(exact.recommendByPreferences(prefs, candidates)),
+                    ids(indexed.recommendByPreferences(prefs, candidates)));
+            assertEquals(List.of("r2", "r1"), ids(indexed.recommendByPreferences(prefs, candidates)).subList(0, 2));
+        }
+    }
+
+    @Nested
+    @DisplayName("Repository Events")
+    class EventTests {
+
+        @Test
+        @DisplayName("應跟隨儲存、評論與刪除更新")
+        void shouldFollowRepositoryChanges() {
+            RestaurantRepository repository = new PersistentRestaurantRepository();
+            repository.save(restaurant("r1", CuisineType.JAPANESE, 2));
+            repository.save(restaurant("r2", CuisineType.JAPANESE, 4));
+            RestaurantFeatureIndex index = RestaurantFeatureIndex.attach(repository, ratingService, priceAnalyzer);
+            indexed.setFeatureIndex(index);
+            assertEquals(List.of("r2", "r1"), ids(indexed.recommendByPreferences(prefs, repository.findAll())));
+
+            // Each review stores a new copy, which must replace the indexed row
+            for (int i = 1; i <= 5; i++) {
+                repository.addReview("r1", new Review("r1-v" + i, "r1", 5, "Great"));
+            }
+            RestaurantFeatureIndex.Candidates resolved = index.candidates(repository.findAll());
+            assertEquals(0, resolved.derivedCount());
+            assertEquals(List.of("r1", "r2"), ids(indexed.recommendByPreferences(prefs, repository.findAll())));
+
+            Restaurant closed = restaurant("r2", CuisineType.JAPANESE, 4);
+            closed.setActive(false);
+            repository.save(closed);
+            assertEquals(1, index.size());
+            for (int i = 3; i < 40; i++) {
+                repository.save(restaurant("r" + i, CuisineType.CHINESE, 3));
+            }
+            repository.delete("r1");
+            assertEquals(37, index.size());
+            assertEquals(0, index.candidates(repository.findAll()).derivedCount());
+            assertEquals(ids(exact.recommendByPreferences(prefs, repository.findAll())),
+                    ids(indexed.recommendByPreferences(prefs, repository.findAll())));
+
+            repository.deleteAll();
+            assertEquals(0, index.size());
+        }
+
+        @Test
+        @DisplayName("null 參數應拋出例外")
+        void shouldRejectNullArguments() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> RestaurantFeatureIndex.attach(null, ratingService, priceAnalyzer));
+            IdDictionary ordinals = new IdDictionary();
+            assertThrows(IllegalArgumentException.class,
+                    () -> new RestaurantFeatureIndex(null, ratingService, priceAnalyzer));
+            assertThrows(IllegalArgumentException.class, () -> new RestaurantFeatureIndex(ordinals, null, priceAnalyzer));
+            assertThrows(IllegalArgumentException.class, () -> new RestaurantFeatureIndex(ordinals, ratingService, null));
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package org.example.restaurant.service;
 
+import org.example.restaurant.metrics.InProcessMetricsRegistry;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.MetricsSnapshot;
 import org.example.restaurant.model.*;
 import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -1044,4 +1048,74 @@ class RestaurantSearchServiceTest {
             assertEquals(searchService.getAllRestaurants().size(), result.size());
         }
     }
+
+    @Nested
+    @DisplayName("Metrics")
+    class MetricsTests {
+
+        private InProcessMetricsRegistry registry;
+
+        @BeforeEach
+        void installRegistry() {
+            registry = new InProcessMetricsRegistry();
+            Metrics.install(registry);
+            // Instruments register with the installed registry when the service is built
+            searchService = new RestaurantSearchService(repository);
+        }
+
+        @AfterEach
+        void resetRegistry() {
+            Metrics.reset();
+        }
+
+        @Test
+        @DisplayName("應記錄搜尋延遲與各篩選階段的候選數")
+        void shouldRecordLatencyAndStageCounts() {
+            SearchCriteria criteria = new SearchCriteria();
+            criteria.setCity("台北市");
+            criteria.setHasDelivery(true);
+            criteria.setMinRating(1.0);
+
+            List<Restaurant> result = searchService.searchByMultipleCriteria(criteria);
+
+            MetricsSnapshot snapshot = registry.snapshot();
+            assertEquals(1, snapshot.getTimer("search.searchByMultipleCriteria").getCount());
+            assertEquals(1, snapshot.getTimer("search.sortResults").getCount());
+            assertEquals(1, snapshot.getHistogram("search.criteria.rating.in").getCount());
+            long activeInCity = repository.findByCity("台北市").stream().filter(Restaurant::isActive).count();
+            assertEquals(activeInCity, snapshot.getHistogram("search.criteria.active.out").getMax());
+            assertEquals(activeInCity, snapshot.getHistogram("search.criteria.city.in").getMax());
+            assertEquals(result.size(), snapshot.getHistogram("search.criteria.delivery.out").getMax());
+            assertEquals(0, snapshot.getHistogram("search.criteria.keyword.in").getCount());
+        }
+
+        @Test
+        @DisplayName("應記錄縮小候選集合的比例")
+        void shouldRecordNarrowedRatio() {
+            SearchCriteria byCuisine = new SearchCriteria();
+            byCuisine.setCuisineType(CuisineType.JAPANESE);
+            SearchCriteria byFeature = new SearchCriteria();
+            byFeature.setHasParking(true);
+
+            searchService.searchByMultipleCriteria(byCuisine);
+            searchService.searchByMultipleCriteria(byFeature);
+            searchService.searchByMultipleCriteria(byFeature);
+            searchService.searchByMultipleCriteria(byFeature);
+
+            assertEquals(0.25, registry.snapshot().getHitRatio("search.criteria.narrowed"), 1e-9);
+        }
+
+        @Test
+        @DisplayName("停用時不應記錄任何資料")
+        void disabledMetricsShouldRecordNothing() {
+            Metrics.reset();
+            RestaurantSearchService untracked = new RestaurantSearchService(repository);
+
+            untracked.searchGlobal("sushi");
+            untracked.searchByMultipleCriteria(new SearchCriteria());
+
+            assertEquals(0, registry.snapshot().getTimer("search.searchGlobal").getCount());
+            assertEquals(0, registry.snapshot().getCounter("search.criteria.narrowed.misses"));
+        }
+    }
 }
@@ -0,0 +1,242 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.metrics.InProcessMetricsRegistry;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.MetricsSnapshot;
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SearchBatcher 測試類別
+ */
+class SearchBatcherTest {
+
+    private InProcessMetricsRegistry registry;
+    private RestaurantRepository repository;
+    private RestaurantSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InProcessMetricsRegistry();
+        Metrics.install(registry);
+        repository = new RestaurantRepository();
+        new SyntheticDataGenerator(11L).populate(repository, 300);
+        service = new RestaurantSearchService(repository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.reset();
+    }
+
+    // Criteria touching every filter stage, built from the generated catalog
+    private List<SearchCriteria> criteriaMix() {
+        Restaurant sample = repository.findAll().get(0);
+        String city = sample.getLocation().getCity();
+        String district = sample.getLocation().getDistrict();
+        double latitude = sample.getLocation().getLatitude();
+        double longitude = sample.getLocation().getLongitude();
+        return Arrays.asList(
+                new SearchCriteria(),
+                new SearchCriteria().city(city).sortBy(SearchCriteria.SortType.RATING).ascending(false),
+                new SearchCriteria().city(" " + city.toUpperCase() + " ").hasDelivery(true),
+                new SearchCriteria().district(district).sortBy(SearchCriteria.SortType.NAME),
+                new SearchCriteria().cuisineType(sample.getCuisineType()).minRating(3.0),
+                new SearchCriteria().addCuisineType(CuisineType.JAPANESE).addCuisineType(CuisineType.ITALIAN)
+                        .sortBy(SearchCriteria.SortType.PRICE),
+                new SearchCriteria().minRating(2.0).maxRating(4.0).sortBy(SearchCriteria.SortType.REVIEW_COUNT),
+                new SearchCriteria().priceLevel(2).hasParking(true),
+                new SearchCriteria().priceLevel(9),
+                new SearchCriteria().minPrice(100.0).maxPrice(400.0).acceptsReservations(true),
+                new SearchCriteria().minPrice(500.0).maxPrice(100.0),
+                new SearchCriteria().keyword("a").hasTakeout(true).limit(5).offset(3),
+                new SearchCriteria().nearLocation(latitude, longitude, 3.0),
+                new SearchCriteria().nearLocation(latitude, longitude, 10.0)
+                        .sortBy(SearchCriteria.SortType.DISTANCE),
+                new SearchCriteria().city(city).limit(4).offset(1000));
+    }
+
+    @Nested
+    @DisplayName("Shared Scan")
+    class SharedScanTests {
+
+        @Test
+        @DisplayName("批次搜尋結果應與逐一搜尋相同")
+        void searchAllShouldMatchSingleSearches() {
+            List<SearchCriteria> batch = criteriaMix();
+
+            List<List<Restaurant>> results = service.searchAll(batch);
+
+            assertEquals(batch.size(), results.size());
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(service.searchByMultipleCriteria(batch.get(i)), results.get(i), "criteria " + i);
+            }
+        }
+
+        @Test
+        @DisplayName("相同查詢應共用一次比對且各自分頁")
+        void identicalQueriesShouldShareOneSlot() {
+            SearchCriteria firstPage = new SearchCriteria().sortBy(SearchCriteria.SortType.NAME).limit(10);
+            SearchCriteria secondPage = new SearchCriteria().sortBy(SearchCriteria.SortType.NAME).limit(10).offset(10);
+
+            List<List<Restaurant>> results = service.searchAll(Arrays.asList(firstPage, secondPage, null));
+
+            assertEquals(service.searchByMultipleCriteria(firstPage), results.get(0));
+            assertEquals(service.searchByMultipleCriteria(secondPage), results.get(1));
+            assertEquals(service.getAllRestaurants(), results.get(2));
+            MetricsSnapshot snapshot = registry.snapshot();
+            assertEquals(1, snapshot.getHistogram("search.searchAll.queries").getMax());
+            assertEquals(3, snapshot.getHistogram("search.searchAll.batch").getMax());
+        }
+
+        @Test
+        @DisplayName("空批次應回傳空結果，null 應拋出例外")
+        void emptyAndNullBatches() {
+            assertTrue(service.searchAll(new ArrayList<>()).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> service.searchAll(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Batching")
+    class BatchingTests {
+
+        @Test
+        @DisplayName("批次滿時應立即在提交的執行緒上執行")
+        void fullBatchShouldRunOnSubmit() throws Exception {
+            try (SearchBatcher batcher = new SearchBatcher(service, Duration.ofHours(1), 3)) {
+                List<SearchCriteria> batch = criteriaMix().subList(0, 3);
+                List<CompletableFuture<List<Restaurant>>> futures = new ArrayList<>();
+                for (SearchCriteria criteria : batch) {
+                    futures.add(batcher.submit(criteria));
+                }
+
+                assertEquals(0, batcher.pendingCount());
+                for (int i = 0; i < batch.size(); i++) {
+                    assertTrue(futures.get(i).isDone());
+                    assertEquals(service.searchByMultipleCriteria(batch.get(i)), futures.get(i).get());
+                }
+                assertEquals(1, registry.snapshot().getCounter("search.batcher.full"));
+            }
+        }
+
+        @Test
+        @DisplayName("時間窗結束後應執行未滿的批次")
+        void partialBatchShouldRunAfterWindow() throws Exception {
+            try (SearchBatcher batcher = new SearchBatcher(service, Duration.ofMillis(5), 100)) {
+                SearchCriteria criteria = criteriaMix().get(1);
+
+                CompletableFuture<List<Restaurant>> future = batcher.submit(criteria);
+
+                assertEquals(service.searchByMultipleCriteria(criteria), future.get(10, TimeUnit.SECONDS));
+                assertEquals(1, registry.snapshot().getCounter("search.batcher.timed"));
+            }
+        }
+
+        @Test
+        @DisplayName("逾時的批次應在執行器上執行，被拒絕時改在計時執行緒上執行")
+        void timedBatchShouldRunOnExecutor() throws Exception {
+            List<String> threads = new CopyOnWriteArrayList<>();
+            RestaurantSearchService recording = new RestaurantSearchService(repository) {
+                @Override
+                public List<List<Restaurant>> searchAll(List<SearchCriteria> batch) {
+                    threads.add(Thread.currentThread().getName());
+                    return super.searchAll(batch);
+                }
+            };
+            Executor scans = task -> new Thread(task, "scan").start();
+            SearchCriteria criteria = criteriaMix().get(1);
+            try (SearchBatcher batcher = new SearchBatcher(recording, Duration.ofMillis(5), 100, scans)) {
+                assertEquals(service.searchByMultipleCriteria(criteria),
+                        batcher.submit(criteria).get(10, TimeUnit.SECONDS));
+            }
+            Executor rejecting = task -> {
+                throw new RejectedExecutionException("full");
+            };
+            try (SearchBatcher batcher = new SearchBatcher(recording, Duration.ofMillis(5), 100, rejecting)) {
+                assertEquals(service.searchByMultipleCriteria(criteria),
+                        batcher.submit(criteria).get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(List.of("scan", "search-batcher"), threads);
+            assertEquals(2, registry.snapshot().getCounter("search.batcher.timed"));
+        }
+
+        @Test
+        @DisplayName("提交後修改條件不應影響結果")
+        void criteriaShouldBeCopiedOnSubmit() {
+            try (SearchBatcher batcher = new SearchBatcher(service, Duration.ofHours(1), 10)) {
+                SearchCriteria criteria = new SearchCriteria().sortBy(SearchCriteria.SortType.NAME);
+                List<Restaurant> expected = service.searchByMultipleCriteria(criteria);
+
+                CompletableFuture<List<Restaurant>> future = batcher.submit(criteria);
+                criteria.setLimit(1);
+                batcher.close();
+
+                assertEquals(expected, future.join());
+            }
+        }
+
+        @Test
+        @DisplayName("關閉時應執行等待中的查詢並拒絕新查詢")
+        void closeShouldRunPendingAndRejectNew() {
+            SearchBatcher batcher = new SearchBatcher(service, Duration.ofHours(1), 10);
+            CompletableFuture<List<Restaurant>> future = batcher.submit(null);
+
+            batcher.close();
+
+            assertEquals(service.getAllRestaurants(), future.join());
+            assertThrows(IllegalStateException.class, () -> batcher.submit(new SearchCriteria()));
+        }
+
+        @Test
+        @DisplayName("批次失敗應傳遞給每個查詢")
+        void failureShouldReachEveryQuery() {
+            RestaurantSearchService failing = new RestaurantSearchService(repository) {
+                @Override
+                public List<List<Restaurant>> searchAll(List<SearchCriteria> batch) {
+                    throw new IllegalStateException("boom");
+                }
+            };
+            try (SearchBatcher batcher = new SearchBatcher(failing, Duration.ofHours(1), 2)) {
+                CompletableFuture<List<Restaurant>> first = batcher.submit(new SearchCriteria());
+                CompletableFuture<List<Restaurant>> second = batcher.submit(new SearchCriteria());
+
+                ExecutionException e = assertThrows(ExecutionException.class, first::get);
+                assertEquals("boom", e.getCause().getMessage());
+                assertTrue(second.isCompletedExceptionally());
+                batcher.submit(new SearchCriteria());
+                // Fills the next batch, which runs and fails on this thread
+                assertThrows(IllegalStateException.class, () -> batcher.search(new SearchCriteria()));
+            }
+        }
+
+        @Test
+        @DisplayName("不合法的參數應拋出例外")
+        void invalidArgumentsShouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> new SearchBatcher(null));
+            assertThrows(IllegalArgumentException.class, () -> new SearchBatcher(service, Duration.ZERO, 1));
+            assertThrows(IllegalArgumentException.class, () -> new SearchBatcher(service, Duration.ofMillis(1), 0));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new SearchBatcher(service, Duration.ofMillis(1), 1, null));
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.metrics.InProcessMetricsRegistry;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.MetricsSnapshot;
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SearchResultCache 測試類別
+ */
+class SearchResultCacheTest {
+
+    private RestaurantRepository repository;
+    private MutableClock clock;
+    private AtomicInteger loads;
+    private Function<SearchCriteria, List<Restaurant>> loader;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RestaurantRepository();
+        repository.save(createRestaurant("r1", "台北市"));
+        repository.save(createRestaurant("r2", "台中市"));
+        clock = new MutableClock(Instant.parse("2024-05-01T12:00:30Z"));
+        loads = new AtomicInteger();
+        RestaurantSearchService service = new RestaurantSearchService(repository);
+        // Loaders return the full result; the cache pages it
+        loader = criteria -> {
+            loads.incrementAndGet();
+            SearchCriteria all = criteria.normalized();
+            all.setOffset(0);
+            all.setLimit(Integer.MAX_VALUE);
+            return service.searchByMultipleCriteria(all);
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.reset();
+    }
+
+    private Restaurant createRestaurant(String id, String city) {
+        Restaurant restaurant = new Restaurant(id, "Restaurant " + id, CuisineType.TAIWANESE,
+                new Location(25.0, 121.5, "Address", city));
+        restaurant.setActive(true);
+        return restaurant;
+    }
+
+    private SearchCriteria city(String city) {
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setCity(city);
+        return criteria;
+    }
+
+    private SearchResultCache attach(int capacity) {
+        return SearchResultCache.attach(repository, capacity, SearchResultCache.DEFAULT_MAX_ORDINALS,
+                Duration.ofMinutes(5), clock);
+    }
+
+    @Nested
+    @DisplayName("Keys")
+    class KeyTests {
+
+        @Test
+        @DisplayName("等價條件正規化後應相等")
+        void equivalentCriteriaShouldNormalizeEqual() {
+            SearchCriteria first = city(" 台北市 ");
+            first.setKeyword("Noodle");
+            first.setHasDelivery(false);
+            first.setAscending(false);
+            SearchCriteria second = city("台北市");
+            second.setKeyword("noodle ");
+            second.setDistrict("  ");
+
+            assertNotEquals(first, second);
+            assertEquals(first.normalized(), second.normalized());
+            assertEquals(first.normalized().hashCode(), second.normalized().hashCode());
+        }
+
+        @Test
+        @DisplayName("價格等級應覆蓋價格區間")
+        void priceLevelShouldOverridePriceBounds() {
+            SearchCriteria first = new SearchCriteria();
+            first.setPriceLevel(2);
+            first.setMinPrice(100.0);
+            SearchCriteria second = new SearchCriteria();
+            second.setPriceLevel(2);
+
+            assertEquals(first.normalized(), second.normalized());
+        }
+
+        @Test
+        @DisplayName("分頁或排序不同應為不同鍵")
+        void pagingAndSortingShouldDistinguishKeys() {
+            SearchCriteria first = city("台北市");
+            SearchCriteria second = city("台北市");
+            second.setOffset(20);
+            SearchCriteria third = city("台北市");
+            third.setSortBy(SearchCriteria.SortType.RATING);
+
+            assertNotEquals(first.normalized(), second.normalized());
+            assertNotEquals(first.normalized(), third.normalized());
+        }
+
+        @Test
+        @DisplayName("快取後修改呼叫端條件不應影響鍵")
+        void mutatingCallerCriteriaShouldNotAffectEntry() {
+            SearchResultCache cache = attach(8);
+            SearchCriteria criteria = city("台北市");
+            cache.get(criteria, loader);
+            criteria.setCity("台中市");
+
+            assertEquals("r2", cache.get(criteria, loader).get(0).getId());
+            assertEquals("r1", cache.get(city("台北市"), loader).get(0).getId());
+            assertEquals(2, loads.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Lookups")
+    class LookupTests {
+
+        @Test
+        @DisplayName("相同條件第二次應命中快取")
+        void repeatedSearchShouldHit() {
+            SearchResultCache cache = attach(8);
+
+            List<Restaurant> first = cache.get(city("台北市"), loader);
+            List<Restaurant> second = cache.get(city("台北市 "), loader);
+
+            assertEquals(first, second);
+            assertEquals(1, loads.get());
+        }
+
+        @Test
+        @DisplayName("回傳的清單應可由呼叫端修改")
+        void returnedListsShouldBeCopies() {
+            SearchResultCache cache = attach(8);
+            cache.get(city("台北市"), loader);
+
+            cache.get(city("台北市"), loader).clear();
+
+            assertEquals(1, cache.get(city("台北市"), loader).size());
+        }
+
+        @Test
+        @DisplayName("不合法的參數應拋出例外")
+        void invalidArgumentsShouldThrow() {
+            Duration ttl = Duration.ofMinutes(1);
+            assertThrows(IllegalArgumentException.class, () -> SearchResultCache.attach(repository, 0, 10, ttl, clock));
+            assertThrows(IllegalArgumentException.class, () -> SearchResultCache.attach(repository, 8, 0, ttl, clock));
+            assertThrows(IllegalArgumentException.class,
+                    () -> SearchResultCache.attach(repository, 8, 10, Duration.ZERO, clock));
+            assertThrows(IllegalArgumentException.class, () -> SearchResultCache.attach(repository, 8, 10, ttl, null));
+            assertThrows(IllegalArgumentException.class, () -> SearchResultCache.attach(null));
+            assertThrows(IllegalArgumentException.class, () -> attach(8).get(null, loader));
+        }
+    }
+
+    @Nested
+    @DisplayName("Pagination")
+    class PaginationTests {
+
+        private SearchCriteria page(int offset) {
+            SearchCriteria criteria = new SearchCriteria();
+            criteria.setSortBy(SearchCriteria.SortType.NAME);
+            criteria.setOffset(offset);
+            criteria.setLimit(4);
+            return criteria;
+        }
+
+        @Test
+        @DisplayName("後續頁面應由同一視窗切出")
+        void laterPagesShouldBeSlicedFromOneWindow() {
+            for (int i = 3; i <= 10; i++) {
+                repository.save(createRestaurant(String.format("r%02d", i), "高雄市"));
+            }
+            RestaurantSearchService service = new RestaurantSearchService(repository);
+            SearchResultCache cache = attach(8);
+
+            for (int offset = 0; offset < 12; offset += 4) {
+                assertEquals(service.searchByMultipleCriteria(page(offset)), cache.get(page(offset), loader));
+            }
+            assertTrue(cache.get(page(12), loader).isEmpty());
+
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.size());
+            assertEquals(10, cache.ordinalCount());
+        }
+
+        @Test
+        @DisplayName("已刪除的餐廳不應出現在頁面中")
+        void deletedRestaurantsShouldNotBeServed() {
+            SearchResultCache cache = attach(8);
+            cache.get(page(0), loader);
+
+            repository.delete("r1");
+
+            assertEquals(1, cache.get(page(0), loader).size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Eviction")
+    class EvictionTests {
+
+        private SearchCriteria distinct(int i) {
+            SearchCriteria criteria = new SearchCriteria();
+            criteria.setMinPrice((double) i);
+            return criteria;
+        }
+
+        @Test
+        @DisplayName("容量滿時應淘汰，且不超過容量")
+        void shouldStayWithinCapacity() {
+            SearchResultCache cache = attach(5);
+            for (int i = 0; i < 20; i++) {
+                cache.get(distinct(i), loader);
+            }
+
+            assertEquals(5, cache.size());
+        }
+
+        @Test
+        @DisplayName("視窗總筆數應受限制")
+        void shouldStayWithinOrdinalBudget() {
+            SearchResultCache cache = SearchResultCache.attach(repository, 8, 3, Duration.ofMinutes(1), clock);
+
+            cache.get(new SearchCriteria(), loader); // 2 ordinals
+            cache.get(city("台北市"), loader); // 1 ordinal
+            cache.get(city("台中市"), loader); // 1 ordinal, evicts the first window
+
+            assertEquals(2, cache.size());
+            assertEquals(2, cache.ordinalCount());
+        }
+
+        @Test
+        @DisplayName("超過上限的視窗不應快取")
+        void oversizedWindowShouldNotBeStored() {
+            SearchResultCache cache = SearchResultCache.attach(repository, 8, 1, Duration.ofMinutes(1), clock);
+
+            assertEquals(2, cache.get(new SearchCriteria(), loader).size());
+
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        @DisplayName("命中過的條目應比一次性查詢保留更久")
+        void hitEntriesShouldOutliveOneOffQueries() {
+            SearchResultCache cache = attach(5);
+            cache.get(city("台北市"), loader);
+            cache.get(city("台北市"), loader); // promoted to the protected segment
+
+            for (int i = 0; i < 20; i++) {
+                cache.get(distinct(i), loader);
+            }
+            int before = loads.get();
+            cache.get(city("台北市"), loader);
+
+            assertEquals(before, loads.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Expiry")
+    class ExpiryTests {
+
+        @Test
+        @DisplayName("營業中條件應在下一分鐘失效")
+        void openNowEntriesShouldExpireAtMinuteBoundary() {
+            SearchResultCache cache = attach(8);
+            SearchCriteria criteria = city("台北市");
+            criteria.setOpenNow(true);
+            cache.get(criteria, loader);
+
+            clock.set(Instant.parse("2024-05-01T12:00:59.999Z"));
+            cache.get(criteria, loader);
+            assertEquals(1, loads.get());
+
+            clock.set(Instant.parse("2024-05-01T12:01:00Z"));
+            cache.get(criteria, loader);
+            assertEquals(2, loads.get());
+        }
+
+        @Test
+        @DisplayName("其他條目應在存活時間後失效")
+        void otherEntriesShouldExpireAfterTimeToLive() {
+            SearchResultCache cache = attach(8);
+            cache.get(city("台北市"), loader);
+
+            clock.set(Instant.parse("2024-05-01T12:05:29Z"));
+            cache.get(city("台北市"), loader);
+            assertEquals(1, loads.get());
+
+            clock.set(Instant.parse("2024-05-01T12:05:30Z"));
+            cache.get(city("台北市"), loader);
+            assertEquals(2, loads.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalidation")
+    class InvalidationTests {
+
+        @Test
+        @DisplayName("儲存餐廳只應清除相符城市與無城市條件的條目")
+        void saveShouldInvalidateMatchingCitiesOnly() {
+            SearchResultCache cache = attach(8);
+            cache.get(city("台北"), loader);
+            cache.get(city("台中市"), loader);
+            cache.get(new SearchCriteria(), loader);
+
+            repository.save(createRestaurant("r3", "台北市"));
+
+            assertEquals(2, cache.get(city("台北"), loader).size());
+            assertEquals(3, cache.get(new SearchCriteria(), loader).size());
+            assertEquals(1, cache.get(city("台中市"), loader).size());
+            assertEquals(5, loads.get());
+        }
+
+        @Test
+        @DisplayName("餐廳搬遷應清除舊城市的條目")
+        void movingRestaurantShouldInvalidatePreviousCity() {
+            SearchResultCache cache = attach(8);
+            cache.get(city("台中市"), loader);
+
+            repository.save(createRestaurant("r2", "高雄市"));
+
+            assertTrue(cache.get(city("台中市"), loader).isEmpty());
+        }
+
+        @Test
+        @DisplayName("新增評論、刪除與清空應使條目失效")
+        void reviewsDeletesAndClearsShouldInvalidate() {
+            SearchResultCache cache = attach(8);
+            SearchCriteria rated = city("台北市");
+            rated.setMinRating(4.0);
+            assertTrue(cache.get(rated, loader).isEmpty());
+
+            repository.addReview("r1", new Review("v1", "r1", 5, "Great"));
+            assertEquals(1, cache.get(rated, loader).size());
+
+            repository.delete("r1");
+            assertTrue(cache.get(rated, loader).isEmpty());
+
+            cache.get(new SearchCriteria(), loader);
+            repository.deleteAll();
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        @DisplayName("載入期間發生變更時不應寫入快取")
+        void loadOverlappingChangeShouldNotBeStored() {
+            SearchResultCache cache = attach(8);
+            cache.get(city("台北市"), criteria -> {
+                List<Restaurant> results = loader.apply(criteria);
+                repository.save(createRestaurant("r3", "台北市"));
+                return results;
+            });
+
+            assertEquals(0, cache.size());
+            assertEquals(2, cache.get(city("台北市"), loader).size());
+        }
+
+        @Test
+        @DisplayName("invalidateAll 應清除所有條目")
+        void invalidateAllShouldDropEverything() {
+            SearchResultCache cache = attach(8);
+            cache.get(city("台北市"), loader);
+
+            cache.invalidateAll();
+
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Service")
+    class ServiceTests {
+
+        @Test
+        @DisplayName("快取結果應與未快取的搜尋一致")
+        void cachedSearchShouldMatchUncachedSearch() {
+            RestaurantRepository catalog = new RestaurantRepository();
+            new SyntheticDataGenerator(7L).populate(catalog, 500);
+            RestaurantSearchService plain = new RestaurantSearchService(catalog);
+            RestaurantSearchService cached = new RestaurantSearchService(catalog);
+            cached.setResultCache(SearchResultCache.attach(catalog));
+            List<SearchCriteria> queries = new ArrayList<>();
+            for (String cityName : new String[] { "台北市", "台中", "高雄市" }) {
+                for (CuisineType type : new CuisineType[] { null, CuisineType.TAIWANESE, CuisineType.JAPANESE }) {
+                    SearchCriteria criteria = city(cityName);
+                    criteria.setCuisineType(type);
+                    criteria.setSortBy(SearchCriteria.SortType.RATING);
+                    criteria.setAscending(false);
+                    queries.add(criteria);
+                }
+            }
+
+            for (int round = 0; round < 2; round++) {
+                for (SearchCriteria criteria : queries) {
+                    assertEquals(plain.searchByMultipleCriteria(criteria), cached.searchByMultipleCriteria(criteria));
+                }
+                catalog.save(new SyntheticDataGenerator(8L).restaurant(1));
+            }
+        }
+
+        @Test
+        @DisplayName("應記錄命中率、淘汰與載入時間")
+        void shouldRecordMetrics() {
+            InProcessMetricsRegistry registry = new InProcessMetricsRegistry();
+            Metrics.install(registry);
+            SearchResultCache cache = attach(1);
+
+            cache.get(city("台北市"), loader);
+            cache.get(city("台北市"), loader);
+            cache.get(city("台中市"), loader);
+
+            MetricsSnapshot snapshot = registry.snapshot();
+            assertEquals(1.0 / 3, snapshot.getHitRatio("search.cache"), 1e-9);
+            assertEquals(1, snapshot.getCounter("search.cache.evictions"));
+            assertEquals(2, snapshot.getTimer("search.cache.load").getCount());
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
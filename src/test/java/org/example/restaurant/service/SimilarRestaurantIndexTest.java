@@ -0,0 +1,340 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.*;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SimilarRestaurantIndex 測試類別
+ */
+class SimilarRestaurantIndexTest {
+
+    private RestaurantRepository repository;
+    private RecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RestaurantRepository();
+        recommendationService = new RecommendationService();
+    }
+
+    private Restaurant createRestaurant(String id, CuisineType cuisine, String city, int priceLevel, int rating) {
+        Restaurant restaurant = new Restaurant(id, "Restaurant " + id);
+        restaurant.setCuisineType(cuisine);
+        restaurant.setLocation(new Location(24.15, 120.67, "Address", city));
+        restaurant.setActive(true);
+        restaurant.setPriceLevel(priceLevel);
+        restaurant.addReview(new Review("r" + id, id, rating, "Good"));
+        repository.save(restaurant);
+        return restaurant;
+    }
+
+    private void createCatalog(int size, String... cities) {
+        Random random = new Random(7);
+        CuisineType[] cuisines = { CuisineType.JAPANESE, CuisineType.CHINESE, CuisineType.TAIWANESE };
+        for (int i = 0; i < size; i++) {
+            Restaurant r = createRestaurant(String.format("%03d", i), cuisines[random.nextInt(cuisines.length)],
+                    cities[random.nextInt(cities.length)], 1 + random.nextInt(4), 1 + random.nextInt(5));
+            r.setHasDelivery(random.nextBoolean());
+            if (random.nextInt(4) == 0) {
+                r.addCuisineType(CuisineType.DESSERT);
+            }
+        }
+    }
+
+    private void assertMatchesExact(SimilarRestaurantIndex index) {
+        List<Restaurant> all = repository.findAll();
+        for (Restaurant r : all) {
+            if (!r.isActive()) {
+                continue;
+            }
+            assertEquals(recommendationService.recommendSimilar(r, all), index.recommendSimilar(r),
+                    "neighbours of " + r.getId());
+        }
+    }
+
+    @Nested
+    @DisplayName("Precomputed Lists")
+    class PrecomputedLists {
+        @Test
+        @DisplayName("同城市時與逐筆計算結果一致")
+        void refresh_SameCity_MatchesExact() {
+            createCatalog(60, "台中市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+
+            assertEquals(60, index.refresh());
+            assertMatchesExact(index);
+        }
+
+        @Test
+        @DisplayName("封鎖候選不足時也比較不同城市且菜系不同的餐廳")
+        void refresh_FewBlockedCandidates_ComparesEveryRestaurant() {
+            Restaurant r1 = createRestaurant("1", CuisineType.JAPANESE, "台中市", 2, 4);
+            Restaurant r2 = createRestaurant("2", CuisineType.CHINESE, "台北市", 2, 4);
+            Restaurant r3 = createRestaurant("3", CuisineType.JAPANESE, "台北市", 2, 4);
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+
+            assertEquals(List.of(r3, r2), index.recommendSimilar(r1));
+            assertMatchesExact(index);
+        }
+
+        @Test
+        @DisplayName("多城市多菜系時與逐筆計算結果一致")
+        void refresh_ManyCities_MatchesExact() {
+            createCatalog(400, "台中市", "台北市", "高雄市", "台南市", "新竹市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+
+            assertMatchesExact(index);
+            for (int i = 0; i < 40; i++) {
+                Restaurant r = repository.getById(String.format("%03d", i * 7));
+                r.setPriceLevel(1 + i % 4);
+                r.getLocation().setCity(i % 2 == 0 ? "花蓮縣" : "台北市");
+                repository.save(r);
+            }
+            index.refresh();
+            assertMatchesExact(index);
+        }
+
+        @Test
+        @DisplayName("未建立索引或 null 返回空列表")
+        void recommendSimilar_NotIndexed_ReturnsEmpty() {
+            Restaurant r1 = createRestaurant("1", CuisineType.JAPANESE, "台中市", 2, 4);
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+
+            assertTrue(index.recommendSimilar(r1).isEmpty());
+            assertTrue(index.recommendSimilar(null).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> new SimilarRestaurantIndex(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Incremental Refresh")
+    class IncrementalRefresh {
+        @Test
+        @DisplayName("無變更時不重新計算")
+        void refresh_NoChanges_RescoresNothing() {
+            createCatalog(20, "台中市", "台北市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+
+            assertEquals(0, index.refresh());
+        }
+
+        @Test
+        @DisplayName("評分、價格、城市變更後與重建結果一致")
+        void refresh_AfterChanges_MatchesRebuild() {
+            createCatalog(80, "台中市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+
+            Restaurant rated = repository.getById("005");
+            repository.addReview("005", new Review("extra", "005", 1, "Bad"));
+            repository.getById("010").setPriceLevel(4);
+            repository.save(repository.getById("010"));
+            repository.getById("020").getLocation().setCity("台北市");
+            repository.save(repository.getById("020"));
+            repository.getById("030").setActive(false);
+            repository.save(repository.getById("030"));
+            repository.delete("040");
+            createRestaurant("new", CuisineType.JAPANESE, "台中市", 2, 5);
+            assertFalse(index.isCurrent());
+
+            int rescored = index.refresh();
+            assertTrue(rescored < 80);
+            assertTrue(index.isCurrent());
+            assertMatchesExact(index);
+            assertTrue(index.recommendSimilar(repository.getById("030")).isEmpty());
+            assertFalse(index.recommendSimilar(rated).isEmpty());
+        }
+
+        @Test
+        @DisplayName("只重新計算經由儲存庫變更的餐廳")
+        void refresh_OnlyRepositoryChanges() {
+            createCatalog(30, "台中市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+
+            // Changed in place without an event: not seen
+            repository.getById("001").setPriceLevel(4);
+            assertEquals(0, index.refresh());
+            // Saved again with the same similarity attributes: nothing to re-score
+            repository.save(repository.getById("002"));
+            assertEquals(0, index.refresh());
+            repository.save(repository.getById("001"));
+            int rescored = index.refresh();
+            assertTrue(rescored >= 1 && rescored < 30);
+            assertMatchesExact(index);
+        }
+
+        @Test
+        @DisplayName("未啟用的新餐廳與未建立索引時關閉不影響清單")
+        void refresh_InactiveNewRestaurant_NothingToScore() {
+            createCatalog(10, "台中市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository, new RatingService(),
+                    new PriceAnalyzer(), 0);
+            index.close();
+            index.refresh();
+
+            Restaurant closed = new Restaurant("closed", "Closed", CuisineType.JAPANESE,
+                    new Location(24.15, 120.67, "Address", "台中市"));
+            closed.setActive(false);
+            repository.save(closed);
+            assertEquals(0, index.refresh());
+            assertTrue(index.isCurrent());
+            assertMatchesExact(index);
+        }
+
+        @Test
+        @DisplayName("清空儲存庫或關閉後重新建立")
+        void refresh_AfterClearOrClose_Rebuilds() {
+            createCatalog(20, "台中市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+
+            repository.deleteAll();
+            index.refresh();
+            assertTrue(index.isCurrent());
+            createCatalog(20, "台北市");
+            index.close();
+            assertFalse(index.isCurrent());
+            assertEquals(20, index.refresh());
+            assertMatchesExact(index);
+        }
+
+        @Test
+        @DisplayName("背景更新可啟動與關閉")
+        void startBackgroundRefresh_RefreshesAndCloses() throws Exception {
+            Restaurant r1 = createRestaurant("1", CuisineType.JAPANESE, "台中市", 2, 4);
+            Restaurant r2 = createRestaurant("2", CuisineType.JAPANESE, "台中市", 2, 4);
+            try (SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository)) {
+                index.startBackgroundRefresh(10, TimeUnit.MILLISECONDS);
+                index.startBackgroundRefresh(10, TimeUnit.MILLISECONDS);
+                long deadline = System.currentTimeMillis() + 5000;
+                while (index.recommendSimilar(r1).isEmpty() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(List.of(r2), index.recommendSimilar(r1));
+            }
+        }
+
+        @Test
+        @DisplayName("背景更新失敗時計數並在下次重建")
+        void refreshInBackground_Failure_CountsAndRebuilds() {
+            FailingRepository failing = new FailingRepository();
+            repository = failing;
+            createCatalog(20, "台中市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+
+            repository.save(repository.getById("001"));
+            failing.failing = true;
+            index.refreshInBackground();
+            assertEquals(1, index.getRefreshFailures());
+            assertFalse(index.isCurrent());
+
+            failing.failing = false;
+            assertTrue(index.recommendSimilar(repository.getById("002")).isEmpty());
+            index.refreshInBackground();
+            assertEquals(1, index.getRefreshFailures());
+            assertMatchesExact(index);
+        }
+    }
+
+    @Nested
+    @DisplayName("Recommendation Service")
+    class ServiceIntegration {
+        @Test
+        @DisplayName("設定索引後與逐筆計算結果一致")
+        void recommendSimilar_WithIndex_MatchesExact() {
+            createCatalog(300, "台中市", "台北市", "高雄市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+            RecommendationService indexed = new RecommendationService();
+            indexed.setSimilarIndex(index);
+            List<Restaurant> all = repository.findAll();
+
+            for (Restaurant r : all) {
+                List<Restaurant> exact = recommendationService.recommendSimilar(r, all);
+                assertEquals(exact, index.recommendSimilar(r, all, RecommendationService.MAX_SIMILAR));
+                assertEquals(exact, indexed.recommendSimilar(r, all), "neighbours of " + r.getId());
+            }
+        }
+
+        @Test
+        @DisplayName("索引無法確定結果時改用逐筆計算")
+        void recommendSimilar_IndexCannotTell_FallsBack() {
+            createCatalog(60, "台中市");
+            SimilarRestaurantIndex index = new SimilarRestaurantIndex(repository);
+            index.refresh();
+            RecommendationService indexed = new RecommendationService();
+            indexed.setSimilarIndex(index);
+            Restaurant reference = repository.getById("000");
+            List<Restaurant> all = new ArrayList<>(repository.findAll());
+            int limit = RecommendationService.MAX_SIMILAR;
+
+            // A neighbour missing from the candidates
+            List<Restaurant> subset = new ArrayList<>(all);
+            subset.remove(index.recommendSimilar(reference).get(0));
+            assertNull(index.recommendSimilar(reference, subset, limit));
+            assertEquals(recommendationService.recommendSimilar(reference, subset),
+                    indexed.recommendSimilar(reference, subset));
+
+            // Null and inactive candidates are skipped as by scoring
+            Restaurant closed = new Restaurant("closed", "Closed");
+            closed.setActive(false);
+            List<Restaurant> withSkipped = new ArrayList<>(all);
+            withSkipped.add(0, null);
+            withSkipped.add(1, closed);
+            assertEquals(recommendationService.recommendSimilar(reference, withSkipped),
+                    index.recommendSimilar(reference, withSkipped, limit));
+
+            // A candidate the index does not hold, and a reference copy
+            List<Restaurant> withOutsider = new ArrayList<>(all);
+            withOutsider.add(new Restaurant("outsider", "Outsider", CuisineType.JAPANESE,
+                    new Location(24.15, 120.67, "Address", "台中市")));
+            assertNull(index.recommendSimilar(reference, withOutsider, limit));
+            withOutsider.set(withOutsider.size() - 1, new Restaurant(null, "No id"));
+            assertNull(index.recommendSimilar(reference, withOutsider, limit));
+            assertEquals(recommendationService.recommendSimilar(reference, withOutsider),
+                    indexed.recommendSimilar(reference, withOutsider));
+            Restaurant copy = new Restaurant("000", "Copy", CuisineType.JAPANESE, reference.getLocation());
+            assertNull(index.recommendSimilar(copy, all, limit));
+            assertNull(index.recommendSimilar(new Restaurant(null, "No id"), all, limit));
+            assertTrue(index.recommendSimilar(new Restaurant(null, "No id")).isEmpty());
+            assertNull(index.recommendSimilar(reference, all, limit + 1));
+
+            // A change the index has not applied yet
+            repository.addReview("001", new Review("late", "001", 1, "Bad"));
+            assertNull(index.recommendSimilar(reference, all, limit));
+            assertEquals(recommendationService.recommendSimilar(reference, all),
+                    indexed.recommendSimilar(reference, all));
+            index.refresh();
+            assertNotNull(index.recommendSimilar(reference, all, limit));
+        }
+    }
+
+    private static final class FailingRepository extends RestaurantRepository {
+        volatile boolean failing;
+
+        @Override
+        public Optional<Restaurant> findById(String id) {
+            if (failing) {
+                throw new IllegalStateException("Storage unavailable");
+            }
+            return super.findById(id);
+        }
+    }
+}
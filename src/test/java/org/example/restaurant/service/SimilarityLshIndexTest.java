@@ -0,0 +1,197 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.model.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SimilarityLshIndex 測試類別
+ */
+class SimilarityLshIndexTest {
+
+    private static final String[] CITIES = { "台北市", "新北市", "台中市", "台南市", "高雄市", "新竹市", "基隆市", "嘉義市" };
+
+    private static List<Restaurant> catalog;
+    private static SimilarityLshIndex index;
+    private static final RecommendationService recommendationService = new RecommendationService();
+    private static final RatingService ratingService = new RatingService();
+    private static final PriceAnalyzer priceAnalyzer = new PriceAnalyzer();
+
+    @BeforeAll
+    static void setUp() {
+        catalog = createCatalog(5000, 11);
+        index = SimilarityLshIndex.build(catalog);
+    }
+
+    private static List<Restaurant> createCatalog(int size, long seed) {
+        Random random = new Random(seed);
+        CuisineType[] cuisines = CuisineType.values();
+        List<Restaurant> restaurants = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Restaurant r = new Restaurant(String.format("R%05d", i), "Restaurant " + i);
+            r.setCuisineType(cuisines[random.nextInt(cuisines.length)]);
+            if (random.nextInt(5) == 0) {
+                r.addCuisineType(cuisines[random.nextInt(cuisines.length)]);
+            }
+            r.setLocation(new Location(22 + random.nextDouble() * 3, 120 + random.nextDouble() * 2,
+                    "Address", CITIES[random.nextInt(CITIES.length)]));
+            r.setActive(true);
+            r.setPriceLevel(1 + random.nextInt(4));
+            r.setHasDelivery(random.nextBoolean());
+            r.setHasTakeout(random.nextBoolean());
+            r.setHasParking(random.nextBoolean());
+            r.addReview(new Review("v" + i, r.getId(), 1 + random.nextInt(5), "Review"));
+            restaurants.add(r);
+        }
+        return restaurants;
+    }
+
+    private static double score(Restaurant reference, Restaurant candidate) {
+        return SimilaritySignature.of(reference, ratingService, priceAnalyzer)
+                .similarityTo(SimilaritySignature.of(candidate, ratingService, priceAnalyzer));
+    }
+
+    /**
+     * Fraction of the exact neighbours matched by the approximate list. Ties at the
+     * exact list's lowest score are interchangeable, so a result counts as a hit
+     * when it scores at least as well as the exact neighbour at the same rank.
+     */
+    private static double recall(Restaurant reference, List<Restaurant> exact, List<Restaurant> approximate) {
+        if (exact.isEmpty()) {
+            return 1.0;
+        }
+        int hits = 0;
+        for (int rank = 0; rank < Math.min(exact.size(), approximate.size()); rank++) {
+            if (score(reference, approximate.get(rank)) >= score(reference, exact.get(rank)) - 1e-9) {
+                hits++;
+            }
+        }
+        return (double) hits / exact.size();
+    }
+
+    @Nested
+    @DisplayName("Index Construction")
+    class IndexConstruction {
+        @Test
+        @DisplayName("只索引營業中的餐廳")
+        void build_SkipsInactiveAndNull() {
+            List<Restaurant> list = new ArrayList<>(createCatalog(10, 3));
+            list.get(0).setActive(false);
+            list.add(null);
+
+            assertEquals(9, SimilarityLshIndex.build(list).size());
+        }
+
+        @Test
+        @DisplayName("無效參數拋出例外")
+        void build_InvalidArguments_Throws() {
+            assertThrows(IllegalArgumentException.class, () -> SimilarityLshIndex.build(null));
+            assertThrows(IllegalArgumentException.class, () -> SimilarityLshIndex.build(catalog,
+                    ratingService, priceAnalyzer, 0, 8, 0L));
+            assertThrows(IllegalArgumentException.class, () -> SimilarityLshIndex.build(catalog,
+                    ratingService, priceAnalyzer, 4, 31, 0L));
+        }
+
+        @Test
+        @DisplayName("特徵向量為固定長度")
+        void encode_FixedLength() {
+            SimilaritySignature signature = SimilaritySignature.of(catalog.get(0), ratingService, priceAnalyzer);
+            assertEquals(SimilarityLshIndex.DIMENSIONS, SimilarityLshIndex.encode(signature).length);
+        }
+    }
+
+    @Nested
+    @DisplayName("Approximate Search")
+    class ApproximateSearch {
+        @Test
+        @DisplayName("null 返回空列表")
+        void recommendSimilar_Null_ReturnsEmpty() {
+            assertTrue(index.recommendSimilar(null).isEmpty());
+            assertEquals(0, index.candidateCount(null, 1));
+        }
+
+        @Test
+        @DisplayName("結果不包含自己且依分數排序")
+        void recommendSimilar_ExcludesSelfAndSorted() {
+            Restaurant reference = catalog.get(42);
+            List<Restaurant> result = index.recommendSimilar(reference);
+
+            assertFalse(result.isEmpty());
+            assertTrue(result.size() <= RecommendationService.MAX_SIMILAR);
+            assertFalse(result.contains(reference));
+            for (int i = 1; i < result.size(); i++) {
+                assertTrue(score(reference, result.get(i - 1)) >= score(reference, result.get(i)));
+            }
+        }
+
+        @Test
+        @DisplayName("一位元多表格時涵蓋整個目錄，與精確結果一致")
+        void recommendSimilar_OneBitTables_MatchesExact() {
+            List<Restaurant> small = createCatalog(40, 5);
+            SimilarityLshIndex exhaustive = SimilarityLshIndex.build(small, ratingService, priceAnalyzer, 64, 1, 0L);
+            for (Restaurant reference : small) {
+                assertEquals(recommendationService.recommendSimilar(reference, small),
+                        exhaustive.recommendSimilar(reference));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Recommendation Service")
+    class ServiceIntegration {
+        @Test
+        @DisplayName("設定 LSH 後只回傳候選列表中的近似結果")
+        void recommendSimilar_WithLsh_UsesBuckets() {
+            RecommendationService approximate = new RecommendationService();
+            approximate.setSimilarityLsh(index);
+            Restaurant reference = catalog.get(7);
+
+            List<Restaurant> all = approximate.recommendSimilar(reference, catalog);
+            assertEquals(index.recommendSimilar(reference), all);
+            List<Restaurant> subset = new ArrayList<>(catalog);
+            subset.removeAll(all.subList(0, 3));
+            List<Restaurant> fromSubset = approximate.recommendSimilar(reference, subset);
+            assertFalse(fromSubset.isEmpty());
+            assertTrue(subset.containsAll(fromSubset));
+
+            approximate.setSimilarityLsh(null);
+            assertEquals(recommendationService.recommendSimilar(reference, subset),
+                    approximate.recommendSimilar(reference, subset));
+        }
+    }
+
+    @Nested
+    @DisplayName("Recall")
+    class Recall {
+        @Test
+        @DisplayName("探測更多表格時召回率提高且仍只計分部分餐廳")
+        void recall_ImprovesWithProbes() {
+            int queries = 200;
+            int[] probes = { 1, 8, index.getTables() };
+            double[] recall = new double[probes.length];
+            double[] scanned = new double[probes.length];
+
+            for (int q = 0; q < queries; q++) {
+                Restaurant reference = catalog.get(q * (catalog.size() / queries));
+                List<Restaurant> exact = recommendationService.recommendSimilar(reference, catalog);
+                for (int p = 0; p < probes.length; p++) {
+                    List<Restaurant> approximate = index.recommendSimilar(reference, probes[p]);
+                    recall[p] += recall(reference, exact, approximate) / queries;
+                    scanned[p] += (double) index.candidateCount(reference, probes[p]) / catalog.size() / queries;
+                }
+            }
+
+            assertTrue(recall[0] <= recall[1] && recall[1] <= recall[2]);
+            assertTrue(recall[2] >= 0.9, "recall with all tables: " + recall[2]);
+            assertTrue(scanned[2] < 0.5, "fraction scanned with all tables: " + scanned[2]);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.example.restaurant.service;
+
+import org.example.restaurant.data.SyntheticDataGenerator;
+import org.example.restaurant.metrics.InProcessMetricsRegistry;
+import org.example.restaurant.metrics.Metrics;
+import org.example.restaurant.metrics.MetricsSnapshot;
+import org.example.restaurant.model.Restaurant;
+import org.example.restaurant.model.SearchCriteria;
+import org.example.restaurant.repository.RestaurantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SingleFlight 測試類別
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private InProcessMetricsRegistry registry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InProcessMetricsRegistry();
+        Metrics.install(registry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        Metrics.reset();
+    }
+
+    // Start the leader, wait until every other caller has joined it, then release it
+    private List<Future<String>> runConcurrently(SingleFlight<String, String> flight, CountDownLatch release,
+            AtomicInteger computed, RuntimeException failure) throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> flight.execute("key", () -> {
+                computed.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return "value";
+            })));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (flight.waiters("key") < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        return results;
+    }
+
+    @Nested
+    @DisplayName("Coalescing")
+    class CoalescingTests {
+
+        @Test
+        @DisplayName("同時的相同請求應只計算一次並共用結果")
+        void concurrentCallsShouldShareOneComputation() throws Exception {
+            SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10));
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger computed = new AtomicInteger();
+
+            List<Future<String>> results = runConcurrently(flight, release, computed, null);
+            assertEquals(CALLERS - 1, flight.waiters("key"));
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, computed.get());
+            MetricsSnapshot snapshot = registry.snapshot();
+            assertEquals(1, snapshot.getCounter("test.computations"));
+            assertEquals(CALLERS - 1, snapshot.getCounter("test.coalesced"));
+        }
+
+        @Test
+        @DisplayName("完成後的請求應重新計算")
+        void laterCallsShouldComputeAgain() {
+            SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(1));
+            AtomicInteger computed = new AtomicInteger();
+
+            flight.execute("key", () -> "v" + computed.incrementAndGet());
+            assertEquals("v2", flight.execute("key", () -> "v" + computed.incrementAndGet()));
+            assertEquals(0, flight.waiters("key"));
+        }
+
+        @Test
+        @DisplayName("不同鍵不應互相等待")
+        void differentKeysShouldNotCoalesce() {
+            SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(1));
+
+            String outer = flight.execute("a", () -> flight.execute("b", () -> "inner") + "-outer");
+
+            assertEquals("inner-outer", outer);
+            assertEquals(0, registry.snapshot().getCounter("test.coalesced"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Failures And Timeouts")
+    class FailureTests {
+
+        @Test
+        @DisplayName("計算失敗應傳遞給所有等待者")
+        void failureShouldPropagateToWaiters() throws Exception {
+            SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10));
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger computed = new AtomicInteger();
+            IllegalStateException failure = new IllegalStateException("boom");
+
+            List<Future<String>> results = runConcurrently(flight, release, computed, failure);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                Exception e = assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+                assertSame(failure, e.getCause());
+            }
+            assertEquals(1, computed.get());
+            assertEquals("ok", flight.execute("key", () -> "ok"));
+        }
+
+        @Test
+        @DisplayName("等待逾時應自行計算")
+        void timedOutWaiterShouldComputeItself() throws Exception {
+            SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofMillis(20));
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<String> leader = executor.submit(() -> flight.execute("key", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            assertEquals("fast", flight.execute("key", () -> "fast"));
+            release.countDown();
+            assertEquals("slow", leader.get(10, TimeUnit.SECONDS));
+            assertEquals(1, registry.snapshot().getCounter("test.timeouts"));
+        }
+
+        @Test
+        @DisplayName("不合法的逾時應拋出例外")
+        void invalidTimeoutShouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> new SingleFlight<>("test", null));
+            assertThrows(IllegalArgumentException.class, () -> new SingleFlight<>("test", Duration.ZERO));
+        }
+    }
+
+    @Nested
+    @DisplayName("Services")
+    class ServiceTests {
+
+        @Test
+        @DisplayName("合併後的搜尋結果應可由呼叫端修改")
+        void searchResultsShouldBeCallerOwned() {
+            RestaurantRepository repository = new RestaurantRepository();
+            new SyntheticDataGenerator(3L).populate(repository, 100);
+            RestaurantSearchService service = new RestaurantSearchService(repository);
+            service.setCoalescingTimeout(Duration.ofSeconds(1));
+            SearchCriteria criteria = new SearchCriteria();
+            criteria.setSortBy(SearchCriteria.SortType.NAME);
+
+            List<Restaurant> first = service.searchByMultipleCriteria(criteria);
+            List<Restaurant> expected = new ArrayList<>(first);
+            first.clear();
+
+            assertEquals(expected, service.searchByMultipleCriteria(criteria));
+            assertEquals(2, registry.snapshot().getCounter("search.criteria.flights.computations"));
+        }
+
+        @Test
+        @DisplayName("合併後的熱門餐廳結果應可由呼叫端修改")
+        void popularResultsShouldBeCallerOwned() {
+            RestaurantRepository repository = new RestaurantRepository();
+            new SyntheticDataGenerator(3L).populate(repository, 100);
+            RecommendationService service = new RecommendationService();
+
+            List<Restaurant> first = service.getPopularRestaurants(repository.findAll(), 5);
+            first.clear();
+
+            assertEquals(5, service.getPopularRestaurants(repository.findAll(), 5).size());
+            assertEquals(2, registry.snapshot().getCounter("recommendation.popular.flights.computations"));
+        }
+    }
+}